@@ -35,6 +35,8 @@ import org.slf4j.LoggerFactory;
 import utils.teamcity.wallt.controller.api.ApiModule;
 import utils.teamcity.wallt.controller.api.ApiRequestModule;
 import utils.teamcity.wallt.controller.api.IApiMonitoringService;
+import utils.teamcity.wallt.controller.webhook.IWebhookReceiver;
+import utils.teamcity.wallt.controller.webhook.WebhookModule;
 import utils.teamcity.wallt.controller.configuration.ConfigurationController;
 import utils.teamcity.wallt.controller.configuration.ConfigurationModule;
 import utils.teamcity.wallt.model.build.BuildDataModule;
@@ -123,6 +125,7 @@ public final class WallApplication extends Application {
                 new ThreadingModule( ),
                 new ApiModule( ),
                 new ApiRequestModule( ),
+                new WebhookModule( ),
                 new BuildDataModule( ),
                 new ConfigurationModule( ),
                 new ConfigurationViewModule( ),
@@ -178,6 +181,7 @@ public final class WallApplication extends Application {
         LOGGER.info( "----\n" );
         _injector.getInstance( AsyncHttpClientConfig.class ).executorService( ).shutdownNow( );
         _injector.getInstance( AsyncHttpClient.class ).close( );
+        _injector.getInstance( IWebhookReceiver.class ).stop( );
 
         _executorService.shutdownNow( );
         _scheduledExecutorService.shutdownNow( );
@@ -0,0 +1,71 @@
+/*******************************************************************************
+ * Copyright 2014 Cedric Longo.
+ *
+ * This file is part of Wall-T program.
+ *
+ * Wall-T is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Wall-T is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with Wall-T.
+ * If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+
+package utils.teamcity.wallt.controller.api;
+
+import com.google.common.collect.ImmutableMap;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * States of api circuit breakers, posted on event bus each time circuits which are not closed change.
+ * While a circuit is not closed, data coming from the related requests is stale.
+ */
+public final class ApiCircuitStatus {
+
+    private final Map<String, CircuitState> _states;
+
+    ApiCircuitStatus( final Map<String, CircuitState> states ) {
+        _states = ImmutableMap.copyOf( states );
+    }
+
+    public boolean isDegraded( ) {
+        return !getDegradedCircuits( ).isEmpty( );
+    }
+
+    /**
+     * @return names of circuits which are not closed
+     */
+    public List<String> getDegradedCircuits( ) {
+        return _states.entrySet( ).stream( )
+                .filter( entry -> entry.getValue( ) != CircuitState.CLOSED )
+                .map( Map.Entry::getKey )
+                .collect( Collectors.toList( ) );
+    }
+
+    public CircuitState getState( final String circuit ) {
+        return _states.getOrDefault( circuit, CircuitState.CLOSED );
+    }
+
+    @Override
+    public boolean equals( final Object o ) {
+        if ( this == o ) return true;
+        if ( o == null || getClass( ) != o.getClass( ) ) return false;
+        return _states.equals( ( (ApiCircuitStatus) o )._states );
+    }
+
+    @Override
+    public int hashCode( ) {
+        return _states.hashCode( );
+    }
+
+    @Override
+    public String toString( ) {
+        return _states.toString( );
+    }
+}
@@ -0,0 +1,146 @@
+/*******************************************************************************
+ * Copyright 2014 Cedric Longo.
+ *
+ * This file is part of Wall-T program.
+ *
+ * Wall-T is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Wall-T is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with Wall-T.
+ * If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package utils.teamcity.wallt.controller.api;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.net.HttpHeaders;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import utils.teamcity.wallt.model.configuration.Configuration;
+import utils.teamcity.wallt.model.logger.Loggers;
+
+import javax.inject.Inject;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.util.concurrent.Futures.addCallback;
+
+/**
+ * Keeps warm the pooled connections to the server, so the first poll cycle, and the first one after a long idle period,
+ * do not pay name resolution and connection handshakes.
+ * Connections are opened by concurrent probes (cheap version requests) as soon as the service starts, again each time
+ * server or credentials change, and after each keep-alive period without any api request.
+ * Probes are not sent while the server circuit is not closed: only requests let through by the circuit breaker reach
+ * a failing server. Probes are sent through the request governor with the lowest priority, within the budget of api requests.
+ */
+final class ApiConnectionKeeper {
+
+    public static final Logger LOGGER = LoggerFactory.getLogger( Loggers.NETWORK );
+
+    static final Duration KEEP_ALIVE_PERIOD = Duration.ofSeconds( 30 );
+    static final String PROBE_PATH = "version";
+
+    private final ScheduledExecutorService _executorService;
+    private final Configuration _configuration;
+    private final IApiTransport _transport;
+    private final ApiConnectionStatistics _connectionStatistics;
+    private final CircuitBreakingApiRequestController _circuitBreakingRequestController;
+    private final GovernedApiRequestController _governedRequestController;
+
+    private ApiRequestContext _requestContext;
+    private long _requestCountAtLastCheck = -1;
+
+    @Inject
+    ApiConnectionKeeper( final ScheduledExecutorService executorService, final Configuration configuration, final IApiTransport transport, final ApiConnectionStatistics connectionStatistics, final CircuitBreakingApiRequestController circuitBreakingRequestController, final GovernedApiRequestController governedRequestController ) {
+        _executorService = executorService;
+        _configuration = configuration;
+        _transport = transport;
+        _connectionStatistics = connectionStatistics;
+        _circuitBreakingRequestController = circuitBreakingRequestController;
+        _governedRequestController = governedRequestController;
+    }
+
+    void start( ) {
+        _executorService.execute( this::keepAlive );
+        _executorService.scheduleWithFixedDelay( this::keepAlive, KEEP_ALIVE_PERIOD.getSeconds( ), KEEP_ALIVE_PERIOD.getSeconds( ), TimeUnit.SECONDS );
+    }
+
+    /**
+     * Probes the server when it has changed or when no api request was sent since last check, unless server circuit is not closed
+     *
+     * @return Future of the probes, completed immediately when no probe is needed
+     */
+    synchronized ListenableFuture<List<Integer>> keepAlive( ) {
+        if ( Strings.isNullOrEmpty( _configuration.getServerUrl( ) ) )
+            return Futures.immediateFuture( Lists.<Integer>newArrayList( ) );
+
+        final ApiRequestContext requestContext;
+        try {
+            requestContext = ApiRequestContext.upToDate( _requestContext, _configuration );
+        } catch ( Exception e ) {
+            LOGGER.debug( "Connections are not kept alive: {}", e.getMessage( ) );
+            return Futures.immediateFuture( Lists.<Integer>newArrayList( ) );
+        }
+
+        final CircuitState serverCircuitState = _circuitBreakingRequestController.getStatus( ).getState( CircuitBreakingApiRequestController.SERVER_CIRCUIT );
+        if ( serverCircuitState != CircuitState.CLOSED ) {
+            LOGGER.debug( "Connections are not kept alive: server circuit is {}", serverCircuitState );
+            return Futures.immediateFuture( Lists.<Integer>newArrayList( ) );
+        }
+
+        final boolean serverChanged = requestContext != _requestContext;
+        final boolean idle = _connectionStatistics.getRequestCount( ) == _requestCountAtLastCheck;
+        _requestContext = requestContext;
+
+        final ListenableFuture<List<Integer>> probes = serverChanged || idle ? probe( requestContext ) : Futures.immediateFuture( Lists.<Integer>newArrayList( ) );
+        _requestCountAtLastCheck = _connectionStatistics.getRequestCount( );
+        return probes;
+    }
+
+    /**
+     * Sends as many concurrent probes as connections that may be used by requests in flight
+     *
+     * @return Future of status code of each probe, failed probes are ignored
+     */
+    private ListenableFuture<List<Integer>> probe( final ApiRequestContext requestContext ) {
+        final ApiRequest request = requestContext.newRequest( _configuration.getApiVersion( ), PROBE_PATH, null );
+        final Map<String, String> headers = requestContext.getAuthorization( )
+                .map( authorization -> ImmutableMap.of( HttpHeaders.ACCEPT, "text/plain", HttpHeaders.AUTHORIZATION, authorization ) )
+                .orElse( ImmutableMap.of( HttpHeaders.ACCEPT, "text/plain" ) );
+
+        final int connectionCount = getWarmConnectionCount( );
+        final List<ListenableFuture<Integer>> probes = Lists.newArrayListWithCapacity( connectionCount );
+        for ( int i = 0; i < connectionCount; i++ )
+            probes.add( _governedRequestController.submit( ( ) -> Futures.transform( _transport.get( request, headers ), ApiTransportResponse::getStatusCode ), PROBE_PATH, ApiRequestPriority.IDLE ) );
+
+        final ListenableFuture<List<Integer>> probesFuture = Futures.successfulAsList( probes );
+        addCallback( probesFuture, new FutureCallback<List<Integer>>( ) {
+            @Override
+            public void onSuccess( final List<Integer> statusCodes ) {
+                LOGGER.debug( "Connections probed with status codes {}: {}", statusCodes, _connectionStatistics );
+            }
+
+            @Override
+            public void onFailure( final Throwable t ) {
+                LOGGER.debug( "Connections probes failed: {}", t.getMessage( ) );
+            }
+        } );
+        return probesFuture;
+    }
+
+    int getWarmConnectionCount( ) {
+        return Math.max( 1, Math.min( _configuration.getMaxRequestsInFlight( ), ApiModule.MAX_CONNECTIONS_PER_HOST ) );
+    }
+
+}
@@ -0,0 +1,92 @@
+/*******************************************************************************
+ * Copyright 2014 Cedric Longo.
+ *
+ * This file is part of Wall-T program.
+ *
+ * Wall-T is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Wall-T is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with Wall-T.
+ * If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package utils.teamcity.wallt.controller.api;
+
+import javax.inject.Inject;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Connections of the api http client: connections idle in pool, requests in flight (each one holding a connection
+ * once it is sent), and handshakes (new connections opened because no idle connection was available in pool).
+ */
+final class ApiConnectionStatistics {
+
+    private final Set<Object> _idleConnections = ConcurrentHashMap.newKeySet( );
+    private final AtomicInteger _inFlightCount = new AtomicInteger( );
+    private final AtomicLong _requestCount = new AtomicLong( );
+    private final AtomicLong _handshakeCount = new AtomicLong( );
+
+    @Inject
+    ApiConnectionStatistics( ) {
+    }
+
+    void requestStarted( ) {
+        _requestCount.incrementAndGet( );
+        _inFlightCount.incrementAndGet( );
+    }
+
+    void requestCompleted( ) {
+        _inFlightCount.decrementAndGet( );
+    }
+
+    void connectionReleased( final Object connection ) {
+        _idleConnections.add( connection );
+    }
+
+    void connectionReused( final Object connection ) {
+        _idleConnections.remove( connection );
+    }
+
+    void connectionOpened( ) {
+        _handshakeCount.incrementAndGet( );
+    }
+
+    void connectionClosed( final Object connection ) {
+        _idleConnections.remove( connection );
+    }
+
+    /**
+     * @return Estimate of open connections, each request in flight being counted as a connection
+     */
+    int getOpenCount( ) {
+        return getIdleCount( ) + getInFlightCount( );
+    }
+
+    int getIdleCount( ) {
+        return _idleConnections.size( );
+    }
+
+    int getInFlightCount( ) {
+        return _inFlightCount.get( );
+    }
+
+    long getHandshakeCount( ) {
+        return _handshakeCount.get( );
+    }
+
+    long getRequestCount( ) {
+        return _requestCount.get( );
+    }
+
+    @Override
+    public String toString( ) {
+        return String.format( "open: %d, idle: %d, in flight: %d, handshakes: %d, requests: %d", getOpenCount( ), getIdleCount( ), getInFlightCount( ), getHandshakeCount( ), getRequestCount( ) );
+    }
+
+}
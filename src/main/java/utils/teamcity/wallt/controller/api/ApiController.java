@@ -15,14 +15,22 @@
 
 package utils.teamcity.wallt.controller.api;
 
+import com.google.common.base.Strings;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import com.google.common.eventbus.EventBus;
+import com.google.common.util.concurrent.AsyncFunction;
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import utils.teamcity.wallt.controller.api.json.*;
@@ -31,11 +39,18 @@ import utils.teamcity.wallt.model.configuration.Configuration;
 import utils.teamcity.wallt.model.logger.Loggers;
 
 import javax.inject.Inject;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -50,9 +65,11 @@ import static com.google.common.util.concurrent.Futures.addCallback;
 final class ApiController implements IApiController {
 
     static final int MAX_BUILDS_TO_CONSIDER = 3;
+    static final int MAX_DELTA_BUILDS = 100;
+    static final int CATALOGUE_PAGE_SIZE = 500;
 
-    private static final int ERROR_COUNT_BEFORE_IGNORING = 2;
-    private static final int IGNORING_TIME_IN_MINUTES = 20;
+    static final Duration BUILD_RETRY_INITIAL_DELAY = Duration.ofMinutes( 1 );
+    static final Duration BUILD_RETRY_MAX_DELAY = Duration.ofMinutes( 20 );
 
     private static final Logger LOGGER = LoggerFactory.getLogger( Loggers.MAIN );
 
@@ -67,12 +84,21 @@ final class ApiController implements IApiController {
     private final Map<ApiVersion, Function<BuildType, BuildTypeData>> _buildTypeProvider;
     private final Map<ApiVersion, Function<Project, ProjectData>> _projectProvider;
 
-    // Build id -> error count
-    private final Cache<Integer, Integer> _buildRequestErrorCounter = CacheBuilder.newBuilder( )
+    // Build id -> failed request of its status, the build is not requested again until retry time
+    private final Backoff _buildRetryBackoff = new Backoff( BUILD_RETRY_INITIAL_DELAY, BUILD_RETRY_MAX_DELAY );
+    private final Cache<Integer, FailedBuildRequest> _failedBuildRequests = CacheBuilder.newBuilder( )
             .concurrencyLevel( Runtime.getRuntime( ).availableProcessors( ) * 2 )
-            .expireAfterWrite( IGNORING_TIME_IN_MINUTES, TimeUnit.MINUTES )
+            .expireAfterWrite( BUILD_RETRY_MAX_DELAY.toMinutes( ), TimeUnit.MINUTES )
             .build( );
 
+    // Server url -> highest build id received from this server by build delta
+    private final ConcurrentMap<String, Integer> _lastSeenBuildIds = new ConcurrentHashMap<>( );
+
+    // Build id -> build type id of builds in queue on last queue request
+    private volatile Map<Integer, String> _queuedBuilds = ImmutableMap.of( );
+    // Build types followed by delta which have a build leaving queue with an id lower than last seen build
+    private final Set<String> _buildTypesLeavingQueue = Sets.newConcurrentHashSet( );
+
     @Inject
     ApiController( final Configuration configuration, final IProjectManager projectManager, final IBuildTypeManager buildManager, final IApiRequestController apiRequestController, final EventBus eventBus, final ExecutorService executorService, final Map<ApiVersion, Function<Build, BuildData>> buildFunctionsByVersion, final Map<ApiVersion, Function<BuildType, BuildTypeData>> buildTypeProvider, final Map<ApiVersion, Function<Project, ProjectData>> projectProvider ) {
         _configuration = configuration;
@@ -95,6 +121,9 @@ final class ApiController implements IApiController {
         if ( !getApiVersion( ).isSupported( ApiFeature.PROJECT_STATUS, ApiFeature.BUILD_TYPE_STATUS ) )
             return Futures.immediateFuture( null );
 
+        if ( getApiVersion( ).isSupported( ApiFeature.PAGED_CATALOGUE ) )
+            return loadProjectListByPages( );
+
         final SettableFuture<Void> ackFuture = SettableFuture.create( );
 
         runInWorkerThread( ( ) -> {
@@ -105,13 +134,8 @@ final class ApiController implements IApiController {
                     final List<ProjectData> projects = result.getProjects( ).stream( )
                             .map( ( project ) -> _projectProvider.get( getApiVersion( ) ).apply( project ) )
                             .collect( Collectors.toList( ) );
-                    _projectManager.registerProjects( projects );
-                    _eventBus.post( _projectManager );
+                    registerProjects( projects );
                     ackFuture.set( null );
-
-                    for ( final ProjectData project : _projectManager.getProjects( ) ) {
-                        LOGGER.info( "Discovering project " + project.getId( ) + " (" + project.getName( ) + ")" );
-                    }
                 }
 
                 @Override
@@ -130,6 +154,9 @@ final class ApiController implements IApiController {
         if ( !getApiVersion( ).isSupported( ApiFeature.BUILD_TYPE_STATUS ) )
             return Futures.immediateFuture( null );
 
+        if ( getApiVersion( ).isSupported( ApiFeature.PAGED_CATALOGUE ) )
+            return loadBuildTypeListByPages( );
+
         final SettableFuture<Void> ackFuture = SettableFuture.create( );
 
         runInWorkerThread( ( ) -> {
@@ -140,24 +167,188 @@ final class ApiController implements IApiController {
                     final List<BuildTypeData> buildTypes = result.getBuildTypes( ).stream( )
                             .map( ( btype ) -> _buildTypeProvider.get( getApiVersion( ) ).apply( btype ) )
                             .collect( Collectors.toList( ) );
-                    _buildManager.registerBuildTypes( buildTypes );
+                    registerBuildTypes( buildTypes );
+                    ackFuture.set( null );
+                }
+
+                @Override
+                public void onFailure( final Throwable t ) {
+                    LOGGER.error( "Error during loading build type list:", t );
+                    ackFuture.setException( t );
+                }
+            } );
+        } );
+
+        return ackFuture;
+    }
+
+    /**
+     * Requests projects page by page, each page is registered and dispatched as soon as it is received.
+     * Projects which are no more on server are forgotten once all pages are received.
+     */
+    private ListenableFuture<Void> loadProjectListByPages( ) {
+        final Set<String> loadedProjects = Sets.newHashSet( );
+        final PagedLoader<ProjectList, Project> loader = new PagedLoader<>(
+                start -> _apiRequestController.sendRequest( getApiVersion( ), "projects/?locator=" + pageLocator( start ), ProjectList.class ),
+                ProjectList::getProjects,
+                page -> {
+                    final List<ProjectData> projects = page.stream( )
+                            .map( ( project ) -> _projectProvider.get( getApiVersion( ) ).apply( project ) )
+                            .collect( Collectors.toList( ) );
+                    _projectManager.mergeProjects( projects );
+                    _eventBus.post( _projectManager );
+
+                    for ( final ProjectData project : projects ) {
+                        loadedProjects.add( project.getId( ) );
+                        LOGGER.info( "Discovering project " + project.getId( ) + " (" + project.getName( ) + ")" );
+                    }
+                    _eventBus.post( new CatalogueLoadingProgress( "projects", loadedProjects.size( ), false ) );
+                },
+                CATALOGUE_PAGE_SIZE, maxParallelPages( ) );
+
+        return loadByPages( loader, "projects", ( ) -> {
+            _projectManager.retainProjects( loadedProjects );
+            _eventBus.post( _projectManager );
+        } );
+    }
+
+    /**
+     * Requests build types page by page, each page is registered and dispatched with its projects as soon as it is received.
+     * Build types which are no more on server are forgotten once all pages are received.
+     */
+    private ListenableFuture<Void> loadBuildTypeListByPages( ) {
+        final Set<String> loadedBuildTypes = Sets.newHashSet( );
+        final PagedLoader<BuildTypeList, BuildType> loader = new PagedLoader<>(
+                start -> _apiRequestController.sendRequest( getApiVersion( ), "buildTypes/?locator=" + pageLocator( start ), BuildTypeList.class ),
+                BuildTypeList::getBuildTypes,
+                page -> {
+                    final List<BuildTypeData> buildTypes = page.stream( )
+                            .map( ( btype ) -> _buildTypeProvider.get( getApiVersion( ) ).apply( btype ) )
+                            .collect( Collectors.toList( ) );
+                    _buildManager.mergeBuildTypes( buildTypes );
                     _eventBus.post( _buildManager );
+                    registerInProjects( buildTypes );
+
+                    buildTypes.forEach( buildType -> loadedBuildTypes.add( buildType.getId( ) ) );
+                    _eventBus.post( new CatalogueLoadingProgress( "build types", loadedBuildTypes.size( ), false ) );
+                },
+                CATALOGUE_PAGE_SIZE, maxParallelPages( ) );
+
+        return loadByPages( loader, "build types", ( ) -> {
+            _buildManager.retainBuildTypes( loadedBuildTypes );
+            _eventBus.post( _buildManager );
+        } );
+    }
 
-                    for ( final BuildTypeData buildType : _buildManager.getBuildTypes( ) ) {
-                        final Optional<ProjectData> project = _projectManager.getProject( buildType.getProjectId( ) );
-                        if ( project.isPresent( ) ) {
-                            project.get( ).registerBuildType( buildType );
-                            _eventBus.post( project.get( ) );
+    private ListenableFuture<Void> loadByPages( final PagedLoader<?, ?> loader, final String catalogue, final Runnable onCompletion ) {
+        final SettableFuture<Void> ackFuture = SettableFuture.create( );
+
+        runInWorkerThread( ( ) -> addCallback( loader.load( ), new FutureCallback<Integer>( ) {
+            @Override
+            public void onSuccess( final Integer loadedItems ) {
+                onCompletion.run( );
+                _eventBus.post( new CatalogueLoadingProgress( catalogue, loadedItems, true ) );
+                ackFuture.set( null );
+            }
+
+            @Override
+            public void onFailure( final Throwable t ) {
+                LOGGER.error( "Error during loading " + catalogue + " list:", t );
+                ackFuture.setException( t );
+            }
+        } ) );
+
+        return ackFuture;
+    }
+
+    private static String pageLocator( final int start ) {
+        return "start:" + start + ",count:" + CATALOGUE_PAGE_SIZE;
+    }
+
+    private int maxParallelPages( ) {
+        return Math.max( 1, _configuration.getMaxParallelRequests( ) );
+    }
+
+    /**
+     * Requests sub projects and build types of each monitored project, and each monitored build type, instead of the whole server catalogue.
+     * Monitored projects are registered as they are known. Monitored projects and build types which cannot be requested
+     * are kept as they are known, with their known sub projects and build types; loading fails only when no request succeeds.
+     */
+    @Override
+    public ListenableFuture<Void> loadMonitoredScope( ) {
+        final List<ProjectData> monitoredProjects = _projectManager.getMonitoredProjects( );
+        final List<BuildTypeData> monitoredBuildTypes = _buildManager.getMonitoredBuildTypes( );
+
+        if ( !getApiVersion( ).isSupported( ApiFeature.SCOPED_DISCOVERY ) || ( monitoredProjects.isEmpty( ) && monitoredBuildTypes.isEmpty( ) ) )
+            return Futures.transform( loadProjectList( ), (AsyncFunction<Void, Void>) input -> loadBuildTypeList( ) );
+
+        final SettableFuture<Void> ackFuture = SettableFuture.create( );
+
+        runInWorkerThread( ( ) -> {
+            final Map<String, ListenableFuture<ProjectList>> projectListFutures = Maps.newLinkedHashMap( );
+            final Map<String, ListenableFuture<BuildTypeList>> buildTypeListFutures = Maps.newLinkedHashMap( );
+            for ( final ProjectData project : monitoredProjects ) {
+                projectListFutures.put( project.getId( ), _apiRequestController.sendRequest( getApiVersion( ), "projects/?locator=affectedProject:(id:" + project.getId( ) + ")", ProjectList.class ) );
+                buildTypeListFutures.put( project.getId( ), _apiRequestController.sendRequest( getApiVersion( ), "buildTypes/?locator=affectedProject:(id:" + project.getId( ) + ")", BuildTypeList.class ) );
+            }
+
+            final Map<String, ListenableFuture<BuildTypeList>> monitoredBuildTypeFutures = Maps.newLinkedHashMap( );
+            for ( final BuildTypeData buildType : monitoredBuildTypes )
+                monitoredBuildTypeFutures.put( buildType.getId( ), _apiRequestController.sendRequest( getApiVersion( ), "buildTypes/?locator=id:" + buildType.getId( ), BuildTypeList.class ) );
+
+            final List<ListenableFuture<?>> scopeFutures = Lists.newArrayList( );
+            scopeFutures.addAll( projectListFutures.values( ) );
+            scopeFutures.addAll( buildTypeListFutures.values( ) );
+            scopeFutures.addAll( monitoredBuildTypeFutures.values( ) );
+
+            addCallback( Futures.successfulAsList( scopeFutures ), new FutureCallback<List<Object>>( ) {
+                @Override
+                public void onSuccess( final List<Object> result ) {
+                    if ( scopeFutures.stream( ).noneMatch( future -> resultOf( future ).isPresent( ) ) ) {
+                        onFailure( failureOf( scopeFutures.get( 0 ) ) );
+                        return;
+                    }
+
+                    final Set<String> missingProjects = Sets.newHashSet( );
+                    final Map<String, ProjectData> projects = Maps.newLinkedHashMap( );
+                    for ( final ProjectData project : monitoredProjects ) {
+                        projects.put( project.getId( ), project );
+                        final Optional<ProjectList> projectList = resultOf( projectListFutures.get( project.getId( ) ) );
+                        if ( !projectList.isPresent( ) || !resultOf( buildTypeListFutures.get( project.getId( ) ) ).isPresent( ) ) {
+                            LOGGER.warn( "Monitored project " + project.getId( ) + " cannot be loaded, it is kept as it is known." );
+                            missingProjects.add( project.getId( ) );
                         }
-                        LOGGER.info( "Discovering build type " + buildType.getId( ) + " (" + buildType.getName( ) + ") on project " + buildType.getProjectId( ) + " (" + buildType.getProjectName( ) + ")" );
+                        for ( final Project subProject : projectList.map( ProjectList::getProjects ).orElse( ImmutableList.of( ) ) )
+                            projects.putIfAbsent( subProject.getId( ), _projectProvider.get( getApiVersion( ) ).apply( subProject ) );
+                    }
+                    final Set<String> missingSubtree = knownSubtreeOf( missingProjects );
+                    _projectManager.getProjects( ).stream( )
+                            .filter( project -> missingSubtree.contains( project.getId( ) ) )
+                            .forEach( project -> projects.putIfAbsent( project.getId( ), project ) );
+                    registerProjects( ImmutableList.copyOf( projects.values( ) ) );
+
+                    final Map<String, BuildTypeData> buildTypes = Maps.newLinkedHashMap( );
+                    final List<ListenableFuture<BuildTypeList>> buildTypeLists = Lists.newArrayList( buildTypeListFutures.values( ) );
+                    buildTypeLists.addAll( monitoredBuildTypeFutures.values( ) );
+                    for ( final ListenableFuture<BuildTypeList> buildTypeList : buildTypeLists )
+                        for ( final BuildType buildType : resultOf( buildTypeList ).map( BuildTypeList::getBuildTypes ).orElse( ImmutableList.of( ) ) )
+                            buildTypes.putIfAbsent( buildType.getId( ), _buildTypeProvider.get( getApiVersion( ) ).apply( buildType ) );
+                    for ( final BuildTypeData buildType : monitoredBuildTypes ) {
+                        if ( !resultOf( monitoredBuildTypeFutures.get( buildType.getId( ) ) ).isPresent( ) )
+                            LOGGER.warn( "Monitored build type " + buildType.getId( ) + " cannot be loaded, it is kept as it is known." );
+                        buildTypes.putIfAbsent( buildType.getId( ), buildType );
                     }
+                    _buildManager.getBuildTypes( ).stream( )
+                            .filter( buildType -> missingSubtree.contains( buildType.getProjectId( ) ) )
+                            .forEach( buildType -> buildTypes.putIfAbsent( buildType.getId( ), buildType ) );
+                    registerBuildTypes( ImmutableList.copyOf( buildTypes.values( ) ) );
 
                     ackFuture.set( null );
                 }
 
                 @Override
                 public void onFailure( final Throwable t ) {
-                    LOGGER.error( "Error during loading build type list:", t );
+                    LOGGER.error( "Error during loading monitored projects and build types:", t );
                     ackFuture.setException( t );
                 }
             } );
@@ -166,6 +357,70 @@ final class ApiController implements IApiController {
         return ackFuture;
     }
 
+    /**
+     * @return Ids of projects and of their known sub projects
+     */
+    private Set<String> knownSubtreeOf( final Set<String> projectIds ) {
+        final Set<String> subtree = Sets.newHashSet( projectIds );
+        boolean added = !subtree.isEmpty( );
+        while ( added ) {
+            added = false;
+            for ( final ProjectData project : _projectManager.getProjects( ) )
+                if ( project.getParentId( ).isPresent( ) && subtree.contains( project.getParentId( ).get( ) ) )
+                    added |= subtree.add( project.getId( ) );
+        }
+        return subtree;
+    }
+
+    private static <T> Optional<T> resultOf( final ListenableFuture<T> future ) {
+        try {
+            return Optional.ofNullable( Futures.getUnchecked( future ) );
+        } catch ( UncheckedExecutionException | CancellationException e ) {
+            return Optional.empty( );
+        }
+    }
+
+    private static Throwable failureOf( final ListenableFuture<?> future ) {
+        try {
+            Futures.getUnchecked( future );
+            return new IllegalStateException( "Future has not failed" );
+        } catch ( UncheckedExecutionException e ) {
+            return e.getCause( );
+        } catch ( CancellationException e ) {
+            return e;
+        }
+    }
+
+    private void registerProjects( final List<ProjectData> projects ) {
+        _projectManager.registerProjects( projects );
+        _eventBus.post( _projectManager );
+
+        for ( final ProjectData project : _projectManager.getProjects( ) ) {
+            LOGGER.info( "Discovering project " + project.getId( ) + " (" + project.getName( ) + ")" );
+        }
+    }
+
+    private void registerBuildTypes( final List<BuildTypeData> buildTypes ) {
+        _buildManager.registerBuildTypes( buildTypes );
+        _eventBus.post( _buildManager );
+        registerInProjects( _buildManager.getBuildTypes( ) );
+    }
+
+    private void registerInProjects( final List<BuildTypeData> buildTypes ) {
+        final Set<ProjectData> modifiedProjects = Sets.newLinkedHashSet( );
+        for ( final BuildTypeData buildType : buildTypes ) {
+            final Optional<ProjectData> project = _projectManager.getProject( buildType.getProjectId( ) );
+            if ( project.isPresent( ) ) {
+                project.get( ).registerBuildType( buildType );
+                modifiedProjects.add( project.get( ) );
+            }
+            LOGGER.info( "Discovering build type " + buildType.getId( ) + " (" + buildType.getName( ) + ") on project " + buildType.getProjectId( ) + " (" + buildType.getProjectName( ) + ")" );
+        }
+
+        for ( final ProjectData project : modifiedProjects )
+            _eventBus.post( project );
+    }
+
     @Override
     public ListenableFuture<Void> requestQueuedBuilds( ) {
         if ( !getApiVersion( ).isSupported( ApiFeature.QUEUE_STATUS ) )
@@ -175,12 +430,14 @@ final class ApiController implements IApiController {
 
         runInWorkerThread( ( ) -> {
             final ListenableFuture<QueuedBuildList> buildQueueFuture = _apiRequestController.sendRequest( getApiVersion( ), "buildQueue", QueuedBuildList.class );
+            cancelWith( ackFuture, buildQueueFuture );
             addCallback( buildQueueFuture, new FutureCallback<QueuedBuildList>( ) {
                 @Override
                 public void onSuccess( final QueuedBuildList queuedBuildList ) {
                     final Set<String> buildTypesInQueue = queuedBuildList.getQueueBuild( ).stream( )
                             .map( QueueBuild::getBuildTypeId )
                             .collect( Collectors.toSet( ) );
+                    followBuildsLeavingQueue( queuedBuildList.getQueueBuild( ) );
                     final List<BuildTypeData> modifiedStatusBuilds = _buildManager.registerBuildTypesInQueue( buildTypesInQueue );
                     for ( final BuildTypeData buildType : modifiedStatusBuilds )
                         _eventBus.post( buildType );
@@ -199,20 +456,43 @@ final class ApiController implements IApiController {
         return ackFuture;
     }
 
+    /**
+     * A queued build keeps the id it got when it was queued, so it may start after builds with a higher id were seen by the delta.
+     * Its build type is then requested again with the next delta, as the delta does not answer builds below the last seen one.
+     */
+    private void followBuildsLeavingQueue( final List<QueueBuild> queuedBuilds ) {
+        final Map<Integer, String> currentQueuedBuilds = queuedBuilds.stream( )
+                .filter( build -> build.getId( ) != 0 && build.getBuildTypeId( ) != null )
+                .collect( Collectors.toMap( QueueBuild::getId, QueueBuild::getBuildTypeId, ( first, second ) -> first ) );
+
+        final Optional<Integer> lastSeenBuildId = lastSeenBuildId( );
+        if ( lastSeenBuildId.isPresent( ) ) {
+            _queuedBuilds.forEach( ( buildId, buildTypeId ) -> {
+                if ( currentQueuedBuilds.containsKey( buildId ) || buildId > lastSeenBuildId.get( ) )
+                    return;
+                final Optional<BuildTypeData> buildType = _buildManager.getBuildType( buildTypeId );
+                if ( buildType.isPresent( ) && isDeltaSupported( buildType.get( ) ) )
+                    _buildTypesLeavingQueue.add( buildTypeId );
+            } );
+        }
+        _queuedBuilds = ImmutableMap.copyOf( currentQueuedBuilds );
+    }
+
     @Override
     public ListenableFuture<Void> requestLastBuildStatus( final BuildTypeData buildType ) {
         if ( !getApiVersion( ).isSupported( ApiFeature.BUILD_TYPE_STATUS ) )
             return Futures.immediateFuture( null );
 
-        _buildRequestErrorCounter.cleanUp( );
+        if ( getApiVersion( ).isSupported( ApiFeature.BULK_BUILD_STATUS ) )
+            return requestLastBuildStatusInBulk( buildType );
+
+        _failedBuildRequests.cleanUp( );
 
         final SettableFuture<Void> ackFuture = SettableFuture.create( );
 
         runInWorkerThread( ( ) -> {
-        	String branchSpec = buildType.getBranch();
-        	if ( branchSpec == null )
-        		branchSpec = "default:yes";
-            final ListenableFuture<BuildList> buildListFuture = _apiRequestController.sendRequest( getApiVersion( ), "builds/?locator=buildType:" + buildType.getId( ) + ",running:any,count:" + MAX_BUILDS_TO_CONSIDER + ",branch:" + branchSpec, BuildList.class );
+            final ListenableFuture<BuildList> buildListFuture = _apiRequestController.sendRequest( getApiVersion( ), "builds/?locator=" + lastBuildsLocator( buildType ), BuildList.class, priorityOf( buildType ) );
+            cancelWith( ackFuture, buildListFuture );
             addCallback( buildListFuture, new FutureCallback<BuildList>( ) {
                 @Override
                 public void onSuccess( final BuildList result ) {
@@ -228,10 +508,11 @@ final class ApiController implements IApiController {
                         return previousBuildStatus.isPresent( ) && previousBuildStatus.get( ).getState( ) == BuildState.finished;
                     } );
 
-                    // We ignore builds which status is in error
+                    // We ignore builds which status is in error until their retry time
+                    final Instant now = Instant.now( );
                     buildToRequest.removeIf( buildId -> {
-                        final Integer errorCount = _buildRequestErrorCounter.getIfPresent( buildId );
-                        return errorCount != null && errorCount >= ERROR_COUNT_BEFORE_IGNORING;
+                        final FailedBuildRequest failedRequest = _failedBuildRequests.getIfPresent( buildId );
+                        return failedRequest != null && now.isBefore( failedRequest._retryTime );
                     } );
 
                     // We add all builds that are always in state running into data
@@ -240,24 +521,52 @@ final class ApiController implements IApiController {
                                     .map( BuildData::getId )
                                     .collect( Collectors.<Integer>toList( ) ) );
 
-                    final List<ListenableFuture<Build>> futures = Lists.newArrayList( );
-                    for ( final int buildId : buildToRequest ) {
-                        final ListenableFuture<Build> buildStatusFuture = _apiRequestController.sendRequest( getApiVersion( ), "builds/id:" + buildId, Build.class );
-                        addCallback( buildStatusFuture, registerBuildStatus( buildType, buildId ) );
-                        futures.add( buildStatusFuture );
-                    }
+                    requestBuildStatus( buildType, buildToRequest, ackFuture );
+                }
 
-                    addCallback( Futures.successfulAsList( futures ), new FutureCallback<List<Build>>( ) {
-                        @Override
-                        public void onSuccess( final List<Build> build ) {
-                            ackFuture.set( null );
-                        }
+                @Override
+                public void onFailure( final Throwable t ) {
+                    ackFuture.setException( t );
+                    LOGGER.error( "Error during loading builds list for build type: " + buildType.getId( ), t );
+                }
+            } );
+        } );
 
-                        @Override
-                        public void onFailure( final Throwable throwable ) {
-                            ackFuture.setException( throwable );
-                        }
-                    } );
+        return ackFuture;
+    }
+
+    /**
+     * Requests the last builds of the build type with their full status embedded, so no per-build request is needed:
+     * embedded fields are selected by {@link ApiFields} for {@link BuildList}.
+     * Only running builds which are no more part of the last builds are requested one by one.
+     */
+    private ListenableFuture<Void> requestLastBuildStatusInBulk( final BuildTypeData buildType ) {
+        final SettableFuture<Void> ackFuture = SettableFuture.create( );
+
+        runInWorkerThread( ( ) -> {
+            final ListenableFuture<BuildList> buildListFuture = _apiRequestController.sendRequest( getApiVersion( ), "builds/?locator=" + lastBuildsLocator( buildType ), BuildList.class, priorityOf( buildType ) );
+            cancelWith( ackFuture, buildListFuture );
+            addCallback( buildListFuture, new FutureCallback<BuildList>( ) {
+                @Override
+                public void onSuccess( final BuildList result ) {
+                    final List<Build> lastBuilds = result.getBuilds( ).stream( )
+                            .limit( MAX_BUILDS_TO_CONSIDER )
+                            .collect( Collectors.toList( ) );
+
+                    for ( final Build build : lastBuilds )
+                        buildType.registerBuild( _buildProvider.get( getApiVersion( ) ).apply( build ) );
+
+                    if ( !lastBuilds.isEmpty( ) )
+                        dispatchBuildTypeUpdate( buildType );
+
+                    // Running builds which are out of last builds must be still followed until they are finished
+                    final Set<Integer> receivedBuilds = lastBuilds.stream( ).map( Build::getId ).collect( Collectors.toSet( ) );
+                    final Set<Integer> buildToRequest = buildType.getLastBuilds( BuildState.running, Integer.MAX_VALUE ).stream( )
+                            .map( BuildData::getId )
+                            .filter( buildId -> !receivedBuilds.contains( buildId ) )
+                            .collect( Collectors.toSet( ) );
+
+                    requestBuildStatus( buildType, buildToRequest, ackFuture );
                 }
 
                 @Override
@@ -271,28 +580,184 @@ final class ApiController implements IApiController {
         return ackFuture;
     }
 
+    @Override
+    public boolean isDeltaSupported( final BuildTypeData buildType ) {
+        return _configuration.isDeltaPollingEnabled( )
+                && getApiVersion( ).isSupported( ApiFeature.BULK_BUILD_STATUS, ApiFeature.BUILD_DELTA )
+                && buildType.getBranch( ) == null;
+    }
+
+    /**
+     * Requests builds of all build types with an id higher than the last one seen on server, with their full status embedded.
+     * On a server without new build, the answer is an empty list. Next pages are requested while pages are full, so that
+     * no build is skipped; without any seen build, only the last page is requested as older builds are known by build type polls.
+     * Build types with a build leaving queue below the last seen build are requested again. Running builds below the last
+     * seen build are not part of the answer: they are checked by build type polls near their estimated finish.
+     */
+    @Override
+    public ListenableFuture<Void> requestBuildDelta( final Collection<BuildTypeData> buildTypes ) {
+        if ( !getApiVersion( ).isSupported( ApiFeature.BULK_BUILD_STATUS, ApiFeature.BUILD_DELTA ) )
+            return Futures.immediateFuture( null );
+
+        final SettableFuture<Void> ackFuture = SettableFuture.create( );
+        final Optional<Integer> lastSeenBuildId = lastSeenBuildId( );
+
+        runInWorkerThread( ( ) -> requestBuildDeltaPage( buildTypes, lastSeenBuildId, 0, Lists.newArrayList( ), ackFuture ) );
+
+        return ackFuture;
+    }
+
+    private void requestBuildDeltaPage( final Collection<BuildTypeData> buildTypes, final Optional<Integer> lastSeenBuildId, final int start, final List<Build> receivedBuilds, final SettableFuture<Void> ackFuture ) {
+        if ( ackFuture.isCancelled( ) )
+            return;
+
+        final ListenableFuture<BuildList> buildListFuture = _apiRequestController.sendRequest( getApiVersion( ), "builds/?locator=" + deltaLocator( lastSeenBuildId, start ), BuildList.class, ApiRequestPriority.ACTIVE );
+        cancelWith( ackFuture, buildListFuture );
+        addCallback( buildListFuture, new FutureCallback<BuildList>( ) {
+            @Override
+            public void onSuccess( final BuildList result ) {
+                receivedBuilds.addAll( result.getBuilds( ) );
+                if ( lastSeenBuildId.isPresent( ) && result.getBuilds( ).size( ) >= MAX_DELTA_BUILDS )
+                    requestBuildDeltaPage( buildTypes, lastSeenBuildId, start + MAX_DELTA_BUILDS, receivedBuilds, ackFuture );
+                else
+                    registerBuildDelta( buildTypes, receivedBuilds, ackFuture );
+            }
+
+            @Override
+            public void onFailure( final Throwable t ) {
+                ackFuture.setException( t );
+                LOGGER.error( "Error during loading build delta:", t );
+            }
+        } );
+    }
+
+    private void registerBuildDelta( final Collection<BuildTypeData> buildTypes, final List<Build> builds, final SettableFuture<Void> ackFuture ) {
+        final Map<String, BuildTypeData> buildTypesById = buildTypes.stream( )
+                .collect( Collectors.toMap( BuildTypeData::getId, Function.identity( ), ( first, second ) -> first ) );
+
+        final Set<Integer> receivedBuilds = Sets.newHashSet( );
+        final Set<BuildTypeData> updatedBuildTypes = Sets.newLinkedHashSet( );
+        for ( final Build build : builds ) {
+            if ( !receivedBuilds.add( build.getId( ) ) )
+                continue;
+            final BuildTypeData buildType = buildTypesById.get( build.getBuildTypeId( ) );
+            if ( buildType == null )
+                continue;
+            buildType.registerBuild( _buildProvider.get( getApiVersion( ) ).apply( build ) );
+            updatedBuildTypes.add( buildType );
+        }
+        markSeen( builds );
+
+        updatedBuildTypes.forEach( this::dispatchBuildTypeUpdate );
+
+        // Last builds of the build type answer the build which left queue, and its running builds
+        final List<ListenableFuture<Void>> futures = buildTypesById.values( ).stream( )
+                .filter( buildType -> _buildTypesLeavingQueue.remove( buildType.getId( ) ) )
+                .map( this::requestLastBuildStatusInBulk )
+                .collect( Collectors.toList( ) );
+
+        acknowledge( futures, ackFuture );
+    }
+
+    private Optional<Integer> lastSeenBuildId( ) {
+        return Optional.ofNullable( _lastSeenBuildIds.get( Strings.nullToEmpty( _configuration.getServerUrl( ) ) ) );
+    }
+
+    private static String deltaLocator( final Optional<Integer> lastSeenBuildId, final int start ) {
+        final String sinceBuild = lastSeenBuildId.map( buildId -> "sinceBuild:(id:" + buildId + ")," ).orElse( "" );
+        final String page = start == 0 ? "" : "start:" + start + ",";
+        return sinceBuild + "running:any,branch:default:yes," + page + "count:" + MAX_DELTA_BUILDS;
+    }
+
+    private void markSeen( final List<Build> builds ) {
+        builds.stream( )
+                .map( Build::getId )
+                .max( Integer::compare )
+                .ifPresent( buildId -> _lastSeenBuildIds.merge( Strings.nullToEmpty( _configuration.getServerUrl( ) ), buildId, Math::max ) );
+    }
+
+    private void requestBuildStatus( final BuildTypeData buildType, final Set<Integer> buildToRequest, final SettableFuture<Void> ackFuture ) {
+        if ( ackFuture.isCancelled( ) )
+            return;
+
+        final List<ListenableFuture<Build>> futures = Lists.newArrayList( );
+        for ( final int buildId : buildToRequest ) {
+            final ListenableFuture<Build> buildStatusFuture = _apiRequestController.sendRequest( getApiVersion( ), "builds/id:" + buildId, Build.class, priorityOf( buildType ) );
+            addCallback( buildStatusFuture, registerBuildStatus( buildType, buildId ) );
+            futures.add( buildStatusFuture );
+        }
+
+        acknowledge( futures, ackFuture );
+    }
+
+    private static <T> void acknowledge( final List<ListenableFuture<T>> futures, final SettableFuture<Void> ackFuture ) {
+        futures.forEach( future -> cancelWith( ackFuture, future ) );
+        addCallback( Futures.successfulAsList( futures ), new FutureCallback<List<T>>( ) {
+            @Override
+            public void onSuccess( final List<T> results ) {
+                ackFuture.set( null );
+            }
+
+            @Override
+            public void onFailure( final Throwable throwable ) {
+                ackFuture.setException( throwable );
+            }
+        } );
+    }
+
+    /**
+     * Cancelling an acknowledgement cancels the request it is waiting for, so that an expired poll cycle leaves no request behind
+     */
+    private static void cancelWith( final ListenableFuture<Void> ackFuture, final Future<?> future ) {
+        ackFuture.addListener( ( ) -> {
+            if ( ackFuture.isCancelled( ) )
+                future.cancel( true );
+        }, MoreExecutors.sameThreadExecutor( ) );
+    }
+
+    /**
+     * Build types with a running or queued build are checked before idle ones when requests are throttled
+     */
+    private static ApiRequestPriority priorityOf( final BuildTypeData buildType ) {
+        return buildType.hasRunningBuild( ) || buildType.isQueued( ) ? ApiRequestPriority.ACTIVE : ApiRequestPriority.IDLE;
+    }
+
+    private static String lastBuildsLocator( final BuildTypeData buildType ) {
+        final String branchSpec = buildType.getBranch( ) == null ? "default:yes" : buildType.getBranch( );
+        return "buildType:" + buildType.getId( ) + ",running:any,count:" + MAX_BUILDS_TO_CONSIDER + ",branch:" + branchSpec;
+    }
+
+    private void dispatchBuildTypeUpdate( final BuildTypeData buildType ) {
+        _eventBus.post( buildType );
+
+        final Optional<ProjectData> project = _projectManager.getProject( buildType.getProjectId( ) );
+        if ( project.isPresent( ) ) {
+            _eventBus.post( project.get( ) );
+        }
+    }
+
     private FutureCallback<Build> registerBuildStatus( final BuildTypeData buildType, final int buildId ) {
         return new FutureCallback<Build>( ) {
             @Override
             public void onSuccess( final Build result ) {
+                _failedBuildRequests.invalidate( buildId );
                 buildType.registerBuild( _buildProvider.get( getApiVersion( ) ).apply( result ) );
-                _eventBus.post( buildType );
-
-                final Optional<ProjectData> project = _projectManager.getProject( buildType.getProjectId( ) );
-                if ( project.isPresent( ) ) {
-                    _eventBus.post( project.get( ) );
-                }
+                dispatchBuildTypeUpdate( buildType );
             }
 
             @Override
             public void onFailure( final Throwable t ) {
                 LOGGER.error( "Error during loading full information for build with id " + buildId + ", build type: " + buildType.getId( ), t );
 
-                final Integer errorCount = _buildRequestErrorCounter.getIfPresent( buildId );
-                final int newErrorCount = errorCount == null ? 1 : errorCount + 1;
-                _buildRequestErrorCounter.put( buildId, newErrorCount );
-                if ( newErrorCount >= ERROR_COUNT_BEFORE_IGNORING )
-                    LOGGER.info( "Build {} is now temporary ignored for about {} minutes due to {} failures.", buildId, IGNORING_TIME_IN_MINUTES, ERROR_COUNT_BEFORE_IGNORING );
+                // Only errors answered by the server are specific to the build, an unreachable server is handled by circuit breakers
+                if ( !( t instanceof ApiException ) || !( (ApiException) t ).getStatusCode( ).isPresent( ) )
+                    return;
+
+                final FailedBuildRequest previousFailure = _failedBuildRequests.getIfPresent( buildId );
+                final int failureCount = previousFailure == null ? 1 : previousFailure._failureCount + 1;
+                final Duration retryDelay = _buildRetryBackoff.delay( failureCount );
+                _failedBuildRequests.put( buildId, new FailedBuildRequest( failureCount, Instant.now( ).plus( retryDelay ) ) );
+                LOGGER.info( "Build {} is now temporary ignored for {} seconds due to {} failures.", buildId, retryDelay.getSeconds( ), failureCount );
             }
         };
     }
@@ -301,4 +766,15 @@ final class ApiController implements IApiController {
         return _configuration.getApiVersion( );
     }
 
+    private static final class FailedBuildRequest {
+
+        private final int _failureCount;
+        private final Instant _retryTime;
+
+        FailedBuildRequest( final int failureCount, final Instant retryTime ) {
+            _failureCount = failureCount;
+            _retryTime = retryTime;
+        }
+    }
+
 }
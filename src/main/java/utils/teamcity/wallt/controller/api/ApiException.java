@@ -15,6 +15,8 @@
 
 package utils.teamcity.wallt.controller.api;
 
+import java.util.Optional;
+
 /**
  * Date: 16/02/14
  *
@@ -22,7 +24,48 @@ package utils.teamcity.wallt.controller.api;
  */
 public final class ApiException extends RuntimeException {
 
+    private static final int NO_STATUS_CODE = -1;
+
+    private final int _statusCode;
+    private final boolean _decodingError;
+
     public ApiException( final String message ) {
         super( message );
+        _statusCode = NO_STATUS_CODE;
+        _decodingError = false;
+    }
+
+    public ApiException( final String message, final int statusCode ) {
+        super( message );
+        _statusCode = statusCode;
+        _decodingError = false;
+    }
+
+    private ApiException( final String message, final int statusCode, final Throwable cause ) {
+        super( message, cause );
+        _statusCode = statusCode;
+        _decodingError = true;
+    }
+
+    /**
+     * Response received from the server, whose body cannot be decoded
+     */
+    public static ApiException decodingError( final String message, final int statusCode, final Throwable cause ) {
+        return new ApiException( message, statusCode, cause );
+    }
+
+    /**
+     * Http status code of the server response, absent when the request failed without any response from the server
+     */
+    public Optional<Integer> getStatusCode( ) {
+        return _statusCode == NO_STATUS_CODE ? Optional.empty( ) : Optional.of( _statusCode );
+    }
+
+    public boolean isServerError( ) {
+        return _statusCode >= 500;
+    }
+
+    public boolean isDecodingError( ) {
+        return _decodingError;
     }
 }
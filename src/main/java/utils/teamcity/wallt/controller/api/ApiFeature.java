@@ -24,6 +24,11 @@ enum ApiFeature {
 
     PROJECT_STATUS,
     BUILD_TYPE_STATUS,
-    QUEUE_STATUS
+    QUEUE_STATUS,
+    BULK_BUILD_STATUS,
+    FIELD_SELECTION,
+    BUILD_DELTA,
+    SCOPED_DISCOVERY,
+    PAGED_CATALOGUE
 
 }
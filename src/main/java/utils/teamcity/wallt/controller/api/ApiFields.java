@@ -0,0 +1,64 @@
+/*******************************************************************************
+ * Copyright 2014 Cedric Longo.
+ *
+ * This file is part of Wall-T program.
+ *
+ * Wall-T is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Wall-T is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with Wall-T.
+ * If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+
+package utils.teamcity.wallt.controller.api;
+
+import com.google.common.collect.ImmutableMap;
+import utils.teamcity.wallt.controller.api.json.*;
+
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Partial response specifications (fields parameter) of each api response: only the fields read from json classes are requested.
+ * Specifications must be kept in line with json classes when they consume new fields.
+ */
+final class ApiFields {
+
+    static final String BUILD_TYPE = "id,name,projectName,projectId";
+    static final String PROJECT = "id,name,parentProjectId";
+    static final String QUEUE_BUILD = "id,buildTypeId";
+    static final String BUILD_RUNNING_INFO = "percentageComplete,elapsedSeconds,estimatedTotalSeconds";
+    static final String BUILD = "id,buildTypeId,status,state,running,startDate,finishDate,running-info(" + BUILD_RUNNING_INFO + ")";
+
+    private static final Map<Class<? extends ApiResponse>, String> FIELDS_BY_RESPONSE = ImmutableMap.<Class<? extends ApiResponse>, String>of(
+            Build.class, BUILD,
+            BuildList.class, "build(" + BUILD + ")",
+            BuildTypeList.class, "buildType(" + BUILD_TYPE + ")",
+            ProjectList.class, "project(" + PROJECT + ")",
+            QueuedBuildList.class, "build(" + QUEUE_BUILD + ")"
+    );
+
+    private ApiFields( ) {
+        throw new UnsupportedOperationException( );
+    }
+
+    static Optional<String> of( final Class<? extends ApiResponse> responseType ) {
+        return Optional.ofNullable( FIELDS_BY_RESPONSE.get( responseType ) );
+    }
+
+    /**
+     * Appends fields of expected type to the path when api version supports it and path does not select fields itself
+     */
+    static String select( final String path, final ApiVersion version, final Class<? extends ApiResponse> expectedType ) {
+        if ( expectedType == null || !version.isSupported( ApiFeature.FIELD_SELECTION ) || path.contains( "fields=" ) )
+            return path;
+        return of( expectedType )
+                .map( fields -> path + ( path.contains( "?" ) ? "&" : "?" ) + "fields=" + fields )
+                .orElse( path );
+    }
+
+}
@@ -16,12 +16,15 @@
 package utils.teamcity.wallt.controller.api;
 
 import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.AbstractModule;
 import com.google.inject.Provides;
 import com.google.inject.Scopes;
 import com.google.inject.Singleton;
 import com.ning.http.client.AsyncHttpClient;
 import com.ning.http.client.AsyncHttpClientConfig;
+import com.ning.http.client.providers.netty.NettyConnectionsPool;
+import org.jboss.netty.util.HashedWheelTimer;
 import utils.teamcity.wallt.controller.api.json.Build;
 import utils.teamcity.wallt.controller.api.json.BuildType;
 import utils.teamcity.wallt.controller.api.json.Project;
@@ -43,6 +46,9 @@ import java.util.function.Function;
  */
 public final class ApiModule extends AbstractModule {
 
+    static final int MAX_CONNECTIONS_PER_HOST = 10;
+    private static final int IDLE_CONNECTION_IN_POOL_TIMEOUT_IN_MS = 600000; // 10 min idle
+
     @Override
     protected void configure( ) {
         bind( IApiController.class ).to( ApiController.class ).in( Scopes.SINGLETON );
@@ -51,7 +57,10 @@ public final class ApiModule extends AbstractModule {
 
     @Provides
     @Singleton
-    public AsyncHttpClientConfig httpClientConfig( ) {
+    public AsyncHttpClientConfig httpClientConfig( final ApiConnectionStatistics connectionStatistics ) {
+        final HashedWheelTimer idleConnectionTimer = new HashedWheelTimer( new ThreadFactoryBuilder( ).setDaemon( true ).setNameFormat( "api-idle-connections-%d" ).build( ) );
+        final NettyConnectionsPool connectionsPool = new NettyConnectionsPool( -1, MAX_CONNECTIONS_PER_HOST, IDLE_CONNECTION_IN_POOL_TIMEOUT_IN_MS, -1, true, idleConnectionTimer );
+
         return new AsyncHttpClientConfig.Builder( )
                 .setUserAgent( "TeamCity Wall Client" )
                 .setFollowRedirects( true )
@@ -59,10 +68,12 @@ public final class ApiModule extends AbstractModule {
                 .setAllowPoolingConnection( true )
                 .setAllowSslConnectionPool( true )
                 .setMaximumNumberOfRedirects( 5 )
-                .setMaximumConnectionsPerHost( 10 )
+                .setMaximumConnectionsPerHost( MAX_CONNECTIONS_PER_HOST )
                 .setConnectionTimeoutInMs( 60000 )
                 .setRequestTimeoutInMs( 30000 )
-                .setIdleConnectionInPoolTimeoutInMs( 600000 ) // 10 min idle
+                .setIdleConnectionInPoolTimeoutInMs( IDLE_CONNECTION_IN_POOL_TIMEOUT_IN_MS )
+                .setConnectionsPool( new MeteredConnectionsPool<>( connectionsPool, connectionStatistics, idleConnectionTimer::stop ) )
+                .setCompressionEnabled( false ) // Compression is negotiated by ApiRequestController, which decompresses while decoding
                 .build( );
     }
 
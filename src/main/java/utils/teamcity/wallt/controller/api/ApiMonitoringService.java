@@ -15,16 +15,18 @@
 
 package utils.teamcity.wallt.controller.api;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Sets;
-import com.google.common.util.concurrent.AsyncFunction;
-import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.ListenableFuture;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import utils.teamcity.wallt.controller.webhook.IWebhookReceiver;
 import utils.teamcity.wallt.model.build.BuildTypeData;
 import utils.teamcity.wallt.model.build.IBuildTypeManager;
 import utils.teamcity.wallt.model.build.IProjectManager;
 import utils.teamcity.wallt.model.build.ProjectData;
+import utils.teamcity.wallt.model.configuration.Configuration;
 import utils.teamcity.wallt.model.logger.Loggers;
 
 import javax.inject.Inject;
@@ -33,12 +35,19 @@ import java.time.Instant;
 import java.util.Collection;
 import java.util.List;
 import java.util.Set;
-import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import static com.google.common.util.concurrent.Futures.addCallback;
+
 /**
+ * Poll cycles are asynchronous: scheduled checks start them and return, and a check is skipped while its previous
+ * cycle is still running.
+ *
  * Date: 16/02/14
  *
  * @author Cedric Longo
@@ -46,27 +55,54 @@ import java.util.stream.Collectors;
 public final class ApiMonitoringService implements IApiMonitoringService {
 
     public static final Logger LOGGER = LoggerFactory.getLogger( Loggers.MAIN );
+
+    private static final int SCHEDULER_TICK_IN_SECONDS = 1;
+    private static final int QUEUE_CHECK_PERIOD_IN_SECONDS = 60;
+    private static final Duration DELTA_CHECK_PERIOD = PollingScheduler.ACTIVE_INTERVAL;
+
     private final ScheduledExecutorService _executorService;
+    private final Configuration _configuration;
     private final IApiController _apiController;
     private final IProjectManager _projectManager;
     private final IBuildTypeManager _buildManager;
+    private final ApiStatisticsReporter _statisticsReporter;
+    private final ApiConnectionKeeper _connectionKeeper;
+    private final CoalescingApiRequestController _coalescingRequestController;
+    private final IWebhookReceiver _webhookReceiver;
+    private final PollingScheduler _pollingScheduler;
+
+    private final AtomicBoolean _statusCycleRunning = new AtomicBoolean( );
+    private final AtomicBoolean _deltaCycleRunning = new AtomicBoolean( );
+    private final AtomicBoolean _queueCycleRunning = new AtomicBoolean( );
 
     private boolean _active;
+    private boolean _trackingRequested;
 
 
     @Inject
-    public ApiMonitoringService( final ScheduledExecutorService executorService, final IApiController apiController, final IProjectManager projectManager, final IBuildTypeManager buildManager ) {
+    public ApiMonitoringService( final ScheduledExecutorService executorService, final Configuration configuration, final IApiController apiController, final IProjectManager projectManager, final IBuildTypeManager buildManager, final ApiStatisticsReporter statisticsReporter, final ApiConnectionKeeper connectionKeeper, final CoalescingApiRequestController coalescingRequestController, final IWebhookReceiver webhookReceiver ) {
         _executorService = executorService;
+        _configuration = configuration;
         _apiController = apiController;
         _projectManager = projectManager;
         _buildManager = buildManager;
+        _statisticsReporter = statisticsReporter;
+        _connectionKeeper = connectionKeeper;
+        _coalescingRequestController = coalescingRequestController;
+        _webhookReceiver = webhookReceiver;
+        // Build types followed by pushed notifications or by build delta only need reconciliation polls
+        _pollingScheduler = new PollingScheduler( buildType -> webhookReceiver.covers( buildType ) || apiController.isDeltaSupported( buildType ) );
     }
 
     @Override
     public void start( ) {
-        _executorService.scheduleWithFixedDelay( checkIdleBuildStatus( ), 10, 60, TimeUnit.SECONDS );
-        _executorService.scheduleWithFixedDelay( checkRunningBuildStatus( ), 10, 20, TimeUnit.SECONDS );
-        _executorService.scheduleWithFixedDelay( checkQueuedBuildStatus( ), 10, 60, TimeUnit.SECONDS );
+        _connectionKeeper.start( );
+        _statisticsReporter.start( );
+        _coalescingRequestController.start( );
+        _executorService.scheduleWithFixedDelay( checkDueBuildStatus( ), 10, SCHEDULER_TICK_IN_SECONDS, TimeUnit.SECONDS );
+        _executorService.scheduleWithFixedDelay( checkQueuedBuildStatus( ), 10, QUEUE_CHECK_PERIOD_IN_SECONDS, TimeUnit.SECONDS );
+        _executorService.scheduleWithFixedDelay( checkBuildDelta( ), 10, DELTA_CHECK_PERIOD.getSeconds( ), TimeUnit.SECONDS );
+        _webhookReceiver.start( );
         LOGGER.info( "Monitoring service configured." );
     }
 
@@ -83,76 +119,111 @@ public final class ApiMonitoringService implements IApiMonitoringService {
     @Override
     public synchronized void activate( ) {
         _active = true;
+        _trackingRequested = true;
         LOGGER.info( "Monitoring service started." );
     }
 
+    private synchronized boolean consumeTrackingRequest( ) {
+        final boolean requested = _trackingRequested;
+        _trackingRequested = false;
+        return requested;
+    }
+
     private Collection<BuildTypeData> getAllMonitoredBuildTypes( ) {
         final Set<BuildTypeData> allMonitoredBuildTypes = Sets.newLinkedHashSet( );
         allMonitoredBuildTypes.addAll( _buildManager.getMonitoredBuildTypes( ) );
 
         for ( final ProjectData projectData : _projectManager.getMonitoredProjects( ) ) {
-            allMonitoredBuildTypes.addAll( projectData.getBuildTypes( ) );
-            for ( final ProjectData child : _projectManager.getAllChildrenOf( projectData ) ) {
-                allMonitoredBuildTypes.addAll( child.getBuildTypes( ) );
-            }
+            for ( final ProjectData project : _projectManager.getSubtreeOf( projectData ) )
+                allMonitoredBuildTypes.addAll( project.getBuildTypes( ) );
         }
 
         return allMonitoredBuildTypes;
     }
 
-    private Runnable checkIdleBuildStatus( ) {
+    private Runnable checkDueBuildStatus( ) {
         return ( ) -> {
-            if ( !isActive( ) )
+            if ( !isActive( ) || _statusCycleRunning.get( ) )
                 return;
 
-            final Instant before = Instant.now( );
-            final List<BuildTypeData> monitoredBuilds = getAllMonitoredBuildTypes( ).stream( )
-                    .filter( b -> !b.hasRunningBuild( ) )
-                    .collect( Collectors.toList( ) );
+            if ( consumeTrackingRequest( ) )
+                _pollingScheduler.track( getAllMonitoredBuildTypes( ), Instant.now( ) );
+
+            final List<BuildTypeData> dueBuildTypes = _pollingScheduler.pollDue( Instant.now( ) );
+            if ( dueBuildTypes.isEmpty( ) )
+                return;
+
+            startCycle( _statusCycleRunning, dueBuildTypes, _apiController::requestLastBuildStatus, _configuration.getMaxParallelRequests( ), PollingScheduler.ACTIVE_INTERVAL, stats -> {
+                final Instant now = Instant.now( );
+                for ( final BuildTypeData buildType : dueBuildTypes )
+                    _pollingScheduler.reschedule( buildType, now );
 
-            checkBuildStatus( monitoredBuilds );
-            LOGGER.info( "Checking idle build status: done in {} s", Duration.between( before, Instant.now( ) ).getSeconds( ) );
+                LOGGER.debug( "Checking status of {} build types: {}", dueBuildTypes.size( ), stats );
+            } );
         };
     }
 
-    private Runnable checkRunningBuildStatus( ) {
+    private Runnable checkBuildDelta( ) {
         return ( ) -> {
-            if ( !isActive( ) )
+            if ( !isActive( ) || _deltaCycleRunning.get( ) )
                 return;
 
-            final Instant before = Instant.now( );
-            final List<BuildTypeData> monitoredBuilds = getAllMonitoredBuildTypes( ).stream( )
-                    .filter( BuildTypeData::hasRunningBuild )
+            final List<BuildTypeData> deltaBuildTypes = getAllMonitoredBuildTypes( ).stream( )
+                    .filter( _apiController::isDeltaSupported )
                     .collect( Collectors.toList( ) );
+            if ( deltaBuildTypes.isEmpty( ) )
+                return;
 
-            checkBuildStatus( monitoredBuilds );
-            LOGGER.info( "Checking running build status: done in {} s", Duration.between( before, Instant.now( ) ).getSeconds( ) );
+            startCycle( _deltaCycleRunning, ImmutableList.of( _apiController ), apiController -> apiController.requestBuildDelta( deltaBuildTypes ), 1, DELTA_CHECK_PERIOD,
+                    stats -> LOGGER.debug( "Checking build delta of {} build types: {}", deltaBuildTypes.size( ), stats ) );
         };
     }
 
-    private void checkBuildStatus( final Iterable<BuildTypeData> monitoredBuilds ) {
-        try {
-            ListenableFuture<Void> future = Futures.immediateFuture( null );
-            for ( final BuildTypeData buildType : monitoredBuilds )
-                future = Futures.transform( future, (AsyncFunction<Void, Void>) o -> _apiController.requestLastBuildStatus( buildType ) );
-            future.get( );
-        } catch ( InterruptedException | ExecutionException ignored ) {
-        }
-    }
-
     private Runnable checkQueuedBuildStatus( ) {
         return ( ) -> {
-            if ( !isActive( ) )
+            if ( !isActive( ) || _queueCycleRunning.get( ) )
                 return;
 
-            try {
-                final Instant before = Instant.now( );
-                ListenableFuture<Void> future = _apiController.requestQueuedBuilds( );
-                future.get( );
-                LOGGER.info( "Checking queued builds: done in {} s", Duration.between( before, Instant.now( ) ).getSeconds( ) );
-            } catch ( InterruptedException | ExecutionException ignored ) {
-            }
+            final Collection<BuildTypeData> monitoredBuildTypes = getAllMonitoredBuildTypes( );
+            _pollingScheduler.track( monitoredBuildTypes, Instant.now( ) );
+
+            startCycle( _queueCycleRunning, ImmutableList.of( _apiController ), IApiController::requestQueuedBuilds, 1, Duration.ofSeconds( QUEUE_CHECK_PERIOD_IN_SECONDS ),
+                    stats -> queuedBuildsChecked( monitoredBuildTypes, stats ) );
         };
     }
 
+    private void queuedBuildsChecked( final Collection<BuildTypeData> monitoredBuildTypes, final PollCycleStats stats ) {
+        LOGGER.debug( "Checking queued builds: {}", stats );
+
+        // Build types which are now in queue will start soon: they must be checked without waiting their idle deadline
+        final Instant now = Instant.now( );
+        monitoredBuildTypes.stream( )
+                .filter( BuildTypeData::isQueued )
+                .filter( buildType -> !_webhookReceiver.covers( buildType ) && !_apiController.isDeltaSupported( buildType ) )
+                .forEach( buildType -> _pollingScheduler.expedite( buildType, now.plus( PollingScheduler.ACTIVE_INTERVAL ) ) );
+    }
+
+    /**
+     * Starts a poll cycle flagged as running until its completion, the deadline timer of the cycle is scheduled in executor service
+     */
+    private <T> void startCycle( final AtomicBoolean running, final Collection<T> items, final Function<T, ListenableFuture<?>> request, final int maxParallelRequests, final Duration deadline, final Consumer<PollCycleStats> onCompletion ) {
+        running.set( true );
+        addCallback( PollCycle.start( items, request, maxParallelRequests, deadline, _executorService ), new FutureCallback<PollCycleStats>( ) {
+            @Override
+            public void onSuccess( final PollCycleStats stats ) {
+                try {
+                    onCompletion.accept( stats );
+                } finally {
+                    running.set( false );
+                }
+            }
+
+            @Override
+            public void onFailure( final Throwable t ) {
+                running.set( false );
+                LOGGER.error( "Error during poll cycle:", t );
+            }
+        } );
+    }
+
 }
@@ -28,18 +28,25 @@ public final class ApiRequest {
 
     static final String GUEST_USER = "guest";
 
-    private final URI _serverUrl;
+    private final String _serverUrl;
     private final String _username;
     private final String _password;
 
     ApiRequest( final URI serverUrl, final String username, final String password ) {
+        this( serverUrl.toString( ), username, password );
+    }
+
+    /**
+     * Request to an url already validated, as the ones built by {@link ApiRequestContext}
+     */
+    ApiRequest( final String serverUrl, final String username, final String password ) {
         _serverUrl = serverUrl;
         _username = username;
         _password = password;
     }
 
     public String getURI( ) {
-        return _serverUrl.toString( );
+        return _serverUrl;
     }
 
     public String getUsername( ) {
@@ -39,6 +39,7 @@ public final class ApiRequestBuilder {
     private String _username = ApiRequest.GUEST_USER;
     private String _password = "";
     private ApiVersion _version;
+    private Class<? extends ApiResponse> _expectedType;
 
     private ApiRequestBuilder( ) {
     }
@@ -74,11 +75,19 @@ public final class ApiRequestBuilder {
         return this;
     }
 
+    /**
+     * Expected response type: when api version supports it, only fields read from this type are requested
+     */
+    public ApiRequestBuilder expecting( final Class<? extends ApiResponse> expectedType ) {
+        _expectedType = expectedType;
+        return this;
+    }
+
     public ApiRequest build( ) {
         checkNotNull( _version, "Api version is not defined." );
 
         final String apiAuthMode = isGuestMode( ) ? "guestAuth" : "httpAuth";
-        final String url = String.format( API_URL_FORMAT, _serverUrl, apiAuthMode, _version.getIdentifier( ), _path );
+        final String url = String.format( API_URL_FORMAT, _serverUrl, apiAuthMode, _version.getIdentifier( ), ApiFields.select( _path, _version, _expectedType ) );
 
         try {
             final URI uri = new URI( url );
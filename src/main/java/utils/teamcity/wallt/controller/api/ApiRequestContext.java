@@ -0,0 +1,92 @@
+/*******************************************************************************
+ * Copyright 2014 Cedric Longo.
+ *
+ * This file is part of Wall-T program.
+ *
+ * Wall-T is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Wall-T is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with Wall-T.
+ * If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package utils.teamcity.wallt.controller.api;
+
+import com.google.common.base.Strings;
+import com.google.common.io.BaseEncoding;
+import utils.teamcity.wallt.model.configuration.Configuration;
+
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Request context compiled once from server url and credentials of configuration: base url of each api version is
+ * built and validated by {@link ApiRequestBuilder} for the authentication mode of credentials, and basic authorization
+ * is encoded up-front, so preparing a request only appends its path to a base url.
+ * A context must be compiled again as soon as {@link #isCompiledFrom(Configuration)} is false.
+ */
+final class ApiRequestContext {
+
+    private final String _serverUrl;
+    private final String _credentialsUser;
+    private final String _credentialsPassword;
+
+    private final Map<ApiVersion, ApiRequest> _baseRequests = new EnumMap<>( ApiVersion.class );
+    private final Optional<String> _authorization;
+
+    private ApiRequestContext( final String serverUrl, final String credentialsUser, final String credentialsPassword ) {
+        _serverUrl = serverUrl;
+        _credentialsUser = credentialsUser;
+        _credentialsPassword = credentialsPassword;
+
+        for ( final ApiVersion version : ApiVersion.values( ) ) {
+            _baseRequests.put( version, ApiRequestBuilder.newRequest( )
+                    .to( serverUrl )
+                    .forUser( credentialsUser )
+                    .withPassword( credentialsPassword )
+                    .apiVersion( version )
+                    .build( ) );
+        }
+
+        final ApiRequest baseRequest = _baseRequests.get( ApiVersion.API_8_0 );
+        _authorization = baseRequest.isGuestMode( )
+                ? Optional.empty( )
+                : Optional.of( "Basic " + BaseEncoding.base64( ).encode( ( baseRequest.getUsername( ) + ":" + baseRequest.getPassword( ) ).getBytes( StandardCharsets.UTF_8 ) ) );
+    }
+
+    static ApiRequestContext compile( final Configuration configuration ) {
+        return new ApiRequestContext( configuration.getServerUrl( ), configuration.getCredentialsUser( ), configuration.getCredentialsPassword( ) );
+    }
+
+    /**
+     * Context itself when it is still compiled from configuration, a new compiled context otherwise
+     */
+    static ApiRequestContext upToDate( final ApiRequestContext context, final Configuration configuration ) {
+        return context != null && context.isCompiledFrom( configuration ) ? context : compile( configuration );
+    }
+
+    boolean isCompiledFrom( final Configuration configuration ) {
+        return Objects.equals( _serverUrl, configuration.getServerUrl( ) )
+                && Objects.equals( _credentialsUser, configuration.getCredentialsUser( ) )
+                && Objects.equals( _credentialsPassword, configuration.getCredentialsPassword( ) );
+    }
+
+    ApiRequest newRequest( final ApiVersion version, final String path, final Class<? extends ApiResponse> expectedType ) {
+        final ApiRequest baseRequest = _baseRequests.get( version );
+        return new ApiRequest( baseRequest.getURI( ) + ApiFields.select( Strings.nullToEmpty( path ), version, expectedType ), baseRequest.getUsername( ), baseRequest.getPassword( ) );
+    }
+
+    /**
+     * Value of authorization header, absent in guest mode
+     */
+    Optional<String> getAuthorization( ) {
+        return _authorization;
+    }
+
+}
@@ -15,21 +15,26 @@
 
 package utils.teamcity.wallt.controller.api;
 
-import com.google.common.base.Charsets;
+import com.google.common.base.Throwables;
+import com.google.common.collect.Maps;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.CountingInputStream;
 import com.google.common.net.HttpHeaders;
+import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.google.common.util.concurrent.SettableFuture;
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.ning.http.client.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import utils.teamcity.wallt.model.configuration.Configuration;
 import utils.teamcity.wallt.model.logger.Loggers;
 
 import javax.inject.Inject;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Optional;
 
-import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.util.concurrent.Futures.addCallback;
 
 /**
  * Date: 17/02/14
@@ -40,72 +45,97 @@ final class ApiRequestController implements IApiRequestController {
 
     public static final Logger LOGGER = LoggerFactory.getLogger( Loggers.NETWORK );
     private final Configuration _configuration;
-    private final AsyncHttpClient _httpClient;
+    private final IApiTransport _transport;
+    private final ApiResponseCache _responseCache;
+    private final ApiTransferStatistics _transferStatistics;
+    private volatile ApiRequestContext _requestContext;
 
     @Inject
-    ApiRequestController( final Configuration configuration, final AsyncHttpClient httpClient ) {
+    ApiRequestController( final Configuration configuration, final IApiTransport transport, final ApiResponseCache responseCache, final ApiTransferStatistics transferStatistics ) {
         _configuration = configuration;
-        _httpClient = httpClient;
+        _transport = transport;
+        _responseCache = responseCache;
+        _transferStatistics = transferStatistics;
     }
 
     @Override
     public <T extends ApiResponse> ListenableFuture<T> sendRequest( final ApiVersion version, final String path, final Class<T> expectedType ) {
         final SettableFuture<T> apiResponseFuture = SettableFuture.create( );
         try {
-            final ApiRequest request = ApiRequestBuilder.newRequest( )
-                    .to( _configuration.getServerUrl( ) )
-                    .forUser( _configuration.getCredentialsUser( ) )
-                    .withPassword( _configuration.getCredentialsPassword( ) )
-                    .request( path )
-                    .apiVersion( version )
-                    .build( );
+            final ApiRequestContext requestContext = requestContext( );
+            final ApiRequest request = requestContext.newRequest( version, path, expectedType );
 
             LOGGER.info( "<< REQUEST: to {}", request );
 
-            final AsyncHttpClient.BoundRequestBuilder httpRequest = _httpClient
-                    .prepareGet( request.getURI( ) )
-                    .addHeader( HttpHeaders.ACCEPT, "application/json" );
-
-            if ( !request.isGuestMode( ) ) {
-                final Realm realm = new Realm.RealmBuilder( )
-                        .setPrincipal( request.getUsername( ) )
-                        .setPassword( request.getPassword( ) )
-                        .setUsePreemptiveAuth( true )
-                        .setScheme( Realm.AuthScheme.BASIC )
-                        .build( );
-                httpRequest.setRealm( realm );
-            }
-
-            if ( _configuration.isUseProxy( ) ) {
-                // CODEREVIEW Let the user choose the protocol ?
-                final ProxyServer proxyServer = new ProxyServer( ProxyServer.Protocol.HTTP, checkNotNull( _configuration.getProxyHost( ), "Proxy hostname is not defined" ), _configuration.getProxyPort( ), _configuration.getProxyCredentialsUser( ), _configuration.getProxyCredentialsPassword( ) );
-                httpRequest.setProxyServer( proxyServer );
-            }
-
-            httpRequest.execute( new AsyncCompletionHandler<Void>( ) {
-                @Override
-                public void onThrowable( final Throwable t ) {
-                    super.onThrowable( t );
-                    apiResponseFuture.setException( t );
-                }
+            final Map<String, String> headers = Maps.newLinkedHashMap( );
+            headers.put( HttpHeaders.ACCEPT, "application/json" );
+            requestContext.getAuthorization( ).ifPresent( authorization -> headers.put( HttpHeaders.AUTHORIZATION, authorization ) );
 
-                @Override
-                public Void onCompleted( final Response response ) throws Exception {
+            if ( _configuration.isCompressionEnabled( ) )
+                headers.put( HttpHeaders.ACCEPT_ENCODING, ContentDecoding.ACCEPTED_ENCODINGS );
 
-                    if ( response.getStatusCode( ) != 200 ) {
-                        LOGGER.error( ">> RESPONSE: for {} has status code {}", request, response.getStatusCode( ) );
-                        apiResponseFuture.setException( new ApiException( "Http status code is " + response.getStatusCode( ) + " when requesting uri: " + response.getUri( ) ) );
-                        return null;
-                    }
-
-                    final String content = response.getResponseBody( Charsets.UTF_8.name( ) );
-                    LOGGER.debug( ">> RESPONSE: for {} has content: {}", request, content );
+            final Optional<ApiResponseCache.CachedResponse> cachedResponse = _responseCache.lookup( request.getURI( ) )
+                    .filter( cached -> expectedType.isInstance( cached.getResponse( ) ) );
+            cachedResponse.flatMap( ApiResponseCache.CachedResponse::getETag ).ifPresent( eTag -> headers.put( HttpHeaders.IF_NONE_MATCH, eTag ) );
+            cachedResponse.flatMap( ApiResponseCache.CachedResponse::getLastModified ).ifPresent( lastModified -> headers.put( HttpHeaders.IF_MODIFIED_SINCE, lastModified ) );
 
-                    final Gson gson = new GsonBuilder( ).create( );
-                    final T jsonResponse = gson.fromJson( content, expectedType );
-                    apiResponseFuture.set( jsonResponse );
+            final ListenableFuture<ApiTransportResponse> transportResponseFuture = _transport.get( request, headers );
+            apiResponseFuture.addListener( ( ) -> {
+                if ( apiResponseFuture.isCancelled( ) )
+                    transportResponseFuture.cancel( true );
+            }, MoreExecutors.sameThreadExecutor( ) );
+            addCallback( transportResponseFuture, new FutureCallback<ApiTransportResponse>( ) {
+                @Override
+                public void onSuccess( final ApiTransportResponse response ) {
+                    try {
+                        if ( response.getStatusCode( ) == 304 && cachedResponse.isPresent( ) ) {
+                            LOGGER.debug( ">> RESPONSE: for {} is not modified", request );
+                            _responseCache.notModified( );
+                            apiResponseFuture.set( expectedType.cast( cachedResponse.get( ).getResponse( ) ) );
+                            return;
+                        }
+
+                        if ( response.getStatusCode( ) != 200 ) {
+                            LOGGER.error( ">> RESPONSE: for {} has status code {}", request, response.getStatusCode( ) );
+                            apiResponseFuture.setException( new ApiException( "Http status code is " + response.getStatusCode( ) + " when requesting uri: " + request.getURI( ), response.getStatusCode( ) ) );
+                            return;
+                        }
+
+                        final CountingInputStream transferredBody = new CountingInputStream( response.getBody( ) );
+                        final CountingInputStream decodedBody;
+                        final T jsonResponse;
+                        try {
+                            decodedBody = new CountingInputStream( ContentDecoding.decode( response.getHeader( HttpHeaders.CONTENT_ENCODING ), transferredBody ) );
+                            jsonResponse = ApiResponseDecoder.decode( decodedBody, expectedType );
+                            // Decoding may end before the last part of body: request is completed, and its connection released, at end of body
+                            ByteStreams.copy( response.getBody( ), ByteStreams.nullOutputStream( ) );
+                        } catch ( IOException | RuntimeException e ) {
+                            // Decoder may wrap the failure of the transport while body was read
+                            final Optional<Throwable> transportFailure = Throwables.getCausalChain( e ).stream( )
+                                    .filter( StreamedResponseBody.IncompleteBodyException.class::isInstance )
+                                    .map( Throwable::getCause ).findFirst( );
+                            if ( transportFailure.isPresent( ) ) {
+                                LOGGER.error( ">> RESPONSE: for {} is incomplete", request );
+                                apiResponseFuture.setException( transportFailure.get( ) );
+                                return;
+                            }
+                            LOGGER.error( ">> RESPONSE: for {} cannot be decoded", request );
+                            apiResponseFuture.setException( ApiException.decodingError( "Response cannot be decoded when requesting uri: " + request.getURI( ), response.getStatusCode( ), e ) );
+                            return;
+                        }
+                        LOGGER.debug( ">> RESPONSE: for {} has {} bytes, {} bytes decoded", request, transferredBody.getCount( ), decodedBody.getCount( ) );
+
+                        _transferStatistics.record( path, transferredBody.getCount( ), decodedBody.getCount( ) );
+                        _responseCache.store( request.getURI( ), response.getHeader( HttpHeaders.ETAG ), response.getHeader( HttpHeaders.LAST_MODIFIED ), jsonResponse, (int) decodedBody.getCount( ) );
+                        apiResponseFuture.set( jsonResponse );
+                    } catch ( Exception e ) {
+                        apiResponseFuture.setException( e );
+                    }
+                }
 
-                    return null;
+                @Override
+                public void onFailure( final Throwable t ) {
+                    apiResponseFuture.setException( t );
                 }
             } );
         } catch ( Exception e ) {
@@ -115,5 +145,12 @@ final class ApiRequestController implements IApiRequestController {
         return apiResponseFuture;
     }
 
+    /**
+     * Request context of current server url and credentials, compiled again only when they have changed
+     */
+    private ApiRequestContext requestContext( ) {
+        return _requestContext = ApiRequestContext.upToDate( _requestContext, _configuration );
+    }
+
 
 }
@@ -27,6 +27,16 @@ public class ApiRequestModule extends AbstractModule {
 
     @Override
     protected void configure( ) {
-        bind( IApiRequestController.class ).to( ApiRequestController.class ).in( Scopes.SINGLETON );
+        bind( ApiResponseCache.class ).in( Scopes.SINGLETON );
+        bind( ApiTransferStatistics.class ).in( Scopes.SINGLETON );
+        bind( ApiConnectionStatistics.class ).in( Scopes.SINGLETON );
+        bind( ApiConnectionKeeper.class ).in( Scopes.SINGLETON );
+        bind( ApiStatisticsReporter.class ).in( Scopes.SINGLETON );
+        bind( IApiTransport.class ).to( AsyncHttpApiTransport.class ).in( Scopes.SINGLETON );
+        bind( ApiRequestController.class ).in( Scopes.SINGLETON );
+        bind( GovernedApiRequestController.class ).in( Scopes.SINGLETON );
+        bind( CircuitBreakingApiRequestController.class ).in( Scopes.SINGLETON );
+        bind( CoalescingApiRequestController.class ).in( Scopes.SINGLETON );
+        bind( IApiRequestController.class ).to( CoalescingApiRequestController.class ).in( Scopes.SINGLETON );
     }
 }
@@ -0,0 +1,40 @@
+/*******************************************************************************
+ * Copyright 2014 Cedric Longo.
+ *
+ * This file is part of Wall-T program.
+ *
+ * Wall-T is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Wall-T is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with Wall-T.
+ * If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+
+package utils.teamcity.wallt.controller.api;
+
+/**
+ * Priority classes of api requests, from the most to the least urgent: when requests are throttled,
+ * queued requests of a class are all sent before the ones of next classes.
+ */
+public enum ApiRequestPriority {
+
+    /**
+     * Catalogue loading and build queue checks
+     */
+    HIGH,
+
+    /**
+     * Status checks of build types having a running or queued build
+     */
+    ACTIVE,
+
+    /**
+     * Status checks of idle build types
+     */
+    IDLE
+
+}
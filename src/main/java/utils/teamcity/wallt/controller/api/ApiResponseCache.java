@@ -0,0 +1,148 @@
+/*******************************************************************************
+ * Copyright 2014 Cedric Longo.
+ *
+ * This file is part of Wall-T program.
+ *
+ * Wall-T is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Wall-T is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with Wall-T.
+ * If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+
+package utils.teamcity.wallt.controller.api;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import javax.inject.Inject;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Strings.isNullOrEmpty;
+
+/**
+ * Keeps last parsed response of each request uri with its validators (ETag and Last-Modified), so that requests
+ * can be sent as conditional requests and cached response reused when server answers 304 Not Modified.
+ * Size is bounded by the total length of cached contents, least recently used responses are evicted first.
+ */
+final class ApiResponseCache {
+
+    static final int MAX_CACHED_CONTENT_LENGTH = 16 * 1024 * 1024;
+
+    private final Cache<String, CachedResponse> _cache;
+
+    private final AtomicLong _hitCount = new AtomicLong( );
+    private final AtomicLong _missCount = new AtomicLong( );
+    private final AtomicLong _notModifiedCount = new AtomicLong( );
+
+    @Inject
+    ApiResponseCache( ) {
+        this( MAX_CACHED_CONTENT_LENGTH );
+    }
+
+    ApiResponseCache( final int maxCachedContentLength ) {
+        // Single segment so that eviction is strictly least recently used across all uris
+        _cache = CacheBuilder.newBuilder( )
+                .concurrencyLevel( 1 )
+                .maximumWeight( maxCachedContentLength )
+                .weigher( ( String uri, CachedResponse response ) -> response.getContentLength( ) )
+                .build( );
+    }
+
+    /**
+     * Looks for the cached response of the uri, and records a hit or a miss
+     */
+    Optional<CachedResponse> lookup( final String uri ) {
+        final CachedResponse cachedResponse = _cache.getIfPresent( uri );
+        if ( cachedResponse == null )
+            _missCount.incrementAndGet( );
+        else
+            _hitCount.incrementAndGet( );
+        return Optional.ofNullable( cachedResponse );
+    }
+
+    /**
+     * Records the response if server has given any validator: without validator, the request can't be conditional
+     */
+    void store( final String uri, final String eTag, final String lastModified, final ApiResponse response, final int contentLength ) {
+        if ( isNullOrEmpty( eTag ) && isNullOrEmpty( lastModified ) ) {
+            _cache.invalidate( uri );
+            return;
+        }
+        _cache.put( uri, new CachedResponse( eTag, lastModified, response, contentLength ) );
+    }
+
+    void notModified( ) {
+        _notModifiedCount.incrementAndGet( );
+    }
+
+    long getHitCount( ) {
+        return _hitCount.get( );
+    }
+
+    long getMissCount( ) {
+        return _missCount.get( );
+    }
+
+    long getNotModifiedCount( ) {
+        return _notModifiedCount.get( );
+    }
+
+    double getHitRate( ) {
+        final long lookupCount = getHitCount( ) + getMissCount( );
+        return lookupCount == 0 ? 0 : (double) getHitCount( ) / lookupCount;
+    }
+
+    /**
+     * @return Rate of conditional requests answered by 304 Not Modified
+     */
+    double getNotModifiedRate( ) {
+        final long hitCount = getHitCount( );
+        return hitCount == 0 ? 0 : (double) getNotModifiedCount( ) / hitCount;
+    }
+
+    long size( ) {
+        return _cache.size( );
+    }
+
+    @Override
+    public String toString( ) {
+        return String.format( "cached responses: %d, hit rate: %.2f, 304 rate: %.2f (hit: %d, miss: %d, 304: %d)", size( ), getHitRate( ), getNotModifiedRate( ), getHitCount( ), getMissCount( ), getNotModifiedCount( ) );
+    }
+
+    static final class CachedResponse {
+
+        private final String _eTag;
+        private final String _lastModified;
+        private final ApiResponse _response;
+        private final int _contentLength;
+
+        CachedResponse( final String eTag, final String lastModified, final ApiResponse response, final int contentLength ) {
+            _eTag = eTag;
+            _lastModified = lastModified;
+            _response = response;
+            _contentLength = contentLength;
+        }
+
+        Optional<String> getETag( ) {
+            return Optional.ofNullable( isNullOrEmpty( _eTag ) ? null : _eTag );
+        }
+
+        Optional<String> getLastModified( ) {
+            return Optional.ofNullable( isNullOrEmpty( _lastModified ) ? null : _lastModified );
+        }
+
+        ApiResponse getResponse( ) {
+            return _response;
+        }
+
+        int getContentLength( ) {
+            return _contentLength;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+/*******************************************************************************
+ * Copyright 2014 Cedric Longo.
+ *
+ * This file is part of Wall-T program.
+ *
+ * Wall-T is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Wall-T is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with Wall-T.
+ * If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+
+package utils.teamcity.wallt.controller.api;
+
+import com.google.common.base.Charsets;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonReader;
+import utils.teamcity.wallt.controller.api.json.ApiTypeAdapters;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+
+/**
+ * Decodes api responses directly from the response body stream: the body is never materialized as a String and
+ * unknown fields are skipped by the reader without being built.
+ * Gson instance is thread-safe, so it is shared by all decodings. Api classes are decoded by {@link ApiTypeAdapters}.
+ */
+final class ApiResponseDecoder {
+
+    private static final Gson GSON = ApiTypeAdapters.registerAll( new GsonBuilder( ) ).create( );
+
+    private ApiResponseDecoder( ) {
+        throw new UnsupportedOperationException( );
+    }
+
+    static <T extends ApiResponse> T decode( final InputStream body, final Class<T> expectedType ) throws IOException {
+        try ( final JsonReader reader = new JsonReader( new InputStreamReader( body, Charsets.UTF_8 ) ) ) {
+            return GSON.fromJson( reader, expectedType );
+        }
+    }
+
+}
@@ -0,0 +1,72 @@
+/*******************************************************************************
+ * Copyright 2014 Cedric Longo.
+ *
+ * This file is part of Wall-T program.
+ *
+ * Wall-T is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Wall-T is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with Wall-T.
+ * If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+
+package utils.teamcity.wallt.controller.api;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import utils.teamcity.wallt.model.logger.Loggers;
+
+import javax.inject.Inject;
+import java.time.Duration;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically logs statistics of the api request chain (cache, coalescing, governor, circuits, transfers and connections)
+ * at debug level.
+ */
+final class ApiStatisticsReporter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger( Loggers.MAIN );
+
+    static final Duration REPORT_PERIOD = Duration.ofMinutes( 1 );
+
+    private final ScheduledExecutorService _executorService;
+    private final ApiResponseCache _responseCache;
+    private final CoalescingApiRequestController _coalescingRequestController;
+    private final GovernedApiRequestController _governedRequestController;
+    private final CircuitBreakingApiRequestController _circuitBreakingRequestController;
+    private final ApiTransferStatistics _transferStatistics;
+    private final ApiConnectionStatistics _connectionStatistics;
+
+    @Inject
+    ApiStatisticsReporter( final ScheduledExecutorService executorService, final ApiResponseCache responseCache, final CoalescingApiRequestController coalescingRequestController, final GovernedApiRequestController governedRequestController, final CircuitBreakingApiRequestController circuitBreakingRequestController, final ApiTransferStatistics transferStatistics, final ApiConnectionStatistics connectionStatistics ) {
+        _executorService = executorService;
+        _responseCache = responseCache;
+        _coalescingRequestController = coalescingRequestController;
+        _governedRequestController = governedRequestController;
+        _circuitBreakingRequestController = circuitBreakingRequestController;
+        _transferStatistics = transferStatistics;
+        _connectionStatistics = connectionStatistics;
+    }
+
+    void start( ) {
+        _executorService.scheduleWithFixedDelay( this::report, REPORT_PERIOD.getSeconds( ), REPORT_PERIOD.getSeconds( ), TimeUnit.SECONDS );
+    }
+
+    void report( ) {
+        if ( !LOGGER.isDebugEnabled( ) )
+            return;
+        LOGGER.debug( "Response cache: {}", _responseCache );
+        LOGGER.debug( "Request coalescing: {}", _coalescingRequestController );
+        LOGGER.debug( "Request governor: {}", _governedRequestController );
+        LOGGER.debug( "Circuits: {}", _circuitBreakingRequestController );
+        LOGGER.debug( "Transfers: {}", _transferStatistics );
+        LOGGER.debug( "Connections: {}", _connectionStatistics );
+    }
+
+}
@@ -0,0 +1,87 @@
+/*******************************************************************************
+ * Copyright 2014 Cedric Longo.
+ *
+ * This file is part of Wall-T program.
+ *
+ * Wall-T is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Wall-T is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with Wall-T.
+ * If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+
+package utils.teamcity.wallt.controller.api;
+
+import javax.inject.Inject;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Bytes transferred on the network and bytes decoded after decompression, by api endpoint (first segment of the request path).
+ */
+final class ApiTransferStatistics {
+
+    private final ConcurrentMap<String, EndpointStatistics> _statisticsByEndpoint = new ConcurrentHashMap<>( );
+
+    @Inject
+    ApiTransferStatistics( ) {
+    }
+
+    static String endpointOf( final String path ) {
+        int end = 0;
+        while ( end < path.length( ) && path.charAt( end ) != '/' && path.charAt( end ) != '?' )
+            end++;
+        return path.substring( 0, end );
+    }
+
+    void record( final String path, final long transferredBytes, final long decodedBytes ) {
+        final EndpointStatistics statistics = _statisticsByEndpoint.computeIfAbsent( endpointOf( path ), endpoint -> new EndpointStatistics( ) );
+        statistics._responseCount.incrementAndGet( );
+        statistics._transferredBytes.addAndGet( transferredBytes );
+        statistics._decodedBytes.addAndGet( decodedBytes );
+    }
+
+    long getResponseCount( final String endpoint ) {
+        final EndpointStatistics statistics = _statisticsByEndpoint.get( endpoint );
+        return statistics == null ? 0 : statistics._responseCount.get( );
+    }
+
+    long getTransferredBytes( final String endpoint ) {
+        final EndpointStatistics statistics = _statisticsByEndpoint.get( endpoint );
+        return statistics == null ? 0 : statistics._transferredBytes.get( );
+    }
+
+    long getDecodedBytes( final String endpoint ) {
+        final EndpointStatistics statistics = _statisticsByEndpoint.get( endpoint );
+        return statistics == null ? 0 : statistics._decodedBytes.get( );
+    }
+
+    @Override
+    public String toString( ) {
+        return _statisticsByEndpoint.entrySet( ).stream( )
+                .sorted( Map.Entry.comparingByKey( ) )
+                .map( e -> e.getKey( ) + ": " + e.getValue( ) )
+                .collect( Collectors.joining( ", ", "{ ", " }" ) );
+    }
+
+    private static final class EndpointStatistics {
+
+        private final AtomicLong _responseCount = new AtomicLong( );
+        private final AtomicLong _transferredBytes = new AtomicLong( );
+        private final AtomicLong _decodedBytes = new AtomicLong( );
+
+        @Override
+        public String toString( ) {
+            final long transferredBytes = _transferredBytes.get( );
+            final long decodedBytes = _decodedBytes.get( );
+            return String.format( "%d responses, %d kB transferred for %d kB decoded (x%.1f)", _responseCount.get( ), transferredBytes / 1024, decodedBytes / 1024, transferredBytes == 0 ? 1.0 : (double) decodedBytes / transferredBytes );
+        }
+    }
+}
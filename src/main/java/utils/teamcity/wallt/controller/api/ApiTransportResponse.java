@@ -0,0 +1,52 @@
+/*******************************************************************************
+ * Copyright 2014 Cedric Longo.
+ *
+ * This file is part of Wall-T program.
+ *
+ * Wall-T is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Wall-T is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with Wall-T.
+ * If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package utils.teamcity.wallt.controller.api;
+
+import java.io.InputStream;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Raw response of an {@link IApiTransport}, header names are case insensitive
+ */
+final class ApiTransportResponse {
+
+    private final int _statusCode;
+    private final Map<String, String> _headers;
+    private final InputStream _body;
+
+    ApiTransportResponse( final int statusCode, final Map<String, String> headers, final InputStream body ) {
+        _statusCode = statusCode;
+        _headers = new TreeMap<>( String.CASE_INSENSITIVE_ORDER );
+        headers.forEach( _headers::putIfAbsent );
+        _body = body;
+    }
+
+    int getStatusCode( ) {
+        return _statusCode;
+    }
+
+    /**
+     * @return first value of the header, or null when header is not present
+     */
+    String getHeader( final String name ) {
+        return _headers.get( name );
+    }
+
+    InputStream getBody( ) {
+        return _body;
+    }
+}
@@ -15,9 +15,17 @@
 
 package utils.teamcity.wallt.controller.api;
 
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeFormatterBuilder;
 import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
 
 /**
  * Date: 19/02/14
@@ -46,4 +54,38 @@ public final class ApiUtils {
             .optionalEnd( )
             .toFormatter( );
 
+    /**
+     * Parses a date given by the api with the offset sent by the server, or with the offset of system default zone without offset
+     */
+    public static OffsetDateTime parseDateTime( final String date ) {
+        // Fast path for the format always sent by TeamCity (yyyyMMdd'T'HHmmss+HHMM), parsed without formatter context
+        if ( date.length( ) == 20 && date.charAt( 8 ) == 'T' && ( date.charAt( 15 ) == '+' || date.charAt( 15 ) == '-' ) ) {
+            try {
+                final LocalDate localDate = LocalDate.of( digits( date, 0, 4 ), digits( date, 4, 6 ), digits( date, 6, 8 ) );
+                final LocalTime localTime = LocalTime.of( digits( date, 9, 11 ), digits( date, 11, 13 ), digits( date, 13, 15 ) );
+                final int sign = date.charAt( 15 ) == '+' ? 1 : -1;
+                final ZoneOffset offset = ZoneOffset.ofHoursMinutes( sign * digits( date, 16, 18 ), sign * digits( date, 18, 20 ) );
+                return OffsetDateTime.of( localDate, localTime, offset );
+            } catch ( NumberFormatException | DateTimeException ignored ) {
+                // Parsed by formatter to get its error
+            }
+        }
+
+        final TemporalAccessor parsed = DATE_TIME_FORMATTER.parse( date );
+        final LocalDateTime dateTime = parsed.isSupported( ChronoField.HOUR_OF_DAY ) ? LocalDateTime.from( parsed ) : LocalDate.from( parsed ).atStartOfDay( );
+        final ZoneId zone = parsed.isSupported( ChronoField.OFFSET_SECONDS ) ? ZoneOffset.ofTotalSeconds( parsed.get( ChronoField.OFFSET_SECONDS ) ) : ZoneId.systemDefault( );
+        return dateTime.atZone( zone ).toOffsetDateTime( );
+    }
+
+    private static int digits( final String value, final int from, final int to ) {
+        int result = 0;
+        for ( int i = from; i < to; i++ ) {
+            final int digit = value.charAt( i ) - '0';
+            if ( digit < 0 || digit > 9 )
+                throw new NumberFormatException( "Not a digit at " + i + " in " + value );
+            result = result * 10 + digit;
+        }
+        return result;
+    }
+
 }
@@ -29,7 +29,7 @@ import static utils.teamcity.wallt.controller.api.ApiFeature.*;
  */
 public enum ApiVersion {
 
-    API_8_1( "8.1", "8.0", PROJECT_STATUS, BUILD_TYPE_STATUS, QUEUE_STATUS ),
+    API_8_1( "8.1", "8.0", PROJECT_STATUS, BUILD_TYPE_STATUS, QUEUE_STATUS, BULK_BUILD_STATUS, FIELD_SELECTION, BUILD_DELTA, SCOPED_DISCOVERY, PAGED_CATALOGUE ),
     API_8_0( "8.0", "8.0", PROJECT_STATUS, BUILD_TYPE_STATUS ),
     API_7_0( "7.0", "7.0", PROJECT_STATUS, BUILD_TYPE_STATUS ),
     API_6_0( "6.0", "6.0", PROJECT_STATUS, BUILD_TYPE_STATUS ),;
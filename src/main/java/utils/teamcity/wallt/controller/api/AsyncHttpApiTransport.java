@@ -0,0 +1,152 @@
+/*******************************************************************************
+ * Copyright 2014 Cedric Longo.
+ *
+ * This file is part of Wall-T program.
+ *
+ * Wall-T is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Wall-T is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with Wall-T.
+ * If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package utils.teamcity.wallt.controller.api;
+
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import com.ning.http.client.*;
+import utils.teamcity.wallt.model.configuration.Configuration;
+
+import javax.inject.Inject;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Transport of api requests through the asynchronous http client, with proxy of configuration.
+ * Proxy server is built again only when proxy configuration has changed.
+ * Each request is counted by {@link ApiConnectionStatistics} as in flight until it is completed or cancelled.
+ * Response is given as soon as its headers are received, from a thread of the executor: its body is read while
+ * next parts are still received, and the thread of the http client never waits for the reader.
+ */
+final class AsyncHttpApiTransport implements IApiTransport {
+
+    private final Configuration _configuration;
+    private final AsyncHttpClient _httpClient;
+    private final ApiConnectionStatistics _connectionStatistics;
+    private final ExecutorService _executorService;
+    private volatile ProxyServer _proxyServer;
+
+    @Inject
+    AsyncHttpApiTransport( final Configuration configuration, final AsyncHttpClient httpClient, final ApiConnectionStatistics connectionStatistics, final ExecutorService executorService ) {
+        _configuration = configuration;
+        _httpClient = httpClient;
+        _connectionStatistics = connectionStatistics;
+        _executorService = executorService;
+    }
+
+    @Override
+    public ListenableFuture<ApiTransportResponse> get( final ApiRequest request, final Map<String, String> headers ) {
+        final SettableFuture<ApiTransportResponse> responseFuture = SettableFuture.create( );
+        final AtomicBoolean inFlight = new AtomicBoolean( );
+        final StreamedResponseBody body = new StreamedResponseBody( );
+        try {
+            final AsyncHttpClient.BoundRequestBuilder httpRequest = _httpClient.prepareGet( request.getURI( ) );
+            headers.forEach( httpRequest::addHeader );
+
+            if ( _configuration.isUseProxy( ) )
+                httpRequest.setProxyServer( proxyServer( ) );
+
+            inFlight.set( true );
+            _connectionStatistics.requestStarted( );
+            final Future<Void> httpResponseFuture = httpRequest.execute( new AsyncHandler<Void>( ) {
+                private int _statusCode;
+
+                @Override
+                public void onThrowable( final Throwable t ) {
+                    completed( inFlight );
+                    body.failed( t );
+                    responseFuture.setException( t );
+                }
+
+                @Override
+                public STATE onStatusReceived( final HttpResponseStatus status ) {
+                    _statusCode = status.getStatusCode( );
+                    return STATE.CONTINUE;
+                }
+
+                @Override
+                public STATE onHeadersReceived( final HttpResponseHeaders headers ) {
+                    if ( headers.isTraillingHeadersReceived( ) )
+                        return STATE.CONTINUE;
+                    final Map<String, String> responseHeaders = Maps.newHashMap( );
+                    for ( final Map.Entry<String, List<String>> header : headers.getHeaders( ) ) {
+                        if ( !header.getValue( ).isEmpty( ) )
+                            responseHeaders.put( header.getKey( ), header.getValue( ).get( 0 ) );
+                    }
+                    final ApiTransportResponse response = new ApiTransportResponse( _statusCode, responseHeaders, body );
+                    _executorService.execute( ( ) -> responseFuture.set( response ) );
+                    return STATE.CONTINUE;
+                }
+
+                @Override
+                public STATE onBodyPartReceived( final HttpResponseBodyPart bodyPart ) {
+                    body.partReceived( bodyPart.getBodyPartBytes( ) );
+                    return STATE.CONTINUE;
+                }
+
+                @Override
+                public Void onCompleted( ) {
+                    completed( inFlight );
+                    body.completed( );
+                    return null;
+                }
+            } );
+            // Cancelled requests are aborted, their connection is not reused
+            responseFuture.addListener( ( ) -> {
+                if ( responseFuture.isCancelled( ) ) {
+                    httpResponseFuture.cancel( true );
+                    body.close( );
+                    completed( inFlight );
+                }
+            }, MoreExecutors.sameThreadExecutor( ) );
+        } catch ( Exception e ) {
+            completed( inFlight );
+            responseFuture.setException( e );
+        }
+
+        return responseFuture;
+    }
+
+    private void completed( final AtomicBoolean inFlight ) {
+        if ( inFlight.compareAndSet( true, false ) )
+            _connectionStatistics.requestCompleted( );
+    }
+
+    private ProxyServer proxyServer( ) {
+        final ProxyServer proxyServer = _proxyServer;
+        if ( proxyServer != null && isConfiguredProxy( proxyServer ) )
+            return proxyServer;
+
+        // CODEREVIEW Let the user choose the protocol ?
+        return _proxyServer = new ProxyServer( ProxyServer.Protocol.HTTP, checkNotNull( _configuration.getProxyHost( ), "Proxy hostname is not defined" ), _configuration.getProxyPort( ), _configuration.getProxyCredentialsUser( ), _configuration.getProxyCredentialsPassword( ) );
+    }
+
+    private boolean isConfiguredProxy( final ProxyServer proxyServer ) {
+        return proxyServer.getHost( ).equals( _configuration.getProxyHost( ) )
+                && proxyServer.getPort( ) == _configuration.getProxyPort( )
+                && Objects.equals( proxyServer.getPrincipal( ), _configuration.getProxyCredentialsUser( ) )
+                && Objects.equals( proxyServer.getPassword( ), _configuration.getProxyCredentialsPassword( ) );
+    }
+
+}
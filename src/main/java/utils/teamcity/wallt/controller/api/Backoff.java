@@ -0,0 +1,62 @@
+/*******************************************************************************
+ * Copyright 2014 Cedric Longo.
+ *
+ * This file is part of Wall-T program.
+ *
+ * Wall-T is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Wall-T is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with Wall-T.
+ * If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+
+package utils.teamcity.wallt.controller.api;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Exponential backoff with jitter: delay doubles on each attempt up to a maximum, and the actual delay is picked
+ * randomly between half and all of it, so that retries of many clients (or requests) don't stay synchronized.
+ */
+final class Backoff {
+
+    private final Duration _initialDelay;
+    private final Duration _maxDelay;
+    private final DoubleSupplier _random;
+
+    Backoff( final Duration initialDelay, final Duration maxDelay ) {
+        this( initialDelay, maxDelay, ( ) -> ThreadLocalRandom.current( ).nextDouble( ) );
+    }
+
+    Backoff( final Duration initialDelay, final Duration maxDelay, final DoubleSupplier random ) {
+        _initialDelay = initialDelay;
+        _maxDelay = maxDelay;
+        _random = random;
+    }
+
+    /**
+     * @param attempt number of the retry, starting at 1
+     */
+    Duration delay( final int attempt ) {
+        final Duration delay = maxDelayOf( attempt );
+        final Duration half = delay.dividedBy( 2 );
+        return half.plusNanos( (long) ( _random.getAsDouble( ) * half.toNanos( ) ) );
+    }
+
+    private Duration maxDelayOf( final int attempt ) {
+        Duration delay = _initialDelay;
+        for ( int i = 1; i < attempt && delay.compareTo( _maxDelay ) < 0; i++ )
+            delay = delay.multipliedBy( 2 );
+        return delay.compareTo( _maxDelay ) < 0 ? delay : _maxDelay;
+    }
+
+    Duration getMaxDelay( ) {
+        return _maxDelay;
+    }
+}
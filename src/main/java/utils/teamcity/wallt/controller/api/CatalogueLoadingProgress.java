@@ -0,0 +1,49 @@
+/*******************************************************************************
+ * Copyright 2014 Cedric Longo.
+ *
+ * This file is part of Wall-T program.
+ *
+ * Wall-T is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Wall-T is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with Wall-T.
+ * If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package utils.teamcity.wallt.controller.api;
+
+/**
+ * Progress of the loading of projects or build types catalogue, posted on event bus each time a page is loaded.
+ */
+public final class CatalogueLoadingProgress {
+
+    private final String _catalogue;
+    private final int _loadedItems;
+    private final boolean _complete;
+
+    CatalogueLoadingProgress( final String catalogue, final int loadedItems, final boolean complete ) {
+        _catalogue = catalogue;
+        _loadedItems = loadedItems;
+        _complete = complete;
+    }
+
+    public String getCatalogue( ) {
+        return _catalogue;
+    }
+
+    public int getLoadedItems( ) {
+        return _loadedItems;
+    }
+
+    public boolean isComplete( ) {
+        return _complete;
+    }
+
+    @Override
+    public String toString( ) {
+        return _catalogue + ": " + _loadedItems + " loaded" + ( _complete ? "" : "..." );
+    }
+}
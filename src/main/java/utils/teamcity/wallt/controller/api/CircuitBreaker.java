@@ -0,0 +1,100 @@
+/*******************************************************************************
+ * Copyright 2014 Cedric Longo.
+ *
+ * This file is part of Wall-T program.
+ *
+ * Wall-T is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Wall-T is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with Wall-T.
+ * If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+
+package utils.teamcity.wallt.controller.api;
+
+import java.time.Instant;
+
+/**
+ * Stops requests after consecutive failures: circuit is opened until a retry time given by a backoff.
+ * At retry time, a single probe request is allowed: its success closes the circuit, its failure opens it again
+ * with a longer delay.
+ */
+final class CircuitBreaker {
+
+    private final String _name;
+    private final int _failureThreshold;
+    private final Backoff _backoff;
+
+    private CircuitState _state = CircuitState.CLOSED;
+    private int _consecutiveFailures;
+    private int _openCount;
+    private Instant _retryTime = Instant.MIN;
+
+    CircuitBreaker( final String name, final int failureThreshold, final Backoff backoff ) {
+        _name = name;
+        _failureThreshold = failureThreshold;
+        _backoff = backoff;
+    }
+
+    /**
+     * @return true when a request can be sent, the request outcome must then be reported
+     */
+    synchronized boolean tryAcquire( final Instant now ) {
+        switch ( _state ) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if ( now.isBefore( _retryTime ) )
+                    return false;
+                _state = CircuitState.HALF_OPEN;
+                return true;
+            default:
+                // Probe is pending
+                return false;
+        }
+    }
+
+    synchronized void onSuccess( ) {
+        _state = CircuitState.CLOSED;
+        _consecutiveFailures = 0;
+        _openCount = 0;
+    }
+
+    synchronized void onFailure( final Instant now ) {
+        _consecutiveFailures++;
+        if ( _state == CircuitState.HALF_OPEN || _consecutiveFailures >= _failureThreshold ) {
+            _openCount++;
+            _retryTime = now.plus( _backoff.delay( _openCount ) );
+            _state = CircuitState.OPEN;
+        }
+    }
+
+    /**
+     * Request outcome tells nothing about the circuit: a pending probe is released, so that next request probes again
+     */
+    synchronized void onIgnored( ) {
+        if ( _state == CircuitState.HALF_OPEN )
+            _state = CircuitState.OPEN;
+    }
+
+    String getName( ) {
+        return _name;
+    }
+
+    synchronized CircuitState getState( ) {
+        return _state;
+    }
+
+    synchronized Instant getRetryTime( ) {
+        return _retryTime;
+    }
+
+    @Override
+    public synchronized String toString( ) {
+        return _state == CircuitState.CLOSED ? _name + ": " + _state : _name + ": " + _state + " (retry at " + _retryTime + ")";
+    }
+}
@@ -0,0 +1,169 @@
+/*******************************************************************************
+ * Copyright 2014 Cedric Longo.
+ *
+ * This file is part of Wall-T program.
+ *
+ * Wall-T is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Wall-T is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with Wall-T.
+ * If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+
+package utils.teamcity.wallt.controller.api;
+
+import com.google.common.collect.Maps;
+import com.google.common.eventbus.EventBus;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import utils.teamcity.wallt.model.logger.Loggers;
+
+import javax.inject.Inject;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Fails requests fast while the server or the requested endpoint is failing, instead of sending them into timeouts.
+ * Two levels of circuit breakers are used:
+ * <ul>
+ * <li>a server circuit, opened by requests failing without any response (connection error, timeout)</li>
+ * <li>a circuit by endpoint class (projects, buildTypes, builds...), opened by server errors of this endpoint or by its
+ * responses which cannot be decoded</li>
+ * </ul>
+ * Each change of the circuits which are not closed is posted on event bus as an {@link ApiCircuitStatus}.
+ */
+final class CircuitBreakingApiRequestController implements IApiRequestController {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger( Loggers.MAIN );
+
+    static final String SERVER_CIRCUIT = "server";
+    static final int FAILURE_THRESHOLD = 3;
+    static final Duration INITIAL_RETRY_DELAY = Duration.ofSeconds( 10 );
+    static final Duration MAX_RETRY_DELAY = Duration.ofMinutes( 5 );
+
+    private final IApiRequestController _delegate;
+    private final EventBus _eventBus;
+    private final Clock _clock;
+    private final Function<String, CircuitBreaker> _circuitFactory;
+
+    private final CircuitBreaker _serverCircuit;
+    private final ConcurrentMap<String, CircuitBreaker> _endpointCircuits = new ConcurrentHashMap<>( );
+    private ApiCircuitStatus _lastStatus;
+
+    @Inject
+    CircuitBreakingApiRequestController( final GovernedApiRequestController delegate, final EventBus eventBus ) {
+        this( delegate, eventBus, Clock.systemUTC( ), new Backoff( INITIAL_RETRY_DELAY, MAX_RETRY_DELAY ) );
+    }
+
+    CircuitBreakingApiRequestController( final IApiRequestController delegate, final EventBus eventBus, final Clock clock, final Backoff backoff ) {
+        _delegate = delegate;
+        _eventBus = eventBus;
+        _clock = clock;
+        _circuitFactory = name -> new CircuitBreaker( name, FAILURE_THRESHOLD, backoff );
+        _serverCircuit = _circuitFactory.apply( SERVER_CIRCUIT );
+        _lastStatus = getStatus( );
+    }
+
+    @Override
+    public <T extends ApiResponse> ListenableFuture<T> sendRequest( final ApiVersion version, final String path, final Class<T> expectedType ) {
+        return sendRequest( version, path, expectedType, ApiRequestPriority.HIGH );
+    }
+
+    @Override
+    public <T extends ApiResponse> ListenableFuture<T> sendRequest( final ApiVersion version, final String path, final Class<T> expectedType, final ApiRequestPriority priority ) {
+        final CircuitBreaker endpointCircuit = _endpointCircuits.computeIfAbsent( ApiTransferStatistics.endpointOf( path ), _circuitFactory );
+
+        if ( !_serverCircuit.tryAcquire( _clock.instant( ) ) )
+            return rejected( _serverCircuit, path );
+
+        if ( !endpointCircuit.tryAcquire( _clock.instant( ) ) ) {
+            _serverCircuit.onIgnored( );
+            return rejected( endpointCircuit, path );
+        }
+        postStatusIfChanged( );
+
+        final ListenableFuture<T> response = _delegate.sendRequest( version, path, expectedType, priority );
+        Futures.addCallback( response, new FutureCallback<T>( ) {
+            @Override
+            public void onSuccess( final T result ) {
+                _serverCircuit.onSuccess( );
+                endpointCircuit.onSuccess( );
+                postStatusIfChanged( );
+            }
+
+            @Override
+            public void onFailure( final Throwable t ) {
+                if ( t instanceof CancellationException ) {
+                    _serverCircuit.onIgnored( );
+                    endpointCircuit.onIgnored( );
+                }
+                else if ( !( t instanceof ApiException ) ) {
+                    // No response from server
+                    _serverCircuit.onFailure( _clock.instant( ) );
+                    endpointCircuit.onIgnored( );
+                }
+                else if ( !( (ApiException) t ).getStatusCode( ).isPresent( ) ) {
+                    // Request was not sent
+                    _serverCircuit.onIgnored( );
+                    endpointCircuit.onIgnored( );
+                }
+                else if ( ( (ApiException) t ).isDecodingError( ) ) {
+                    // Server has answered, only the payload of this endpoint is wrong
+                    _serverCircuit.onSuccess( );
+                    endpointCircuit.onFailure( _clock.instant( ) );
+                }
+                else if ( ( (ApiException) t ).isServerError( ) ) {
+                    _serverCircuit.onSuccess( );
+                    endpointCircuit.onFailure( _clock.instant( ) );
+                }
+                else {
+                    // Client errors are specific to the requested resource (unknown build...)
+                    _serverCircuit.onSuccess( );
+                    endpointCircuit.onSuccess( );
+                }
+                postStatusIfChanged( );
+            }
+        } );
+        return response;
+    }
+
+    private static <T extends ApiResponse> ListenableFuture<T> rejected( final CircuitBreaker circuit, final String path ) {
+        return Futures.immediateFailedFuture( new ApiException( "Circuit " + circuit.getName( ) + " is open until " + circuit.getRetryTime( ) + ", request rejected: " + path ) );
+    }
+
+    private void postStatusIfChanged( ) {
+        final ApiCircuitStatus status;
+        synchronized ( this ) {
+            status = getStatus( );
+            if ( status.getDegradedCircuits( ).equals( _lastStatus.getDegradedCircuits( ) ) )
+                return;
+            _lastStatus = status;
+        }
+        LOGGER.info( "Api circuits changed: {}", status );
+        _eventBus.post( status );
+    }
+
+    ApiCircuitStatus getStatus( ) {
+        final Map<String, CircuitState> states = Maps.newLinkedHashMap( );
+        states.put( _serverCircuit.getName( ), _serverCircuit.getState( ) );
+        _endpointCircuits.values( ).forEach( circuit -> states.put( circuit.getName( ), circuit.getState( ) ) );
+        return new ApiCircuitStatus( states );
+    }
+
+    @Override
+    public String toString( ) {
+        return _serverCircuit + ", " + _endpointCircuits.values( );
+    }
+}
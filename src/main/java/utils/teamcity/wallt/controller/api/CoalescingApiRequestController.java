@@ -0,0 +1,253 @@
+/*******************************************************************************
+ * Copyright 2014 Cedric Longo.
+ *
+ * This file is part of Wall-T program.
+ *
+ * Wall-T is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Wall-T is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with Wall-T.
+ * If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+
+package utils.teamcity.wallt.controller.api;
+
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import utils.teamcity.wallt.model.configuration.Configuration;
+
+import javax.inject.Inject;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Shares one response between concurrent callers of the same request: only the first caller really sends the request,
+ * the others follow its result. When a TTL is configured, a successful response is also shared with callers
+ * coming shortly after its completion. Responses are shared only between requests sent to the same server with the same credentials.
+ * The shared request is cancelled once all its callers have cancelled their own response.
+ */
+final class CoalescingApiRequestController implements IApiRequestController {
+
+    static final Duration SWEEP_PERIOD = Duration.ofSeconds( 30 );
+
+    private final IApiRequestController _delegate;
+    private final Configuration _configuration;
+    private final ScheduledExecutorService _executorService;
+    private final Clock _clock;
+    private final ConcurrentMap<RequestKey, SharedResponse> _sharedResponses = new ConcurrentHashMap<>( );
+
+    private final AtomicLong _requestCount = new AtomicLong( );
+    private final AtomicLong _coalescedCount = new AtomicLong( );
+
+    @Inject
+    CoalescingApiRequestController( final CircuitBreakingApiRequestController delegate, final Configuration configuration, final ScheduledExecutorService executorService ) {
+        this( delegate, configuration, executorService, Clock.systemUTC( ) );
+    }
+
+    CoalescingApiRequestController( final IApiRequestController delegate, final Configuration configuration, final ScheduledExecutorService executorService, final Clock clock ) {
+        _delegate = delegate;
+        _configuration = configuration;
+        _executorService = executorService;
+        _clock = clock;
+    }
+
+    /**
+     * Periodically removes shared responses whose TTL has expired and which have not been requested since
+     */
+    void start( ) {
+        _executorService.scheduleWithFixedDelay( this::sweep, SWEEP_PERIOD.getSeconds( ), SWEEP_PERIOD.getSeconds( ), TimeUnit.SECONDS );
+    }
+
+    void sweep( ) {
+        final Instant now = _clock.instant( );
+        final Duration ttl = Duration.ofMillis( _configuration.getSharedResponseTtlInMillis( ) );
+        _sharedResponses.values( ).removeIf( shared -> shared.isExpired( now, ttl ) );
+    }
+
+    int getSharedResponseCount( ) {
+        return _sharedResponses.size( );
+    }
+
+    @Override
+    public <T extends ApiResponse> ListenableFuture<T> sendRequest( final ApiVersion version, final String path, final Class<T> expectedType ) {
+        return sendRequest( version, path, expectedType, ApiRequestPriority.HIGH );
+    }
+
+    /**
+     * The shared request keeps the priority of its first caller
+     */
+    @Override
+    public <T extends ApiResponse> ListenableFuture<T> sendRequest( final ApiVersion version, final String path, final Class<T> expectedType, final ApiRequestPriority priority ) {
+        _requestCount.incrementAndGet( );
+
+        final Instant now = _clock.instant( );
+        final Duration ttl = Duration.ofMillis( _configuration.getSharedResponseTtlInMillis( ) );
+
+        final RequestKey key = new RequestKey( _configuration, version, path, expectedType );
+        final SharedResponse candidate = new SharedResponse( );
+        candidate.follow( );
+        final SharedResponse shared = _sharedResponses.compute( key, ( k, current ) -> current != null && !current.isExpired( now, ttl ) && current.follow( ) ? current : candidate );
+
+        if ( shared != candidate ) {
+            _coalescedCount.incrementAndGet( );
+            return follow( shared, expectedType );
+        }
+
+        final ListenableFuture<T> response = _delegate.sendRequest( version, path, expectedType, priority );
+        candidate.sent( response );
+        Futures.addCallback( response, new FutureCallback<T>( ) {
+            @Override
+            public void onSuccess( final T result ) {
+                candidate.completed( _clock.instant( ) );
+                if ( ttl.isZero( ) )
+                    _sharedResponses.remove( key, candidate );
+                candidate._future.set( result );
+            }
+
+            @Override
+            public void onFailure( final Throwable t ) {
+                _sharedResponses.remove( key, candidate );
+                candidate._future.setException( t );
+            }
+        } );
+
+        return follow( candidate, expectedType );
+    }
+
+    /**
+     * Each caller gets its own future, so that one caller cancelling its request doesn't cancel it for the others
+     */
+    private static <T extends ApiResponse> ListenableFuture<T> follow( final SharedResponse shared, final Class<T> expectedType ) {
+        final SettableFuture<T> future = SettableFuture.create( );
+        future.addListener( ( ) -> {
+            if ( future.isCancelled( ) )
+                shared.unfollow( );
+        }, MoreExecutors.sameThreadExecutor( ) );
+        Futures.addCallback( shared._future, new FutureCallback<ApiResponse>( ) {
+            @Override
+            public void onSuccess( final ApiResponse result ) {
+                future.set( expectedType.cast( result ) );
+            }
+
+            @Override
+            public void onFailure( final Throwable t ) {
+                future.setException( t );
+            }
+        } );
+        return future;
+    }
+
+    long getRequestCount( ) {
+        return _requestCount.get( );
+    }
+
+    long getCoalescedCount( ) {
+        return _coalescedCount.get( );
+    }
+
+    @Override
+    public String toString( ) {
+        return String.format( "requests: %d, coalesced: %d", getRequestCount( ), getCoalescedCount( ) );
+    }
+
+    private static final class SharedResponse {
+
+        private final SettableFuture<ApiResponse> _future = SettableFuture.create( );
+        private volatile Instant _completionTime;
+
+        // Following fields are guarded by this
+        private Future<?> _request;
+        private int _followerCount;
+        private boolean _abandoned;
+
+        /**
+         * @return false when all previous callers have cancelled the request, it cannot be followed anymore
+         */
+        synchronized boolean follow( ) {
+            if ( _abandoned )
+                return false;
+            _followerCount++;
+            return true;
+        }
+
+        // Request is cancelled out of the lock, as its callbacks update shared responses
+        void unfollow( ) {
+            final Future<?> request;
+            synchronized ( this ) {
+                if ( --_followerCount > 0 || _future.isDone( ) )
+                    return;
+                _abandoned = true;
+                request = _request;
+            }
+            if ( request != null )
+                request.cancel( true );
+        }
+
+        void sent( final Future<?> request ) {
+            final boolean abandoned;
+            synchronized ( this ) {
+                _request = request;
+                abandoned = _abandoned;
+            }
+            if ( abandoned )
+                request.cancel( true );
+        }
+
+        void completed( final Instant completionTime ) {
+            _completionTime = completionTime;
+        }
+
+        boolean isExpired( final Instant now, final Duration ttl ) {
+            final Instant completionTime = _completionTime;
+            return completionTime != null && !completionTime.plus( ttl ).isAfter( now );
+        }
+    }
+
+    private static final class RequestKey {
+
+        private final String _serverUrl;
+        private final String _credentialsUser;
+        private final String _credentialsPassword;
+        private final ApiVersion _version;
+        private final String _path;
+        private final Class<?> _expectedType;
+
+        RequestKey( final Configuration configuration, final ApiVersion version, final String path, final Class<?> expectedType ) {
+            _serverUrl = configuration.getServerUrl( );
+            _credentialsUser = configuration.getCredentialsUser( );
+            _credentialsPassword = configuration.getCredentialsPassword( );
+            _version = version;
+            _path = path;
+            _expectedType = expectedType;
+        }
+
+        @Override
+        public boolean equals( final Object o ) {
+            if ( this == o ) return true;
+            if ( o == null || getClass( ) != o.getClass( ) ) return false;
+            final RequestKey that = (RequestKey) o;
+            return _version == that._version && _path.equals( that._path ) && _expectedType.equals( that._expectedType )
+                    && Objects.equals( _serverUrl, that._serverUrl ) && Objects.equals( _credentialsUser, that._credentialsUser ) && Objects.equals( _credentialsPassword, that._credentialsPassword );
+        }
+
+        @Override
+        public int hashCode( ) {
+            return Objects.hash( _serverUrl, _credentialsUser, _version, _path, _expectedType );
+        }
+    }
+}
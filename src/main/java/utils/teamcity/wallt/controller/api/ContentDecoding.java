@@ -0,0 +1,70 @@
+/*******************************************************************************
+ * Copyright 2014 Cedric Longo.
+ *
+ * This file is part of Wall-T program.
+ *
+ * Wall-T is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Wall-T is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with Wall-T.
+ * If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+
+package utils.teamcity.wallt.controller.api;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import static com.google.common.base.Strings.nullToEmpty;
+
+/**
+ * Decompresses response body streams according to their Content-Encoding, while they are read by the json decoder.
+ */
+final class ContentDecoding {
+
+    static final String ACCEPTED_ENCODINGS = "gzip, deflate";
+
+    private ContentDecoding( ) {
+        throw new UnsupportedOperationException( );
+    }
+
+    static InputStream decode( final String contentEncoding, final InputStream body ) throws IOException {
+        switch ( nullToEmpty( contentEncoding ).trim( ).toLowerCase( ) ) {
+            case "":
+            case "identity":
+                return body;
+            case "gzip":
+            case "x-gzip":
+                return new GZIPInputStream( body );
+            case "deflate":
+                return inflate( body );
+            default:
+                throw new ApiException( "Unsupported content encoding: " + contentEncoding );
+        }
+    }
+
+    /**
+     * Deflate content should be zlib wrapped, but some servers send raw deflate data: zlib header is checked to choose the inflater
+     */
+    private static InputStream inflate( final InputStream body ) throws IOException {
+        final PushbackInputStream stream = new PushbackInputStream( body, 2 );
+        final int cmf = stream.read( );
+        final int flg = stream.read( );
+        if ( flg >= 0 )
+            stream.unread( flg );
+        if ( cmf >= 0 )
+            stream.unread( cmf );
+
+        final boolean zlibWrapped = cmf >= 0 && flg >= 0 && ( cmf & 0x0F ) == 8 && ( ( cmf << 8 ) | flg ) % 31 == 0;
+        return new InflaterInputStream( stream, new Inflater( !zlibWrapped ) );
+    }
+
+}
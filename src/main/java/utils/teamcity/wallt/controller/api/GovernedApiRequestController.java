@@ -0,0 +1,296 @@
+/*******************************************************************************
+ * Copyright 2014 Cedric Longo.
+ *
+ * This file is part of Wall-T program.
+ *
+ * Wall-T is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Wall-T is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with Wall-T.
+ * If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+
+package utils.teamcity.wallt.controller.api;
+
+import com.google.common.base.Ticker;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import utils.teamcity.wallt.model.configuration.Configuration;
+
+import javax.inject.Inject;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+
+/**
+ * Bounds the load sent to the server: requests are sent at most at configured rate (token bucket allowing a burst
+ * of one second of requests) and with a maximum number of requests in flight.
+ * Requests waiting for their turn are queued by priority, the queue is bounded: when it is full, new requests are
+ * failed immediately so that callers back off instead of piling up requests.
+ * Requests held back by rate only are dispatched by a dedicated timer thread, which never waits for a shared pool.
+ * A cancelled request leaves the queue, or cancels its response when already sent.
+ * Other requests sent to the server, such as connection probes, can be submitted to share the same budget.
+ */
+final class GovernedApiRequestController implements IApiRequestController {
+
+    private final IApiRequestController _delegate;
+    private final Configuration _configuration;
+    private final ScheduledExecutorService _timer;
+    private final Ticker _ticker;
+
+    // All following fields are guarded by this
+    private final Map<ApiRequestPriority, Deque<PendingRequest<?>>> _queues = Maps.newEnumMap( ApiRequestPriority.class );
+    private int _queueDepth;
+    private int _inFlightCount;
+    private double _tokens;
+    private long _lastRefill;
+    private boolean _dispatchScheduled;
+
+    private int _maxQueueDepth;
+    private long _dispatchedCount;
+    private long _rejectedCount;
+    private long _totalWaitTime;
+    private long _maxWaitTime;
+
+    @Inject
+    GovernedApiRequestController( final ApiRequestController delegate, final Configuration configuration ) {
+        this( delegate, configuration, newSingleThreadScheduledExecutor( new ThreadFactoryBuilder( ).setDaemon( true ).setNameFormat( "api-request-governor" ).build( ) ), Ticker.systemTicker( ) );
+    }
+
+    GovernedApiRequestController( final IApiRequestController delegate, final Configuration configuration, final ScheduledExecutorService timer, final Ticker ticker ) {
+        _delegate = delegate;
+        _configuration = configuration;
+        _timer = timer;
+        _ticker = ticker;
+        for ( final ApiRequestPriority priority : ApiRequestPriority.values( ) )
+            _queues.put( priority, new ArrayDeque<>( ) );
+        _tokens = burstSize( );
+        _lastRefill = ticker.read( );
+    }
+
+    @Override
+    public <T extends ApiResponse> ListenableFuture<T> sendRequest( final ApiVersion version, final String path, final Class<T> expectedType ) {
+        return sendRequest( version, path, expectedType, ApiRequestPriority.HIGH );
+    }
+
+    @Override
+    public <T extends ApiResponse> ListenableFuture<T> sendRequest( final ApiVersion version, final String path, final Class<T> expectedType, final ApiRequestPriority priority ) {
+        return submit( ( ) -> _delegate.sendRequest( version, path, expectedType, priority ), path, priority );
+    }
+
+    /**
+     * Sends a request through the queue, within the rate and the in flight requests of api requests
+     *
+     * @param sender      Sends the request when its turn comes
+     * @param description Description of the request, for rejection message
+     * @param priority    Priority of the request
+     * @return Future of the response
+     */
+    <T> ListenableFuture<T> submit( final Supplier<ListenableFuture<T>> sender, final String description, final ApiRequestPriority priority ) {
+        final PendingRequest<T> request = new PendingRequest<>( sender, priority, _ticker.read( ) );
+
+        synchronized ( this ) {
+            if ( _queueDepth >= _configuration.getMaxQueuedRequests( ) ) {
+                _rejectedCount++;
+                return Futures.immediateFailedFuture( new ApiException( "Too many pending requests (" + _queueDepth + "), request rejected: " + description ) );
+            }
+            _queues.get( priority ).addLast( request );
+            _queueDepth++;
+            _maxQueueDepth = Math.max( _maxQueueDepth, _queueDepth );
+        }
+        request._future.addListener( ( ) -> {
+            if ( request._future.isCancelled( ) )
+                cancelled( request );
+        }, MoreExecutors.sameThreadExecutor( ) );
+
+        dispatch( );
+        return request._future;
+    }
+
+    private void dispatch( ) {
+        final List<PendingRequest<?>> readyRequests = Lists.newArrayList( );
+        long nextTokenDelay = 0;
+
+        synchronized ( this ) {
+            refill( );
+            while ( _queueDepth > 0 && _inFlightCount < _configuration.getMaxRequestsInFlight( ) && _tokens >= 1 ) {
+                final PendingRequest<?> request = pollMostUrgent( );
+                // Cancelled just before its listener removes it from queue
+                if ( request._future.isCancelled( ) )
+                    continue;
+
+                final long waitTime = _ticker.read( ) - request._enqueueTime;
+                _totalWaitTime += waitTime;
+                _maxWaitTime = Math.max( _maxWaitTime, waitTime );
+                _dispatchedCount++;
+                _inFlightCount++;
+                _tokens -= 1;
+                readyRequests.add( request );
+            }
+
+            // When requests are held back by rate only, next dispatch is scheduled for next token, otherwise it is triggered by a completion
+            if ( _queueDepth > 0 && _inFlightCount < _configuration.getMaxRequestsInFlight( ) && !_dispatchScheduled ) {
+                _dispatchScheduled = true;
+                nextTokenDelay = Math.max( 1, (long) ( ( 1 - _tokens ) * TimeUnit.SECONDS.toNanos( 1 ) / _configuration.getMaxRequestsPerSecond( ) ) );
+            }
+        }
+
+        if ( nextTokenDelay > 0 )
+            _timer.schedule( this::scheduledDispatch, nextTokenDelay, TimeUnit.NANOSECONDS );
+
+        for ( final PendingRequest<?> request : readyRequests )
+            send( request );
+    }
+
+    private void scheduledDispatch( ) {
+        synchronized ( this ) {
+            _dispatchScheduled = false;
+        }
+        dispatch( );
+    }
+
+    private PendingRequest<?> pollMostUrgent( ) {
+        for ( final Deque<PendingRequest<?>> queue : _queues.values( ) ) {
+            if ( !queue.isEmpty( ) ) {
+                _queueDepth--;
+                return queue.pollFirst( );
+            }
+        }
+        throw new IllegalStateException( "No pending request" );
+    }
+
+    private void refill( ) {
+        final long now = _ticker.read( );
+        final int maxRequestsPerSecond = _configuration.getMaxRequestsPerSecond( );
+        if ( maxRequestsPerSecond <= 0 ) {
+            // Rate is not limited
+            _tokens = Double.MAX_VALUE;
+        }
+        else {
+            final double earnedTokens = (double) ( now - _lastRefill ) * maxRequestsPerSecond / TimeUnit.SECONDS.toNanos( 1 );
+            _tokens = Math.min( burstSize( ), _tokens + earnedTokens );
+        }
+        _lastRefill = now;
+    }
+
+    private double burstSize( ) {
+        return Math.max( 1, _configuration.getMaxRequestsPerSecond( ) );
+    }
+
+    private void cancelled( final PendingRequest<?> request ) {
+        final Future<?> response;
+        synchronized ( this ) {
+            if ( _queues.get( request._priority ).remove( request ) ) {
+                _queueDepth--;
+                return;
+            }
+            response = request._response;
+        }
+        if ( response != null )
+            response.cancel( true );
+    }
+
+    private <T> void send( final PendingRequest<T> request ) {
+        ListenableFuture<T> response;
+        try {
+            response = request._sender.get( );
+        } catch ( RuntimeException e ) {
+            response = Futures.immediateFailedFuture( e );
+        }
+
+        synchronized ( this ) {
+            request._response = response;
+        }
+        // Cancelled while it was sent
+        if ( request._future.isCancelled( ) )
+            response.cancel( true );
+
+        Futures.addCallback( response, new FutureCallback<T>( ) {
+            @Override
+            public void onSuccess( final T result ) {
+                completed( );
+                request._future.set( result );
+            }
+
+            @Override
+            public void onFailure( final Throwable t ) {
+                completed( );
+                request._future.setException( t );
+            }
+        } );
+    }
+
+    private void completed( ) {
+        synchronized ( this ) {
+            _inFlightCount--;
+        }
+        dispatch( );
+    }
+
+    synchronized int getQueueDepth( ) {
+        return _queueDepth;
+    }
+
+    synchronized int getMaxQueueDepth( ) {
+        return _maxQueueDepth;
+    }
+
+    synchronized int getInFlightCount( ) {
+        return _inFlightCount;
+    }
+
+    synchronized long getDispatchedCount( ) {
+        return _dispatchedCount;
+    }
+
+    synchronized long getRejectedCount( ) {
+        return _rejectedCount;
+    }
+
+    synchronized Duration getAverageWaitTime( ) {
+        return _dispatchedCount == 0 ? Duration.ZERO : Duration.ofNanos( _totalWaitTime / _dispatchedCount );
+    }
+
+    synchronized Duration getMaxWaitTime( ) {
+        return Duration.ofNanos( _maxWaitTime );
+    }
+
+    @Override
+    public synchronized String toString( ) {
+        return String.format( "queued: %d (max %d), in flight: %d, dispatched: %d, rejected: %d, wait time: %d ms (max %d ms)",
+                _queueDepth, _maxQueueDepth, _inFlightCount, _dispatchedCount, _rejectedCount, getAverageWaitTime( ).toMillis( ), getMaxWaitTime( ).toMillis( ) );
+    }
+
+    private static final class PendingRequest<T> {
+
+        private final Supplier<ListenableFuture<T>> _sender;
+        private final ApiRequestPriority _priority;
+        private final long _enqueueTime;
+        private final SettableFuture<T> _future = SettableFuture.create( );
+        private Future<T> _response; // Guarded by controller
+
+        PendingRequest( final Supplier<ListenableFuture<T>> sender, final ApiRequestPriority priority, final long enqueueTime ) {
+            _sender = sender;
+            _priority = priority;
+            _enqueueTime = enqueueTime;
+        }
+    }
+}
@@ -18,6 +18,8 @@ package utils.teamcity.wallt.controller.api;
 import com.google.common.util.concurrent.ListenableFuture;
 import utils.teamcity.wallt.model.build.BuildTypeData;
 
+import java.util.Collection;
+
 /**
  * Date: 15/02/14
  *
@@ -41,6 +43,16 @@ public interface IApiController {
      */
     ListenableFuture<Void> loadBuildTypeList( );
 
+    /**
+     * Request only monitored projects with their sub projects, build types of these projects and monitored build types,
+     * and populate {@link utils.teamcity.wallt.model.build.IProjectManager} and {@link IBuildManager} with them
+     * When nothing is monitored yet, or when api version does not support it, all projects and build types are requested.
+     * Moreover, this method must dispath to {@link EventBus} both managers if needs view update
+     *
+     * @return Future which can be listened for completion
+     */
+    ListenableFuture<Void> loadMonitoredScope( );
+
 
     /**
      * Request last builds status for specified build type and register them on builtType
@@ -58,4 +70,21 @@ public interface IApiController {
      * @return Future which can be listened for completion
      */
     ListenableFuture<Void> requestQueuedBuilds( );
+
+    /**
+     * Tells if builds of specified build type are followed by {@link #requestBuildDelta(Collection)}
+     *
+     * @param buildType Build type which is concerned
+     * @return true if build type does not need to be polled by {@link #requestLastBuildStatus(BuildTypeData)} at each cycle
+     */
+    boolean isDeltaSupported( final BuildTypeData buildType );
+
+    /**
+     * Request all builds started since last seen build with one request by page of builds, and register them on their build type
+     * Moreover, this method must dispath to {@link EventBus} all {@link BuildTypeData} which need view update
+     *
+     * @param buildTypes Build types which are concerned
+     * @return Future which can be listened for completion
+     */
+    ListenableFuture<Void> requestBuildDelta( final Collection<BuildTypeData> buildTypes );
 }
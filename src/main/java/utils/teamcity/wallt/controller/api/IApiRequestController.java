@@ -26,4 +26,12 @@ public interface IApiRequestController {
 
     <T extends ApiResponse> ListenableFuture<T> sendRequest( final ApiVersion version, final String path, final Class<T> expectedType );
 
+    /**
+     * Sends a request of given priority: controllers which throttle requests send the most urgent ones first.
+     * By default priority is ignored.
+     */
+    default <T extends ApiResponse> ListenableFuture<T> sendRequest( final ApiVersion version, final String path, final Class<T> expectedType, final ApiRequestPriority priority ) {
+        return sendRequest( version, path, expectedType );
+    }
+
 }
@@ -0,0 +1,37 @@
+/*******************************************************************************
+ * Copyright 2014 Cedric Longo.
+ *
+ * This file is part of Wall-T program.
+ *
+ * Wall-T is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Wall-T is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with Wall-T.
+ * If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package utils.teamcity.wallt.controller.api;
+
+import com.google.common.util.concurrent.ListenableFuture;
+
+import java.util.Map;
+
+/**
+ * Transport of api requests: sends the http request and gives back the raw response, whatever its status code.
+ * Building of requests, caching and decoding of responses are made by {@link ApiRequestController} on top of it.
+ */
+interface IApiTransport {
+
+    /**
+     * Sends a GET request
+     *
+     * @param request Request to send
+     * @param headers Headers to add to the request, authorization included
+     * @return Future of the response, failed only when no response is received
+     */
+    ListenableFuture<ApiTransportResponse> get( final ApiRequest request, final Map<String, String> headers );
+
+}
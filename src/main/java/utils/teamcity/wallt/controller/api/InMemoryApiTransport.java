@@ -0,0 +1,96 @@
+/*******************************************************************************
+ * Copyright 2014 Cedric Longo.
+ *
+ * This file is part of Wall-T program.
+ *
+ * Wall-T is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Wall-T is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with Wall-T.
+ * If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package utils.teamcity.wallt.controller.api;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.google.common.net.HttpHeaders;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+
+import javax.inject.Inject;
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Transport serving canned payloads from memory after a configurable latency, without any network access.
+ * Payload of a request is the one registered with the longest prefix of its api path (after the version, query included),
+ * requests without payload are answered with status code 404.
+ * It allows to measure the whole pipeline from request controllers to event bus without network noise.
+ */
+final class InMemoryApiTransport implements IApiTransport {
+
+    private final ScheduledExecutorService _executorService;
+    private final Map<String, byte[]> _payloads = Maps.newConcurrentMap( );
+    private final AtomicInteger _requestCount = new AtomicInteger( );
+    private volatile Duration _latency = Duration.ZERO;
+
+    @Inject
+    InMemoryApiTransport( final ScheduledExecutorService executorService ) {
+        _executorService = executorService;
+    }
+
+    /**
+     * Serves content to every request whose api path starts with the prefix
+     */
+    void serve( final String pathPrefix, final byte[] content ) {
+        _payloads.put( pathPrefix, content );
+    }
+
+    void setLatency( final Duration latency ) {
+        _latency = latency;
+    }
+
+    int getRequestCount( ) {
+        return _requestCount.get( );
+    }
+
+    @Override
+    public ListenableFuture<ApiTransportResponse> get( final ApiRequest request, final Map<String, String> headers ) {
+        _requestCount.incrementAndGet( );
+        final ApiTransportResponse response = respond( request );
+
+        final Duration latency = _latency;
+        if ( latency.isZero( ) )
+            return Futures.immediateFuture( response );
+
+        final SettableFuture<ApiTransportResponse> responseFuture = SettableFuture.create( );
+        _executorService.schedule( ( ) -> responseFuture.set( response ), latency.toNanos( ), TimeUnit.NANOSECONDS );
+        return responseFuture;
+    }
+
+    private ApiTransportResponse respond( final ApiRequest request ) {
+        final URI uri = URI.create( request.getURI( ) );
+        final String path = uri.getRawPath( ).replaceFirst( "^/[^/]+/app/rest/[^/]+/", "" ) + ( uri.getRawQuery( ) == null ? "" : "?" + uri.getRawQuery( ) );
+
+        final Optional<Map.Entry<String, byte[]>> payload = _payloads.entrySet( ).stream( )
+                .filter( entry -> path.startsWith( entry.getKey( ) ) )
+                .max( Comparator.comparingInt( entry -> entry.getKey( ).length( ) ) );
+        if ( !payload.isPresent( ) )
+            return new ApiTransportResponse( 404, ImmutableMap.<String, String>of( ), new ByteArrayInputStream( new byte[0] ) );
+
+        return new ApiTransportResponse( 200, ImmutableMap.of( HttpHeaders.CONTENT_TYPE, "application/json" ), new ByteArrayInputStream( payload.get( ).getValue( ) ) );
+    }
+
+}
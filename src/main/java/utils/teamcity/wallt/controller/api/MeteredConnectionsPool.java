@@ -0,0 +1,74 @@
+/*******************************************************************************
+ * Copyright 2014 Cedric Longo.
+ *
+ * This file is part of Wall-T program.
+ *
+ * Wall-T is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Wall-T is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with Wall-T.
+ * If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package utils.teamcity.wallt.controller.api;
+
+import com.ning.http.client.ConnectionsPool;
+
+/**
+ * Connections pool of the http client which reports its idle connections and its handshakes to {@link ApiConnectionStatistics}:
+ * each poll without an idle connection makes the client open a new connection.
+ */
+final class MeteredConnectionsPool<U, V> implements ConnectionsPool<U, V> {
+
+    private final ConnectionsPool<U, V> _delegate;
+    private final ApiConnectionStatistics _statistics;
+    private final Runnable _onDestroy;
+
+    MeteredConnectionsPool( final ConnectionsPool<U, V> delegate, final ApiConnectionStatistics statistics, final Runnable onDestroy ) {
+        _delegate = delegate;
+        _statistics = statistics;
+        _onDestroy = onDestroy;
+    }
+
+    @Override
+    public boolean offer( final U uri, final V connection ) {
+        final boolean offered = _delegate.offer( uri, connection );
+        if ( offered )
+            _statistics.connectionReleased( connection );
+        return offered;
+    }
+
+    @Override
+    public V poll( final U uri ) {
+        final V connection = _delegate.poll( uri );
+        if ( connection == null )
+            _statistics.connectionOpened( );
+        else
+            _statistics.connectionReused( connection );
+        return connection;
+    }
+
+    @Override
+    public boolean removeAll( final V connection ) {
+        _statistics.connectionClosed( connection );
+        return _delegate.removeAll( connection );
+    }
+
+    @Override
+    public boolean canCacheConnection( ) {
+        return _delegate.canCacheConnection( );
+    }
+
+    @Override
+    public void destroy( ) {
+        try {
+            _delegate.destroy( );
+        } finally {
+            _onDestroy.run( );
+        }
+    }
+
+}
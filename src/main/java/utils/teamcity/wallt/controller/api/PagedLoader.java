@@ -0,0 +1,203 @@
+/*******************************************************************************
+ * Copyright 2014 Cedric Longo.
+ *
+ * This file is part of Wall-T program.
+ *
+ * Wall-T is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Wall-T is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with Wall-T.
+ * If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package utils.teamcity.wallt.controller.api;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.OptionalInt;
+import java.util.Queue;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.util.concurrent.Futures.addCallback;
+
+/**
+ * Loads a list page by page, with a bounded count of pages requested at the same time.
+ * Total count of items is unknown: next pages are requested as long as received pages are full,
+ * the first page which is not full ends the loading.
+ * Each page is given to the consumer as soon as it is received, one page at a time, in order of reception.
+ * Consumer and page requests are called out of the lock of the loader, as they may notify listeners or complete synchronously.
+ * The first failed page fails the loading: pages still in flight are cancelled and pages not consumed yet are dropped.
+ */
+final class PagedLoader<P, T> {
+
+    private final IntFunction<ListenableFuture<P>> _pageRequest;
+    private final Function<P, List<T>> _pageItems;
+    private final Consumer<List<T>> _pageConsumer;
+    private final int _pageSize;
+    private final int _maxParallelPages;
+
+    private final SettableFuture<Integer> _done = SettableFuture.create( );
+
+    // Following fields are guarded by this
+    private final Set<ListenableFuture<P>> _pagesInFlight = Sets.newHashSet( );
+    private final Queue<List<T>> _receivedPages = new ArrayDeque<>( );
+    private int _nextStart;
+    private int _inFlight;
+    private int _loadedItems;
+    private boolean _lastPageReached;
+    private boolean _consuming;
+    private Throwable _failure;
+
+    /**
+     * @param pageRequest      Request of the page starting at given item index
+     * @param pageItems        Items of a received page
+     * @param pageConsumer     Consumer of the items of each received page
+     * @param pageSize         Count of items requested by page
+     * @param maxParallelPages Max count of pages requested at the same time
+     */
+    PagedLoader( final IntFunction<ListenableFuture<P>> pageRequest, final Function<P, List<T>> pageItems, final Consumer<List<T>> pageConsumer, final int pageSize, final int maxParallelPages ) {
+        checkArgument( pageSize > 0, "Page size must be positive" );
+        checkArgument( maxParallelPages > 0, "Max parallel pages must be positive" );
+        _pageRequest = pageRequest;
+        _pageItems = pageItems;
+        _pageConsumer = pageConsumer;
+        _pageSize = pageSize;
+        _maxParallelPages = maxParallelPages;
+    }
+
+    /**
+     * Starts the loading
+     *
+     * @return Future of the count of loaded items, failed as soon as one page fails
+     */
+    ListenableFuture<Integer> load( ) {
+        for ( int i = 0; i < _maxParallelPages; i++ ) {
+            final OptionalInt start;
+            synchronized ( this ) {
+                start = nextPageStart( );
+            }
+            if ( !start.isPresent( ) )
+                break;
+            requestPage( start.getAsInt( ) );
+        }
+        return _done;
+    }
+
+    // Guarded by this
+    private OptionalInt nextPageStart( ) {
+        if ( _lastPageReached || _failure != null )
+            return OptionalInt.empty( );
+        final int start = _nextStart;
+        _nextStart += _pageSize;
+        _inFlight++;
+        return OptionalInt.of( start );
+    }
+
+    private void requestPage( final int start ) {
+        final ListenableFuture<P> pageFuture = _pageRequest.apply( start );
+        final boolean failed;
+        synchronized ( this ) {
+            failed = _failure != null;
+            if ( !failed )
+                _pagesInFlight.add( pageFuture );
+        }
+        if ( failed ) {
+            pageFuture.cancel( true );
+            return;
+        }
+
+        addCallback( pageFuture, new FutureCallback<P>( ) {
+            @Override
+            public void onSuccess( final P page ) {
+                pageReceived( pageFuture, page );
+            }
+
+            @Override
+            public void onFailure( final Throwable t ) {
+                pageFailed( pageFuture, t );
+            }
+        } );
+    }
+
+    private void pageReceived( final ListenableFuture<P> pageFuture, final P page ) {
+        final List<T> items = _pageItems.apply( page );
+        final OptionalInt nextStart;
+        synchronized ( this ) {
+            _pagesInFlight.remove( pageFuture );
+            _inFlight--;
+            if ( _failure != null )
+                return;
+
+            _loadedItems += items.size( );
+            if ( !items.isEmpty( ) )
+                _receivedPages.add( items );
+            if ( items.size( ) < _pageSize )
+                _lastPageReached = true;
+            nextStart = nextPageStart( );
+        }
+        nextStart.ifPresent( this::requestPage );
+        consumeReceivedPages( );
+    }
+
+    /**
+     * Gives received pages to the consumer, from one thread at a time, and completes the loading once last page is consumed
+     */
+    private void consumeReceivedPages( ) {
+        synchronized ( this ) {
+            if ( _consuming )
+                return;
+            _consuming = true;
+        }
+
+        while ( true ) {
+            final List<T> items;
+            synchronized ( this ) {
+                items = _failure == null ? _receivedPages.poll( ) : null;
+                if ( items == null ) {
+                    _consuming = false;
+                    if ( _failure != null || !_lastPageReached || _inFlight > 0 )
+                        return;
+                    break;
+                }
+            }
+            _pageConsumer.accept( items );
+        }
+
+        final int loadedItems;
+        synchronized ( this ) {
+            loadedItems = _loadedItems;
+        }
+        _done.set( loadedItems );
+    }
+
+    private void pageFailed( final ListenableFuture<P> pageFuture, final Throwable t ) {
+        final List<ListenableFuture<P>> pagesToCancel;
+        synchronized ( this ) {
+            _pagesInFlight.remove( pageFuture );
+            _inFlight--;
+            if ( _failure != null )
+                return;
+
+            _failure = t;
+            _receivedPages.clear( );
+            pagesToCancel = ImmutableList.copyOf( _pagesInFlight );
+            _pagesInFlight.clear( );
+        }
+        pagesToCancel.forEach( page -> page.cancel( true ) );
+        _done.setException( t );
+    }
+
+}
@@ -0,0 +1,172 @@
+/*******************************************************************************
+ * Copyright 2014 Cedric Longo.
+ *
+ * This file is part of Wall-T program.
+ *
+ * Wall-T is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Wall-T is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with Wall-T.
+ * If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+
+package utils.teamcity.wallt.controller.api;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.util.concurrent.Futures.addCallback;
+
+/**
+ * Executes one request by item with a bounded count of requests in flight.
+ * When the cycle deadline is reached, requests still in flight are cancelled and pending items are skipped.
+ * The cycle never blocks the calling thread: its statistics are given by a future completed with the last request,
+ * or by the deadline timer.
+ */
+final class PollCycle<T> {
+
+    private final Iterator<T> _pendingItems;
+    private final Function<T, ListenableFuture<?>> _request;
+    private final int _maxParallelRequests;
+
+    private final Instant _start = Instant.now( );
+    private final Set<ListenableFuture<?>> _inFlight = Sets.newHashSet( );
+    private final SettableFuture<PollCycleStats> _done = SettableFuture.create( );
+
+    private int _completed;
+    private int _failed;
+    private int _cancelled;
+    private int _skipped;
+    private boolean _expired;
+
+    private PollCycle( final Collection<T> items, final Function<T, ListenableFuture<?>> request, final int maxParallelRequests ) {
+        checkArgument( maxParallelRequests > 0, "Max parallel requests must be positive" );
+        _pendingItems = Lists.newArrayList( items ).iterator( );
+        _request = request;
+        _maxParallelRequests = maxParallelRequests;
+    }
+
+    /**
+     * Starts polling all items, and returns without waiting for requests.
+     *
+     * @param items               Items to poll
+     * @param request             Request to start for each item
+     * @param maxParallelRequests Max count of requests in flight at the same time
+     * @param deadline            Max duration of the whole cycle
+     * @param timer               Executor of the deadline timer
+     * @return Future of the statistics of the cycle, completed when all items are polled or when deadline is reached
+     */
+    static <T> ListenableFuture<PollCycleStats> start( final Collection<T> items, final Function<T, ListenableFuture<?>> request, final int maxParallelRequests, final Duration deadline, final ScheduledExecutorService timer ) {
+        final PollCycle<T> cycle = new PollCycle<>( items, request, maxParallelRequests );
+        cycle.startNextRequests( );
+        if ( !cycle._done.isDone( ) ) {
+            final ScheduledFuture<?> timeout = timer.schedule( cycle::expire, deadline.toMillis( ), TimeUnit.MILLISECONDS );
+            cycle._done.addListener( ( ) -> timeout.cancel( false ), MoreExecutors.sameThreadExecutor( ) );
+        }
+        return cycle._done;
+    }
+
+    private synchronized void startNextRequests( ) {
+        while ( !_expired && _inFlight.size( ) < _maxParallelRequests && _pendingItems.hasNext( ) ) {
+            final T item = _pendingItems.next( );
+            final ListenableFuture<?> future;
+            try {
+                future = _request.apply( item );
+            } catch ( RuntimeException e ) {
+                _failed++;
+                continue;
+            }
+            if ( future.isDone( ) ) {
+                // Already done: no need to wait for callback
+                if ( isSuccessful( future ) )
+                    _completed++;
+                else
+                    _failed++;
+                continue;
+            }
+            _inFlight.add( future );
+            addCallback( future, onRequestDone( future ) );
+        }
+
+        if ( !_expired && _inFlight.isEmpty( ) && !_pendingItems.hasNext( ) )
+            _done.set( stats( ) );
+    }
+
+    private static boolean isSuccessful( final ListenableFuture<?> future ) {
+        try {
+            future.get( );
+            return true;
+        } catch ( InterruptedException | ExecutionException | RuntimeException e ) {
+            return false;
+        }
+    }
+
+    private FutureCallback<Object> onRequestDone( final ListenableFuture<?> future ) {
+        return new FutureCallback<Object>( ) {
+            @Override
+            public void onSuccess( final Object result ) {
+                requestDone( future, true );
+            }
+
+            @Override
+            public void onFailure( final Throwable t ) {
+                requestDone( future, false );
+            }
+        };
+    }
+
+    private synchronized void requestDone( final ListenableFuture<?> future, final boolean success ) {
+        if ( !_inFlight.remove( future ) )
+            return;
+
+        if ( success )
+            _completed++;
+        else
+            _failed++;
+
+        startNextRequests( );
+    }
+
+    private synchronized void expire( ) {
+        if ( _done.isDone( ) )
+            return;
+
+        _expired = true;
+        for ( final ListenableFuture<?> future : Lists.newArrayList( _inFlight ) ) {
+            _inFlight.remove( future );
+            future.cancel( true );
+            _cancelled++;
+        }
+        while ( _pendingItems.hasNext( ) ) {
+            _pendingItems.next( );
+            _skipped++;
+        }
+        _done.set( stats( ) );
+    }
+
+    private PollCycleStats stats( ) {
+        return new PollCycleStats( _completed, _failed, _cancelled, _skipped, Duration.between( _start, Instant.now( ) ) );
+    }
+
+}
@@ -0,0 +1,67 @@
+/*******************************************************************************
+ * Copyright 2014 Cedric Longo.
+ *
+ * This file is part of Wall-T program.
+ *
+ * Wall-T is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Wall-T is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with Wall-T.
+ * If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+
+package utils.teamcity.wallt.controller.api;
+
+import java.time.Duration;
+
+final class PollCycleStats {
+
+    private final int _completed;
+    private final int _failed;
+    private final int _cancelled;
+    private final int _skipped;
+    private final Duration _wallTime;
+
+    PollCycleStats( final int completed, final int failed, final int cancelled, final int skipped, final Duration wallTime ) {
+        _completed = completed;
+        _failed = failed;
+        _cancelled = cancelled;
+        _skipped = skipped;
+        _wallTime = wallTime;
+    }
+
+    int getCompleted( ) {
+        return _completed;
+    }
+
+    int getFailed( ) {
+        return _failed;
+    }
+
+    /**
+     * @return Count of requests which were still in flight when the cycle deadline was reached
+     */
+    int getCancelled( ) {
+        return _cancelled;
+    }
+
+    /**
+     * @return Count of items which were never requested because the cycle deadline was reached
+     */
+    int getSkipped( ) {
+        return _skipped;
+    }
+
+    Duration getWallTime( ) {
+        return _wallTime;
+    }
+
+    @Override
+    public String toString( ) {
+        return "completed: " + _completed + ", failed: " + _failed + ", cancelled: " + _cancelled + ", skipped: " + _skipped + ", done in " + _wallTime.toMillis( ) + " ms";
+    }
+}
@@ -0,0 +1,243 @@
+/*******************************************************************************
+ * Copyright 2014 Cedric Longo.
+ *
+ * This file is part of Wall-T program.
+ *
+ * Wall-T is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Wall-T is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with Wall-T.
+ * If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+
+package utils.teamcity.wallt.controller.api;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import utils.teamcity.wallt.model.build.BuildData;
+import utils.teamcity.wallt.model.build.BuildState;
+import utils.teamcity.wallt.model.build.BuildStatus;
+import utils.teamcity.wallt.model.build.BuildTypeData;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+
+/**
+ * Keeps a next poll deadline for each monitored build type, ordered by deadline then id in a sorted set, so that
+ * a build type is found, moved or removed from the queue in logarithmic time.
+ * The poll interval of a build type depends on its recent activity: short while a build is queued or when last
+ * build has just failed, and longer and longer while nothing changes.
+ * While a build is running, next poll is scheduled just after its estimated finish, with sparse progress refreshes
+ * in between.
+ * Build types whose notifications are pushed only need a slow reconciliation poll, unless a build is running.
+ */
+final class PollingScheduler {
+
+    static final Duration ACTIVE_INTERVAL = Duration.ofSeconds( 20 );
+    static final Duration JUST_FAILED_INTERVAL = Duration.ofSeconds( 30 );
+    static final Duration RECENTLY_CHANGED_INTERVAL = Duration.ofSeconds( 60 );
+    static final Duration QUIET_INTERVAL = Duration.ofMinutes( 3 );
+    static final Duration IDLE_INTERVAL = Duration.ofMinutes( 10 );
+    static final Duration PROGRESS_REFRESH_INTERVAL = Duration.ofMinutes( 5 );
+    static final Duration FINISH_MARGIN = Duration.ofSeconds( 3 );
+    static final Duration MIN_INTERVAL = Duration.ofSeconds( 5 );
+    static final Duration RECONCILIATION_INTERVAL = Duration.ofMinutes( 15 );
+
+    private static final Duration JUST_FAILED_PERIOD = Duration.ofMinutes( 15 );
+    private static final Duration RECENTLY_CHANGED_PERIOD = Duration.ofHours( 1 );
+    private static final Duration QUIET_PERIOD = Duration.ofDays( 1 );
+
+    private final Predicate<BuildTypeData> _pushCovered;
+    private final Map<String, ScheduledPoll> _polls = Maps.newHashMap( );
+    // A poll is removed from queue before its deadline is changed, as deadline is part of its ordering
+    private final NavigableSet<ScheduledPoll> _queue = new TreeSet<>( Comparator.comparing( ScheduledPoll::getDeadline ).thenComparing( poll -> poll.getBuildType( ).getId( ) ) );
+
+    PollingScheduler( ) {
+        this( buildType -> false );
+    }
+
+    PollingScheduler( final Predicate<BuildTypeData> pushCovered ) {
+        _pushCovered = pushCovered;
+    }
+
+    /**
+     * Synchronizes scheduled build types with the monitored ones: new build types are due immediately,
+     * build types which are no more monitored are forgotten.
+     */
+    synchronized void track( final Collection<BuildTypeData> monitoredBuildTypes, final Instant now ) {
+        final Set<String> monitoredIds = Sets.newHashSet( );
+        for ( final BuildTypeData buildType : monitoredBuildTypes ) {
+            monitoredIds.add( buildType.getId( ) );
+            if ( !_polls.containsKey( buildType.getId( ) ) ) {
+                final ScheduledPoll poll = new ScheduledPoll( buildType, now );
+                _polls.put( buildType.getId( ), poll );
+                _queue.add( poll );
+            }
+        }
+
+        _polls.values( ).removeIf( poll -> {
+            if ( monitoredIds.contains( poll.getBuildType( ).getId( ) ) )
+                return false;
+            _queue.remove( poll );
+            return true;
+        } );
+    }
+
+    /**
+     * Removes from the queue and returns all build types whose deadline is reached.
+     * They must be given back with {@link #reschedule(BuildTypeData, Instant)} once polled.
+     */
+    synchronized List<BuildTypeData> pollDue( final Instant now ) {
+        final ImmutableList.Builder<BuildTypeData> due = ImmutableList.builder( );
+        while ( !_queue.isEmpty( ) && !_queue.first( ).getDeadline( ).isAfter( now ) )
+            due.add( _queue.pollFirst( ).getBuildType( ) );
+        return due.build( );
+    }
+
+    /**
+     * Computes next deadline of the build type according to its activity, and puts it back in queue
+     */
+    synchronized void reschedule( final BuildTypeData buildType, final Instant now ) {
+        final ScheduledPoll poll = _polls.get( buildType.getId( ) );
+        if ( poll == null || _queue.contains( poll ) )
+            return;
+
+        poll.observe( now );
+        poll.setDeadline( now.plus( nextInterval( poll, now ) ) );
+        _queue.add( poll );
+    }
+
+    /**
+     * Brings the deadline of the build type forward if it is later than the given one
+     */
+    synchronized void expedite( final BuildTypeData buildType, final Instant deadline ) {
+        final ScheduledPoll poll = _polls.get( buildType.getId( ) );
+        if ( poll == null || !poll.getDeadline( ).isAfter( deadline ) || !_queue.remove( poll ) )
+            return;
+
+        poll.setDeadline( deadline );
+        _queue.add( poll );
+    }
+
+    synchronized Optional<Instant> getDeadline( final BuildTypeData buildType ) {
+        final ScheduledPoll poll = _polls.get( buildType.getId( ) );
+        return poll == null ? Optional.empty( ) : Optional.of( poll.getDeadline( ) );
+    }
+
+    synchronized int size( ) {
+        return _polls.size( );
+    }
+
+    Duration nextInterval( final ScheduledPoll poll, final Instant now ) {
+        final BuildTypeData buildType = poll.getBuildType( );
+        // Progress of running builds is not pushed, and builds seen running are no more part of the build delta
+        if ( _pushCovered.test( buildType ) )
+            return buildType.hasRunningBuild( ) ? runningInterval( buildType ) : RECONCILIATION_INTERVAL;
+
+        if ( buildType.isQueued( ) )
+            return ACTIVE_INTERVAL;
+
+        if ( buildType.hasRunningBuild( ) )
+            return runningInterval( buildType );
+
+        final Duration sinceLastChange = Duration.between( poll.getLastChange( ), now );
+
+        final Optional<BuildData> lastBuild = buildType.getLastBuild( BuildState.finished );
+        if ( lastBuild.isPresent( ) && lastBuild.get( ).getStatus( ) != BuildStatus.SUCCESS && sinceLastChange.compareTo( JUST_FAILED_PERIOD ) < 0 )
+            return JUST_FAILED_INTERVAL;
+
+        if ( sinceLastChange.compareTo( RECENTLY_CHANGED_PERIOD ) < 0 )
+            return RECENTLY_CHANGED_INTERVAL;
+
+        if ( sinceLastChange.compareTo( QUIET_PERIOD ) < 0 )
+            return QUIET_INTERVAL;
+
+        return IDLE_INTERVAL;
+    }
+
+    /**
+     * Next check is scheduled near the estimated finish of the first running build to finish.
+     * When there is no estimate, or when the estimate is overrun, running builds are checked with the active cadence.
+     */
+    private static Duration runningInterval( final BuildTypeData buildType ) {
+        final Optional<Duration> timeLeft = buildType.getLastBuilds( BuildState.running, Integer.MAX_VALUE ).stream( )
+                .map( BuildData::getTimeLeft )
+                .filter( Optional::isPresent )
+                .map( Optional::get )
+                .min( Comparator.naturalOrder( ) );
+
+        if ( !timeLeft.isPresent( ) || timeLeft.get( ).isZero( ) || timeLeft.get( ).isNegative( ) )
+            return ACTIVE_INTERVAL;
+
+        final Duration untilFinish = timeLeft.get( ).plus( FINISH_MARGIN );
+        if ( untilFinish.compareTo( PROGRESS_REFRESH_INTERVAL ) > 0 )
+            return PROGRESS_REFRESH_INTERVAL;
+
+        return untilFinish.compareTo( MIN_INTERVAL ) < 0 ? MIN_INTERVAL : untilFinish;
+    }
+
+    static final class ScheduledPoll {
+
+        private final BuildTypeData _buildType;
+        private Instant _deadline;
+        private Instant _lastChange;
+        private int _lastBuildId = -1;
+        private boolean _lastActive;
+        private boolean _observed;
+
+        ScheduledPoll( final BuildTypeData buildType, final Instant now ) {
+            _buildType = buildType;
+            _deadline = now;
+            _lastChange = now;
+        }
+
+        BuildTypeData getBuildType( ) {
+            return _buildType;
+        }
+
+        Instant getDeadline( ) {
+            return _deadline;
+        }
+
+        void setDeadline( final Instant deadline ) {
+            _deadline = deadline;
+        }
+
+        Instant getLastChange( ) {
+            return _lastChange;
+        }
+
+        /**
+         * Records activity of the build type: any new build or any running/queued state change is an activity
+         */
+        void observe( final Instant now ) {
+            final Optional<BuildData> lastBuild = _buildType.getLastBuild( BuildState.finished );
+            final int lastBuildId = lastBuild.map( BuildData::getId ).orElse( -1 );
+            final boolean active = _buildType.hasRunningBuild( ) || _buildType.isQueued( );
+            if ( !_observed ) {
+                // First time: the last activity is known as the finish date of last build
+                final Optional<Instant> lastFinishedDate = lastBuild.flatMap( BuildData::getFinishedDate ).map( d -> d.atZone( ZoneId.systemDefault( ) ).toInstant( ) );
+                _lastChange = active || !lastFinishedDate.isPresent( ) || lastFinishedDate.get( ).isAfter( now ) ? now : lastFinishedDate.get( );
+                _observed = true;
+            } else if ( lastBuildId != _lastBuildId || active != _lastActive )
+                _lastChange = now;
+            _lastBuildId = lastBuildId;
+            _lastActive = active;
+        }
+    }
+}
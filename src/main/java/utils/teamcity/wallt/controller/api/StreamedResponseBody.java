@@ -0,0 +1,115 @@
+/*******************************************************************************
+ * Copyright 2014 Cedric Longo.
+ *
+ * This file is part of Wall-T program.
+ *
+ * Wall-T is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Wall-T is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with Wall-T.
+ * If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package utils.teamcity.wallt.controller.api;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Body of a response which can be read while its parts are still received.
+ * Parts are queued by the thread of the http client, which never waits for the reader, and the reader waits for next part.
+ * Reading fails with an {@link IncompleteBodyException} when the response fails before its end.
+ * Parts received after the body is closed are dropped.
+ */
+final class StreamedResponseBody extends InputStream {
+
+    private static final byte[] END = new byte[0];
+
+    private final BlockingQueue<byte[]> _parts = new LinkedBlockingQueue<>( );
+    private volatile Throwable _failure;
+    private volatile boolean _closed;
+
+    // Following fields are confined to the reader
+    private byte[] _part = new byte[0];
+    private int _position;
+
+    void partReceived( final byte[] part ) {
+        if ( !_closed && part.length > 0 )
+            _parts.add( part );
+    }
+
+    void completed( ) {
+        _parts.add( END );
+    }
+
+    void failed( final Throwable t ) {
+        _failure = t;
+        _parts.add( END );
+    }
+
+    @Override
+    public int read( ) throws IOException {
+        if ( !nextPart( ) )
+            return -1;
+        return _part[_position++] & 0xFF;
+    }
+
+    @Override
+    public int read( final byte[] b, final int off, final int len ) throws IOException {
+        if ( len == 0 )
+            return 0;
+        if ( !nextPart( ) )
+            return -1;
+        final int count = Math.min( len, _part.length - _position );
+        System.arraycopy( _part, _position, b, off, count );
+        _position += count;
+        return count;
+    }
+
+    @Override
+    public int available( ) {
+        return _part.length - _position;
+    }
+
+    @Override
+    public void close( ) {
+        _closed = true;
+        _parts.removeIf( part -> part != END );
+    }
+
+    /**
+     * Waits for next part when current one is entirely read
+     *
+     * @return false when the end of body is reached
+     */
+    private boolean nextPart( ) throws IOException {
+        while ( _part != END && _position == _part.length ) {
+            try {
+                _part = _parts.take( );
+            } catch ( InterruptedException e ) {
+                Thread.currentThread( ).interrupt( );
+                throw new InterruptedIOException( "Interrupted while waiting for response body" );
+            }
+            _position = 0;
+        }
+        if ( _part == END && _failure != null )
+            throw new IncompleteBodyException( _failure );
+        return _part != END;
+    }
+
+    /**
+     * Failure of the response while its body was read, the cause is the failure of the transport
+     */
+    static final class IncompleteBodyException extends IOException {
+
+        IncompleteBodyException( final Throwable cause ) {
+            super( "Response body is incomplete", cause );
+        }
+    }
+}
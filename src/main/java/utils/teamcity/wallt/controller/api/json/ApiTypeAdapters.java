@@ -0,0 +1,345 @@
+/*******************************************************************************
+ * Copyright 2014 Cedric Longo.
+ *
+ * This file is part of Wall-T program.
+ *
+ * Wall-T is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Wall-T is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with Wall-T.
+ * If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+
+package utils.teamcity.wallt.controller.api.json;
+
+import com.google.common.base.Enums;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import utils.teamcity.wallt.controller.api.ApiUtils;
+import utils.teamcity.wallt.model.build.BuildState;
+import utils.teamcity.wallt.model.build.BuildStatus;
+
+import java.io.IOException;
+import java.time.OffsetDateTime;
+
+/**
+ * Streaming adapters decoding api responses without reflection: each adapter reads the fields consumed by its class
+ * and skips the others. Dates are parsed once while decoding, with their offset.
+ * Adapters are only meant to decode: api responses are never written.
+ */
+public final class ApiTypeAdapters {
+
+    private static final TypeAdapter<BuildRunningInfo> BUILD_RUNNING_INFO = new BuildRunningInfoAdapter( ).nullSafe( );
+    private static final TypeAdapter<BuildType> BUILD_TYPE = new BuildTypeAdapter( ).nullSafe( );
+    private static final TypeAdapter<Build> BUILD = new BuildAdapter( ).nullSafe( );
+    private static final TypeAdapter<Project> PROJECT = new ProjectAdapter( ).nullSafe( );
+    private static final TypeAdapter<QueueBuild> QUEUE_BUILD = new QueueBuildAdapter( ).nullSafe( );
+    private static final TypeAdapter<BuildList> BUILD_LIST = new BuildListAdapter( ).nullSafe( );
+    private static final TypeAdapter<BuildTypeList> BUILD_TYPE_LIST = new BuildTypeListAdapter( ).nullSafe( );
+    private static final TypeAdapter<ProjectList> PROJECT_LIST = new ProjectListAdapter( ).nullSafe( );
+    private static final TypeAdapter<QueuedBuildList> QUEUED_BUILD_LIST = new QueuedBuildListAdapter( ).nullSafe( );
+
+    private ApiTypeAdapters( ) {
+        throw new UnsupportedOperationException( );
+    }
+
+    public static GsonBuilder registerAll( final GsonBuilder builder ) {
+        return builder
+                .registerTypeAdapter( BuildRunningInfo.class, BUILD_RUNNING_INFO )
+                .registerTypeAdapter( BuildType.class, BUILD_TYPE )
+                .registerTypeAdapter( Build.class, BUILD )
+                .registerTypeAdapter( Project.class, PROJECT )
+                .registerTypeAdapter( QueueBuild.class, QUEUE_BUILD )
+                .registerTypeAdapter( BuildList.class, BUILD_LIST )
+                .registerTypeAdapter( BuildTypeList.class, BUILD_TYPE_LIST )
+                .registerTypeAdapter( ProjectList.class, PROJECT_LIST )
+                .registerTypeAdapter( QueuedBuildList.class, QUEUED_BUILD_LIST );
+    }
+
+    private static String nextString( final JsonReader in ) throws IOException {
+        if ( in.peek( ) == JsonToken.NULL ) {
+            in.nextNull( );
+            return null;
+        }
+        return in.nextString( );
+    }
+
+    private static int nextInt( final JsonReader in ) throws IOException {
+        if ( in.peek( ) == JsonToken.NULL ) {
+            in.nextNull( );
+            return 0;
+        }
+        return in.nextInt( );
+    }
+
+    private static boolean nextBoolean( final JsonReader in ) throws IOException {
+        switch ( in.peek( ) ) {
+            case NULL:
+                in.nextNull( );
+                return false;
+            case STRING:
+                return Boolean.parseBoolean( in.nextString( ) );
+            default:
+                return in.nextBoolean( );
+        }
+    }
+
+    private static OffsetDateTime nextDateTime( final JsonReader in ) throws IOException {
+        final String date = nextString( in );
+        return date == null ? null : ApiUtils.parseDateTime( date );
+    }
+
+    private static <E extends Enum<E>> E nextEnum( final JsonReader in, final Class<E> enumType ) throws IOException {
+        final String name = nextString( in );
+        return name == null ? null : Enums.getIfPresent( enumType, name ).orNull( );
+    }
+
+    private abstract static class ReadOnlyAdapter<T> extends TypeAdapter<T> {
+        @Override
+        public final void write( final JsonWriter out, final T value ) throws IOException {
+            throw new UnsupportedOperationException( getClass( ).getSimpleName( ) + " can only read api responses" );
+        }
+    }
+
+    private static final class BuildRunningInfoAdapter extends ReadOnlyAdapter<BuildRunningInfo> {
+        @Override
+        public BuildRunningInfo read( final JsonReader in ) throws IOException {
+            int percentageComplete = 0;
+            int estimatedTotalTime = 0;
+            int elapsedTime = 0;
+            in.beginObject( );
+            while ( in.hasNext( ) ) {
+                switch ( in.nextName( ) ) {
+                    case "percentageComplete":
+                        percentageComplete = nextInt( in );
+                        break;
+                    case "estimatedTotalSeconds":
+                        estimatedTotalTime = nextInt( in );
+                        break;
+                    case "elapsedSeconds":
+                        elapsedTime = nextInt( in );
+                        break;
+                    default:
+                        in.skipValue( );
+                }
+            }
+            in.endObject( );
+            return new BuildRunningInfo( percentageComplete, estimatedTotalTime, elapsedTime );
+        }
+    }
+
+    private static final class BuildTypeAdapter extends ReadOnlyAdapter<BuildType> {
+        @Override
+        public BuildType read( final JsonReader in ) throws IOException {
+            String id = null;
+            String name = null;
+            String projectName = null;
+            String projectId = null;
+            in.beginObject( );
+            while ( in.hasNext( ) ) {
+                switch ( in.nextName( ) ) {
+                    case "id":
+                        id = nextString( in );
+                        break;
+                    case "name":
+                        name = nextString( in );
+                        break;
+                    case "projectName":
+                        projectName = nextString( in );
+                        break;
+                    case "projectId":
+                        projectId = nextString( in );
+                        break;
+                    default:
+                        in.skipValue( );
+                }
+            }
+            in.endObject( );
+            return new BuildType( id, name, projectName, projectId );
+        }
+    }
+
+    private static final class BuildAdapter extends ReadOnlyAdapter<Build> {
+        @Override
+        public Build read( final JsonReader in ) throws IOException {
+            int id = 0;
+            String buildTypeId = null;
+            BuildType buildType = null;
+            BuildStatus status = null;
+            BuildState state = null;
+            boolean running = false;
+            OffsetDateTime startDate = null;
+            OffsetDateTime finishDate = null;
+            BuildRunningInfo runningInformation = null;
+            in.beginObject( );
+            while ( in.hasNext( ) ) {
+                switch ( in.nextName( ) ) {
+                    case "id":
+                        id = nextInt( in );
+                        break;
+                    case "buildTypeId":
+                        buildTypeId = nextString( in );
+                        break;
+                    case "buildType":
+                        buildType = BUILD_TYPE.read( in );
+                        break;
+                    case "status":
+                        status = nextEnum( in, BuildStatus.class );
+                        break;
+                    case "state":
+                        state = nextEnum( in, BuildState.class );
+                        break;
+                    case "running":
+                        running = nextBoolean( in );
+                        break;
+                    case "startDate":
+                        startDate = nextDateTime( in );
+                        break;
+                    case "finishDate":
+                        finishDate = nextDateTime( in );
+                        break;
+                    case "running-info":
+                        runningInformation = BUILD_RUNNING_INFO.read( in );
+                        break;
+                    default:
+                        in.skipValue( );
+                }
+            }
+            in.endObject( );
+            return new Build( id, buildTypeId, buildType, status, state, running, startDate, finishDate, runningInformation );
+        }
+    }
+
+    private static final class ProjectAdapter extends ReadOnlyAdapter<Project> {
+        @Override
+        public Project read( final JsonReader in ) throws IOException {
+            String id = null;
+            String name = null;
+            String parentId = null;
+            in.beginObject( );
+            while ( in.hasNext( ) ) {
+                switch ( in.nextName( ) ) {
+                    case "id":
+                        id = nextString( in );
+                        break;
+                    case "name":
+                        name = nextString( in );
+                        break;
+                    case "parentProjectId":
+                        parentId = nextString( in );
+                        break;
+                    default:
+                        in.skipValue( );
+                }
+            }
+            in.endObject( );
+            return new Project( id, name, parentId );
+        }
+    }
+
+    private static final class QueueBuildAdapter extends ReadOnlyAdapter<QueueBuild> {
+        @Override
+        public QueueBuild read( final JsonReader in ) throws IOException {
+            int id = 0;
+            String buildTypeId = null;
+            in.beginObject( );
+            while ( in.hasNext( ) ) {
+                switch ( in.nextName( ) ) {
+                    case "id":
+                        id = nextInt( in );
+                        break;
+                    case "buildTypeId":
+                        buildTypeId = nextString( in );
+                        break;
+                    default:
+                        in.skipValue( );
+                }
+            }
+            in.endObject( );
+            return new QueueBuild( id, buildTypeId );
+        }
+    }
+
+    private static final class BuildListAdapter extends ReadOnlyAdapter<BuildList> {
+        @Override
+        public BuildList read( final JsonReader in ) throws IOException {
+            final BuildList buildList = new BuildList( );
+            in.beginObject( );
+            while ( in.hasNext( ) ) {
+                if ( "build".equals( in.nextName( ) ) && in.peek( ) == JsonToken.BEGIN_ARRAY ) {
+                    in.beginArray( );
+                    while ( in.hasNext( ) )
+                        buildList.addBuild( BUILD.read( in ) );
+                    in.endArray( );
+                } else
+                    in.skipValue( );
+            }
+            in.endObject( );
+            return buildList;
+        }
+    }
+
+    private static final class BuildTypeListAdapter extends ReadOnlyAdapter<BuildTypeList> {
+        @Override
+        public BuildTypeList read( final JsonReader in ) throws IOException {
+            final BuildTypeList buildTypeList = new BuildTypeList( );
+            in.beginObject( );
+            while ( in.hasNext( ) ) {
+                if ( "buildType".equals( in.nextName( ) ) && in.peek( ) == JsonToken.BEGIN_ARRAY ) {
+                    in.beginArray( );
+                    while ( in.hasNext( ) )
+                        buildTypeList.addBuildType( BUILD_TYPE.read( in ) );
+                    in.endArray( );
+                } else
+                    in.skipValue( );
+            }
+            in.endObject( );
+            return buildTypeList;
+        }
+    }
+
+    private static final class ProjectListAdapter extends ReadOnlyAdapter<ProjectList> {
+        @Override
+        public ProjectList read( final JsonReader in ) throws IOException {
+            final ProjectList projectList = new ProjectList( );
+            in.beginObject( );
+            while ( in.hasNext( ) ) {
+                if ( "project".equals( in.nextName( ) ) && in.peek( ) == JsonToken.BEGIN_ARRAY ) {
+                    in.beginArray( );
+                    while ( in.hasNext( ) )
+                        projectList.addProject( PROJECT.read( in ) );
+                    in.endArray( );
+                } else
+                    in.skipValue( );
+            }
+            in.endObject( );
+            return projectList;
+        }
+    }
+
+    private static final class QueuedBuildListAdapter extends ReadOnlyAdapter<QueuedBuildList> {
+        @Override
+        public QueuedBuildList read( final JsonReader in ) throws IOException {
+            final QueuedBuildList queuedBuildList = new QueuedBuildList( );
+            in.beginObject( );
+            while ( in.hasNext( ) ) {
+                if ( "build".equals( in.nextName( ) ) && in.peek( ) == JsonToken.BEGIN_ARRAY ) {
+                    in.beginArray( );
+                    while ( in.hasNext( ) )
+                        queuedBuildList.addBuildType( QUEUE_BUILD.read( in ) );
+                    in.endArray( );
+                } else
+                    in.skipValue( );
+            }
+            in.endObject( );
+            return queuedBuildList;
+        }
+    }
+}
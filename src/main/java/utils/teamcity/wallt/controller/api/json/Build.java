@@ -17,11 +17,11 @@ package utils.teamcity.wallt.controller.api.json;
 
 import com.google.gson.annotations.SerializedName;
 import utils.teamcity.wallt.controller.api.ApiResponse;
-import utils.teamcity.wallt.controller.api.ApiUtils;
 import utils.teamcity.wallt.model.build.BuildState;
 import utils.teamcity.wallt.model.build.BuildStatus;
 
 import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
 
 /**
  * Date: 16/02/14
@@ -33,6 +33,9 @@ public final class Build implements ApiResponse {
     @SerializedName("id")
     private int _id;
 
+    @SerializedName("buildTypeId")
+    private String _buildTypeId;
+
     @SerializedName("buildType")
     private BuildType _buildType;
 
@@ -45,11 +48,9 @@ public final class Build implements ApiResponse {
     @SerializedName("running")
     private boolean _running;
 
-    @SerializedName("startDate")
-    private String _startDate;
-
-    @SerializedName("finishDate")
-    private String _finishDate;
+    // Dates are not mapped by Gson reflection: ApiTypeAdapters parses "startDate" and "finishDate" with the offset of server
+    private OffsetDateTime _startDate;
+    private OffsetDateTime _finishDate;
 
     @SerializedName("running-info")
     private BuildRunningInfo _runningInformation;
@@ -62,6 +63,15 @@ public final class Build implements ApiResponse {
         return _buildType;
     }
 
+    /**
+     * @return Id of the build type, given as attribute or by the embedded build type
+     */
+    public String getBuildTypeId( ) {
+        if ( _buildTypeId != null )
+            return _buildTypeId;
+        return _buildType == null ? null : _buildType.getId( );
+    }
+
     public BuildStatus getStatus( ) {
         return _status;
     }
@@ -74,12 +84,18 @@ public final class Build implements ApiResponse {
         return _runningInformation;
     }
 
+    /**
+     * @return Finish date in the time of server
+     */
     public LocalDateTime getFinishDate( ) {
-        return _finishDate == null ? null : LocalDateTime.parse( _finishDate, ApiUtils.DATE_TIME_FORMATTER );
+        return _finishDate == null ? null : _finishDate.toLocalDateTime( );
     }
 
+    /**
+     * @return Start date in the time of server
+     */
     public LocalDateTime getStartDate( ) {
-        return _startDate == null ? null : LocalDateTime.parse( _startDate, ApiUtils.DATE_TIME_FORMATTER );
+        return _startDate == null ? null : _startDate.toLocalDateTime( );
     }
 
     public boolean isRunning( ) {
@@ -96,4 +112,12 @@ public final class Build implements ApiResponse {
         _state = state;
         _running = running;
     }
+
+    Build( final int id, final String buildTypeId, final BuildType buildType, final BuildStatus status, final BuildState state, final boolean running, final OffsetDateTime startDate, final OffsetDateTime finishDate, final BuildRunningInfo runningInformation ) {
+        this( id, buildType, status, state, running );
+        _buildTypeId = buildTypeId;
+        _startDate = startDate;
+        _finishDate = finishDate;
+        _runningInformation = runningInformation;
+    }
 }
@@ -30,7 +30,7 @@ import java.util.List;
 public final class BuildList implements ApiResponse {
 
     @SerializedName("build")
-    private List<Build> _builds = Lists.newLinkedList( );
+    private List<Build> _builds = Lists.newArrayList( );
 
     public List<Build> getBuilds( ) {
         return _builds;
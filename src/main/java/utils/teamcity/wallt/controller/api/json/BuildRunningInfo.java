@@ -44,4 +44,13 @@ public final class BuildRunningInfo {
     public int getElapsedTime( ) {
         return _elapsedTime;
     }
+
+    public BuildRunningInfo( ) {
+    }
+
+    BuildRunningInfo( final int percentageComplete, final int estimatedTotalTime, final int elapsedTime ) {
+        _percentageComplete = percentageComplete;
+        _estimatedTotalTime = estimatedTotalTime;
+        _elapsedTime = elapsedTime;
+    }
 }
@@ -30,7 +30,7 @@ import java.util.List;
 public final class BuildTypeList implements ApiResponse {
 
     @SerializedName("buildType")
-    private List<BuildType> _builds = Lists.newLinkedList( );
+    private List<BuildType> _builds = Lists.newArrayList( );
 
     public List<BuildType> getBuildTypes( ) {
         return _builds;
@@ -30,7 +30,7 @@ import java.util.List;
 public final class ProjectList implements ApiResponse {
 
     @SerializedName("project")
-    private List<Project> _projects = Lists.newLinkedList( );
+    private List<Project> _projects = Lists.newArrayList( );
 
     public List<Project> getProjects( ) {
         return _projects;
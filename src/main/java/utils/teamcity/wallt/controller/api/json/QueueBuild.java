@@ -24,9 +24,16 @@ import com.google.gson.annotations.SerializedName;
  */
 public final class QueueBuild {
 
+    @SerializedName("id")
+    private int _id;
+
     @SerializedName("buildTypeId")
     private String _buildTypeId;
 
+    public int getId( ) {
+        return _id;
+    }
+
     public String getBuildTypeId( ) {
         return _buildTypeId;
     }
@@ -37,4 +44,9 @@ public final class QueueBuild {
     public QueueBuild( final String buildTypeId ) {
         _buildTypeId = buildTypeId;
     }
+
+    public QueueBuild( final int id, final String buildTypeId ) {
+        _id = id;
+        _buildTypeId = buildTypeId;
+    }
 }
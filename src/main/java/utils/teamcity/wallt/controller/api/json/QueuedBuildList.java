@@ -29,7 +29,7 @@ import java.util.List;
 public final class QueuedBuildList implements ApiResponse {
 
     @SerializedName("build")
-    private List<QueueBuild> _builds = Lists.newLinkedList( );
+    private List<QueueBuild> _builds = Lists.newArrayList( );
 
     public List<QueueBuild> getQueueBuild( ) {
         return _builds;
@@ -54,10 +54,25 @@ public final class ConfigurationModule extends AbstractModule {
             final Gson gson = new Gson( );
             Configuration conf = gson.fromJson( reader, Configuration.class );
             LOGGER.info("Configuration item 0 name: " + conf.getSavedBuildTypes().get(0).getName() + " branch: " + conf.getSavedBuildTypes().get(0).getBranch() + " aliasname: " + conf.getSavedBuildTypes().get(0).getAliasName());
-            return conf;
+            return withValidApiLimits( conf );
         } catch ( IOException ignored ) {
             LoggerFactory.getLogger( Loggers.MAIN ).warn( "No configuration file found: starting with empty configuration" );
             return new Configuration( );
         }
     }
+
+    /**
+     * Request governor can't dispatch anything without a positive rate and in-flight limit: such values are replaced by defaults
+     */
+    static Configuration withValidApiLimits( final Configuration configuration ) {
+        if ( configuration.getMaxRequestsPerSecond( ) <= 0 ) {
+            LOGGER.warn( "Invalid api.max.requests.per.second {}: using {}", configuration.getMaxRequestsPerSecond( ), Configuration.DEFAULT_MAX_REQUESTS_PER_SECOND );
+            configuration.setMaxRequestsPerSecond( Configuration.DEFAULT_MAX_REQUESTS_PER_SECOND );
+        }
+        if ( configuration.getMaxRequestsInFlight( ) <= 0 ) {
+            LOGGER.warn( "Invalid api.max.requests.in.flight {}: using {}", configuration.getMaxRequestsInFlight( ), Configuration.DEFAULT_MAX_REQUESTS_IN_FLIGHT );
+            configuration.setMaxRequestsInFlight( Configuration.DEFAULT_MAX_REQUESTS_IN_FLIGHT );
+        }
+        return configuration;
+    }
 }
@@ -0,0 +1,37 @@
+/*******************************************************************************
+ * Copyright 2014 Cedric Longo.
+ *
+ * This file is part of Wall-T program.
+ *
+ * Wall-T is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Wall-T is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with Wall-T.
+ * If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+
+package utils.teamcity.wallt.controller.webhook;
+
+import utils.teamcity.wallt.model.build.BuildTypeData;
+
+/**
+ * Receives build notifications pushed by TeamCity, so that build types don't need to be polled as often.
+ */
+public interface IWebhookReceiver {
+
+    /**
+     * Starts listening for notifications, if enabled by configuration
+     */
+    void start( );
+
+    void stop( );
+
+    /**
+     * @return true when notifications of the build type are pushed, its status then needs only a slow reconciliation poll
+     */
+    boolean covers( final BuildTypeData buildType );
+}
@@ -0,0 +1,89 @@
+/*******************************************************************************
+ * Copyright 2014 Cedric Longo.
+ *
+ * This file is part of Wall-T program.
+ *
+ * Wall-T is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Wall-T is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with Wall-T.
+ * If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+
+package utils.teamcity.wallt.controller.webhook;
+
+import com.google.gson.annotations.SerializedName;
+
+/**
+ * Build notification, in the JSON payload format of tcWebHooks plugin. Only used fields are declared.
+ */
+final class WebhookNotification {
+
+    @SerializedName("build")
+    private Build _build;
+
+    Build getBuild( ) {
+        return _build;
+    }
+
+    static final class Build {
+
+        @SerializedName("notifyType")
+        private String _notifyType;
+
+        @SerializedName("buildId")
+        private String _buildId;
+
+        @SerializedName("buildTypeId")
+        private String _buildTypeId;
+
+        @SerializedName("buildExternalTypeId")
+        private String _buildExternalTypeId;
+
+        @SerializedName("buildResult")
+        private String _buildResult;
+
+        @SerializedName("projectId")
+        private String _projectId;
+
+        @SerializedName("projectExternalId")
+        private String _projectExternalId;
+
+        @SerializedName("branchIsDefault")
+        private Boolean _branchIsDefault;
+
+        String getNotifyType( ) {
+            return _notifyType;
+        }
+
+        String getBuildId( ) {
+            return _buildId;
+        }
+
+        /**
+         * Since TeamCity 8, build types are identified by their external id in rest api
+         */
+        String getBuildTypeId( ) {
+            return _buildExternalTypeId != null ? _buildExternalTypeId : _buildTypeId;
+        }
+
+        String getBuildResult( ) {
+            return _buildResult;
+        }
+
+        String getProjectId( ) {
+            return _projectExternalId != null ? _projectExternalId : _projectId;
+        }
+
+        /**
+         * Build of a configuration without branches is on default branch
+         */
+        boolean isOnDefaultBranch( ) {
+            return _branchIsDefault == null || _branchIsDefault;
+        }
+    }
+}
@@ -0,0 +1,270 @@
+/*******************************************************************************
+ * Copyright 2014 Cedric Longo.
+ *
+ * This file is part of Wall-T program.
+ *
+ * Wall-T is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Wall-T is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with Wall-T.
+ * If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+
+package utils.teamcity.wallt.controller.webhook;
+
+import com.google.common.base.Enums;
+import com.google.common.base.Strings;
+import com.google.common.eventbus.EventBus;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import utils.teamcity.wallt.model.build.BuildData;
+import utils.teamcity.wallt.model.build.BuildState;
+import utils.teamcity.wallt.model.build.BuildStatus;
+import utils.teamcity.wallt.model.build.BuildTypeData;
+import utils.teamcity.wallt.model.build.IBuildTypeManager;
+import utils.teamcity.wallt.model.build.IProjectManager;
+import utils.teamcity.wallt.model.build.ProjectData;
+import utils.teamcity.wallt.model.configuration.Configuration;
+import utils.teamcity.wallt.model.logger.Loggers;
+
+import javax.inject.Inject;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Embedded http listener receiving build notifications (JSON payload of tcWebHooks plugin) posted on {@value #CONTEXT_PATH}.
+ * Started, finished and queue notifications of known build types followed on default branch are immediately registered
+ * on the build type, and dispatched to {@link EventBus} for view update.
+ * Build types of projects sending notifications are considered covered by push for {@link #COVERAGE_PERIOD} after
+ * their last notification, so a silent relay gives polling back to them within one reconciliation interval.
+ * Notification times are only kept for known build types and their project, and are forgotten once expired.
+ * Listener is bound to configured address (loopback by default) and only accepts notifications carrying configured
+ * token in {@value #TOKEN_HEADER} header.
+ */
+final class WebhookReceiver implements IWebhookReceiver {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger( Loggers.MAIN );
+    private static final Gson GSON = new Gson( );
+
+    static final String CONTEXT_PATH = "/webhook";
+    static final String TOKEN_HEADER = "X-Wall-T-Token";
+    static final Duration COVERAGE_PERIOD = Duration.ofMinutes( 15 );
+
+    private final Configuration _configuration;
+    private final IBuildTypeManager _buildManager;
+    private final IProjectManager _projectManager;
+    private final EventBus _eventBus;
+    private final ExecutorService _executorService;
+    private final Clock _clock;
+
+    // Build type id or project id -> time of last notification
+    private final ConcurrentMap<String, Instant> _lastBuildTypeNotifications = new ConcurrentHashMap<>( );
+    private final ConcurrentMap<String, Instant> _lastProjectNotifications = new ConcurrentHashMap<>( );
+
+    private volatile HttpServer _server;
+
+    @Inject
+    WebhookReceiver( final Configuration configuration, final IBuildTypeManager buildManager, final IProjectManager projectManager, final EventBus eventBus, final ExecutorService executorService ) {
+        this( configuration, buildManager, projectManager, eventBus, executorService, Clock.systemUTC( ) );
+    }
+
+    WebhookReceiver( final Configuration configuration, final IBuildTypeManager buildManager, final IProjectManager projectManager, final EventBus eventBus, final ExecutorService executorService, final Clock clock ) {
+        _configuration = configuration;
+        _buildManager = buildManager;
+        _projectManager = projectManager;
+        _eventBus = eventBus;
+        _executorService = executorService;
+        _clock = clock;
+    }
+
+    @Override
+    public synchronized void start( ) {
+        if ( _server != null || !_configuration.isWebhookEnabled( ) )
+            return;
+
+        if ( Strings.isNullOrEmpty( _configuration.getWebhookToken( ) ) ) {
+            LOGGER.error( "Webhook receiver not started: no webhook token configured." );
+            return;
+        }
+
+        final HttpServer server;
+        try {
+            final InetAddress address = InetAddress.getByName( Strings.isNullOrEmpty( _configuration.getWebhookAddress( ) ) ? null : _configuration.getWebhookAddress( ) );
+            server = HttpServer.create( new InetSocketAddress( address, _configuration.getWebhookPort( ) ), 0 );
+        } catch ( IOException e ) {
+            LOGGER.error( "Unable to start webhook receiver on " + _configuration.getWebhookAddress( ) + ":" + _configuration.getWebhookPort( ) + ":", e );
+            return;
+        }
+        server.createContext( CONTEXT_PATH, this::handle );
+        server.setExecutor( _executorService );
+        server.start( );
+        _server = server;
+        LOGGER.info( "Webhook receiver listening on {}.", server.getAddress( ) );
+    }
+
+    @Override
+    public synchronized void stop( ) {
+        if ( _server == null )
+            return;
+        _server.stop( 0 );
+        _server = null;
+        LOGGER.info( "Webhook receiver stopped." );
+    }
+
+    @Override
+    public boolean covers( final BuildTypeData buildType ) {
+        if ( _server == null )
+            return false;
+        final Instant coverageStart = _clock.instant( ).minus( COVERAGE_PERIOD );
+        return isNotifiedSince( _lastBuildTypeNotifications, buildType.getId( ), coverageStart )
+                || isNotifiedSince( _lastProjectNotifications, buildType.getProjectId( ), coverageStart );
+    }
+
+    private static boolean isNotifiedSince( final ConcurrentMap<String, Instant> lastNotifications, final String id, final Instant since ) {
+        final Instant lastNotification = id == null ? null : lastNotifications.get( id );
+        if ( lastNotification == null )
+            return false;
+        if ( lastNotification.isAfter( since ) )
+            return true;
+        lastNotifications.remove( id, lastNotification );
+        return false;
+    }
+
+    boolean isStarted( ) {
+        return _server != null;
+    }
+
+    InetSocketAddress getAddress( ) {
+        return _server.getAddress( );
+    }
+
+    private void handle( final HttpExchange exchange ) throws IOException {
+        try {
+            if ( !"POST".equals( exchange.getRequestMethod( ) ) ) {
+                exchange.sendResponseHeaders( HttpURLConnection.HTTP_BAD_METHOD, -1 );
+                return;
+            }
+
+            if ( !isAuthorized( exchange.getRequestHeaders( ).getFirst( TOKEN_HEADER ) ) ) {
+                LOGGER.warn( "Webhook notification rejected from {}: missing or invalid token.", exchange.getRemoteAddress( ) );
+                exchange.sendResponseHeaders( HttpURLConnection.HTTP_UNAUTHORIZED, -1 );
+                return;
+            }
+
+            try ( final Reader reader = new InputStreamReader( exchange.getRequestBody( ), StandardCharsets.UTF_8 ) ) {
+                final WebhookNotification notification = GSON.fromJson( reader, WebhookNotification.class );
+                if ( notification == null || notification.getBuild( ) == null || notification.getBuild( ).getBuildTypeId( ) == null )
+                    throw new IllegalArgumentException( "No build type in notification" );
+                register( notification.getBuild( ) );
+            } catch ( JsonParseException | IllegalArgumentException e ) {
+                LOGGER.warn( "Invalid webhook notification: " + e.getMessage( ) );
+                exchange.sendResponseHeaders( HttpURLConnection.HTTP_BAD_REQUEST, -1 );
+                return;
+            }
+
+            exchange.sendResponseHeaders( HttpURLConnection.HTTP_OK, -1 );
+        } finally {
+            exchange.close( );
+        }
+    }
+
+    private boolean isAuthorized( final String token ) {
+        final String expectedToken = _configuration.getWebhookToken( );
+        if ( token == null || Strings.isNullOrEmpty( expectedToken ) )
+            return false;
+        return MessageDigest.isEqual( token.getBytes( StandardCharsets.UTF_8 ), expectedToken.getBytes( StandardCharsets.UTF_8 ) );
+    }
+
+    /**
+     * Notification is fully read before anything is recorded: an invalid notification changes nothing.
+     * Build types followed on a specific branch are not covered by push, as notifications of all branches are sent.
+     */
+    void register( final WebhookNotification.Build notification ) {
+        final Optional<BuildTypeData> buildType = _buildManager.getBuildType( notification.getBuildTypeId( ) );
+        if ( !buildType.isPresent( ) || buildType.get( ).getBranch( ) != null )
+            return;
+
+        final Instant now = _clock.instant( );
+        final String notifyType = String.valueOf( notification.getNotifyType( ) );
+        final Optional<BuildData> build;
+        switch ( notifyType ) {
+            case "buildAddedToQueue":
+            case "buildRemovedFromQueue":
+                build = Optional.empty( );
+                break;
+            case "buildStarted":
+                // Time left is unknown until the build is polled
+                build = Optional.of( new BuildData( buildIdOf( notification ), statusOf( notification ), BuildState.running, 0, Optional.empty( ) ) );
+                break;
+            case "buildFinished":
+            case "buildSuccessful":
+            case "buildFailed":
+            case "buildFixed":
+            case "buildBroken":
+            case "buildInterrupted":
+                final LocalDateTime finishedDate = LocalDateTime.ofInstant( now, ZoneId.systemDefault( ) );
+                build = Optional.of( new BuildData( buildIdOf( notification ), statusOf( notification ), BuildState.finished, 100, Optional.of( finishedDate ), Duration.ZERO ) );
+                break;
+            default:
+                return;
+        }
+
+        _lastBuildTypeNotifications.put( buildType.get( ).getId( ), now );
+        if ( buildType.get( ).getProjectId( ) != null )
+            _lastProjectNotifications.put( buildType.get( ).getProjectId( ), now );
+
+        // Builds of other branches must not override the tile of the build type
+        if ( !notification.isOnDefaultBranch( ) )
+            return;
+
+        if ( build.isPresent( ) ) {
+            buildType.get( ).setQueued( false );
+            buildType.get( ).registerBuild( build.get( ) );
+        } else
+            buildType.get( ).setQueued( "buildAddedToQueue".equals( notifyType ) );
+
+        LOGGER.debug( "Webhook notification {} registered for build type {}.", notification.getNotifyType( ), notification.getBuildTypeId( ) );
+        _eventBus.post( buildType.get( ) );
+        final Optional<ProjectData> project = _projectManager.getProject( buildType.get( ).getProjectId( ) );
+        if ( project.isPresent( ) )
+            _eventBus.post( project.get( ) );
+    }
+
+    private static int buildIdOf( final WebhookNotification.Build notification ) {
+        try {
+            return Integer.parseInt( notification.getBuildId( ) );
+        } catch ( NumberFormatException e ) {
+            throw new IllegalArgumentException( "Invalid build id: " + notification.getBuildId( ) );
+        }
+    }
+
+    private static BuildStatus statusOf( final WebhookNotification.Build notification ) {
+        if ( notification.getBuildResult( ) == null )
+            return BuildStatus.UNKNOWN;
+        return Enums.getIfPresent( BuildStatus.class, notification.getBuildResult( ).toUpperCase( Locale.ENGLISH ) ).or( BuildStatus.UNKNOWN );
+    }
+}
@@ -17,6 +17,7 @@ package utils.teamcity.wallt.model.build;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.Objects;
 import java.util.Optional;
 
 /**
@@ -31,9 +32,20 @@ public final class BuildData {
     private final BuildState _state;
     private final int _percentageComplete;
     private final Optional<LocalDateTime> _finishedDate;
-    private final Duration _timeLeft;
+    private final Optional<Duration> _timeLeft;
 
     public BuildData( final int id, final BuildStatus status, final BuildState state, final int percentageComplete, final Optional<LocalDateTime> finishedDate, Duration timeLeft ) {
+        this( id, status, state, percentageComplete, finishedDate, Optional.of( timeLeft ) );
+    }
+
+    /**
+     * Build without estimate of its time left
+     */
+    public BuildData( final int id, final BuildStatus status, final BuildState state, final int percentageComplete, final Optional<LocalDateTime> finishedDate ) {
+        this( id, status, state, percentageComplete, finishedDate, Optional.empty( ) );
+    }
+
+    private BuildData( final int id, final BuildStatus status, final BuildState state, final int percentageComplete, final Optional<LocalDateTime> finishedDate, final Optional<Duration> timeLeft ) {
         _id = id;
         _status = status;
         _state = state;
@@ -62,7 +74,23 @@ public final class BuildData {
         return _finishedDate;
     }
 
-    public Duration getTimeLeft( ) {
+    public Optional<Duration> getTimeLeft( ) {
         return _timeLeft;
     }
+
+    @Override
+    public boolean equals( final Object o ) {
+        if ( this == o )
+            return true;
+        if ( o == null || getClass( ) != o.getClass( ) )
+            return false;
+        final BuildData that = (BuildData) o;
+        return _id == that._id && _status == that._status && _state == that._state && _percentageComplete == that._percentageComplete
+                && Objects.equals( _finishedDate, that._finishedDate ) && Objects.equals( _timeLeft, that._timeLeft );
+    }
+
+    @Override
+    public int hashCode( ) {
+        return Objects.hash( _id, _status, _state, _percentageComplete, _finishedDate, _timeLeft );
+    }
 }
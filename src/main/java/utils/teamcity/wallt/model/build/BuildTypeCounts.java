@@ -0,0 +1,114 @@
+/*******************************************************************************
+ * Copyright 2014 Cedric Longo.
+ *
+ * This file is part of Wall-T program.
+ *
+ * Wall-T is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Wall-T is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with Wall-T.
+ * If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+
+package utils.teamcity.wallt.model.build;
+
+import java.util.Optional;
+
+/**
+ * Counts of build types by status of their last finished build, and of those which are running.
+ * Error status is counted as a failure.
+ */
+public final class BuildTypeCounts {
+
+    static final BuildTypeCounts EMPTY = new BuildTypeCounts( 0, 0, 0, 0 );
+    private static final BuildTypeCounts SUCCESS = new BuildTypeCounts( 1, 0, 0, 0 );
+    private static final BuildTypeCounts SUCCESS_RUNNING = new BuildTypeCounts( 1, 0, 1, 0 );
+    private static final BuildTypeCounts FAILURE = new BuildTypeCounts( 0, 1, 0, 0 );
+    private static final BuildTypeCounts FAILURE_RUNNING = new BuildTypeCounts( 0, 1, 0, 1 );
+
+    private final int _successCount;
+    private final int _failureCount;
+    private final int _successRunningCount;
+    private final int _failureRunningCount;
+
+    private BuildTypeCounts( final int successCount, final int failureCount, final int successRunningCount, final int failureRunningCount ) {
+        _successCount = successCount;
+        _failureCount = failureCount;
+        _successRunningCount = successRunningCount;
+        _failureRunningCount = failureRunningCount;
+    }
+
+    /**
+     * @return Counts of a single build type in given state, which are shared instances
+     */
+    static BuildTypeCounts of( final BuildTypeData.Snapshot buildType ) {
+        final Optional<BuildData> lastFinishedBuild = buildType.getLastBuild( BuildState.finished );
+        if ( !lastFinishedBuild.isPresent( ) )
+            return EMPTY;
+
+        switch ( lastFinishedBuild.get( ).getStatus( ) ) {
+            case SUCCESS:
+                return buildType.hasRunningBuild( ) ? SUCCESS_RUNNING : SUCCESS;
+            case FAILURE:
+            case ERROR:
+                return buildType.hasRunningBuild( ) ? FAILURE_RUNNING : FAILURE;
+            default:
+                return EMPTY;
+        }
+    }
+
+    BuildTypeCounts plus( final BuildTypeCounts counts ) {
+        return new BuildTypeCounts( _successCount + counts._successCount, _failureCount + counts._failureCount,
+                _successRunningCount + counts._successRunningCount, _failureRunningCount + counts._failureRunningCount );
+    }
+
+    BuildTypeCounts minus( final BuildTypeCounts counts ) {
+        return new BuildTypeCounts( _successCount - counts._successCount, _failureCount - counts._failureCount,
+                _successRunningCount - counts._successRunningCount, _failureRunningCount - counts._failureRunningCount );
+    }
+
+    boolean isEmpty( ) {
+        return _successCount == 0 && _failureCount == 0 && _successRunningCount == 0 && _failureRunningCount == 0;
+    }
+
+    public int getSuccessCount( ) {
+        return _successCount;
+    }
+
+    public int getFailureCount( ) {
+        return _failureCount;
+    }
+
+    public boolean hasSuccessRunning( ) {
+        return _successRunningCount > 0;
+    }
+
+    public boolean hasFailureRunning( ) {
+        return _failureRunningCount > 0;
+    }
+
+    @Override
+    public boolean equals( final Object o ) {
+        if ( this == o )
+            return true;
+        if ( o == null || getClass( ) != o.getClass( ) )
+            return false;
+        final BuildTypeCounts that = (BuildTypeCounts) o;
+        return _successCount == that._successCount && _failureCount == that._failureCount
+                && _successRunningCount == that._successRunningCount && _failureRunningCount == that._failureRunningCount;
+    }
+
+    @Override
+    public int hashCode( ) {
+        return ( ( _successCount * 31 + _failureCount ) * 31 + _successRunningCount ) * 31 + _failureRunningCount;
+    }
+
+    @Override
+    public String toString( ) {
+        return "success: " + _successCount + " failure: " + _failureCount + " success running: " + _successRunningCount + " failure running: " + _failureRunningCount;
+    }
+}
@@ -16,16 +16,20 @@
 package utils.teamcity.wallt.model.build;
 
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.Lists;
 
-import java.util.LinkedList;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.stream.Collectors;
-
-import static com.google.common.collect.Lists.reverse;
 
 /**
+ * Each state of a build type is published as an immutable {@link Snapshot} through a single volatile reference:
+ * writers copy the current snapshot under lock, readers get a consistent view without lock.
+ * Version of the snapshot is increased by each change, so readers can skip work when nothing changed.
+ *
+ * Last builds are kept in an immutable list ordered by descending id, which is copied only when a build is added or changed.
+ * Derived state read by tiles and schedulers (last and oldest build by state, last finished builds) is computed for each snapshot,
+ * so these reads do not copy nor filter builds.
+ *
  * Date: 16/02/14
  *
  * @author Cedric Longo
@@ -33,25 +37,24 @@ import static com.google.common.collect.Lists.reverse;
 public final class BuildTypeData {
 
     static final int MAX_BUILD_SIZE_TO_CACHE = 10;
+    static final int LAST_FINISHED_BUILDS_TO_KEEP = 3;
 
-    private final LinkedList<BuildData> _lastBuilds = Lists.newLinkedList( );
+    private volatile Snapshot _snapshot;
+
+    // Project counting this build type, see ProjectData#getSubtreeCounts
+    private volatile ProjectData _project;
 
     private final String _id;
     private final String _name;
     private final String _projectId;
     private final String _projectName;
-    private String _branch;
-
-    private String _aliasName;
-
-    private boolean _queued;
 
     public BuildTypeData( final String id, final String name, final String projectId, final String projectName, final String branch ) {
         _id = id;
         _name = name;
         _projectId = projectId;
         _projectName = projectName;
-        _branch = branch;
+        _snapshot = Snapshot.initial( branch );
     }
 
     public String getId( ) {
@@ -65,76 +68,230 @@ public final class BuildTypeData {
     public String getProjectName( ) {
         return _projectName;
     }
-    
-    public String getBranch( ) {
-        return _branch;
-    }    
 
     public String getProjectId( ) {
         return _projectId;
     }
 
+    /**
+     * @return Current state of build type, which never changes afterwards
+     */
+    public Snapshot getSnapshot( ) {
+        return _snapshot;
+    }
+
+    public long getVersion( ) {
+        return _snapshot.getVersion( );
+    }
+
+    public String getBranch( ) {
+        return _snapshot.getBranch( );
+    }
+
     public String getAliasName( ) {
-        return _aliasName;
+        return _snapshot.getAliasName( );
     }
 
-    public void setAliasName( final String aliasName ) {
-        _aliasName = aliasName;
+    public synchronized void setAliasName( final String aliasName ) {
+        final Snapshot snapshot = _snapshot;
+        if ( !Objects.equals( snapshot._aliasName, aliasName ) )
+            _snapshot = snapshot.with( aliasName, snapshot._branch, snapshot._queued );
     }
-    
-    public void setBranch( final String branch ) {
-        _branch = branch;
+
+    public synchronized void setBranch( final String branch ) {
+        final Snapshot snapshot = _snapshot;
+        if ( !Objects.equals( snapshot._branch, branch ) )
+            _snapshot = snapshot.with( snapshot._aliasName, branch, snapshot._queued );
     }
 
     public boolean hasRunningBuild( ) {
-        return getLastBuild( BuildState.running ).isPresent( );
+        return _snapshot.hasRunningBuild( );
     }
 
     public Optional<BuildData> getLastBuild( final BuildState state ) {
-        return getBuilds( ).stream( )
-                .filter( build -> build.getState( ) == state )
-                .filter( build -> build.getStatus( ) != BuildStatus.UNKNOWN )
-                .findFirst( );
+        return _snapshot.getLastBuild( state );
     }
 
     public Optional<BuildData> getOldestBuild( final BuildState state ) {
-        return reverse( getBuilds( ) ).stream( )
-                .filter( build -> build.getState( ) == state )
-                .filter( build -> build.getStatus( ) != BuildStatus.UNKNOWN )
-                .findFirst( );
+        return _snapshot.getOldestBuild( state );
     }
 
     public List<BuildData> getLastBuilds( final BuildState state, final int count ) {
-        return getBuilds( ).stream( )
-                .filter( build -> build.getState( ) == state )
-                .filter( build -> build.getStatus( ) != BuildStatus.UNKNOWN )
-                .limit( count )
-                .collect( Collectors.toList( ) );
+        return _snapshot.getLastBuilds( state, count );
     }
 
     public final Optional<BuildData> getBuildById( final int id ) {
-        return getBuilds( ).stream( ).filter( b -> b.getId( ) == id ).findFirst( );
+        return _snapshot.getBuildById( id );
     }
 
-    public synchronized boolean isQueued( ) {
-        return _queued;
+    public boolean isQueued( ) {
+        return _snapshot.isQueued( );
     }
 
     public synchronized void setQueued( final boolean queued ) {
-        _queued = queued;
+        final Snapshot snapshot = _snapshot;
+        if ( snapshot._queued != queued )
+            _snapshot = snapshot.with( snapshot._aliasName, snapshot._branch, queued );
     }
 
+    /**
+     * Adds the build, or replaces the known build with same id. Registering a build equal to the known one changes nothing.
+     */
     public synchronized void registerBuild( final BuildData build ) {
-        _lastBuilds.removeIf( ( b -> b.getId( ) == build.getId( ) ) );
+        final Snapshot snapshot = _snapshot;
+        final List<BuildData> builds = snapshot._builds;
+
+        int index = 0;
+        while ( index < builds.size( ) && builds.get( index ).getId( ) > build.getId( ) )
+            index++;
+
+        final boolean known = index < builds.size( ) && builds.get( index ).getId( ) == build.getId( );
+        if ( known && builds.get( index ).equals( build ) )
+            return;
+        // Build older than all kept builds while history is full is dropped right away
+        if ( !known && index == MAX_BUILD_SIZE_TO_CACHE )
+            return;
+
+        final int end = known ? builds.size( ) : Math.min( builds.size( ), MAX_BUILD_SIZE_TO_CACHE - 1 );
+        _snapshot = snapshot.withBuilds( ImmutableList.<BuildData>builder( )
+                .addAll( builds.subList( 0, index ) )
+                .add( build )
+                .addAll( builds.subList( known ? index + 1 : index, end ) )
+                .build( ) );
+
+        // Counts of project only depend on last finished status and running state
+        final ProjectData project = _project;
+        if ( project != null && !BuildTypeCounts.of( snapshot ).equals( BuildTypeCounts.of( _snapshot ) ) )
+            project.buildTypeChanged( this );
+    }
+
+    List<BuildData> getBuilds( ) {
+        return _snapshot.getBuilds( );
+    }
+
+    ProjectData getProject( ) {
+        return _project;
+    }
 
-        _lastBuilds.addFirst( build );
-        _lastBuilds.sort( ( o1, o2 ) -> -Integer.compare( o1.getId( ), o2.getId( ) ) );
-        if ( _lastBuilds.size( ) > MAX_BUILD_SIZE_TO_CACHE )
-            _lastBuilds.removeLast( );
+    void setProject( final ProjectData project ) {
+        _project = project;
     }
 
-    synchronized List<BuildData> getBuilds( ) {
-        return ImmutableList.copyOf( _lastBuilds );
+    /**
+     * Immutable state of a build type at a given version
+     */
+    public static final class Snapshot {
+
+        private static final int STATE_COUNT = BuildState.values( ).length;
+
+        private final long _version;
+        private final String _aliasName;
+        private final String _branch;
+        private final boolean _queued;
+
+        // Builds by descending id
+        private final ImmutableList<BuildData> _builds;
+
+        // Builds are indexed by state ordinal, null when there is no build in this state
+        private final BuildData[] _lastBuildByState;
+        private final BuildData[] _oldestBuildByState;
+        private final List<BuildData> _lastFinishedBuilds;
+
+        private Snapshot( final long version, final String aliasName, final String branch, final boolean queued, final ImmutableList<BuildData> builds,
+                          final BuildData[] lastBuildByState, final BuildData[] oldestBuildByState, final List<BuildData> lastFinishedBuilds ) {
+            _version = version;
+            _aliasName = aliasName;
+            _branch = branch;
+            _queued = queued;
+            _builds = builds;
+            _lastBuildByState = lastBuildByState;
+            _oldestBuildByState = oldestBuildByState;
+            _lastFinishedBuilds = lastFinishedBuilds;
+        }
+
+        private static Snapshot initial( final String branch ) {
+            return new Snapshot( 0, null, branch, false, ImmutableList.<BuildData>of( ), new BuildData[STATE_COUNT], new BuildData[STATE_COUNT], ImmutableList.<BuildData>of( ) );
+        }
+
+        private Snapshot with( final String aliasName, final String branch, final boolean queued ) {
+            return new Snapshot( _version + 1, aliasName, branch, queued, _builds, _lastBuildByState, _oldestBuildByState, _lastFinishedBuilds );
+        }
+
+        private Snapshot withBuilds( final ImmutableList<BuildData> builds ) {
+            final BuildData[] lastBuildByState = new BuildData[STATE_COUNT];
+            final BuildData[] oldestBuildByState = new BuildData[STATE_COUNT];
+            final ImmutableList.Builder<BuildData> lastFinishedBuilds = ImmutableList.builder( );
+            int lastFinishedBuildCount = 0;
+
+            for ( final BuildData build : builds ) {
+                if ( build.getStatus( ) == BuildStatus.UNKNOWN )
+                    continue;
+
+                final int state = build.getState( ).ordinal( );
+                if ( lastBuildByState[state] == null )
+                    lastBuildByState[state] = build;
+                oldestBuildByState[state] = build;
+
+                if ( build.getState( ) == BuildState.finished && lastFinishedBuildCount < LAST_FINISHED_BUILDS_TO_KEEP ) {
+                    lastFinishedBuilds.add( build );
+                    lastFinishedBuildCount++;
+                }
+            }
+
+            return new Snapshot( _version + 1, _aliasName, _branch, _queued, builds, lastBuildByState, oldestBuildByState, lastFinishedBuilds.build( ) );
+        }
+
+        public long getVersion( ) {
+            return _version;
+        }
+
+        public String getAliasName( ) {
+            return _aliasName;
+        }
+
+        public String getBranch( ) {
+            return _branch;
+        }
+
+        public boolean isQueued( ) {
+            return _queued;
+        }
+
+        public boolean hasRunningBuild( ) {
+            return _lastBuildByState[BuildState.running.ordinal( )] != null;
+        }
+
+        public Optional<BuildData> getLastBuild( final BuildState state ) {
+            return Optional.ofNullable( _lastBuildByState[state.ordinal( )] );
+        }
+
+        public Optional<BuildData> getOldestBuild( final BuildState state ) {
+            return Optional.ofNullable( _oldestBuildByState[state.ordinal( )] );
+        }
+
+        public List<BuildData> getLastBuilds( final BuildState state, final int count ) {
+            if ( state == BuildState.finished && ( count <= LAST_FINISHED_BUILDS_TO_KEEP || _lastFinishedBuilds.size( ) < LAST_FINISHED_BUILDS_TO_KEEP ) )
+                return count >= _lastFinishedBuilds.size( ) ? _lastFinishedBuilds : _lastFinishedBuilds.subList( 0, count );
+
+            final ImmutableList.Builder<BuildData> lastBuilds = ImmutableList.builder( );
+            int found = 0;
+            for ( int i = 0; i < _builds.size( ) && found < count; i++ ) {
+                final BuildData build = _builds.get( i );
+                if ( build.getState( ) == state && build.getStatus( ) != BuildStatus.UNKNOWN ) {
+                    lastBuilds.add( build );
+                    found++;
+                }
+            }
+            return lastBuilds.build( );
+        }
+
+        public Optional<BuildData> getBuildById( final int id ) {
+            return _builds.stream( ).filter( build -> build.getId( ) == id ).findFirst( );
+        }
+
+        List<BuildData> getBuilds( ) {
+            return _builds;
+        }
     }
 
 }
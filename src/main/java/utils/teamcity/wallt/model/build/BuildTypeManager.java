@@ -15,7 +15,6 @@
 
 package utils.teamcity.wallt.model.build;
 
-import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import utils.teamcity.wallt.model.configuration.Configuration;
 import utils.teamcity.wallt.model.configuration.SavedBuildTypeData;
@@ -27,20 +26,21 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
-
-import static java.lang.Math.min;
 
 /**
+ * Build types and monitored build types are indexed by id, so that registering, looking up and positioning
+ * a build type do not scan all build types.
+ *
  * Date: 16/02/14
  *
  * @author Cedric Longo
  */
 final class BuildTypeManager implements IBuildTypeManager {
 
-    private final List<BuildTypeData> _buildTypes = Lists.newArrayList( );
-    private final List<BuildTypeData> _monitoredBuildTypes = Lists.newArrayList( );
+    private OrderedIndex<BuildTypeData> _buildTypes = new OrderedIndex<>( BuildTypeData::getId );
+    private final OrderedIndex<BuildTypeData> _monitoredBuildTypes = new OrderedIndex<>( BuildTypeData::getId );
     
     private static final Logger LOGGER = LoggerFactory.getLogger( Loggers.MAIN );
 
@@ -49,52 +49,58 @@ final class BuildTypeManager implements IBuildTypeManager {
         for ( final SavedBuildTypeData savedData : configuration.getSavedBuildTypes( ) ) {
             final BuildTypeData data = new BuildTypeData( savedData.getId( ), savedData.getName( ), savedData.getProjectId( ), savedData.getProjectName( ), savedData.getBranch() );
             data.setAliasName( savedData.getAliasName( ) );
-            _buildTypes.add( data );
+            _buildTypes.addIfAbsent( data );
             activateMonitoring( data );
         }
     }
 
     @Override
     public synchronized void registerBuildTypes( final List<BuildTypeData> typeList ) {
-        final List<BuildTypeData> previousMonitored = _monitoredBuildTypes.stream( ).collect( Collectors.toList( ) );
-        final List<String> previousMonitoredIds = previousMonitored.stream( ).map( BuildTypeData::getId ).collect( Collectors.toList( ) );
-                    
-        final List<BuildTypeData> oldBuildTypes = _buildTypes.stream().collect(Collectors.toList()); /* Lists.newArrayList( )*/;
-        
-        _buildTypes.clear( );
-        
+        final List<BuildTypeData> previousMonitored = _monitoredBuildTypes.asList( );
+        final OrderedIndex<BuildTypeData> oldBuildTypes = _buildTypes;
+
+        _buildTypes = new OrderedIndex<>( BuildTypeData::getId );
         _monitoredBuildTypes.clear( );
-        
-        for (int cnt = 0; cnt<typeList.size(); cnt++)
-        {
-        	final BuildTypeData bt = typeList.get(cnt);
-        	List<BuildTypeData> hitList = oldBuildTypes.stream().filter(item -> item.getId().equals(bt.getId())).collect(Collectors.toList());
-        	if (hitList.size() > 0)
-        	{
-        		LOGGER.info("found branch " + hitList.get(0).getBranch() + " for " + bt.getId());
-        		bt.setBranch(hitList.get(0).getBranch());
-//        		LOGGER.info("found aliasname " + hitList.get(0).getAliasName() + " for " + bt.getId());
-//        		bt.setAliasName(hitList.get(0).getAliasName());
-        		
-        	}
-        	_buildTypes.add(bt);
+
+        int keptBranchCount = 0;
+        for ( final BuildTypeData bt : typeList ) {
+            if ( !_buildTypes.addIfAbsent( bt ) )
+                continue;
+            final Optional<BuildTypeData> previous = oldBuildTypes.get( bt.getId( ) );
+            if ( previous.isPresent( ) ) {
+                bt.setBranch( previous.get( ).getBranch( ) );
+                keptBranchCount++;
+            }
         }
+        LOGGER.debug( "Branch kept for {} of {} build types.", keptBranchCount, _buildTypes.size( ) );
 
-//        _buildTypes.addAll( typeList );        
-
-        final List<BuildTypeData> monitoredBuildTypes = _buildTypes.stream( )
-                .filter( ( t ) -> previousMonitoredIds.contains( t.getId( ) ) )
-                .sorted( ( o1, o2 ) -> Integer.compare( previousMonitoredIds.indexOf( o1.getId( ) ), previousMonitoredIds.indexOf( o2.getId( ) ) ) )
-                .map( ( bt ) -> {
-                    bt.setAliasName( previousMonitored.stream( )
-                            .filter( ( t ) -> t.getId( ).equals( bt.getId( ) ) )
-                            .findFirst( ).get( ).getAliasName( )
-                    );
-                    return bt;
-                } )
-                .collect( Collectors.toList( ) );
-
-        _monitoredBuildTypes.addAll( monitoredBuildTypes );
+        // Monitored build types are kept in their previous order, with their alias
+        for ( final BuildTypeData previous : previousMonitored ) {
+            final Optional<BuildTypeData> bt = _buildTypes.get( previous.getId( ) );
+            if ( bt.isPresent( ) && _monitoredBuildTypes.addIfAbsent( bt.get( ) ) )
+                bt.get( ).setAliasName( previous.getAliasName( ) );
+        }
+    }
+
+    @Override
+    public synchronized void mergeBuildTypes( final List<BuildTypeData> typeList ) {
+        for ( final BuildTypeData bt : typeList ) {
+            final Optional<BuildTypeData> previous = _buildTypes.put( bt );
+            if ( !previous.isPresent( ) )
+                continue;
+
+            bt.setBranch( previous.get( ).getBranch( ) );
+            if ( _monitoredBuildTypes.contains( previous.get( ) ) ) {
+                bt.setAliasName( previous.get( ).getAliasName( ) );
+                _monitoredBuildTypes.put( bt );
+            }
+        }
+    }
+
+    @Override
+    public synchronized void retainBuildTypes( final Set<String> buildTypeIds ) {
+        _buildTypes.retain( bt -> buildTypeIds.contains( bt.getId( ) ) );
+        _monitoredBuildTypes.retain( bt -> buildTypeIds.contains( bt.getId( ) ) );
     }
 
     @Override
@@ -114,7 +120,7 @@ final class BuildTypeManager implements IBuildTypeManager {
 
     @Override
     public synchronized void activateMonitoring( final BuildTypeData buildTypeData ) {
-        _monitoredBuildTypes.add( buildTypeData );
+        _monitoredBuildTypes.addIfAbsent( buildTypeData );
     }
 
     @Override
@@ -123,26 +129,28 @@ final class BuildTypeManager implements IBuildTypeManager {
     }
 
     @Override
-    public int getPosition( final BuildTypeData data ) {
-        final int index = getMonitoredBuildTypes( ).indexOf( data );
+    public synchronized int getPosition( final BuildTypeData data ) {
+        final int index = _monitoredBuildTypes.indexOf( data );
         return index < 0 ? Integer.MAX_VALUE : index + 1;
     }
 
     @Override
     public synchronized void requestPosition( final BuildTypeData data, final int position ) {
-        final int index = _monitoredBuildTypes.indexOf( data );
-        if ( index != -1 )
-            _monitoredBuildTypes.remove( index );
-        _monitoredBuildTypes.add( min( position - 1, _monitoredBuildTypes.size( ) ), data );
+        _monitoredBuildTypes.move( data, position - 1 );
+    }
+
+    @Override
+    public synchronized Optional<BuildTypeData> getBuildType( final String id ) {
+        return _buildTypes.get( id );
     }
 
     @Override
     public synchronized List<BuildTypeData> getBuildTypes( ) {
-        return ImmutableList.copyOf( _buildTypes );
+        return _buildTypes.asList( );
     }
 
     @Override
     public synchronized List<BuildTypeData> getMonitoredBuildTypes( ) {
-        return ImmutableList.copyOf( _monitoredBuildTypes );
+        return _monitoredBuildTypes.asList( );
     }
 }
@@ -17,6 +17,7 @@ package utils.teamcity.wallt.model.build;
 
 
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 
 /**
@@ -28,8 +29,20 @@ public interface IBuildTypeManager {
 
     void registerBuildTypes( List<BuildTypeData> typeList );
 
+    /**
+     * Registers build types, replacing registered ones with same id and keeping all others
+     */
+    void mergeBuildTypes( List<BuildTypeData> typeList );
+
+    /**
+     * Forgets all build types whose id is not in given ones
+     */
+    void retainBuildTypes( Set<String> buildTypeIds );
+
     List<BuildTypeData> getBuildTypes( );
 
+    Optional<BuildTypeData> getBuildType( String id );
+
     List<BuildTypeData> getMonitoredBuildTypes( );
 
     void activateMonitoring( BuildTypeData buildTypeData );
@@ -17,6 +17,7 @@ package utils.teamcity.wallt.model.build;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * Date: 23/02/14
@@ -27,6 +28,16 @@ public interface IProjectManager {
 
     void registerProjects( List<ProjectData> projects );
 
+    /**
+     * Registers projects, replacing registered ones with same id and keeping all others
+     */
+    void mergeProjects( List<ProjectData> projects );
+
+    /**
+     * Forgets all projects whose id is not in given ones
+     */
+    void retainProjects( Set<String> projectIds );
+
     List<ProjectData> getProjects( );
 
     List<ProjectData> getMonitoredProjects( );
@@ -42,4 +53,9 @@ public interface IProjectManager {
     Optional<ProjectData> getProject( String id );
 
     List<ProjectData> getAllChildrenOf( ProjectData data );
+
+    /**
+     * @return Given project with all its children, recursively
+     */
+    Set<ProjectData> getSubtreeOf( ProjectData data );
 }
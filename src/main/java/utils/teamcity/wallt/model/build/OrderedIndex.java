@@ -0,0 +1,199 @@
+/*******************************************************************************
+ * Copyright 2014 Cedric Longo.
+ *
+ * This file is part of Wall-T program.
+ *
+ * Wall-T is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Wall-T is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with Wall-T.
+ * If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+
+package utils.teamcity.wallt.model.build;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import static java.lang.Math.min;
+
+/**
+ * Ordered elements indexed by id: getting an element by id and the position of an element take constant time.
+ * Ids are unique, and replacing an element keeps its position.
+ *
+ * Moving or removing an element only shifts elements after it: their positions are updated once, on next lookup,
+ * so that a sequence of moves costs no more than a single one.
+ *
+ * Not thread-safe: managers guard it with their own lock. Immutable list of elements is only built on first read after a change.
+ */
+final class OrderedIndex<T> {
+
+    private final Function<T, String> _idFunction;
+    private final List<T> _elements = Lists.newArrayList( );
+    // Holds exactly the ids of elements, with their position when lower than _upToDatePositions
+    private final Map<String, Integer> _positions = Maps.newHashMap( );
+    private int _upToDatePositions;
+    private ImmutableList<T> _list = ImmutableList.of( );
+
+    OrderedIndex( final Function<T, String> idFunction ) {
+        _idFunction = idFunction;
+    }
+
+    Optional<T> get( final String id ) {
+        updatePositions( );
+        final Integer position = _positions.get( id );
+        return position == null ? Optional.empty( ) : Optional.of( _elements.get( position ) );
+    }
+
+    /**
+     * @return Position of this very element from 0, or -1 if absent
+     */
+    int indexOf( final T element ) {
+        updatePositions( );
+        return positionOf( element );
+    }
+
+    boolean contains( final T element ) {
+        updatePositions( );
+        return positionOf( element ) != -1;
+    }
+
+    int size( ) {
+        return _elements.size( );
+    }
+
+    /**
+     * Adds element at the end unless an element with same id is already present
+     *
+     * @return true if element was added
+     */
+    boolean addIfAbsent( final T element ) {
+        final String id = _idFunction.apply( element );
+        if ( _positions.containsKey( id ) )
+            return false;
+        if ( _upToDatePositions == _elements.size( ) )
+            _upToDatePositions++;
+        _positions.put( id, _elements.size( ) );
+        _elements.add( element );
+        _list = null;
+        return true;
+    }
+
+    /**
+     * Replaces element with same id at its position, or adds element at the end
+     *
+     * @return Replaced element, if any
+     */
+    Optional<T> put( final T element ) {
+        updatePositions( );
+        final Integer position = _positions.get( _idFunction.apply( element ) );
+        if ( position == null ) {
+            addIfAbsent( element );
+            return Optional.empty( );
+        }
+        _list = null;
+        return Optional.of( _elements.set( position, element ) );
+    }
+
+    boolean remove( final T element ) {
+        final int index = positionOf( element );
+        if ( index == -1 )
+            return false;
+        _positions.remove( _idFunction.apply( element ) );
+        _elements.remove( index );
+        positionsChangedFrom( index );
+        return true;
+    }
+
+    /**
+     * Moves element, or inserts it in place of element with same id if absent, at given position from 0
+     * (or at the end when position is after the end)
+     */
+    void move( final T element, final int index ) {
+        final String id = _idFunction.apply( element );
+        int previousIndex = positionOf( element );
+        if ( previousIndex == -1 && _positions.containsKey( id ) )
+            previousIndex = positionOf( id );
+        if ( previousIndex != -1 )
+            _elements.remove( previousIndex );
+
+        final int newIndex = min( index, _elements.size( ) );
+        _elements.add( newIndex, element );
+        _positions.put( id, newIndex );
+        positionsChangedFrom( previousIndex == -1 ? newIndex : min( previousIndex, newIndex ) );
+    }
+
+    void retain( final Predicate<T> kept ) {
+        if ( _elements.removeIf( kept.negate( ) ) ) {
+            _positions.clear( );
+            _upToDatePositions = 0;
+            updatePositions( );
+            _list = null;
+        }
+    }
+
+    void clear( ) {
+        _elements.clear( );
+        _positions.clear( );
+        _upToDatePositions = 0;
+        _list = null;
+    }
+
+    List<T> asList( ) {
+        if ( _list == null )
+            _list = ImmutableList.copyOf( _elements );
+        return _list;
+    }
+
+    /**
+     * @return Position of this very element, scanning elements whose position is not up to date if needed
+     */
+    private int positionOf( final T element ) {
+        final Integer position = _positions.get( _idFunction.apply( element ) );
+        if ( position == null )
+            return -1;
+        if ( position < _upToDatePositions )
+            return _elements.get( position ) == element ? position : -1;
+        for ( int i = _upToDatePositions; i < _elements.size( ); i++ ) {
+            if ( _elements.get( i ) == element )
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * @return Position of a known id, scanning elements whose position is not up to date if needed
+     */
+    private int positionOf( final String id ) {
+        final int position = _positions.get( id );
+        if ( position < _upToDatePositions )
+            return position;
+        for ( int i = _upToDatePositions; i < _elements.size( ); i++ ) {
+            if ( _idFunction.apply( _elements.get( i ) ).equals( id ) )
+                return i;
+        }
+        throw new IllegalStateException( "Unknown position for id " + id );
+    }
+
+    private void positionsChangedFrom( final int index ) {
+        _upToDatePositions = min( _upToDatePositions, index );
+        _list = null;
+    }
+
+    private void updatePositions( ) {
+        for ( int i = _upToDatePositions; i < _elements.size( ); i++ )
+            _positions.put( _idFunction.apply( _elements.get( i ) ), i );
+        _upToDatePositions = _elements.size( );
+    }
+}
@@ -16,16 +16,26 @@
 package utils.teamcity.wallt.model.build;
 
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Function;
 
 import static com.google.common.collect.Sets.newEnumSet;
 import static java.util.Arrays.asList;
 
 /**
+ * Mutable state of a project is published as an immutable {@link Snapshot} through a single volatile reference,
+ * replaced by writers on each change.
+ *
+ * Counts of build types by last finished status are kept for the project and all its children: when a build type
+ * registers a build, the change of its counts is added to its project and to all parents of this project.
+ *
  * Date: 23/02/14
  *
  * @author Cedric Longo
@@ -36,8 +46,14 @@ public final class ProjectData {
     private final String _name;
     private final Optional<String> _parentId;    
 
-    private final List<BuildTypeData> _buildTypes = Lists.newArrayList( );
-    private String _aliasName;
+    private volatile Snapshot _snapshot = new Snapshot( 0, null, ImmutableList.of( ) );
+
+    // Counts are changed under a single lock, as a change is propagated to all parents
+    private static final Object COUNTS_LOCK = new Object( );
+    private final Map<String, BuildTypeCounts> _countsByBuildTypeId = Maps.newHashMap( );
+    private BuildTypeCounts _counts = BuildTypeCounts.EMPTY;
+    private ProjectData _parent;
+    private volatile BuildTypeCounts _subtreeCounts = BuildTypeCounts.EMPTY;
 
     public ProjectData( final String id, final String name, final Optional<String> parentId ) {
         _id = id;
@@ -57,21 +73,57 @@ public final class ProjectData {
         return _parentId;
     }
 
+    /**
+     * @return Current state of project, which never changes afterwards
+     */
+    public Snapshot getSnapshot( ) {
+        return _snapshot;
+    }
+
+    public long getVersion( ) {
+        return _snapshot.getVersion( );
+    }
+
     public String getAliasName( ) {
-        return _aliasName;
+        return _snapshot.getAliasName( );
     }
 
-    public void setAliasName( final String aliasName ) {
-        _aliasName = aliasName;
+    public synchronized void setAliasName( final String aliasName ) {
+        final Snapshot snapshot = _snapshot;
+        if ( !Objects.equals( snapshot._aliasName, aliasName ) )
+            _snapshot = new Snapshot( snapshot._version + 1, aliasName, snapshot._buildTypes );
     }
 
     public synchronized void registerBuildType( final BuildTypeData buildTypeData ) {
-        _buildTypes.removeIf( bt -> bt.getId( ).equals( buildTypeData.getId( ) ) );
-        _buildTypes.add( buildTypeData );
+        final Snapshot snapshot = _snapshot;
+        final ImmutableList.Builder<BuildTypeData> buildTypes = ImmutableList.builder( );
+        for ( final BuildTypeData buildType : snapshot._buildTypes ) {
+            if ( !buildType.getId( ).equals( buildTypeData.getId( ) ) )
+                buildTypes.add( buildType );
+            else if ( buildType != buildTypeData )
+                buildType.setProject( null );
+        }
+        buildTypes.add( buildTypeData );
+        _snapshot = new Snapshot( snapshot._version + 1, snapshot._aliasName, buildTypes.build( ) );
+
+        synchronized ( COUNTS_LOCK ) {
+            final ProjectData previousProject = buildTypeData.getProject( );
+            if ( previousProject != null && previousProject != this )
+                previousProject.updateCounts( buildTypeData.getId( ), BuildTypeCounts.EMPTY );
+            buildTypeData.setProject( this );
+            updateCounts( buildTypeData.getId( ), BuildTypeCounts.of( buildTypeData.getSnapshot( ) ) );
+        }
+    }
+
+    public List<BuildTypeData> getBuildTypes( ) {
+        return _snapshot.getBuildTypes( );
     }
 
-    public synchronized List<BuildTypeData> getBuildTypes( ) {
-        return ImmutableList.copyOf( _buildTypes );
+    /**
+     * @return Counts of build types of this project and all its children
+     */
+    public BuildTypeCounts getSubtreeCounts( ) {
+        return _subtreeCounts;
     }
 
     public int getBuildTypeCount( final BuildStatus... statusForLastFinished ) {
@@ -94,4 +146,92 @@ public final class ProjectData {
                     return lastBuild.isPresent( ) && keptStatus.contains( lastBuild.get( ).getStatus( ) );
                 } );
     }
+
+    void buildTypeChanged( final BuildTypeData buildType ) {
+        synchronized ( COUNTS_LOCK ) {
+            // Build type may have been replaced since
+            if ( buildType.getProject( ) == this )
+                updateCounts( buildType.getId( ), BuildTypeCounts.of( buildType.getSnapshot( ) ) );
+        }
+    }
+
+    private void updateCounts( final String buildTypeId, final BuildTypeCounts counts ) {
+        final BuildTypeCounts previousCounts = _countsByBuildTypeId.put( buildTypeId, counts );
+        if ( counts.equals( previousCounts ) || previousCounts == null && counts.isEmpty( ) )
+            return;
+
+        final BuildTypeCounts delta = previousCounts == null ? counts : counts.minus( previousCounts );
+        _counts = _counts.plus( delta );
+        // Hierarchy has no cycle, see linkHierarchy
+        for ( ProjectData project = this; project != null; project = project._parent )
+            project._subtreeCounts = project._subtreeCounts.plus( delta );
+    }
+
+    /**
+     * Links projects to their parent and computes again counts of their subtree.
+     * Previous projects are unlinked first, so that they do not change counts of current projects anymore.
+     * A parent visited twice from a project closes a cycle, which is cut so that counts are added once to each parent.
+     */
+    static void linkHierarchy( final List<ProjectData> previousProjects, final List<ProjectData> projects, final Function<String, Optional<ProjectData>> projectById ) {
+        synchronized ( COUNTS_LOCK ) {
+            for ( final ProjectData project : previousProjects )
+                project._parent = null;
+
+            final Map<ProjectData, BuildTypeCounts> subtreeCounts = Maps.newIdentityHashMap( );
+            for ( final ProjectData project : projects ) {
+                final Optional<ProjectData> parent = project._parentId.flatMap( projectById );
+                project._parent = parent.isPresent( ) && parent.get( ) != project ? parent.get( ) : null;
+                subtreeCounts.put( project, project._counts );
+            }
+
+            for ( final ProjectData project : projects ) {
+                final Set<ProjectData> visited = Sets.newIdentityHashSet( );
+                for ( ProjectData child = project; child._parent != null; child = child._parent ) {
+                    visited.add( child );
+                    if ( visited.contains( child._parent ) ) {
+                        child._parent = null;
+                        break;
+                    }
+                }
+            }
+
+            for ( final ProjectData project : projects ) {
+                if ( project._counts.isEmpty( ) )
+                    continue;
+                for ( ProjectData parent = project._parent; parent != null; parent = parent._parent )
+                    subtreeCounts.put( parent, subtreeCounts.get( parent ).plus( project._counts ) );
+            }
+
+            for ( final ProjectData project : projects )
+                project._subtreeCounts = subtreeCounts.get( project );
+        }
+    }
+
+    /**
+     * Immutable state of a project at a given version
+     */
+    public static final class Snapshot {
+
+        private final long _version;
+        private final String _aliasName;
+        private final ImmutableList<BuildTypeData> _buildTypes;
+
+        private Snapshot( final long version, final String aliasName, final ImmutableList<BuildTypeData> buildTypes ) {
+            _version = version;
+            _aliasName = aliasName;
+            _buildTypes = buildTypes;
+        }
+
+        public long getVersion( ) {
+            return _version;
+        }
+
+        public String getAliasName( ) {
+            return _aliasName;
+        }
+
+        public List<BuildTypeData> getBuildTypes( ) {
+            return _buildTypes;
+        }
+    }
 }
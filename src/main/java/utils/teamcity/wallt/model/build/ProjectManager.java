@@ -16,84 +16,114 @@
 package utils.teamcity.wallt.model.build;
 
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.Lists;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Maps;
 import utils.teamcity.wallt.model.configuration.Configuration;
 import utils.teamcity.wallt.model.configuration.SavedProjectData;
 
 import javax.inject.Inject;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
-
-import static java.lang.Math.min;
+import java.util.Set;
 
 /**
+ * Projects and monitored projects are indexed by id, so that registering, looking up and positioning
+ * a project do not scan all projects.
+ * Children of projects are indexed by parent id, and all children of a project are only computed once,
+ * until registered projects change. Projects are then linked again to their parent, see {@link ProjectData#getSubtreeCounts()}.
+ *
  * Date: 23/02/14
  *
  * @author Cedric Longo
  */
 final class ProjectManager implements IProjectManager {
 
-    private final List<ProjectData> _projects = Lists.newArrayList( );
-    private final List<ProjectData> _monitoredProjects = Lists.newArrayList( );
+    private final OrderedIndex<ProjectData> _projects = new OrderedIndex<>( ProjectData::getId );
+    private final OrderedIndex<ProjectData> _monitoredProjects = new OrderedIndex<>( ProjectData::getId );
+
+    // Hierarchy of projects, built on demand and forgotten when registered projects change
+    private ListMultimap<String, ProjectData> _childrenByParentId;
+    private final Map<String, List<ProjectData>> _allChildrenById = Maps.newHashMap( );
+    private final Map<String, Set<ProjectData>> _subtreeById = Maps.newHashMap( );
 
     @Inject
     ProjectManager( final Configuration configuration ) {
         for ( final SavedProjectData savedData : configuration.getSavedProjects( ) ) {
             final ProjectData data = new ProjectData( savedData.getId( ), savedData.getName( ), Optional.ofNullable( savedData.getParentId( ) ) );
             data.setAliasName( savedData.getAliasName( ) );
-            _projects.add( data );
+            _projects.addIfAbsent( data );
             activateMonitoring( data );
         }
+        hierarchyChanged( ImmutableList.of( ) );
     }
 
     @Override
     public synchronized void registerProjects( final List<ProjectData> projects ) {
-        final List<ProjectData> previousMonitored = _monitoredProjects.stream( ).collect( Collectors.toList( ) );
-        final List<String> previousMonitoredIds = previousMonitored.stream( ).map( ProjectData::getId ).collect( Collectors.toList( ) );
+        final List<ProjectData> previousProjects = _projects.asList( );
+        final List<ProjectData> previousMonitored = _monitoredProjects.asList( );
 
         _projects.clear( );
         _monitoredProjects.clear( );
 
-        _projects.addAll( projects );
+        for ( final ProjectData project : projects )
+            _projects.addIfAbsent( project );
+        hierarchyChanged( previousProjects );
+
+        // Monitored projects are kept in their previous order, with their alias
+        for ( final ProjectData previous : previousMonitored ) {
+            final Optional<ProjectData> project = _projects.get( previous.getId( ) );
+            if ( project.isPresent( ) && _monitoredProjects.addIfAbsent( project.get( ) ) )
+                project.get( ).setAliasName( previous.getAliasName( ) );
+        }
+    }
+
+    @Override
+    public synchronized void mergeProjects( final List<ProjectData> projects ) {
+        final List<ProjectData> previousProjects = _projects.asList( );
+
+        for ( final ProjectData project : projects ) {
+            final Optional<ProjectData> previous = _projects.put( project );
+            if ( previous.isPresent( ) && _monitoredProjects.contains( previous.get( ) ) ) {
+                project.setAliasName( previous.get( ).getAliasName( ) );
+                _monitoredProjects.put( project );
+            }
+        }
 
-        final List<ProjectData> monitoredBuildTypes = _projects.stream( )
-                .filter( ( t ) -> previousMonitoredIds.contains( t.getId( ) ) )
-                .sorted( ( o1, o2 ) -> Integer.compare( previousMonitoredIds.indexOf( o1.getId( ) ), previousMonitoredIds.indexOf( o2.getId( ) ) ) )
-                .map( ( bt ) -> {
-                    bt.setAliasName( previousMonitored.stream( )
-                            .filter( ( t ) -> t.getId( ).equals( bt.getId( ) ) )
-                            .findFirst( ).get( ).getAliasName( )
-                    );
-                    return bt;
-                } )
-                .collect( Collectors.toList( ) );
+        if ( !projects.isEmpty( ) )
+            hierarchyChanged( previousProjects );
+    }
 
-        _monitoredProjects.addAll( monitoredBuildTypes );
+    @Override
+    public synchronized void retainProjects( final Set<String> projectIds ) {
+        final List<ProjectData> previousProjects = _projects.asList( );
+        _projects.retain( project -> projectIds.contains( project.getId( ) ) );
+        if ( _projects.size( ) != previousProjects.size( ) )
+            hierarchyChanged( previousProjects );
+        _monitoredProjects.retain( project -> projectIds.contains( project.getId( ) ) );
     }
 
 
     @Override
     public synchronized List<ProjectData> getProjects( ) {
-        return ImmutableList.copyOf( _projects );
+        return _projects.asList( );
     }
 
     @Override
     public synchronized List<ProjectData> getMonitoredProjects( ) {
-        return ImmutableList.copyOf( _monitoredProjects );
+        return _monitoredProjects.asList( );
     }
 
     @Override
-    public Optional<ProjectData> getProject( final String id ) {
-        return getProjects( ).stream( )
-                .filter( input -> input.getId( ).equals( id ) )
-                .findFirst( );
+    public synchronized Optional<ProjectData> getProject( final String id ) {
+        return _projects.get( id );
     }
 
     @Override
     public synchronized void activateMonitoring( final ProjectData projectData ) {
-        if ( !_monitoredProjects.contains( projectData ) )
-            _monitoredProjects.add( projectData );
+        _monitoredProjects.addIfAbsent( projectData );
     }
 
     @Override
@@ -103,32 +133,71 @@ final class ProjectManager implements IProjectManager {
 
 
     @Override
-    public int getPosition( final ProjectData data ) {
-        final int index = getMonitoredProjects( ).indexOf( data );
+    public synchronized int getPosition( final ProjectData data ) {
+        final int index = _monitoredProjects.indexOf( data );
         return index < 0 ? Integer.MAX_VALUE : index + 1;
     }
 
     @Override
     public synchronized void requestPosition( final ProjectData data, final int position ) {
-        final int index = _monitoredProjects.indexOf( data );
-        if ( index != -1 )
-            _monitoredProjects.remove( index );
-        _monitoredProjects.add( min( position - 1, _monitoredProjects.size( ) ), data );
+        _monitoredProjects.move( data, position - 1 );
     }
 
     @Override
-    public List<ProjectData> getAllChildrenOf( final ProjectData data ) {
-        final ImmutableList.Builder<ProjectData> builder = ImmutableList.builder( );
+    public synchronized List<ProjectData> getAllChildrenOf( final ProjectData data ) {
+        return allChildrenOf( data.getId( ) );
+    }
+
+    @Override
+    public synchronized Set<ProjectData> getSubtreeOf( final ProjectData data ) {
+        final Set<ProjectData> cachedSubtree = _subtreeById.get( data.getId( ) );
+        if ( cachedSubtree != null )
+            return cachedSubtree;
+
+        final Optional<ProjectData> registeredData = _projects.get( data.getId( ) );
+        final Set<ProjectData> subtree = ImmutableSet.<ProjectData>builder( )
+                .add( registeredData.orElse( data ) )
+                .addAll( allChildrenOf( data.getId( ) ) )
+                .build( );
+        // Subtree of an unknown project holds the given instance, so it is not shared
+        if ( registeredData.isPresent( ) )
+            _subtreeById.put( data.getId( ), subtree );
+        return subtree;
+    }
 
-        final List<ProjectData> directChildren = getProjects( ).stream( ).filter( p -> p.getParentId( ).isPresent( ) && data.getId( ).equals( p.getParentId( ).get( ) ) ).collect( Collectors.toList( ) );
+    private List<ProjectData> allChildrenOf( final String id ) {
+        final List<ProjectData> cachedChildren = _allChildrenById.get( id );
+        if ( cachedChildren != null )
+            return cachedChildren;
+
+        final List<ProjectData> directChildren = childrenByParentId( ).get( id );
+        final ImmutableList.Builder<ProjectData> builder = ImmutableList.builder( );
         builder.addAll( directChildren );
+        for ( final ProjectData child : directChildren )
+            builder.addAll( allChildrenOf( child.getId( ) ) );
 
-        for ( final ProjectData child : directChildren ) {
-            builder.addAll( getAllChildrenOf( child ) );
-        }
+        final List<ProjectData> allChildren = builder.build( );
+        _allChildrenById.put( id, allChildren );
+        return allChildren;
+    }
 
-        return builder.build( );
+    private ListMultimap<String, ProjectData> childrenByParentId( ) {
+        if ( _childrenByParentId == null ) {
+            final ImmutableListMultimap.Builder<String, ProjectData> builder = ImmutableListMultimap.builder( );
+            for ( final ProjectData project : _projects.asList( ) ) {
+                if ( project.getParentId( ).isPresent( ) )
+                    builder.put( project.getParentId( ).get( ), project );
+            }
+            _childrenByParentId = builder.build( );
+        }
+        return _childrenByParentId;
     }
 
+    private void hierarchyChanged( final List<ProjectData> previousProjects ) {
+        _childrenByParentId = null;
+        _allChildrenById.clear( );
+        _subtreeById.clear( );
+        ProjectData.linkHierarchy( previousProjects, _projects.asList( ), _projects::get );
+    }
 
 }
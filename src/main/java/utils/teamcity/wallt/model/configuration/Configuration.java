@@ -28,6 +28,9 @@ import java.util.List;
  */
 public final class Configuration {
 
+    public static final int DEFAULT_MAX_REQUESTS_PER_SECOND = 10;
+    public static final int DEFAULT_MAX_REQUESTS_IN_FLIGHT = 6;
+
     @SerializedName("proxy.use")
     private boolean _useProxy;
 
@@ -55,6 +58,39 @@ public final class Configuration {
     @SerializedName("api.version")
     private ApiVersion _apiVersion = ApiVersion.API_8_0;
 
+    @SerializedName("api.max.parallel.requests")
+    private int _maxParallelRequests = 8;
+
+    @SerializedName("api.shared.response.ttl.ms")
+    private int _sharedResponseTtlInMillis = 0;
+
+    @SerializedName("api.compression")
+    private boolean _compressionEnabled = true;
+
+    @SerializedName("api.max.requests.per.second")
+    private int _maxRequestsPerSecond = DEFAULT_MAX_REQUESTS_PER_SECOND;
+
+    @SerializedName("api.max.requests.in.flight")
+    private int _maxRequestsInFlight = DEFAULT_MAX_REQUESTS_IN_FLIGHT;
+
+    @SerializedName("api.max.queued.requests")
+    private int _maxQueuedRequests = 200;
+
+    @SerializedName("api.delta.polling")
+    private boolean _deltaPollingEnabled = true;
+
+    @SerializedName("webhook.enabled")
+    private boolean _webhookEnabled = false;
+
+    @SerializedName("webhook.port")
+    private int _webhookPort = 8765;
+
+    @SerializedName("webhook.address")
+    private String _webhookAddress = "127.0.0.1";
+
+    @SerializedName("webhook.token")
+    private String _webhookToken;
+
     @SerializedName("pref.max.tiles.by.column")
     private int _maxTilesByColumn = 4;
 
@@ -118,6 +154,94 @@ public final class Configuration {
         return _apiVersion;
     }
 
+    public int getMaxParallelRequests( ) {
+        return _maxParallelRequests;
+    }
+
+    public void setMaxParallelRequests( final int maxParallelRequests ) {
+        _maxParallelRequests = maxParallelRequests;
+    }
+
+    public int getSharedResponseTtlInMillis( ) {
+        return _sharedResponseTtlInMillis;
+    }
+
+    public void setSharedResponseTtlInMillis( final int sharedResponseTtlInMillis ) {
+        _sharedResponseTtlInMillis = sharedResponseTtlInMillis;
+    }
+
+    public boolean isCompressionEnabled( ) {
+        return _compressionEnabled;
+    }
+
+    public void setCompressionEnabled( final boolean compressionEnabled ) {
+        _compressionEnabled = compressionEnabled;
+    }
+
+    public int getMaxRequestsPerSecond( ) {
+        return _maxRequestsPerSecond;
+    }
+
+    public void setMaxRequestsPerSecond( final int maxRequestsPerSecond ) {
+        _maxRequestsPerSecond = maxRequestsPerSecond;
+    }
+
+    public int getMaxRequestsInFlight( ) {
+        return _maxRequestsInFlight;
+    }
+
+    public void setMaxRequestsInFlight( final int maxRequestsInFlight ) {
+        _maxRequestsInFlight = maxRequestsInFlight;
+    }
+
+    public int getMaxQueuedRequests( ) {
+        return _maxQueuedRequests;
+    }
+
+    public void setMaxQueuedRequests( final int maxQueuedRequests ) {
+        _maxQueuedRequests = maxQueuedRequests;
+    }
+
+    public boolean isDeltaPollingEnabled( ) {
+        return _deltaPollingEnabled;
+    }
+
+    public void setDeltaPollingEnabled( final boolean deltaPollingEnabled ) {
+        _deltaPollingEnabled = deltaPollingEnabled;
+    }
+
+    public boolean isWebhookEnabled( ) {
+        return _webhookEnabled;
+    }
+
+    public void setWebhookEnabled( final boolean webhookEnabled ) {
+        _webhookEnabled = webhookEnabled;
+    }
+
+    public int getWebhookPort( ) {
+        return _webhookPort;
+    }
+
+    public void setWebhookPort( final int webhookPort ) {
+        _webhookPort = webhookPort;
+    }
+
+    public String getWebhookAddress( ) {
+        return _webhookAddress;
+    }
+
+    public void setWebhookAddress( final String webhookAddress ) {
+        _webhookAddress = webhookAddress;
+    }
+
+    public String getWebhookToken( ) {
+        return _webhookToken;
+    }
+
+    public void setWebhookToken( final String webhookToken ) {
+        _webhookToken = webhookToken;
+    }
+
     public int getMaxTilesByColumn( ) {
         return _maxTilesByColumn;
     }
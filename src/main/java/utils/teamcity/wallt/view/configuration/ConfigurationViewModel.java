@@ -33,6 +33,7 @@ import org.slf4j.LoggerFactory;
 
 import utils.teamcity.wallt.WallApplication;
 import utils.teamcity.wallt.controller.api.ApiVersion;
+import utils.teamcity.wallt.controller.api.CatalogueLoadingProgress;
 import utils.teamcity.wallt.controller.api.IApiController;
 import utils.teamcity.wallt.controller.configuration.ConfigurationController;
 import utils.teamcity.wallt.controller.configuration.IConfigurationController;
@@ -88,6 +89,9 @@ final class ConfigurationViewModel {
     private final IConfigurationController _configurationController;
     private final EventBus _eventBus;
 
+    // True while only monitored projects and build types are loaded, whole catalogue is loaded when configuration view is shown again
+    private boolean _scopeOnlyLoaded;
+
     @Inject
     ConfigurationViewModel( final IProjectManager projectManager, final Configuration configuration, final IApiController apiController, final EventBus eventBus, final IBuildTypeManager buildManager, final BuildTypeViewModel.Factory buildTypeViewModelFactory, final ProjectViewModel.Factory projectViewModelFactory, final IConfigurationController configurationController ) {
         _configuration = configuration;
@@ -159,8 +163,13 @@ final class ConfigurationViewModel {
         
         
         //NOTE(teld): Connect automatically to server...
-        if(_configuration._doAutoServerConnect)
-        	requestLoadingBuilds( );
+        if(_configuration._doAutoServerConnect) {
+            // Wall is shown without configuration view, so catalogue can be restricted to monitored scope
+            if ( _configuration._doAutoSwitchToWall )
+                requestLoadingMonitoredScope( );
+            else
+                requestLoadingBuilds( );
+        }
     }
 
     void invalidateConnectInformation( ) {
@@ -236,6 +245,10 @@ final class ConfigurationViewModel {
     }
 
     void requestLoadingBuilds( ) {
+        loadCatalogue( _configuration._doAutoSwitchToWall );
+    }
+
+    private void loadCatalogue( final boolean switchToWall ) {
         _loading.setValue( true );
         _loadingFailure.setValue( true );
         _loadingInformation.setValue( "Trying to connect..." );
@@ -243,10 +256,39 @@ final class ConfigurationViewModel {
         final ListenableFuture<Void> loadProjectsFuture = _apiController.loadProjectList( );
         final ListenableFuture<Void> loadBuildTypesfuture = transform( loadProjectsFuture, (AsyncFunction<Void, Void>) input -> _apiController.loadBuildTypeList( ) );
 
-        addCallback( loadBuildTypesfuture, loadingSuccessfulCallback( ) );
+        addCallback( loadBuildTypesfuture, loadingSuccessfulCallback( switchToWall ) );
+        _scopeOnlyLoaded = false;
+    }
+
+    void requestLoadingMonitoredScope( ) {
+        _loading.setValue( true );
+        _loadingFailure.setValue( true );
+        _loadingInformation.setValue( "Trying to connect..." );
+
+        addCallback( _apiController.loadMonitoredScope( ), loadingSuccessfulCallback( _configuration._doAutoSwitchToWall ) );
+        _scopeOnlyLoaded = true;
+    }
+
+    @Subscribe
+    public void updateLoadingProgress( final CatalogueLoadingProgress progress ) {
+        Platform.runLater( ( ) -> {
+            if ( _loading.get( ) )
+                _loadingInformation.setValue( "Loading " + progress );
+        } );
+    }
+
+    @Subscribe
+    public void requestCatalogueIfNeeded( final SceneEvent sceneEvent ) {
+        if ( sceneEvent.getType( ) != ConfigurationScene.class )
+            return;
+
+        Platform.runLater( ( ) -> {
+            if ( _scopeOnlyLoaded && !_loading.get( ) )
+                loadCatalogue( false );
+        } );
     }
 
-    private FutureCallback<Void> loadingSuccessfulCallback( ) {
+    private FutureCallback<Void> loadingSuccessfulCallback( final boolean switchToWall ) {
         return new FutureCallback<Void>( ) {
             @Override
             public void onSuccess( final Void result ) {
@@ -257,7 +299,7 @@ final class ConfigurationViewModel {
                     _loading.setValue( false );
                     
                     // NOTE(teld): Do auto switch to wall
-                    if(_configuration._doAutoSwitchToWall) {
+                    if(switchToWall) {
                     	requestSwithToWallScene();
                     }
                 } );
@@ -0,0 +1,102 @@
+/*******************************************************************************
+ * Copyright 2014 Cedric Longo.
+ *
+ * This file is part of Wall-T program.
+ *
+ * Wall-T is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Wall-T is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with Wall-T.
+ * If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+
+package utils.teamcity.wallt.view.wall;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Sets;
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.util.Duration;
+
+import javax.inject.Inject;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Single clock shared by all tiles to advance progress of running builds between two polls.
+ * The clock only ticks while at least one listener is registered. Must be used on FX thread only.
+ */
+final class ProgressClock {
+
+    private static final Duration TICK = Duration.seconds( 1 );
+
+    private final Set<Listener> _listeners = Sets.newLinkedHashSet( );
+    private final Clock _clock;
+    private final Ticker _ticker;
+
+    interface Listener {
+        void tick( final Instant now );
+    }
+
+    /**
+     * Calls the tick action periodically while started
+     */
+    interface Ticker {
+        void start( );
+
+        void stop( );
+    }
+
+    @Inject
+    ProgressClock( ) {
+        this( Clock.systemUTC( ), ProgressClock::timelineTicker );
+    }
+
+    ProgressClock( final Clock clock, final Function<Runnable, Ticker> tickerFactory ) {
+        _clock = clock;
+        _ticker = tickerFactory.apply( this::tick );
+    }
+
+    Clock getClock( ) {
+        return _clock;
+    }
+
+    void register( final Listener listener ) {
+        if ( _listeners.add( listener ) && _listeners.size( ) == 1 )
+            _ticker.start( );
+    }
+
+    void unregister( final Listener listener ) {
+        if ( _listeners.remove( listener ) && _listeners.isEmpty( ) )
+            _ticker.stop( );
+    }
+
+    void tick( ) {
+        final Instant now = _clock.instant( );
+        for ( final Listener listener : ImmutableList.copyOf( _listeners ) )
+            listener.tick( now );
+    }
+
+    private static Ticker timelineTicker( final Runnable tick ) {
+        final Timeline timeline = new Timeline( new KeyFrame( TICK, event -> tick.run( ) ) );
+        timeline.setCycleCount( Animation.INDEFINITE );
+        return new Ticker( ) {
+            @Override
+            public void start( ) {
+                timeline.play( );
+            }
+
+            @Override
+            public void stop( ) {
+                timeline.stop( );
+            }
+        };
+    }
+}
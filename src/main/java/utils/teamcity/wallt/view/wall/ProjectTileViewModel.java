@@ -16,13 +16,12 @@
 package utils.teamcity.wallt.view.wall;
 
 import com.google.common.base.Strings;
-import com.google.common.collect.ImmutableSet;
 import com.google.common.eventbus.Subscribe;
 import com.google.inject.assistedinject.Assisted;
 import javafx.application.Platform;
 import javafx.beans.property.*;
 import javafx.scene.layout.Background;
-import utils.teamcity.wallt.model.build.BuildStatus;
+import utils.teamcity.wallt.model.build.BuildTypeCounts;
 import utils.teamcity.wallt.model.build.IProjectManager;
 import utils.teamcity.wallt.model.build.ProjectData;
 import utils.teamcity.wallt.model.configuration.Configuration;
@@ -71,20 +70,21 @@ final class ProjectTileViewModel {
         if ( !allProjects.contains( data ) )
             return;
 
+        // Counts of the registered project, which may have replaced the displayed one
+        final BuildTypeCounts counts = _projectManager.getProject( _projectData.getId( ) ).orElse( _projectData ).getSubtreeCounts( );
         Platform.runLater( ( ) -> {
             _displayedName.set( Strings.isNullOrEmpty( _projectData.getAliasName( ) ) ? _projectData.getName( ) : _projectData.getAliasName( ) );
-            updateSuccessFailureCount( );
+            updateSuccessFailureCount( counts );
             updateBackground( );
         } );
     }
 
-    private void updateSuccessFailureCount( ) {
-        final Set<ProjectData> allProjects = getAllInterestingProjects( );
-        _failureCount.setValue( allProjects.stream( ).map( p -> p.getBuildTypeCount( BuildStatus.FAILURE, BuildStatus.ERROR ) ).reduce( 0, Integer::sum ) );
-        _successCount.setValue( allProjects.stream( ).map( p -> p.getBuildTypeCount( BuildStatus.SUCCESS ) ).reduce( 0, Integer::sum ) );
+    private void updateSuccessFailureCount( final BuildTypeCounts counts ) {
+        _failureCount.setValue( counts.getFailureCount( ) );
+        _successCount.setValue( counts.getSuccessCount( ) );
 
-        _hasFailureRunning.set( allProjects.stream( ).anyMatch( p -> p.hasBuildTypeRunning( BuildStatus.FAILURE, BuildStatus.ERROR ) ) );
-        _hasSuccessRunning.set( allProjects.stream( ).anyMatch( p -> p.hasBuildTypeRunning( BuildStatus.SUCCESS ) ) );
+        _hasFailureRunning.set( counts.hasFailureRunning( ) );
+        _hasSuccessRunning.set( counts.hasSuccessRunning( ) );
     }
 
     @Subscribe
@@ -105,10 +105,7 @@ final class ProjectTileViewModel {
 
 
     private Set<ProjectData> getAllInterestingProjects( ) {
-        return ImmutableSet.<ProjectData>builder( )
-                .add( _projectData )
-                .addAll( _projectManager.getAllChildrenOf( _projectData ) )
-                .build( );
+        return _projectManager.getSubtreeOf( _projectData );
     }
 
     String getDisplayedName( ) {
@@ -29,9 +29,11 @@ import utils.teamcity.wallt.model.configuration.Configuration;
 
 import javax.inject.Inject;
 import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.Executor;
 
 import static utils.teamcity.wallt.model.build.BuildStatus.SUCCESS;
 import static utils.teamcity.wallt.view.wall.BuildImage.*;
@@ -43,7 +45,19 @@ import static utils.teamcity.wallt.view.wall.BuildImage.*;
  */
 final class TileViewModel {
 
+    /**
+     * Interpolated progress never reaches 100% before the build is known as finished
+     */
+    private static final int MAX_INTERPOLATED_PERCENTAGE = 99;
+
     private final BuildTypeData _buildTypeData;
+    private final ProgressClock _progressClock;
+    private final ProgressClock.Listener _progressInterpolation = this::interpolateProgress;
+    private final Executor _fxExecutor;
+
+    private Optional<BuildData> _runningBuild = Optional.empty( );
+    private Instant _runningBuildReceivedDate;
+    private long _displayedVersion = -1;
 
     private final IntegerProperty _percentageComplete = new SimpleIntegerProperty( );
     private final BooleanProperty _running = new SimpleBooleanProperty( );
@@ -62,8 +76,15 @@ final class TileViewModel {
     }
 
     @Inject
-    TileViewModel( final Configuration configuration, @Assisted final BuildTypeData buildTypeData ) {
+    TileViewModel( final Configuration configuration, final ProgressClock progressClock, @Assisted final BuildTypeData buildTypeData ) {
+        this( configuration, progressClock, buildTypeData, Platform::runLater );
+    }
+
+    TileViewModel( final Configuration configuration, final ProgressClock progressClock, final BuildTypeData buildTypeData, final Executor fxExecutor ) {
         _buildTypeData = buildTypeData;
+        _progressClock = progressClock;
+        _fxExecutor = fxExecutor;
+        _runningBuildReceivedDate = progressClock.getClock( ).instant( );
         updateConfiguration( configuration );
         updateTileViewModel( buildTypeData );
     }
@@ -73,8 +94,14 @@ final class TileViewModel {
         if ( data != _buildTypeData )
             return;
 
-        Platform.runLater( ( ) -> {
-        	String branchInfo = data.getBranch();
+        final BuildTypeData.Snapshot snapshot = data.getSnapshot( );
+        _fxExecutor.execute( ( ) -> {
+            // Same or newer version already displayed
+            if ( snapshot.getVersion( ) <= _displayedVersion )
+                return;
+            _displayedVersion = snapshot.getVersion( );
+
+        	String branchInfo = snapshot.getBranch();
         	if (branchInfo == null)
         		branchInfo = "default";
         	else if (branchInfo.equals("default:yes"))
@@ -88,45 +115,96 @@ final class TileViewModel {
         			branchInfo = branchInfoParts[1];
         	}
 
-            _displayedName.set( Strings.isNullOrEmpty( data.getAliasName( ) ) ? data.getName( ) + " @ " + branchInfo : data.getAliasName( ) + " @ " + branchInfo );
-            _running.setValue( data.hasRunningBuild( ) );
-            _queued.setValue( data.isQueued( ) );
+            _displayedName.set( Strings.isNullOrEmpty( snapshot.getAliasName( ) ) ? data.getName( ) + " @ " + branchInfo : snapshot.getAliasName( ) + " @ " + branchInfo );
+            _running.setValue( snapshot.hasRunningBuild( ) );
+            _queued.setValue( snapshot.isQueued( ) );
 
-            updateLastFinishedDate( );
-            updateTimeLeft( );
-            updatePercentageComplete( );
-            updateBackground( );
-            updateIcon( );
+            updateLastFinishedDate( snapshot );
+            updateRunningProgress( snapshot );
+            updateBackground( snapshot );
+            updateIcon( snapshot );
         } );
     }
 
     @Subscribe
     public void updateConfiguration( final Configuration configuration ) {
-        Platform.runLater( ( ) -> {
+        _fxExecutor.execute( ( ) -> {
             _lightMode.setValue( configuration.isLightMode( ) );
         } );
     }
 
 
-    private void updateTimeLeft( ) {
-        final Optional<BuildData> lastBuild = _buildTypeData.getOldestBuild( BuildState.running );
-        _timeLeft.setValue( lastBuild.isPresent( ) ? lastBuild.get( ).getTimeLeft( ) : Duration.ZERO );
+    /**
+     * Records the oldest running build as received from server, then lets the progress clock advance time left
+     * and percentage complete until the next build status is received.
+     */
+    private void updateRunningProgress( final BuildTypeData.Snapshot snapshot ) {
+        final Optional<BuildData> oldestRunningBuild = snapshot.getOldestBuild( BuildState.running );
+
+        // Same data as before: interpolation must go on from the time it was received
+        if ( oldestRunningBuild.isPresent( ) && oldestRunningBuild.equals( _runningBuild ) )
+            return;
+
+        _runningBuild = oldestRunningBuild;
+        _runningBuildReceivedDate = _progressClock.getClock( ).instant( );
+
+        if ( oldestRunningBuild.isPresent( ) ) {
+            _timeLeft.setValue( oldestRunningBuild.get( ).getTimeLeft( ).orElse( Duration.ZERO ) );
+            _percentageComplete.setValue( oldestRunningBuild.get( ).getPercentageComplete( ) );
+            _progressClock.register( _progressInterpolation );
+        } else {
+            _timeLeft.setValue( Duration.ZERO );
+            _progressClock.unregister( _progressInterpolation );
+        }
     }
 
-    private void updateLastFinishedDate( ) {
-        final Optional<BuildData> lastBuild = _buildTypeData.getLastBuild( BuildState.finished );
-        if ( lastBuild.isPresent( ) )
-            _lastFinishedDate.setValue( lastBuild.get( ).getFinishedDate( ).get( ) );
+    private void interpolateProgress( final Instant now ) {
+        if ( !_runningBuild.isPresent( ) )
+            return;
+
+        final BuildData runningBuild = _runningBuild.get( );
+        final Duration elapsed = Duration.between( _runningBuildReceivedDate, now );
+        _timeLeft.setValue( interpolateTimeLeft( runningBuild, elapsed ) );
+        _percentageComplete.setValue( interpolatePercentageComplete( runningBuild, elapsed ) );
+    }
+
+    /**
+     * Interpolated time left stops at zero: only the server tells that a build overruns its estimate
+     */
+    static Duration interpolateTimeLeft( final BuildData runningBuild, final Duration elapsed ) {
+        final Duration timeLeft = runningBuild.getTimeLeft( ).orElse( Duration.ZERO );
+        if ( timeLeft.isNegative( ) )
+            return timeLeft;
+
+        final Duration interpolatedTimeLeft = timeLeft.minus( elapsed );
+        return interpolatedTimeLeft.isNegative( ) ? Duration.ZERO : interpolatedTimeLeft;
+    }
+
+    static int interpolatePercentageComplete( final BuildData runningBuild, final Duration elapsed ) {
+        final Duration timeLeft = runningBuild.getTimeLeft( ).orElse( Duration.ZERO );
+        if ( timeLeft.isZero( ) || timeLeft.isNegative( ) )
+            return runningBuild.getPercentageComplete( );
+
+        final double progress = Math.min( 1.0, (double) elapsed.toMillis( ) / timeLeft.toMillis( ) );
+        final int percentage = runningBuild.getPercentageComplete( ) + (int) ( ( 100 - runningBuild.getPercentageComplete( ) ) * progress );
+        return Math.max( runningBuild.getPercentageComplete( ), Math.min( percentage, MAX_INTERPOLATED_PERCENTAGE ) );
+    }
+
+    /**
+     * Stops following progress: must be called when the view model is no more displayed
+     */
+    void release( ) {
+        _progressClock.unregister( _progressInterpolation );
     }
 
-    private void updatePercentageComplete( ) {
-        final Optional<BuildData> lastBuildRunning = _buildTypeData.getOldestBuild( BuildState.running );
-        if ( lastBuildRunning.isPresent( ) )
-            _percentageComplete.setValue( lastBuildRunning.get( ).getPercentageComplete( ) );
+    private void updateLastFinishedDate( final BuildTypeData.Snapshot snapshot ) {
+        final Optional<BuildData> lastBuild = snapshot.getLastBuild( BuildState.finished );
+        if ( lastBuild.isPresent( ) )
+            _lastFinishedDate.setValue( lastBuild.get( ).getFinishedDate( ).get( ) );
     }
 
-    private void updateBackground( ) {
-        final Optional<BuildData> lastBuildFinished = _buildTypeData.getLastBuild( BuildState.finished );
+    private void updateBackground( final BuildTypeData.Snapshot snapshot ) {
+        final Optional<BuildData> lastBuildFinished = snapshot.getLastBuild( BuildState.finished );
         if ( !lastBuildFinished.isPresent( ) ) {
             _background.setValue( BuildBackground.UNKNOWN.getMain( ) );
             return;
@@ -137,7 +215,7 @@ final class TileViewModel {
 
         // Running background is set to failure if running build state is not success, or is set according to last finished build
         // We assume that status will be the same until this build is clearly in failure or definitive status is known
-        final Optional<BuildData> lastBuildRunning = _buildTypeData.getOldestBuild( BuildState.running );
+        final Optional<BuildData> lastBuildRunning = snapshot.getOldestBuild( BuildState.running );
         if ( lastBuildRunning.isPresent( ) ) {
             if ( lastBuildRunning.get( ).getStatus( ) != SUCCESS )
                 _runningBackground.setValue( BuildBackground.FAILURE.getRunnning( ) );
@@ -147,8 +225,8 @@ final class TileViewModel {
             _runningBackground.setValue( null );
     }
 
-    private void updateIcon( ) {
-        final List<BuildData> buildToConsider = _buildTypeData.getLastBuilds( BuildState.finished, 3 );
+    private void updateIcon( final BuildTypeData.Snapshot snapshot ) {
+        final List<BuildData> buildToConsider = snapshot.getLastBuilds( BuildState.finished, 3 );
 
         if ( buildToConsider.isEmpty( ) ) {
             _image.setValue( null );
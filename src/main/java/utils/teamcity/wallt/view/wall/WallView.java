@@ -21,9 +21,13 @@ import javafx.collections.ListChangeListener;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Node;
+import javafx.scene.control.Label;
 import javafx.scene.layout.GridPane;
 import javafx.scene.layout.Pane;
 import javafx.scene.layout.StackPane;
+import javafx.scene.paint.Color;
+import javafx.scene.text.FontWeight;
+import utils.teamcity.wallt.view.UIUtils;
 
 import javax.inject.Inject;
 import java.util.*;
@@ -43,6 +47,8 @@ final class WallView extends StackPane {
     private final WallViewModel _model;
     private final Map<Class<?>, WallViewModule.TileViewProvider> _nodeFromModelFactory;
 
+    private final List<Node> _screens = new ArrayList<>( );
+    private final Label _apiStatusLabel = new Label( );
     private Node _currentDisplayedScreen;
 
     @Inject
@@ -57,6 +63,17 @@ final class WallView extends StackPane {
         _model.getMaxTilesByColumnProperty( ).addListener( ( o, oldValue, newalue ) -> updateLayout( ) );
         _model.getMaxTilesByRowProperty( ).addListener( ( o, oldValue, newalue ) -> updateLayout( ) );
 
+        // Shown over screens while data can't be refreshed
+        _apiStatusLabel.setFont( UIUtils.font( 24, FontWeight.BOLD ) );
+        _apiStatusLabel.setTextFill( Color.WHITE );
+        _apiStatusLabel.setStyle( "-fx-background-color:rgba(180,0,0,0.8); -fx-background-radius:5;" );
+        _apiStatusLabel.setPadding( new Insets( GAP_SPACE, 4 * GAP_SPACE, GAP_SPACE, 4 * GAP_SPACE ) );
+        _apiStatusLabel.setMouseTransparent( true );
+        _apiStatusLabel.textProperty( ).bind( _model.getApiStatusMessageProperty( ) );
+        _apiStatusLabel.visibleProperty( ).bind( _model.getApiDegradedProperty( ) );
+        StackPane.setAlignment( _apiStatusLabel, Pos.TOP_CENTER );
+        StackPane.setMargin( _apiStatusLabel, new Insets( 2 * GAP_SPACE ) );
+
         final Timer screenAnimationTimer = new Timer( "WallView Screen switcher", true );
         screenAnimationTimer.scheduleAtFixedRate( new TimerTask( ) {
             @Override
@@ -67,15 +84,15 @@ final class WallView extends StackPane {
     }
 
     private void displayNextScreen( ) {
-        if ( getChildren( ).isEmpty( ) )
+        if ( _screens.isEmpty( ) )
             return;
 
         final Node previousScreen = _currentDisplayedScreen;
 
-        final int index = previousScreen == null ? -1 : getChildren( ).indexOf( previousScreen );
-        final int nextIndex = ( index == -1 ? 0 : index + 1 ) % getChildren( ).size( );
+        final int index = previousScreen == null ? -1 : _screens.indexOf( previousScreen );
+        final int nextIndex = ( index == -1 ? 0 : index + 1 ) % _screens.size( );
 
-        final Node nextScreen = getChildren( ).get( nextIndex );
+        final Node nextScreen = _screens.get( nextIndex );
 
         nextScreen.setVisible( true );
         if ( previousScreen != null && previousScreen != nextScreen )
@@ -86,6 +103,7 @@ final class WallView extends StackPane {
 
     private void updateLayout( ) {
         getChildren( ).clear( );
+        _screens.clear( );
 
         final Collection<TileViewModel> builds = _model.getDisplayedBuilds( );
         final Collection<ProjectTileViewModel> projects = _model.getDisplayedProjects( );
@@ -111,8 +129,10 @@ final class WallView extends StackPane {
         for ( final List<Object> buildsInScreen : screenPartition ) {
             final GridPane screenPane = buildScreenPane( buildsInScreen, nbColums, byColums );
             screenPane.setVisible( false );
-            getChildren( ).add( screenPane );
+            _screens.add( screenPane );
         }
+        getChildren( ).addAll( _screens );
+        getChildren( ).add( _apiStatusLabel );
 
         displayNextScreen( );
     }
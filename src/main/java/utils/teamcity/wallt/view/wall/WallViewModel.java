@@ -15,13 +15,19 @@
 
 package utils.teamcity.wallt.view.wall;
 
+import com.google.common.base.Joiner;
 import com.google.common.eventbus.EventBus;
 import com.google.common.eventbus.Subscribe;
 import javafx.application.Platform;
+import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.IntegerProperty;
+import javafx.beans.property.SimpleBooleanProperty;
 import javafx.beans.property.SimpleIntegerProperty;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.property.StringProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import utils.teamcity.wallt.controller.api.ApiCircuitStatus;
 import utils.teamcity.wallt.model.build.IBuildTypeManager;
 import utils.teamcity.wallt.model.build.IProjectManager;
 import utils.teamcity.wallt.model.configuration.Configuration;
@@ -47,6 +53,9 @@ final class WallViewModel {
     private final IntegerProperty _maxTilesByColumn = new SimpleIntegerProperty( );
     private final IntegerProperty _maxTilesByRow = new SimpleIntegerProperty( );
 
+    private final BooleanProperty _apiDegraded = new SimpleBooleanProperty( );
+    private final StringProperty _apiStatusMessage = new SimpleStringProperty( );
+
     @Inject
     WallViewModel( final EventBus eventBus, final Configuration configuration, final IBuildTypeManager buildManager, final IProjectManager projectManager, final TileViewModel.Factory tileViewModeFactory, final ProjectTileViewModel.Factory projectTileViewModeFactory ) {
         _eventBus = eventBus;
@@ -61,6 +70,7 @@ final class WallViewModel {
     public void updateBuildList( final IBuildTypeManager buildManager ) {
         Platform.runLater( ( ) -> {
             _displayedBuilds.forEach( _eventBus::unregister );
+            _displayedBuilds.forEach( TileViewModel::release );
             _displayedBuilds.setAll( (List<TileViewModel>) buildManager.getMonitoredBuildTypes( ).stream( )
                     .map( _tileViewModeFactory::forBuildTypeData )
                     .collect( Collectors.toList( ) ) );
@@ -87,6 +97,14 @@ final class WallViewModel {
         } );
     }
 
+    @Subscribe
+    public void updateApiStatus( final ApiCircuitStatus status ) {
+        Platform.runLater( ( ) -> {
+            _apiDegraded.setValue( status.isDegraded( ) );
+            _apiStatusMessage.setValue( status.isDegraded( ) ? "Data may be stale, unavailable: " + Joiner.on( ", " ).join( status.getDegradedCircuits( ) ) : "" );
+        } );
+    }
+
     public ObservableList<TileViewModel> getDisplayedBuilds( ) {
         return _displayedBuilds;
     }
@@ -103,6 +121,14 @@ final class WallViewModel {
         return _maxTilesByRow;
     }
 
+    BooleanProperty getApiDegradedProperty( ) {
+        return _apiDegraded;
+    }
+
+    StringProperty getApiStatusMessageProperty( ) {
+        return _apiStatusMessage;
+    }
+
     @Inject
     public void registerToEventBus( final EventBus eventBus ) {
         eventBus.register( this );
@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * Copyright 2014 Cedric Longo.
+ *
+ * This file is part of Wall-T program.
+ *
+ * Wall-T is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Wall-T is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with Wall-T.
+ * If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+
+package utils.teamcity.wallt.controller.api;
+
+import com.google.common.collect.ContiguousSet;
+import com.google.common.collect.DiscreteDomain;
+import com.google.common.collect.Range;
+import com.ning.http.client.AsyncHttpClient;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import utils.teamcity.wallt.controller.api.json.BuildList;
+import utils.teamcity.wallt.model.configuration.Configuration;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a poll cycle of build lists requested through {@link ApiRequestController} to a local stub server
+ * whose bandwidth is limited like a slow proxy, with and without compression negotiation.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+public class ApiCompressionBenchmark {
+
+    private static final int BUILD_TYPE_COUNT = 40;
+    private static final int BUILDS_BY_LIST = 50;
+
+    @Param( { "true", "false" } )
+    private boolean _compression;
+
+    @Param( { "262144", "0" } )
+    private int _bytesPerSecond;
+
+    private final Set<Integer> _buildTypes = ContiguousSet.create( Range.closedOpen( 0, BUILD_TYPE_COUNT ), DiscreteDomain.integers( ) );
+
+    private ApiStubServer _server;
+    private AsyncHttpClient _httpClient;
+    private ApiRequestController _requestController;
+    private ScheduledExecutorService _timer;
+    private ExecutorService _executorService;
+
+    @Setup
+    public void setUp( ) throws IOException {
+        _timer = Executors.newSingleThreadScheduledExecutor( );
+        _executorService = Executors.newCachedThreadPool( );
+        _server = new ApiStubServer( );
+        _server.serve( "builds", ApiResponsePayloads.builds( BUILDS_BY_LIST ), null );
+        _server.limitBandwidth( _bytesPerSecond );
+
+        final Configuration configuration = new Configuration( );
+        configuration.setServerUrl( _server.getUrl( ) );
+        configuration.setCompressionEnabled( _compression );
+        final ApiConnectionStatistics connectionStatistics = new ApiConnectionStatistics( );
+        _httpClient = new AsyncHttpClient( new ApiModule( ).httpClientConfig( connectionStatistics ) );
+        _requestController = new ApiRequestController( configuration, new AsyncHttpApiTransport( configuration, _httpClient, connectionStatistics, _executorService ), new ApiResponseCache( ), new ApiTransferStatistics( ) );
+    }
+
+    @TearDown
+    public void tearDown( ) {
+        _httpClient.close( );
+        _server.close( );
+        _timer.shutdownNow( );
+        _executorService.shutdownNow( );
+    }
+
+    @Benchmark
+    public PollCycleStats pollCycle( ) throws Exception {
+        return PollCycle.start( _buildTypes,
+                id -> _requestController.sendRequest( ApiVersion.API_8_0, "builds/?locator=buildType:bt" + id, BuildList.class ),
+                new Configuration( ).getMaxParallelRequests( ), Duration.ofMinutes( 1 ), _timer ).get( );
+    }
+
+    public static void main( final String[] args ) throws RunnerException {
+        new Runner( new OptionsBuilder( )
+                .include( ApiCompressionBenchmark.class.getSimpleName( ) )
+                .build( ) ).run( );
+    }
+
+}
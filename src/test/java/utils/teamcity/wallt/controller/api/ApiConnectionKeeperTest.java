@@ -0,0 +1,182 @@
+/*******************************************************************************
+ * Copyright 2014 Cedric Longo.
+ *
+ * This file is part of Wall-T program.
+ *
+ * Wall-T is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Wall-T is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with Wall-T.
+ * If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package utils.teamcity.wallt.controller.api;
+
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.eventbus.EventBus;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import org.hamcrest.Matchers;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import utils.teamcity.wallt.controller.api.json.Build;
+import utils.teamcity.wallt.model.configuration.Configuration;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+
+public class ApiConnectionKeeperTest {
+
+    private Configuration _configuration;
+    private IApiTransport _transport;
+    private ApiConnectionStatistics _connectionStatistics;
+    private IApiRequestController _requestController;
+    private CircuitBreakingApiRequestController _circuitBreakingRequestController;
+    private GovernedApiRequestController _governedRequestController;
+    private ApiConnectionKeeper _connectionKeeper;
+
+    @Before
+    public void setUp( ) throws Exception {
+        _configuration = new Configuration( );
+        _configuration.setServerUrl( "http://teamcity" );
+        _configuration.setMaxRequestsInFlight( 4 );
+        _transport = mock( IApiTransport.class );
+        when( _transport.get( Mockito.any( ApiRequest.class ), Mockito.<Map<String, String>>any( ) ) )
+                .thenReturn( Futures.immediateFuture( new ApiTransportResponse( 200, ImmutableMap.<String, String>of( ), new ByteArrayInputStream( new byte[0] ) ) ) );
+        _connectionStatistics = new ApiConnectionStatistics( );
+        _requestController = mock( IApiRequestController.class );
+        _circuitBreakingRequestController = new CircuitBreakingApiRequestController( _requestController, mock( EventBus.class ), Clock.systemUTC( ), new Backoff( Duration.ofMinutes( 1 ), Duration.ofMinutes( 1 ) ) );
+        _governedRequestController = new GovernedApiRequestController( _requestController, _configuration, mock( ScheduledExecutorService.class ), Ticker.systemTicker( ) );
+        _connectionKeeper = new ApiConnectionKeeper( mock( ScheduledExecutorService.class ), _configuration, _transport, _connectionStatistics, _circuitBreakingRequestController, _governedRequestController );
+    }
+
+    @Test
+    public void first_check_opens_as_many_connections_as_requests_in_flight( ) throws Exception {
+        // Setup
+        // Exercise
+        final List<Integer> statusCodes = _connectionKeeper.keepAlive( ).get( );
+        // Verify
+        assertThat( statusCodes, contains( 200, 200, 200, 200 ) );
+        final ArgumentCaptor<ApiRequest> request = ArgumentCaptor.forClass( ApiRequest.class );
+        verify( _transport, times( 4 ) ).get( request.capture( ), Mockito.<Map<String, String>>any( ) );
+        assertThat( request.getValue( ).getURI( ), is( "http://teamcity/guestAuth/app/rest/8.0/" + ApiConnectionKeeper.PROBE_PATH ) );
+    }
+
+    @Test
+    public void warm_connection_count_is_limited_by_connections_per_host( ) throws Exception {
+        // Setup
+        _configuration.setMaxRequestsInFlight( 50 );
+        // Exercise
+        final int warmConnectionCount = _connectionKeeper.getWarmConnectionCount( );
+        // Verify
+        assertThat( warmConnectionCount, is( ApiModule.MAX_CONNECTIONS_PER_HOST ) );
+    }
+
+    @Test
+    public void connections_are_not_probed_while_api_requests_are_sent( ) throws Exception {
+        // Setup
+        _connectionKeeper.keepAlive( );
+        _connectionStatistics.requestStarted( );
+        _connectionStatistics.requestCompleted( );
+        // Exercise
+        final List<Integer> statusCodes = _connectionKeeper.keepAlive( ).get( );
+        // Verify
+        assertThat( statusCodes, is( empty( ) ) );
+        verify( _transport, times( 4 ) ).get( Mockito.any( ApiRequest.class ), Mockito.<Map<String, String>>any( ) );
+    }
+
+    @Test
+    public void connections_are_probed_again_after_a_period_without_api_request( ) throws Exception {
+        // Setup
+        _connectionKeeper.keepAlive( );
+        _connectionStatistics.requestStarted( );
+        _connectionStatistics.requestCompleted( );
+        _connectionKeeper.keepAlive( );
+        // Exercise
+        _connectionKeeper.keepAlive( );
+        // Verify
+        verify( _transport, times( 8 ) ).get( Mockito.any( ApiRequest.class ), Mockito.<Map<String, String>>any( ) );
+    }
+
+    @Test
+    public void connections_are_probed_when_server_changes( ) throws Exception {
+        // Setup
+        _connectionKeeper.keepAlive( );
+        _connectionStatistics.requestStarted( );
+        _connectionStatistics.requestCompleted( );
+        _configuration.setServerUrl( "http://other.teamcity" );
+        // Exercise
+        _connectionKeeper.keepAlive( );
+        // Verify
+        final ArgumentCaptor<ApiRequest> request = ArgumentCaptor.forClass( ApiRequest.class );
+        verify( _transport, times( 8 ) ).get( request.capture( ), Mockito.<Map<String, String>>any( ) );
+        assertThat( request.getValue( ).getURI( ), Matchers.startsWith( "http://other.teamcity/" ) );
+    }
+
+    @Test
+    public void nothing_is_probed_while_server_circuit_is_open( ) throws Exception {
+        // Setup
+        when( _requestController.sendRequest( Mockito.any( ApiVersion.class ), anyString( ), Mockito.<Class<ApiResponse>>any( ), Mockito.any( ApiRequestPriority.class ) ) )
+                .thenReturn( Futures.immediateFailedFuture( new IOException( "Connection refused" ) ) );
+        for ( int i = 0; i < CircuitBreakingApiRequestController.FAILURE_THRESHOLD; i++ )
+            _circuitBreakingRequestController.sendRequest( ApiVersion.API_8_0, "builds/id:1", Build.class );
+        // Exercise
+        final List<Integer> statusCodes = _connectionKeeper.keepAlive( ).get( );
+        // Verify
+        assertThat( statusCodes, is( empty( ) ) );
+        verifyZeroInteractions( _transport );
+    }
+
+    @Test
+    public void probes_are_counted_by_request_governor( ) throws Exception {
+        // Setup
+        // Exercise
+        _connectionKeeper.keepAlive( ).get( );
+        // Verify
+        assertThat( _governedRequestController.getDispatchedCount( ), is( 4L ) );
+        assertThat( _governedRequestController.getInFlightCount( ), is( 0 ) );
+    }
+
+    @Test
+    public void probes_wait_for_their_turn_behind_api_requests( ) throws Exception {
+        // Setup
+        _configuration.setMaxRequestsInFlight( 1 );
+        when( _requestController.sendRequest( Mockito.any( ApiVersion.class ), anyString( ), Mockito.<Class<ApiResponse>>any( ), Mockito.any( ApiRequestPriority.class ) ) )
+                .thenReturn( SettableFuture.create( ) );
+        _governedRequestController.sendRequest( ApiVersion.API_8_0, "builds/id:1", Build.class );
+        // Exercise
+        final ListenableFuture<List<Integer>> statusCodes = _connectionKeeper.keepAlive( );
+        // Verify
+        assertThat( statusCodes.isDone( ), is( false ) );
+        assertThat( _governedRequestController.getQueueDepth( ), is( 1 ) );
+        verifyZeroInteractions( _transport );
+    }
+
+    @Test
+    public void nothing_is_probed_when_server_is_not_configured( ) throws Exception {
+        // Setup
+        _configuration.setServerUrl( null );
+        // Exercise
+        final List<Integer> statusCodes = _connectionKeeper.keepAlive( ).get( );
+        // Verify
+        assertThat( statusCodes, is( empty( ) ) );
+        verifyZeroInteractions( _transport );
+    }
+
+}
@@ -22,12 +22,15 @@ import com.google.common.eventbus.Subscribe;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
 import com.google.inject.AbstractModule;
 import com.google.inject.Guice;
 import com.google.inject.Module;
 import junit.framework.TestCase;
 import org.junit.Before;
 import org.junit.Test;
+import org.hamcrest.Matchers;
+import org.mockito.Mockito;
 import utils.teamcity.wallt.TestConfigurationModule;
 import utils.teamcity.wallt.ThreadingModule;
 import utils.teamcity.wallt.WallApplication;
@@ -37,11 +40,13 @@ import utils.teamcity.wallt.model.build.*;
 import utils.teamcity.wallt.model.configuration.Configuration;
 
 import javax.inject.Inject;
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.stream.Collectors;
 
 import static java.util.concurrent.Executors.newScheduledThreadPool;
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -110,6 +115,7 @@ public class ApiControllerTest {
             @Override
             protected void configure( ) {
                 bind( IApiRequestController.class ).toInstance( mock( IApiRequestController.class ) );
+                bind( IApiTransport.class ).toInstance( mock( IApiTransport.class ) );
             }
         };
     }
@@ -124,7 +130,7 @@ public class ApiControllerTest {
         // Exercise
         _apiController.loadProjectList( );
         // Verify
-        verify( _mockRequestController ).sendRequest( getApiVersion( ), "projects", ProjectList.class );
+        verify( _mockRequestController ).sendRequest( getApiVersion( ), projectPagePath( 0 ), ProjectList.class );
     }
 
     @Test
@@ -134,7 +140,7 @@ public class ApiControllerTest {
         projectList.addProject( new Project( "pId1", "pName", "pParentId" ) );
         projectList.addProject( new Project( "pId2", "pName", "pParentId" ) );
 
-        when( _mockRequestController.sendRequest( getApiVersion( ), "projects", ProjectList.class ) )
+        when( _mockRequestController.sendRequest( getApiVersion( ), projectPagePath( 0 ), ProjectList.class ) )
                 .thenReturn( Futures.immediateFuture( projectList ) );
         // Exercise
         final ListenableFuture<Void> ackFuture = _apiController.loadProjectList( );
@@ -149,7 +155,7 @@ public class ApiControllerTest {
     @Test
     public void loadProjectList_callback_registers_exception_on_ack_future( ) throws Exception {
         // Setup
-        when( _mockRequestController.sendRequest( getApiVersion( ), "projects", ProjectList.class ) )
+        when( _mockRequestController.sendRequest( getApiVersion( ), projectPagePath( 0 ), ProjectList.class ) )
                 .thenReturn( Futures.immediateFailedFuture( new RuntimeException( "Unexpected test exception" ) ) );
         // Exercise
         final ListenableFuture<Void> ackFuture = _apiController.loadProjectList( );
@@ -169,7 +175,7 @@ public class ApiControllerTest {
         // Exercise
         _apiController.loadBuildTypeList( );
         // Verify
-        verify( _mockRequestController ).sendRequest( getApiVersion( ), "buildTypes", BuildTypeList.class );
+        verify( _mockRequestController ).sendRequest( getApiVersion( ), buildTypePagePath( 0 ), BuildTypeList.class );
     }
 
     @Test
@@ -179,7 +185,7 @@ public class ApiControllerTest {
         buildTypelist.addBuildType( new BuildType( "bt1", "btName", "btProjectName", "btProjectId" ) );
         buildTypelist.addBuildType( new BuildType( "bt2", "btName", "btProjectName", "btProjectId" ) );
 
-        when( _mockRequestController.sendRequest( getApiVersion( ), "buildTypes", BuildTypeList.class ) )
+        when( _mockRequestController.sendRequest( getApiVersion( ), buildTypePagePath( 0 ), BuildTypeList.class ) )
                 .thenReturn( Futures.immediateFuture( buildTypelist ) );
         // Exercise
         final ListenableFuture<Void> ackFuture = _apiController.loadBuildTypeList( );
@@ -202,7 +208,7 @@ public class ApiControllerTest {
         final BuildTypeList buildTypelist = new BuildTypeList( );
         buildTypelist.addBuildType( new BuildType( "bt1", "btName", "pname", "p2" ) );
 
-        when( _mockRequestController.sendRequest( getApiVersion( ), "buildTypes", BuildTypeList.class ) )
+        when( _mockRequestController.sendRequest( getApiVersion( ), buildTypePagePath( 0 ), BuildTypeList.class ) )
                 .thenReturn( Futures.immediateFuture( buildTypelist ) );
         // Exercise
         _apiController.loadBuildTypeList( );
@@ -214,7 +220,7 @@ public class ApiControllerTest {
     @Test
     public void loadBuildTypeList_callback_registers_exception_on_ack_future( ) throws Exception {
         // Setup
-        when( _mockRequestController.sendRequest( getApiVersion( ), "buildTypes", BuildTypeList.class ) )
+        when( _mockRequestController.sendRequest( getApiVersion( ), buildTypePagePath( 0 ), BuildTypeList.class ) )
                 .thenReturn( Futures.immediateFailedFuture( new RuntimeException( "Unexpected test exception" ) ) );
         // Exercise
         final ListenableFuture<Void> ackFuture = _apiController.loadBuildTypeList( );
@@ -228,6 +234,160 @@ public class ApiControllerTest {
         TestCase.fail( );
     }
 
+    @Test
+    public void loadProjectList_in_legacy_mode_starts_a_single_request( ) throws Exception {
+        // Setup
+        _configuration.setApiVersion( ApiVersion.API_8_0 );
+        // Exercise
+        _apiController.loadProjectList( );
+        // Verify
+        verify( _mockRequestController ).sendRequest( ApiVersion.API_8_0, "projects", ProjectList.class );
+    }
+
+    @Test
+    public void loadBuildTypeList_requests_next_pages_while_pages_are_full_and_dispatches_progress( ) throws Exception {
+        // Setup
+        final BuildTypeList firstPage = new BuildTypeList( );
+        for ( int i = 0; i < ApiController.CATALOGUE_PAGE_SIZE; i++ )
+            firstPage.addBuildType( new BuildType( "bt" + i, "btName", "btProjectName", "btProjectId" ) );
+        final BuildTypeList lastPage = new BuildTypeList( );
+        lastPage.addBuildType( new BuildType( "btLast", "btName", "btProjectName", "btProjectId" ) );
+
+        when( _mockRequestController.sendRequest( Mockito.any( ApiVersion.class ), anyString( ), Mockito.<Class<ApiResponse>>any( ) ) )
+                .thenReturn( Futures.immediateFuture( new BuildTypeList( ) ) );
+        when( _mockRequestController.sendRequest( getApiVersion( ), buildTypePagePath( 0 ), BuildTypeList.class ) )
+                .thenReturn( Futures.immediateFuture( firstPage ) );
+        when( _mockRequestController.sendRequest( getApiVersion( ), buildTypePagePath( ApiController.CATALOGUE_PAGE_SIZE ), BuildTypeList.class ) )
+                .thenReturn( Futures.immediateFuture( lastPage ) );
+        // Exercise
+        final ListenableFuture<Void> ackFuture = _apiController.loadBuildTypeList( );
+        // Verify
+        assertThat( ackFuture.isDone( ), is( true ) );
+        assertThat( _buildTypeManager.getBuildTypes( ).size( ), is( ApiController.CATALOGUE_PAGE_SIZE + 1 ) );
+        final List<Integer> progress = _dispatchedObjects.stream( )
+                .filter( o -> o instanceof CatalogueLoadingProgress )
+                .map( o -> ( (CatalogueLoadingProgress) o ).getLoadedItems( ) )
+                .collect( Collectors.toList( ) );
+        assertThat( progress, Matchers.contains( ApiController.CATALOGUE_PAGE_SIZE, ApiController.CATALOGUE_PAGE_SIZE + 1, ApiController.CATALOGUE_PAGE_SIZE + 1 ) );
+    }
+
+    @Test
+    public void loadBuildTypeList_forgets_build_types_which_are_no_more_on_server( ) throws Exception {
+        // Setup
+        final BuildTypeData bt1 = new BuildTypeData( "bt1", "btName", "pname", "pId", null );
+        _buildTypeManager.registerBuildTypes( ImmutableList.of( bt1 ) );
+        _buildTypeManager.activateMonitoring( bt1 );
+
+        final BuildTypeList buildTypelist = new BuildTypeList( );
+        buildTypelist.addBuildType( new BuildType( "bt2", "btName", "btProjectName", "btProjectId" ) );
+        when( _mockRequestController.sendRequest( getApiVersion( ), buildTypePagePath( 0 ), BuildTypeList.class ) )
+                .thenReturn( Futures.immediateFuture( buildTypelist ) );
+        // Exercise
+        _apiController.loadBuildTypeList( );
+        // Verify
+        assertThat( _buildTypeManager.getBuildTypes( ).size( ), is( 1 ) );
+        assertThat( _buildTypeManager.getBuildTypes( ).get( 0 ).getId( ), is( "bt2" ) );
+        assertThat( _buildTypeManager.getMonitoredBuildTypes( ), is( empty( ) ) );
+    }
+
+    @Test
+    public void loadMonitoredScope_requests_whole_catalogue_when_nothing_is_monitored( ) throws Exception {
+        // Setup
+        when( _mockRequestController.sendRequest( getApiVersion( ), projectPagePath( 0 ), ProjectList.class ) )
+                .thenReturn( Futures.immediateFuture( new ProjectList( ) ) );
+        // Exercise
+        _apiController.loadMonitoredScope( );
+        // Verify
+        verify( _mockRequestController ).sendRequest( getApiVersion( ), projectPagePath( 0 ), ProjectList.class );
+        verify( _mockRequestController ).sendRequest( getApiVersion( ), buildTypePagePath( 0 ), BuildTypeList.class );
+    }
+
+    @Test
+    public void loadMonitoredScope_requests_only_monitored_projects_subtree_and_monitored_build_types( ) throws Exception {
+        // Setup
+        final ProjectData project = new ProjectData( "p1", "pname", Optional.<String>empty( ) );
+        _projectManager.registerProjects( ImmutableList.of( project ) );
+        _projectManager.activateMonitoring( project );
+        final BuildTypeData monitoredBuildType = new BuildTypeData( "bt9", "btName", "p9", "pname9", null );
+        _buildTypeManager.registerBuildTypes( ImmutableList.of( monitoredBuildType ) );
+        _buildTypeManager.activateMonitoring( monitoredBuildType );
+
+        final ProjectList projectList = new ProjectList( );
+        projectList.addProject( new Project( "p2", "pname2", "p1" ) );
+        final BuildTypeList buildTypelist = new BuildTypeList( );
+        buildTypelist.addBuildType( new BuildType( "bt1", "btName", "pname2", "p2" ) );
+
+        when( _mockRequestController.sendRequest( getApiVersion( ), "projects/?locator=affectedProject:(id:p1)", ProjectList.class ) )
+                .thenReturn( Futures.immediateFuture( projectList ) );
+        when( _mockRequestController.sendRequest( getApiVersion( ), "buildTypes/?locator=affectedProject:(id:p1)", BuildTypeList.class ) )
+                .thenReturn( Futures.immediateFuture( buildTypelist ) );
+        when( _mockRequestController.sendRequest( getApiVersion( ), "buildTypes/?locator=id:bt9", BuildTypeList.class ) )
+                .thenReturn( Futures.immediateFailedFuture( new ApiException( "Not found", 404 ) ) );
+        // Exercise
+        final ListenableFuture<Void> ackFuture = _apiController.loadMonitoredScope( );
+        // Verify
+        assertThat( ackFuture.isDone( ), is( true ) );
+        verify( _mockRequestController, times( 3 ) ).sendRequest( Mockito.any( ApiVersion.class ), anyString( ), Mockito.<Class<ApiResponse>>any( ) );
+        assertThat( _projectManager.getProjects( ).stream( ).map( ProjectData::getId ).collect( Collectors.toList( ) ), Matchers.contains( "p1", "p2" ) );
+        assertThat( _projectManager.getMonitoredProjects( ), Matchers.contains( project ) );
+        assertThat( _buildTypeManager.getBuildTypes( ).stream( ).map( BuildTypeData::getId ).collect( Collectors.toList( ) ), Matchers.contains( "bt1", "bt9" ) );
+        assertThat( _buildTypeManager.getMonitoredBuildTypes( ), Matchers.contains( monitoredBuildType ) );
+        assertThat( _projectManager.getProject( "p2" ).get( ).getBuildTypes( ).size( ), is( 1 ) );
+    }
+
+    @Test
+    public void loadMonitoredScope_keeps_known_subtree_of_project_which_cannot_be_loaded( ) throws Exception {
+        // Setup
+        final ProjectData project1 = new ProjectData( "p1", "pname1", Optional.<String>empty( ) );
+        final ProjectData subProject1 = new ProjectData( "p11", "pname11", Optional.of( "p1" ) );
+        final ProjectData project2 = new ProjectData( "p2", "pname2", Optional.<String>empty( ) );
+        _projectManager.registerProjects( ImmutableList.of( project1, subProject1, project2 ) );
+        _projectManager.activateMonitoring( project1 );
+        _projectManager.activateMonitoring( project2 );
+        _buildTypeManager.registerBuildTypes( ImmutableList.of( new BuildTypeData( "bt11", "btName", "p11", "pname11", null ) ) );
+
+        when( _mockRequestController.sendRequest( getApiVersion( ), "projects/?locator=affectedProject:(id:p1)", ProjectList.class ) )
+                .thenReturn( Futures.immediateFailedFuture( new ApiException( "Not found", 404 ) ) );
+        when( _mockRequestController.sendRequest( getApiVersion( ), "buildTypes/?locator=affectedProject:(id:p1)", BuildTypeList.class ) )
+                .thenReturn( Futures.immediateFailedFuture( new ApiException( "Not found", 404 ) ) );
+        final BuildTypeList buildTypeList = new BuildTypeList( );
+        buildTypeList.addBuildType( new BuildType( "bt2", "btName", "pname2", "p2" ) );
+        when( _mockRequestController.sendRequest( getApiVersion( ), "projects/?locator=affectedProject:(id:p2)", ProjectList.class ) )
+                .thenReturn( Futures.immediateFuture( new ProjectList( ) ) );
+        when( _mockRequestController.sendRequest( getApiVersion( ), "buildTypes/?locator=affectedProject:(id:p2)", BuildTypeList.class ) )
+                .thenReturn( Futures.immediateFuture( buildTypeList ) );
+        // Exercise
+        final ListenableFuture<Void> ackFuture = _apiController.loadMonitoredScope( );
+        // Verify
+        ackFuture.get( );
+        assertThat( _projectManager.getProjects( ).stream( ).map( ProjectData::getId ).collect( Collectors.toList( ) ), Matchers.containsInAnyOrder( "p1", "p11", "p2" ) );
+        assertThat( _projectManager.getMonitoredProjects( ), Matchers.containsInAnyOrder( project1, project2 ) );
+        assertThat( _buildTypeManager.getBuildTypes( ).stream( ).map( BuildTypeData::getId ).collect( Collectors.toList( ) ), Matchers.containsInAnyOrder( "bt2", "bt11" ) );
+    }
+
+    @Test
+    public void loadMonitoredScope_registers_exception_on_ack_future_when_no_request_succeeds( ) throws Exception {
+        // Setup
+        final ProjectData project = new ProjectData( "p1", "pname", Optional.<String>empty( ) );
+        _projectManager.registerProjects( ImmutableList.of( project ) );
+        _projectManager.activateMonitoring( project );
+
+        when( _mockRequestController.sendRequest( getApiVersion( ), "projects/?locator=affectedProject:(id:p1)", ProjectList.class ) )
+                .thenReturn( Futures.immediateFailedFuture( new RuntimeException( "Unexpected test exception" ) ) );
+        when( _mockRequestController.sendRequest( getApiVersion( ), "buildTypes/?locator=affectedProject:(id:p1)", BuildTypeList.class ) )
+                .thenReturn( Futures.immediateFailedFuture( new RuntimeException( "Unexpected test exception" ) ) );
+        // Exercise
+        final ListenableFuture<Void> ackFuture = _apiController.loadMonitoredScope( );
+        // Verify
+        try {
+            ackFuture.get( );
+        } catch ( ExecutionException e ) {
+            if ( e.getCause( ).getClass( ) == RuntimeException.class )
+                return;
+        }
+        TestCase.fail( );
+    }
+
     @Test
     public void requestQueuedBuilds_starts_a_request_to_controller_with_correct_path( ) throws Exception {
         // Setup
@@ -240,11 +400,11 @@ public class ApiControllerTest {
     @Test
     public void requestQueuedBuilds_callback_reccords_queued_status_and_dispatches_modified_build_type_on_event_bus( ) throws Exception {
         // Setup
-        final BuildTypeData bt1 = new BuildTypeData( "bt1", "btName", "pname", "pId" );
-        final BuildTypeData bt2 = new BuildTypeData( "bt2", "btName", "pname", "pId" );
-        final BuildTypeData bt3 = new BuildTypeData( "bt3", "btName", "pname", "pId" );
+        final BuildTypeData bt1 = new BuildTypeData( "bt1", "btName", "pname", "pId", null );
+        final BuildTypeData bt2 = new BuildTypeData( "bt2", "btName", "pname", "pId", null );
+        final BuildTypeData bt3 = new BuildTypeData( "bt3", "btName", "pname", "pId", null );
         bt3.setQueued( true );
-        final BuildTypeData bt4 = new BuildTypeData( "bt4", "btName", "pname", "pId" );
+        final BuildTypeData bt4 = new BuildTypeData( "bt4", "btName", "pname", "pId", null );
         bt4.setQueued( true );
         _buildTypeManager.registerBuildTypes( ImmutableList.of( bt1, bt2, bt3, bt4 ) );
 
@@ -291,19 +451,21 @@ public class ApiControllerTest {
     @Test
     public void requestLastBuildStatus_starts_a_request_to_controller_with_correct_path( ) throws Exception {
         // Setup
-        final BuildTypeData bt1 = new BuildTypeData( "bt1", "btName", "pname", "pId" );
+        _configuration.setApiVersion( ApiVersion.API_8_0 );
+        final BuildTypeData bt1 = new BuildTypeData( "bt1", "btName", "pname", "pId", null );
         // Exercise
         _apiController.requestLastBuildStatus( bt1 );
         // Verify
-        verify( _mockRequestController ).sendRequest( getApiVersion( ), "builds/?locator=buildType:bt1,running:any,count:" + ApiController.MAX_BUILDS_TO_CONSIDER, BuildList.class );
+        verify( _mockRequestController ).sendRequest( eq( ApiVersion.API_8_0 ), eq( "builds/?locator=buildType:bt1,running:any,count:" + ApiController.MAX_BUILDS_TO_CONSIDER + ",branch:default:yes" ), eq( BuildList.class ), Mockito.any( ApiRequestPriority.class ) );
     }
 
     @Test
     public void requestLastBuildStatus_callback_registers_exception_on_ack_future( ) throws Exception {
         // Setup
-        final BuildTypeData bt1 = new BuildTypeData( "bt1", "btName", "pname", "pId" );
+        _configuration.setApiVersion( ApiVersion.API_8_0 );
+        final BuildTypeData bt1 = new BuildTypeData( "bt1", "btName", "pname", "pId", null );
 
-        when( _mockRequestController.sendRequest( getApiVersion( ), "builds/?locator=buildType:bt1,running:any,count:" + ApiController.MAX_BUILDS_TO_CONSIDER, BuildList.class ) )
+        when( _mockRequestController.sendRequest( eq( ApiVersion.API_8_0 ), eq( "builds/?locator=buildType:bt1,running:any,count:" + ApiController.MAX_BUILDS_TO_CONSIDER + ",branch:default:yes" ), eq( BuildList.class ), Mockito.any( ApiRequestPriority.class ) ) )
                 .thenReturn( Futures.immediateFailedFuture( new RuntimeException( "Unexpected test exception" ) ) );
         // Exercise
         final ListenableFuture<Void> ackFuture = _apiController.requestLastBuildStatus( bt1 );
@@ -320,7 +482,8 @@ public class ApiControllerTest {
     @Test
     public void requestLastBuildStatus_callback_starts_requests_to_retreive_last_build_status( ) throws Exception {
         // Setup
-        final BuildTypeData bt1 = new BuildTypeData( "bt1", "btName", "pname", "pId" );
+        _configuration.setApiVersion( ApiVersion.API_8_0 );
+        final BuildTypeData bt1 = new BuildTypeData( "bt1", "btName", "pname", "pId", null );
         _buildTypeManager.registerBuildTypes( ImmutableList.of( bt1 ) );
         _buildTypeManager.activateMonitoring( bt1 );
 
@@ -334,27 +497,66 @@ public class ApiControllerTest {
         buildList.addBuild( b12247 );
         buildList.addBuild( b12246 );
 
-        when( _mockRequestController.sendRequest( getApiVersion( ), "builds/?locator=buildType:bt1,running:any,count:" + ApiController.MAX_BUILDS_TO_CONSIDER, BuildList.class ) )
+        when( _mockRequestController.sendRequest( eq( ApiVersion.API_8_0 ), eq( "builds/?locator=buildType:bt1,running:any,count:" + ApiController.MAX_BUILDS_TO_CONSIDER + ",branch:default:yes" ), eq( BuildList.class ), Mockito.any( ApiRequestPriority.class ) ) )
                 .thenReturn( Futures.immediateFuture( buildList ) );
 
-        when( _mockRequestController.sendRequest( getApiVersion( ), "builds/id:12246", Build.class ) ).thenReturn( Futures.immediateFuture( b12246 ) );
-        when( _mockRequestController.sendRequest( getApiVersion( ), "builds/id:12247", Build.class ) ).thenReturn( Futures.immediateFuture( b12247 ) );
-        when( _mockRequestController.sendRequest( getApiVersion( ), "builds/id:12248", Build.class ) ).thenReturn( Futures.immediateFuture( b12248 ) );
-        when( _mockRequestController.sendRequest( getApiVersion( ), "builds/id:12249", Build.class ) ).thenReturn( Futures.immediateFuture( b12249 ) );
+        when( _mockRequestController.sendRequest( eq( ApiVersion.API_8_0 ), eq( "builds/id:12246" ), eq( Build.class ), Mockito.any( ApiRequestPriority.class ) ) ).thenReturn( Futures.immediateFuture( b12246 ) );
+        when( _mockRequestController.sendRequest( eq( ApiVersion.API_8_0 ), eq( "builds/id:12247" ), eq( Build.class ), Mockito.any( ApiRequestPriority.class ) ) ).thenReturn( Futures.immediateFuture( b12247 ) );
+        when( _mockRequestController.sendRequest( eq( ApiVersion.API_8_0 ), eq( "builds/id:12248" ), eq( Build.class ), Mockito.any( ApiRequestPriority.class ) ) ).thenReturn( Futures.immediateFuture( b12248 ) );
+        when( _mockRequestController.sendRequest( eq( ApiVersion.API_8_0 ), eq( "builds/id:12249" ), eq( Build.class ), Mockito.any( ApiRequestPriority.class ) ) ).thenReturn( Futures.immediateFuture( b12249 ) );
+        // Exercise
+        _apiController.requestLastBuildStatus( bt1 );
+        // Verify
+        verify( _mockRequestController ).sendRequest( eq( ApiVersion.API_8_0 ), eq( "builds/?locator=buildType:bt1,running:any,count:" + ApiController.MAX_BUILDS_TO_CONSIDER + ",branch:default:yes" ), eq( BuildList.class ), Mockito.any( ApiRequestPriority.class ) );
+        verify( _mockRequestController, atLeastOnce( ) ).sendRequest( eq( ApiVersion.API_8_0 ), eq( "builds/id:12249" ), eq( Build.class ), Mockito.any( ApiRequestPriority.class ) );
+        verify( _mockRequestController, atLeastOnce( ) ).sendRequest( eq( ApiVersion.API_8_0 ), eq( "builds/id:12248" ), eq( Build.class ), Mockito.any( ApiRequestPriority.class ) );
+        verify( _mockRequestController, atLeastOnce( ) ).sendRequest( eq( ApiVersion.API_8_0 ), eq( "builds/id:12247" ), eq( Build.class ), Mockito.any( ApiRequestPriority.class ) );
+        verify( _mockRequestController, never( ) ).sendRequest( eq( ApiVersion.API_8_0 ), eq( "builds/id:12246" ), eq( Build.class ), Mockito.any( ApiRequestPriority.class ) );
+    }
+
+    @Test
+    public void requestLastBuildStatus_does_not_request_again_build_answered_in_error_before_retry_time( ) throws Exception {
+        // Setup
+        _configuration.setApiVersion( ApiVersion.API_8_0 );
+        final BuildTypeData bt1 = new BuildTypeData( "bt1", "btName", "pname", "pId", null );
+        final BuildList buildList = new BuildList( );
+        buildList.addBuild( new Build( 12246, new BuildType( "bt1", "btname", "btprojectName", "btProjectid" ), BuildStatus.FAILURE, BuildState.finished, false ) );
+
+        when( _mockRequestController.sendRequest( eq( ApiVersion.API_8_0 ), eq( "builds/?locator=buildType:bt1,running:any,count:" + ApiController.MAX_BUILDS_TO_CONSIDER + ",branch:default:yes" ), eq( BuildList.class ), Mockito.any( ApiRequestPriority.class ) ) )
+                .thenReturn( Futures.immediateFuture( buildList ) );
+        when( _mockRequestController.sendRequest( eq( ApiVersion.API_8_0 ), eq( "builds/id:12246" ), eq( Build.class ), Mockito.any( ApiRequestPriority.class ) ) )
+                .thenReturn( Futures.immediateFailedFuture( new ApiException( "Not found", 404 ) ) );
+        _apiController.requestLastBuildStatus( bt1 );
         // Exercise
         _apiController.requestLastBuildStatus( bt1 );
         // Verify
-        verify( _mockRequestController ).sendRequest( getApiVersion( ), "builds/?locator=buildType:bt1,running:any,count:" + ApiController.MAX_BUILDS_TO_CONSIDER, BuildList.class );
-        verify( _mockRequestController, atLeastOnce( ) ).sendRequest( getApiVersion( ), "builds/id:12249", Build.class );
-        verify( _mockRequestController, atLeastOnce( ) ).sendRequest( getApiVersion( ), "builds/id:12248", Build.class );
-        verify( _mockRequestController, atLeastOnce( ) ).sendRequest( getApiVersion( ), "builds/id:12247", Build.class );
-        verify( _mockRequestController, never( ) ).sendRequest( getApiVersion( ), "builds/id:12246", Build.class );
+        verify( _mockRequestController, times( 1 ) ).sendRequest( eq( ApiVersion.API_8_0 ), eq( "builds/id:12246" ), eq( Build.class ), Mockito.any( ApiRequestPriority.class ) );
+    }
+
+    @Test
+    public void requestLastBuildStatus_requests_again_build_failed_without_server_answer( ) throws Exception {
+        // Setup
+        _configuration.setApiVersion( ApiVersion.API_8_0 );
+        final BuildTypeData bt1 = new BuildTypeData( "bt1", "btName", "pname", "pId", null );
+        final BuildList buildList = new BuildList( );
+        buildList.addBuild( new Build( 12246, new BuildType( "bt1", "btname", "btprojectName", "btProjectid" ), BuildStatus.FAILURE, BuildState.finished, false ) );
+
+        when( _mockRequestController.sendRequest( eq( ApiVersion.API_8_0 ), eq( "builds/?locator=buildType:bt1,running:any,count:" + ApiController.MAX_BUILDS_TO_CONSIDER + ",branch:default:yes" ), eq( BuildList.class ), Mockito.any( ApiRequestPriority.class ) ) )
+                .thenReturn( Futures.immediateFuture( buildList ) );
+        when( _mockRequestController.sendRequest( eq( ApiVersion.API_8_0 ), eq( "builds/id:12246" ), eq( Build.class ), Mockito.any( ApiRequestPriority.class ) ) )
+                .thenReturn( Futures.immediateFailedFuture( new ApiException( "Circuit server is open, request rejected: builds/id:12246" ) ) );
+        _apiController.requestLastBuildStatus( bt1 );
+        // Exercise
+        _apiController.requestLastBuildStatus( bt1 );
+        // Verify
+        verify( _mockRequestController, times( 2 ) ).sendRequest( eq( ApiVersion.API_8_0 ), eq( "builds/id:12246" ), eq( Build.class ), Mockito.any( ApiRequestPriority.class ) );
     }
 
     @Test
     public void requestLastBuildStatus_callback_records_build_on_build_type( ) throws Exception {
         // Setup
-        final BuildTypeData bt1 = new BuildTypeData( "bt1", "btName", "pname", "pId" );
+        _configuration.setApiVersion( ApiVersion.API_8_0 );
+        final BuildTypeData bt1 = new BuildTypeData( "bt1", "btName", "pname", "pId", null );
         _buildTypeManager.registerBuildTypes( ImmutableList.of( bt1 ) );
         _buildTypeManager.activateMonitoring( bt1 );
 
@@ -362,13 +564,309 @@ public class ApiControllerTest {
         final Build b12246 = new Build( 12246, new BuildType( "bt1", "btname", "btprojectName", "btProjectid" ), BuildStatus.FAILURE, BuildState.finished, false );
         buildList.addBuild( b12246 );
 
-        when( _mockRequestController.sendRequest( getApiVersion( ), "builds/?locator=buildType:bt1,running:any,count:" + ApiController.MAX_BUILDS_TO_CONSIDER, BuildList.class ) )
+        when( _mockRequestController.sendRequest( eq( ApiVersion.API_8_0 ), eq( "builds/?locator=buildType:bt1,running:any,count:" + ApiController.MAX_BUILDS_TO_CONSIDER + ",branch:default:yes" ), eq( BuildList.class ), Mockito.any( ApiRequestPriority.class ) ) )
                 .thenReturn( Futures.immediateFuture( buildList ) );
-        when( _mockRequestController.sendRequest( getApiVersion( ), "builds/id:12246", Build.class ) ).thenReturn( Futures.immediateFuture( b12246 ) );
+        when( _mockRequestController.sendRequest( eq( ApiVersion.API_8_0 ), eq( "builds/id:12246" ), eq( Build.class ), Mockito.any( ApiRequestPriority.class ) ) ).thenReturn( Futures.immediateFuture( b12246 ) );
         // Exercise
         _apiController.requestLastBuildStatus( bt1 );
         // Verify
         assertThat( bt1.getBuildById( 12246 ), is( notNullValue( ) ) );
     }
 
+    @Test
+    public void requestLastBuildStatus_in_bulk_mode_starts_a_single_request_with_build_status_fields( ) throws Exception {
+        // Setup
+        final BuildTypeData bt1 = new BuildTypeData( "bt1", "btName", "pname", "pId", null );
+        // Exercise
+        _apiController.requestLastBuildStatus( bt1 );
+        // Verify
+        verify( _mockRequestController ).sendRequest( eq( getApiVersion( ) ), eq( bulkBuildListPath( "bt1" ) ), eq( BuildList.class ), Mockito.any( ApiRequestPriority.class ) );
+    }
+
+    @Test
+    public void requestLastBuildStatus_of_idle_build_type_is_sent_with_idle_priority( ) throws Exception {
+        // Setup
+        final BuildTypeData bt1 = new BuildTypeData( "bt1", "btName", "pname", "pId", null );
+        // Exercise
+        _apiController.requestLastBuildStatus( bt1 );
+        // Verify
+        verify( _mockRequestController ).sendRequest( getApiVersion( ), bulkBuildListPath( "bt1" ), BuildList.class, ApiRequestPriority.IDLE );
+    }
+
+    @Test
+    public void requestLastBuildStatus_of_queued_build_type_is_sent_with_active_priority( ) throws Exception {
+        // Setup
+        final BuildTypeData bt1 = new BuildTypeData( "bt1", "btName", "pname", "pId", null );
+        bt1.setQueued( true );
+        // Exercise
+        _apiController.requestLastBuildStatus( bt1 );
+        // Verify
+        verify( _mockRequestController ).sendRequest( getApiVersion( ), bulkBuildListPath( "bt1" ), BuildList.class, ApiRequestPriority.ACTIVE );
+    }
+
+    @Test
+    public void requestLastBuildStatus_in_bulk_mode_sends_one_request_by_poll_cycle( ) throws Exception {
+        // Setup
+        final BuildTypeData bt1 = new BuildTypeData( "bt1", "btName", "pname", "pId", null );
+        _buildTypeManager.registerBuildTypes( ImmutableList.of( bt1 ) );
+        _buildTypeManager.activateMonitoring( bt1 );
+
+        final BuildList buildList = new BuildList( );
+        buildList.addBuild( new Build( 12249, new BuildType( "bt1", "btname", "btprojectName", "btProjectid" ), BuildStatus.SUCCESS, BuildState.finished, false ) );
+        buildList.addBuild( new Build( 12248, new BuildType( "bt1", "btname", "btprojectName", "btProjectid" ), BuildStatus.FAILURE, BuildState.finished, false ) );
+        buildList.addBuild( new Build( 12247, new BuildType( "bt1", "btname", "btprojectName", "btProjectid" ), BuildStatus.FAILURE, BuildState.finished, false ) );
+
+        when( _mockRequestController.sendRequest( eq( getApiVersion( ) ), eq( bulkBuildListPath( "bt1" ) ), eq( BuildList.class ), Mockito.any( ApiRequestPriority.class ) ) )
+                .thenReturn( Futures.immediateFuture( buildList ) );
+        // Exercise
+        final ListenableFuture<Void> ackFuture = _apiController.requestLastBuildStatus( bt1 );
+        // Verify
+        assertThat( ackFuture.isDone( ), is( true ) );
+        verify( _mockRequestController, times( 1 ) ).sendRequest( Mockito.any( ApiVersion.class ), anyString( ), Mockito.<Class<ApiResponse>>any( ), Mockito.any( ApiRequestPriority.class ) );
+        assertThat( bt1.getBuildById( 12249 ).isPresent( ), is( true ) );
+        assertThat( bt1.getBuildById( 12248 ).isPresent( ), is( true ) );
+        assertThat( bt1.getBuildById( 12247 ).isPresent( ), is( true ) );
+        assertThat( bt1.getLastBuild( BuildState.finished ).get( ).getStatus( ), is( BuildStatus.SUCCESS ) );
+        assertThat( _dispatchedObjects, hasItem( bt1 ) );
+    }
+
+    @Test
+    public void requestLastBuildStatus_in_legacy_mode_sends_one_request_by_build_in_poll_cycle( ) throws Exception {
+        // Setup
+        _configuration.setApiVersion( ApiVersion.API_8_0 );
+        final BuildTypeData bt1 = new BuildTypeData( "bt1", "btName", "pname", "pId", null );
+
+        final BuildList buildList = new BuildList( );
+        final Build b12249 = new Build( 12249, new BuildType( "bt1", "btname", "btprojectName", "btProjectid" ), BuildStatus.SUCCESS, BuildState.finished, false );
+        final Build b12248 = new Build( 12248, new BuildType( "bt1", "btname", "btprojectName", "btProjectid" ), BuildStatus.FAILURE, BuildState.finished, false );
+        final Build b12247 = new Build( 12247, new BuildType( "bt1", "btname", "btprojectName", "btProjectid" ), BuildStatus.FAILURE, BuildState.finished, false );
+        buildList.addBuild( b12249 );
+        buildList.addBuild( b12248 );
+        buildList.addBuild( b12247 );
+
+        when( _mockRequestController.sendRequest( eq( ApiVersion.API_8_0 ), eq( "builds/?locator=buildType:bt1,running:any,count:" + ApiController.MAX_BUILDS_TO_CONSIDER + ",branch:default:yes" ), eq( BuildList.class ), Mockito.any( ApiRequestPriority.class ) ) )
+                .thenReturn( Futures.immediateFuture( buildList ) );
+        when( _mockRequestController.sendRequest( eq( ApiVersion.API_8_0 ), eq( "builds/id:12247" ), eq( Build.class ), Mockito.any( ApiRequestPriority.class ) ) ).thenReturn( Futures.immediateFuture( b12247 ) );
+        when( _mockRequestController.sendRequest( eq( ApiVersion.API_8_0 ), eq( "builds/id:12248" ), eq( Build.class ), Mockito.any( ApiRequestPriority.class ) ) ).thenReturn( Futures.immediateFuture( b12248 ) );
+        when( _mockRequestController.sendRequest( eq( ApiVersion.API_8_0 ), eq( "builds/id:12249" ), eq( Build.class ), Mockito.any( ApiRequestPriority.class ) ) ).thenReturn( Futures.immediateFuture( b12249 ) );
+        // Exercise
+        _apiController.requestLastBuildStatus( bt1 );
+        // Verify
+        verify( _mockRequestController, times( 1 + ApiController.MAX_BUILDS_TO_CONSIDER ) ).sendRequest( Mockito.any( ApiVersion.class ), anyString( ), Mockito.<Class<ApiResponse>>any( ), Mockito.any( ApiRequestPriority.class ) );
+    }
+
+    @Test
+    public void requestLastBuildStatus_in_bulk_mode_requests_running_builds_which_are_no_more_in_last_builds( ) throws Exception {
+        // Setup
+        final BuildTypeData bt1 = new BuildTypeData( "bt1", "btName", "pname", "pId", null );
+        bt1.registerBuild( new BuildData( 12240, BuildStatus.SUCCESS, BuildState.running, 50, Optional.empty( ), Duration.ofMinutes( 5 ) ) );
+
+        final BuildList buildList = new BuildList( );
+        buildList.addBuild( new Build( 12249, new BuildType( "bt1", "btname", "btprojectName", "btProjectid" ), BuildStatus.SUCCESS, BuildState.finished, false ) );
+        when( _mockRequestController.sendRequest( eq( getApiVersion( ) ), eq( bulkBuildListPath( "bt1" ) ), eq( BuildList.class ), Mockito.any( ApiRequestPriority.class ) ) )
+                .thenReturn( Futures.immediateFuture( buildList ) );
+        when( _mockRequestController.sendRequest( eq( getApiVersion( ) ), eq( "builds/id:12240" ), eq( Build.class ), Mockito.any( ApiRequestPriority.class ) ) )
+                .thenReturn( Futures.immediateFuture( new Build( 12240, new BuildType( "bt1", "btname", "btprojectName", "btProjectid" ), BuildStatus.SUCCESS, BuildState.finished, false ) ) );
+        // Exercise
+        _apiController.requestLastBuildStatus( bt1 );
+        // Verify
+        verify( _mockRequestController, times( 2 ) ).sendRequest( Mockito.any( ApiVersion.class ), anyString( ), Mockito.<Class<ApiResponse>>any( ), Mockito.any( ApiRequestPriority.class ) );
+        assertThat( bt1.hasRunningBuild( ), is( false ) );
+    }
+
+    @Test
+    public void requestLastBuildStatus_cancels_its_request_when_ack_future_is_cancelled( ) throws Exception {
+        // Setup
+        final BuildTypeData bt1 = new BuildTypeData( "bt1", "btName", "pname", "pId", null );
+        final SettableFuture<BuildList> response = SettableFuture.create( );
+        when( _mockRequestController.sendRequest( eq( getApiVersion( ) ), eq( bulkBuildListPath( "bt1" ) ), eq( BuildList.class ), Mockito.any( ApiRequestPriority.class ) ) )
+                .thenReturn( response );
+        final ListenableFuture<Void> ackFuture = _apiController.requestLastBuildStatus( bt1 );
+        // Exercise
+        ackFuture.cancel( true );
+        // Verify
+        assertThat( response.isCancelled( ), is( true ) );
+    }
+
+    @Test
+    public void requestBuildDelta_routes_received_builds_to_their_build_type( ) throws Exception {
+        // Setup
+        final BuildTypeData bt1 = new BuildTypeData( "bt1", "btName", "pname", "pId", null );
+        final BuildTypeData bt2 = new BuildTypeData( "bt2", "btName", "pname", "pId", null );
+
+        final BuildList buildList = new BuildList( );
+        buildList.addBuild( new Build( 12249, new BuildType( "bt2", "btname", "btprojectName", "btProjectid" ), BuildStatus.FAILURE, BuildState.finished, false ) );
+        buildList.addBuild( new Build( 12248, new BuildType( "bt1", "btname", "btprojectName", "btProjectid" ), BuildStatus.SUCCESS, BuildState.finished, false ) );
+        buildList.addBuild( new Build( 12247, new BuildType( "bt3", "btname", "btprojectName", "btProjectid" ), BuildStatus.SUCCESS, BuildState.finished, false ) );
+        when( _mockRequestController.sendRequest( getApiVersion( ), deltaBuildListPath( "" ), BuildList.class, ApiRequestPriority.ACTIVE ) )
+                .thenReturn( Futures.immediateFuture( buildList ) );
+        // Exercise
+        final ListenableFuture<Void> ackFuture = _apiController.requestBuildDelta( ImmutableList.of( bt1, bt2 ) );
+        // Verify
+        assertThat( ackFuture.isDone( ), is( true ) );
+        verify( _mockRequestController, times( 1 ) ).sendRequest( Mockito.any( ApiVersion.class ), anyString( ), Mockito.<Class<ApiResponse>>any( ), Mockito.any( ApiRequestPriority.class ) );
+        assertThat( bt1.getBuildById( 12248 ).isPresent( ), is( true ) );
+        assertThat( bt1.getBuildById( 12249 ).isPresent( ), is( false ) );
+        assertThat( bt2.getBuildById( 12249 ).isPresent( ), is( true ) );
+        assertThat( _dispatchedObjects, hasItems( bt1, bt2 ) );
+    }
+
+    @Test
+    public void requestBuildDelta_requests_only_builds_since_last_seen_build( ) throws Exception {
+        // Setup
+        final BuildTypeData bt1 = new BuildTypeData( "bt1", "btName", "pname", "pId", null );
+
+        final BuildList buildList = new BuildList( );
+        buildList.addBuild( new Build( 12249, new BuildType( "bt1", "btname", "btprojectName", "btProjectid" ), BuildStatus.SUCCESS, BuildState.finished, false ) );
+        buildList.addBuild( new Build( 12245, new BuildType( "bt1", "btname", "btprojectName", "btProjectid" ), BuildStatus.SUCCESS, BuildState.finished, false ) );
+        when( _mockRequestController.sendRequest( getApiVersion( ), deltaBuildListPath( "" ), BuildList.class, ApiRequestPriority.ACTIVE ) )
+                .thenReturn( Futures.immediateFuture( buildList ) );
+        when( _mockRequestController.sendRequest( getApiVersion( ), deltaBuildListPath( "sinceBuild:(id:12249)," ), BuildList.class, ApiRequestPriority.ACTIVE ) )
+                .thenReturn( Futures.immediateFuture( new BuildList( ) ) );
+        _apiController.requestBuildDelta( ImmutableList.of( bt1 ) );
+        _dispatchedObjects.clear( );
+        // Exercise
+        final ListenableFuture<Void> ackFuture = _apiController.requestBuildDelta( ImmutableList.of( bt1 ) );
+        // Verify
+        assertThat( ackFuture.isDone( ), is( true ) );
+        verify( _mockRequestController ).sendRequest( getApiVersion( ), deltaBuildListPath( "sinceBuild:(id:12249)," ), BuildList.class, ApiRequestPriority.ACTIVE );
+        assertThat( _dispatchedObjects, is( empty( ) ) );
+    }
+
+    @Test
+    public void requestLastBuildStatus_does_not_move_last_seen_build_of_delta( ) throws Exception {
+        // Setup
+        final BuildTypeData bt1 = new BuildTypeData( "bt1", "btName", "pname", "pId", null );
+
+        final BuildList buildList = new BuildList( );
+        buildList.addBuild( new Build( 12249, new BuildType( "bt1", "btname", "btprojectName", "btProjectid" ), BuildStatus.SUCCESS, BuildState.finished, false ) );
+        when( _mockRequestController.sendRequest( eq( getApiVersion( ) ), eq( bulkBuildListPath( "bt1" ) ), eq( BuildList.class ), Mockito.any( ApiRequestPriority.class ) ) )
+                .thenReturn( Futures.immediateFuture( buildList ) );
+        when( _mockRequestController.sendRequest( getApiVersion( ), deltaBuildListPath( "" ), BuildList.class, ApiRequestPriority.ACTIVE ) )
+                .thenReturn( Futures.immediateFuture( new BuildList( ) ) );
+        _apiController.requestLastBuildStatus( bt1 );
+        // Exercise
+        _apiController.requestBuildDelta( ImmutableList.of( bt1 ) );
+        // Verify
+        verify( _mockRequestController ).sendRequest( getApiVersion( ), deltaBuildListPath( "" ), BuildList.class, ApiRequestPriority.ACTIVE );
+    }
+
+    @Test
+    public void requestBuildDelta_requests_next_pages_while_pages_are_full( ) throws Exception {
+        // Setup
+        final BuildTypeData bt1 = new BuildTypeData( "bt1", "btName", "pname", "pId", null );
+        final BuildList lastBuild = new BuildList( );
+        lastBuild.addBuild( new Build( 1000, new BuildType( "bt1", "btname", "btprojectName", "btProjectid" ), BuildStatus.SUCCESS, BuildState.finished, false ) );
+        when( _mockRequestController.sendRequest( getApiVersion( ), deltaBuildListPath( "" ), BuildList.class, ApiRequestPriority.ACTIVE ) )
+                .thenReturn( Futures.immediateFuture( lastBuild ) );
+        _apiController.requestBuildDelta( ImmutableList.of( bt1 ) );
+
+        final BuildList fullPage = new BuildList( );
+        for ( int buildId = 1000 + 2 * ApiController.MAX_DELTA_BUILDS; buildId > 1000 + ApiController.MAX_DELTA_BUILDS; buildId-- )
+            fullPage.addBuild( new Build( buildId, new BuildType( "bt2", "btname", "btprojectName", "btProjectid" ), BuildStatus.SUCCESS, BuildState.finished, false ) );
+        final BuildList lastPage = new BuildList( );
+        lastPage.addBuild( new Build( 1001, new BuildType( "bt1", "btname", "btprojectName", "btProjectid" ), BuildStatus.FAILURE, BuildState.finished, false ) );
+        when( _mockRequestController.sendRequest( getApiVersion( ), deltaBuildListPath( "sinceBuild:(id:1000)," ), BuildList.class, ApiRequestPriority.ACTIVE ) )
+                .thenReturn( Futures.immediateFuture( fullPage ) );
+        when( _mockRequestController.sendRequest( getApiVersion( ), deltaBuildListPath( "sinceBuild:(id:1000),", ApiController.MAX_DELTA_BUILDS ), BuildList.class, ApiRequestPriority.ACTIVE ) )
+                .thenReturn( Futures.immediateFuture( lastPage ) );
+        when( _mockRequestController.sendRequest( getApiVersion( ), deltaBuildListPath( "sinceBuild:(id:" + ( 1000 + 2 * ApiController.MAX_DELTA_BUILDS ) + ")," ), BuildList.class, ApiRequestPriority.ACTIVE ) )
+                .thenReturn( Futures.immediateFuture( new BuildList( ) ) );
+        // Exercise
+        final ListenableFuture<Void> ackFuture = _apiController.requestBuildDelta( ImmutableList.of( bt1 ) );
+        _apiController.requestBuildDelta( ImmutableList.of( bt1 ) );
+        // Verify
+        assertThat( ackFuture.isDone( ), is( true ) );
+        assertThat( bt1.getBuildById( 1001 ).isPresent( ), is( true ) );
+        verify( _mockRequestController ).sendRequest( getApiVersion( ), deltaBuildListPath( "sinceBuild:(id:" + ( 1000 + 2 * ApiController.MAX_DELTA_BUILDS ) + ")," ), BuildList.class, ApiRequestPriority.ACTIVE );
+    }
+
+    @Test
+    public void requestBuildDelta_requests_again_build_type_with_a_build_leaving_queue_below_last_seen_build( ) throws Exception {
+        // Setup
+        final BuildTypeData bt1 = new BuildTypeData( "bt1", "btName", "pname", "pId", null );
+        _buildTypeManager.registerBuildTypes( ImmutableList.of( bt1 ) );
+        _buildTypeManager.activateMonitoring( bt1 );
+
+        final QueuedBuildList queuedBuildList = new QueuedBuildList( );
+        queuedBuildList.addBuildType( new QueueBuild( 12245, "bt1" ) );
+        when( _mockRequestController.sendRequest( getApiVersion( ), "buildQueue", QueuedBuildList.class ) )
+                .thenReturn( Futures.immediateFuture( queuedBuildList ) )
+                .thenReturn( Futures.immediateFuture( new QueuedBuildList( ) ) );
+
+        final BuildList deltaBuildList = new BuildList( );
+        deltaBuildList.addBuild( new Build( 12249, new BuildType( "bt2", "btname", "btprojectName", "btProjectid" ), BuildStatus.SUCCESS, BuildState.finished, false ) );
+        when( _mockRequestController.sendRequest( getApiVersion( ), deltaBuildListPath( "" ), BuildList.class, ApiRequestPriority.ACTIVE ) )
+                .thenReturn( Futures.immediateFuture( deltaBuildList ) );
+        when( _mockRequestController.sendRequest( getApiVersion( ), deltaBuildListPath( "sinceBuild:(id:12249)," ), BuildList.class, ApiRequestPriority.ACTIVE ) )
+                .thenReturn( Futures.immediateFuture( new BuildList( ) ) );
+
+        final BuildList lastBuildList = new BuildList( );
+        lastBuildList.addBuild( new Build( 12245, new BuildType( "bt1", "btname", "btprojectName", "btProjectid" ), BuildStatus.SUCCESS, BuildState.finished, false ) );
+        when( _mockRequestController.sendRequest( eq( getApiVersion( ) ), eq( bulkBuildListPath( "bt1" ) ), eq( BuildList.class ), Mockito.any( ApiRequestPriority.class ) ) )
+                .thenReturn( Futures.immediateFuture( lastBuildList ) );
+
+        _apiController.requestQueuedBuilds( );
+        _apiController.requestBuildDelta( ImmutableList.of( bt1 ) );
+        _apiController.requestQueuedBuilds( );
+        // Exercise
+        final ListenableFuture<Void> ackFuture = _apiController.requestBuildDelta( ImmutableList.of( bt1 ) );
+        // Verify
+        assertThat( ackFuture.isDone( ), is( true ) );
+        assertThat( bt1.getBuildById( 12245 ).isPresent( ), is( true ) );
+        verify( _mockRequestController, times( 1 ) ).sendRequest( eq( getApiVersion( ) ), eq( bulkBuildListPath( "bt1" ) ), eq( BuildList.class ), Mockito.any( ApiRequestPriority.class ) );
+    }
+
+    @Test
+    public void requestBuildDelta_does_not_request_running_builds_which_are_not_in_delta( ) throws Exception {
+        // Setup
+        final BuildTypeData bt1 = new BuildTypeData( "bt1", "btName", "pname", "pId", null );
+        bt1.registerBuild( new BuildData( 12240, BuildStatus.SUCCESS, BuildState.running, 50, Optional.empty( ), Duration.ofMinutes( 5 ) ) );
+
+        when( _mockRequestController.sendRequest( getApiVersion( ), deltaBuildListPath( "" ), BuildList.class, ApiRequestPriority.ACTIVE ) )
+                .thenReturn( Futures.immediateFuture( new BuildList( ) ) );
+        // Exercise
+        final ListenableFuture<Void> ackFuture = _apiController.requestBuildDelta( ImmutableList.of( bt1 ) );
+        // Verify
+        assertThat( ackFuture.isDone( ), is( true ) );
+        verify( _mockRequestController, never( ) ).sendRequest( eq( getApiVersion( ) ), eq( "builds/id:12240" ), eq( Build.class ), Mockito.any( ApiRequestPriority.class ) );
+        assertThat( bt1.hasRunningBuild( ), is( true ) );
+    }
+
+    @Test
+    public void delta_is_not_supported_for_build_types_of_specific_branch_or_when_disabled( ) throws Exception {
+        // Setup
+        final BuildTypeData bt1 = new BuildTypeData( "bt1", "btName", "pname", "pId", null );
+        final BuildTypeData bt2 = new BuildTypeData( "bt2", "btName", "pname", "pId", "feature" );
+        // Exercise
+        final boolean bt1Supported = _apiController.isDeltaSupported( bt1 );
+        final boolean bt2Supported = _apiController.isDeltaSupported( bt2 );
+        _configuration.setDeltaPollingEnabled( false );
+        final boolean bt1SupportedWhenDisabled = _apiController.isDeltaSupported( bt1 );
+        // Verify
+        assertThat( bt1Supported, is( true ) );
+        assertThat( bt2Supported, is( false ) );
+        assertThat( bt1SupportedWhenDisabled, is( false ) );
+    }
+
+    private static String deltaBuildListPath( final String sinceBuild ) {
+        return "builds/?locator=" + sinceBuild + "running:any,branch:default:yes,count:" + ApiController.MAX_DELTA_BUILDS;
+    }
+
+    private static String deltaBuildListPath( final String sinceBuild, final int start ) {
+        return "builds/?locator=" + sinceBuild + "running:any,branch:default:yes,start:" + start + ",count:" + ApiController.MAX_DELTA_BUILDS;
+    }
+
+    private static String projectPagePath( final int start ) {
+        return "projects/?locator=start:" + start + ",count:" + ApiController.CATALOGUE_PAGE_SIZE;
+    }
+
+    private static String buildTypePagePath( final int start ) {
+        return "buildTypes/?locator=start:" + start + ",count:" + ApiController.CATALOGUE_PAGE_SIZE;
+    }
+
+    private static String bulkBuildListPath( final String buildTypeId ) {
+        return "builds/?locator=buildType:" + buildTypeId + ",running:any,count:" + ApiController.MAX_BUILDS_TO_CONSIDER + ",branch:default:yes";
+    }
+
 }
@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright 2014 Cedric Longo.
+ *
+ * This file is part of Wall-T program.
+ *
+ * Wall-T is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Wall-T is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with Wall-T.
+ * If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+
+package utils.teamcity.wallt.controller.api;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.collect.SetMultimap;
+import com.google.gson.annotations.SerializedName;
+import org.junit.Test;
+import utils.teamcity.wallt.controller.api.json.*;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.ParameterizedType;
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+
+public class ApiFieldsTest {
+
+    // Fields parsed by ApiTypeAdapters which have no serialized field in json classes
+    private static final SetMultimap<Class<?>, String> ADAPTED_FIELDS = ImmutableSetMultimap.<Class<?>, String>of(
+            Build.class, "startDate",
+            Build.class, "finishDate"
+    );
+
+    @Test
+    public void fields_are_defined_for_each_requested_response( ) throws Exception {
+        // Setup
+        // Exercise
+        // Verify
+        assertThat( ApiFields.of( Build.class ).isPresent( ), is( true ) );
+        assertThat( ApiFields.of( BuildList.class ).isPresent( ), is( true ) );
+        assertThat( ApiFields.of( BuildTypeList.class ).isPresent( ), is( true ) );
+        assertThat( ApiFields.of( ProjectList.class ).isPresent( ), is( true ) );
+        assertThat( ApiFields.of( QueuedBuildList.class ).isPresent( ), is( true ) );
+    }
+
+    @Test
+    public void selected_fields_are_all_read_by_json_classes( ) throws Exception {
+        // Setup
+        // Exercise
+        // Verify
+        for ( final Class<? extends ApiResponse> responseType : ImmutableList.<Class<? extends ApiResponse>>of( Build.class, BuildList.class, BuildTypeList.class, ProjectList.class, QueuedBuildList.class ) )
+            assertFieldsAreRead( responseType, ApiFields.of( responseType ).get( ) );
+    }
+
+    /**
+     * Checks each field of the specification matches a serialized field of the type, nested specifications being checked against field type
+     */
+    private static int assertFieldsAreRead( final Class<?> type, final String fields ) {
+        int i = 0;
+        while ( i < fields.length( ) && fields.charAt( i ) != ')' ) {
+            int end = i;
+            while ( end < fields.length( ) && ",()".indexOf( fields.charAt( end ) ) < 0 )
+                end++;
+            final String name = fields.substring( i, end );
+            i = end;
+            if ( ADAPTED_FIELDS.containsEntry( type, name ) ) {
+                if ( i < fields.length( ) && fields.charAt( i ) == ',' )
+                    i++;
+                continue;
+            }
+            final Optional<Field> field = serializedField( type, name );
+            assertThat( type.getSimpleName( ) + " must read field " + name, field.orElse( null ), is( notNullValue( ) ) );
+            if ( i < fields.length( ) && fields.charAt( i ) == '(' ) {
+                i += assertFieldsAreRead( elementType( field.get( ) ), fields.substring( i + 1 ) ) + 2;
+            }
+            if ( i < fields.length( ) && fields.charAt( i ) == ',' )
+                i++;
+        }
+        return i;
+    }
+
+    private static Optional<Field> serializedField( final Class<?> type, final String name ) {
+        for ( final Field field : type.getDeclaredFields( ) ) {
+            final SerializedName serializedName = field.getAnnotation( SerializedName.class );
+            if ( serializedName != null && serializedName.value( ).equals( name ) )
+                return Optional.of( field );
+        }
+        return Optional.empty( );
+    }
+
+    private static Class<?> elementType( final Field field ) {
+        if ( field.getGenericType( ) instanceof ParameterizedType )
+            return (Class<?>) ( (ParameterizedType) field.getGenericType( ) ).getActualTypeArguments( )[0];
+        return field.getType( );
+    }
+
+}
@@ -0,0 +1,115 @@
+/*******************************************************************************
+ * Copyright 2014 Cedric Longo.
+ *
+ * This file is part of Wall-T program.
+ *
+ * Wall-T is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Wall-T is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with Wall-T.
+ * If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package utils.teamcity.wallt.controller.api;
+
+import com.google.common.eventbus.EventBus;
+import com.google.common.eventbus.Subscribe;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Scopes;
+import com.google.inject.util.Modules;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import utils.teamcity.wallt.TestModules;
+import utils.teamcity.wallt.model.build.BuildTypeData;
+import utils.teamcity.wallt.model.configuration.Configuration;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Measures a poll cycle through the whole pipeline, from {@link ApiController} and request controllers to build types
+ * and event bus, with payloads served by {@link InMemoryApiTransport} after a fixed latency instead of the network.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+public class ApiPipelineBenchmark {
+
+    private static final int BUILD_TYPE_COUNT = 60;
+
+    @Param( { "0", "20" } )
+    private int _latencyInMillis;
+
+    private Injector _injector;
+    private Configuration _configuration;
+    private IApiController _apiController;
+    private List<BuildTypeData> _buildTypes;
+    private final AtomicInteger _dispatchedEvents = new AtomicInteger( );
+
+    @Setup
+    public void setUp( ) {
+        _injector = Guice.createInjector( Modules.override( TestModules.defaultModules( ) ).with( new AbstractModule( ) {
+            @Override
+            protected void configure( ) {
+                bind( InMemoryApiTransport.class ).in( Scopes.SINGLETON );
+                bind( IApiTransport.class ).to( InMemoryApiTransport.class );
+            }
+        } ) );
+
+        _configuration = _injector.getInstance( Configuration.class );
+        _configuration.setServerUrl( "http://teamcity" );
+        _configuration.setApiVersion( ApiVersion.API_8_1 );
+        _configuration.setMaxRequestsPerSecond( 0 );
+        _configuration.setDeltaPollingEnabled( false );
+
+        final InMemoryApiTransport transport = _injector.getInstance( InMemoryApiTransport.class );
+        transport.serve( "builds", ApiResponsePayloads.builds( ApiController.MAX_BUILDS_TO_CONSIDER ) );
+        transport.setLatency( Duration.ofMillis( _latencyInMillis ) );
+
+        _injector.getInstance( EventBus.class ).register( this );
+        _apiController = _injector.getInstance( IApiController.class );
+        _buildTypes = IntStream.range( 0, BUILD_TYPE_COUNT )
+                .mapToObj( i -> new BuildTypeData( "bt" + i, "Build type " + i, "project" + i / 10, "Project " + i / 10, null ) )
+                .collect( Collectors.toList( ) );
+    }
+
+    @TearDown
+    public void tearDown( ) {
+        _injector.getInstance( ExecutorService.class ).shutdownNow( );
+        _injector.getInstance( ScheduledExecutorService.class ).shutdownNow( );
+    }
+
+    @Subscribe
+    public void eventDispatched( final Object event ) {
+        _dispatchedEvents.incrementAndGet( );
+    }
+
+    @Benchmark
+    public PollCycleStats pollCycle( ) throws Exception {
+        return PollCycle.start( _buildTypes, _apiController::requestLastBuildStatus,
+                _configuration.getMaxParallelRequests( ), Duration.ofMinutes( 1 ), _injector.getInstance( ScheduledExecutorService.class ) ).get( );
+    }
+
+    public static void main( final String[] args ) throws RunnerException {
+        new Runner( new OptionsBuilder( )
+                .include( ApiPipelineBenchmark.class.getSimpleName( ) )
+                .build( ) ).run( );
+    }
+
+}
@@ -16,6 +16,9 @@
 package utils.teamcity.wallt.controller.api;
 
 import org.junit.Test;
+import utils.teamcity.wallt.controller.api.json.BuildList;
+import utils.teamcity.wallt.controller.api.json.BuildTypeList;
+import utils.teamcity.wallt.controller.api.json.QueuedBuildList;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
@@ -101,4 +104,53 @@ public class ApiRequestBuilderTest {
         assertThat( request.getPassword( ), is( "c3dr1c" ) );
         assertThat( request.getURI( ), is( "http://localhost:80/guestAuth/app/rest/6.0/builds?myQuery=myValue&byPass=1" ) );
     }
+
+    @Test
+    public void build_selects_fields_of_expected_type_when_api_version_supports_it( ) throws Exception {
+        // Setup
+        // Exercise
+        final ApiRequest request = ApiRequestBuilder.newRequest( )
+                .apiVersion( ApiVersion.API_8_1 )
+                .to( "http://localhost:80" )
+                .request( "buildTypes" )
+                .expecting( BuildTypeList.class )
+                .build( );
+        final ApiRequest requestWithLocator = ApiRequestBuilder.newRequest( )
+                .apiVersion( ApiVersion.API_8_1 )
+                .to( "http://localhost:80" )
+                .request( "builds/?locator=buildType:bt1" )
+                .expecting( BuildList.class )
+                .build( );
+        // Verify
+        assertThat( request.getURI( ), is( "http://localhost:80/guestAuth/app/rest/8.0/buildTypes?fields=buildType(" + ApiFields.BUILD_TYPE + ")" ) );
+        assertThat( requestWithLocator.getURI( ), is( "http://localhost:80/guestAuth/app/rest/8.0/builds/?locator=buildType:bt1&fields=build(" + ApiFields.BUILD + ")" ) );
+    }
+
+    @Test
+    public void build_does_not_select_fields_when_api_version_does_not_support_it( ) throws Exception {
+        // Setup
+        // Exercise
+        final ApiRequest request = ApiRequestBuilder.newRequest( )
+                .apiVersion( ApiVersion.API_8_0 )
+                .to( "http://localhost:80" )
+                .request( "buildTypes" )
+                .expecting( BuildTypeList.class )
+                .build( );
+        // Verify
+        assertThat( request.getURI( ), is( "http://localhost:80/guestAuth/app/rest/8.0/buildTypes" ) );
+    }
+
+    @Test
+    public void build_keeps_fields_already_selected_by_path( ) throws Exception {
+        // Setup
+        // Exercise
+        final ApiRequest request = ApiRequestBuilder.newRequest( )
+                .apiVersion( ApiVersion.API_8_1 )
+                .to( "http://localhost:80" )
+                .request( "buildQueue?fields=count" )
+                .expecting( QueuedBuildList.class )
+                .build( );
+        // Verify
+        assertThat( request.getURI( ), is( "http://localhost:80/guestAuth/app/rest/8.0/buildQueue?fields=count" ) );
+    }
 }
@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * Copyright 2014 Cedric Longo.
+ *
+ * This file is part of Wall-T program.
+ *
+ * Wall-T is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Wall-T is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with Wall-T.
+ * If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package utils.teamcity.wallt.controller.api;
+
+import org.junit.Before;
+import org.junit.Test;
+import utils.teamcity.wallt.controller.api.json.BuildList;
+import utils.teamcity.wallt.model.configuration.Configuration;
+
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class ApiRequestContextTest {
+
+    private Configuration _configuration;
+
+    @Before
+    public void setUp( ) throws Exception {
+        _configuration = new Configuration( );
+        _configuration.setServerUrl( "http://localhost:80/" );
+    }
+
+    @Test
+    public void new_request_is_the_one_built_by_request_builder( ) throws Exception {
+        // Setup
+        _configuration.setCredentialsUser( "cedric" );
+        _configuration.setCredentialsPassword( "c3dr1c" );
+        final ApiRequestContext requestContext = ApiRequestContext.compile( _configuration );
+        // Exercise
+        final ApiRequest request = requestContext.newRequest( ApiVersion.API_8_1, "builds/?locator=buildType:bt1", BuildList.class );
+        // Verify
+        final ApiRequest expectedRequest = ApiRequestBuilder.newRequest( )
+                .to( "http://localhost:80/" )
+                .forUser( "cedric" )
+                .withPassword( "c3dr1c" )
+                .request( "builds/?locator=buildType:bt1" )
+                .apiVersion( ApiVersion.API_8_1 )
+                .expecting( BuildList.class )
+                .build( );
+        assertThat( request.getURI( ), is( expectedRequest.getURI( ) ) );
+        assertThat( request.getUsername( ), is( "cedric" ) );
+        assertThat( request.getPassword( ), is( "c3dr1c" ) );
+    }
+
+    @Test
+    public void new_request_uses_guest_authentication_when_no_user_is_configured( ) throws Exception {
+        // Setup
+        final ApiRequestContext requestContext = ApiRequestContext.compile( _configuration );
+        // Exercise
+        final ApiRequest request = requestContext.newRequest( ApiVersion.API_8_0, "buildTypes", null );
+        // Verify
+        assertThat( request.getURI( ), is( "http://localhost:80/guestAuth/app/rest/8.0/buildTypes" ) );
+        assertThat( request.isGuestMode( ), is( true ) );
+        assertThat( requestContext.getAuthorization( ), is( Optional.<String>empty( ) ) );
+    }
+
+    @Test
+    public void authorization_is_basic_authentication_of_credentials( ) throws Exception {
+        // Setup
+        _configuration.setCredentialsUser( "cedric" );
+        _configuration.setCredentialsPassword( "c3dr1c" );
+        // Exercise
+        final ApiRequestContext requestContext = ApiRequestContext.compile( _configuration );
+        // Verify
+        assertThat( requestContext.getAuthorization( ), is( Optional.of( "Basic Y2VkcmljOmMzZHIxYw==" ) ) );
+    }
+
+    @Test
+    public void context_is_no_more_compiled_from_configuration_when_server_or_credentials_change( ) throws Exception {
+        // Setup
+        final ApiRequestContext requestContext = ApiRequestContext.compile( _configuration );
+        final boolean compiledFromInitialConfiguration = requestContext.isCompiledFrom( _configuration );
+        // Exercise
+        _configuration.setCredentialsUser( "cedric" );
+        // Verify
+        assertThat( compiledFromInitialConfiguration, is( true ) );
+        assertThat( requestContext.isCompiledFrom( _configuration ), is( false ) );
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void compile_throws_exception_if_server_url_is_not_http_or_https_protocol( ) throws Exception {
+        // Setup
+        _configuration.setServerUrl( "ftp://localhost:80" );
+        // Exercise
+        ApiRequestContext.compile( _configuration );
+        // Verify
+    }
+
+}
@@ -0,0 +1,189 @@
+/*******************************************************************************
+ * Copyright 2014 Cedric Longo.
+ *
+ * This file is part of Wall-T program.
+ *
+ * Wall-T is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Wall-T is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with Wall-T.
+ * If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+
+package utils.teamcity.wallt.controller.api;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableMap;
+import com.ning.http.client.AsyncHttpClient;
+import junit.framework.TestCase;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import utils.teamcity.wallt.controller.api.json.BuildTypeList;
+import utils.teamcity.wallt.model.configuration.Configuration;
+
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class ApiRequestControllerTest {
+
+    private ApiStubServer _server;
+    private AsyncHttpClient _httpClient;
+    private Configuration _configuration;
+    private ApiResponseCache _responseCache;
+    private ApiTransferStatistics _transferStatistics;
+    private ApiConnectionStatistics _connectionStatistics;
+    private ExecutorService _executorService;
+    private AsyncHttpApiTransport _transport;
+    private ApiRequestController _requestController;
+
+    @Before
+    public void setUp( ) throws Exception {
+        _server = new ApiStubServer( );
+        _connectionStatistics = new ApiConnectionStatistics( );
+        _httpClient = new AsyncHttpClient( new ApiModule( ).httpClientConfig( _connectionStatistics ) );
+        _configuration = new Configuration( );
+        _configuration.setServerUrl( _server.getUrl( ) );
+        _responseCache = new ApiResponseCache( );
+        _transferStatistics = new ApiTransferStatistics( );
+        _executorService = Executors.newCachedThreadPool( );
+        _transport = new AsyncHttpApiTransport( _configuration, _httpClient, _connectionStatistics, _executorService );
+        _requestController = new ApiRequestController( _configuration, _transport, _responseCache, _transferStatistics );
+    }
+
+    @After
+    public void tearDown( ) throws Exception {
+        _httpClient.close( );
+        _server.close( );
+        _executorService.shutdownNow( );
+    }
+
+    @Test
+    public void compressed_response_is_decoded_and_transferred_bytes_are_recorded( ) throws Exception {
+        // Setup
+        final byte[] payload = ApiResponsePayloads.buildTypes( 200 );
+        _server.serve( "buildTypes", payload, null );
+        // Exercise
+        final BuildTypeList buildTypeList = _requestController.sendRequest( ApiVersion.API_8_0, "buildTypes", BuildTypeList.class ).get( 10, TimeUnit.SECONDS );
+        // Verify
+        assertThat( buildTypeList.getBuildTypes( ), hasSize( 200 ) );
+        assertThat( _transferStatistics.getResponseCount( "buildTypes" ), is( 1L ) );
+        assertThat( _transferStatistics.getDecodedBytes( "buildTypes" ), is( (long) payload.length ) );
+        assertThat( _transferStatistics.getTransferredBytes( "buildTypes" ), is( lessThan( payload.length / 5L ) ) );
+    }
+
+    @Test
+    public void response_is_not_compressed_when_compression_is_disabled( ) throws Exception {
+        // Setup
+        _configuration.setCompressionEnabled( false );
+        final byte[] payload = ApiResponsePayloads.buildTypes( 20 );
+        _server.serve( "buildTypes", payload, null );
+        // Exercise
+        _requestController.sendRequest( ApiVersion.API_8_0, "buildTypes", BuildTypeList.class ).get( 10, TimeUnit.SECONDS );
+        // Verify
+        assertThat( _transferStatistics.getTransferredBytes( "buildTypes" ), is( (long) payload.length ) );
+        assertThat( _transferStatistics.getDecodedBytes( "buildTypes" ), is( (long) payload.length ) );
+    }
+
+    @Test
+    public void response_is_given_before_its_body_is_entirely_received( ) throws Exception {
+        // Setup
+        _configuration.setCompressionEnabled( false );
+        _server.serve( "buildTypes", ApiResponsePayloads.buildTypes( 50 ), null );
+        _server.limitBandwidth( 16384 );
+        final ApiRequest request = ApiRequestContext.upToDate( null, _configuration ).newRequest( ApiVersion.API_8_0, "buildTypes", BuildTypeList.class );
+        // Exercise
+        final ApiTransportResponse response = _transport.get( request, ImmutableMap.of( ) ).get( 10, TimeUnit.SECONDS );
+        final int inFlightCountAtResponse = _connectionStatistics.getInFlightCount( );
+        final BuildTypeList buildTypeList = ApiResponseDecoder.decode( response.getBody( ), BuildTypeList.class );
+        // Verify
+        assertThat( inFlightCountAtResponse, is( 1 ) );
+        assertThat( buildTypeList.getBuildTypes( ), hasSize( 50 ) );
+    }
+
+    @Test
+    public void malformed_response_fails_with_a_decoding_error( ) throws Exception {
+        // Setup
+        _server.serve( "buildTypes", "{\"buildType\":[{\"id\":".getBytes( Charsets.UTF_8 ), null );
+        // Exercise
+        try {
+            _requestController.sendRequest( ApiVersion.API_8_0, "buildTypes", BuildTypeList.class ).get( 10, TimeUnit.SECONDS );
+        } catch ( ExecutionException e ) {
+            // Verify
+            assertThat( e.getCause( ), is( instanceOf( ApiException.class ) ) );
+            assertThat( ( (ApiException) e.getCause( ) ).isDecodingError( ), is( true ) );
+            assertThat( ( (ApiException) e.getCause( ) ).getStatusCode( ), is( Optional.of( 200 ) ) );
+            return;
+        }
+        TestCase.fail( );
+    }
+
+    @Test
+    public void cached_response_is_reused_when_server_answers_not_modified( ) throws Exception {
+        // Setup
+        _server.serve( "buildTypes", ApiResponsePayloads.buildTypes( 20 ), "\"v1\"" );
+        final BuildTypeList first = _requestController.sendRequest( ApiVersion.API_8_0, "buildTypes", BuildTypeList.class ).get( 10, TimeUnit.SECONDS );
+        // Exercise
+        final BuildTypeList second = _requestController.sendRequest( ApiVersion.API_8_0, "buildTypes", BuildTypeList.class ).get( 10, TimeUnit.SECONDS );
+        // Verify
+        assertThat( second, is( sameInstance( first ) ) );
+        assertThat( _responseCache.getNotModifiedCount( ), is( 1L ) );
+        assertThat( _transferStatistics.getResponseCount( "buildTypes" ), is( 1L ) );
+    }
+
+    @Test
+    public void pooled_connection_is_reused_by_next_request( ) throws Exception {
+        // Setup
+        _server.serve( "buildTypes", ApiResponsePayloads.buildTypes( 20 ), null );
+        _requestController.sendRequest( ApiVersion.API_8_0, "buildTypes", BuildTypeList.class ).get( 10, TimeUnit.SECONDS );
+        // Exercise
+        _requestController.sendRequest( ApiVersion.API_8_0, "buildTypes", BuildTypeList.class ).get( 10, TimeUnit.SECONDS );
+        // Verify
+        assertThat( _connectionStatistics.getRequestCount( ), is( 2L ) );
+        assertThat( _connectionStatistics.getHandshakeCount( ), is( 1L ) );
+        assertThat( _connectionStatistics.getInFlightCount( ), is( 0 ) );
+        assertThat( _connectionStatistics.getIdleCount( ), is( 1 ) );
+    }
+
+    @Test
+    public void requests_are_sent_to_new_server_url_when_configuration_changes( ) throws Exception {
+        // Setup
+        _server.serve( "buildTypes", ApiResponsePayloads.buildTypes( 20 ), null );
+        _requestController.sendRequest( ApiVersion.API_8_0, "buildTypes", BuildTypeList.class ).get( 10, TimeUnit.SECONDS );
+        try ( final ApiStubServer otherServer = new ApiStubServer( ) ) {
+            otherServer.serve( "buildTypes", ApiResponsePayloads.buildTypes( 10 ), null );
+            _configuration.setServerUrl( otherServer.getUrl( ) );
+            // Exercise
+            final BuildTypeList buildTypeList = _requestController.sendRequest( ApiVersion.API_8_0, "buildTypes", BuildTypeList.class ).get( 10, TimeUnit.SECONDS );
+            // Verify
+            assertThat( buildTypeList.getBuildTypes( ), hasSize( 10 ) );
+            assertThat( otherServer.getRequestCount( ), is( 1 ) );
+            assertThat( _server.getRequestCount( ), is( 1 ) );
+        }
+    }
+
+    @Test
+    public void unexpected_status_code_is_registered_as_api_exception( ) throws Exception {
+        // Setup
+        // Exercise
+        try {
+            _requestController.sendRequest( ApiVersion.API_8_0, "projects", BuildTypeList.class ).get( 10, TimeUnit.SECONDS );
+        } catch ( ExecutionException e ) {
+            // Verify
+            if ( e.getCause( ).getClass( ) == ApiException.class )
+                return;
+        }
+        TestCase.fail( );
+    }
+
+}
@@ -43,14 +43,14 @@ public class ApiRequestModuleTest {
     }
 
     @Test
-    public void can_inject_ApiRequestController_as_IApiController_in_singleton( ) throws Exception {
+    public void can_inject_CoalescingApiRequestController_as_IApiRequestController_in_singleton( ) throws Exception {
         // Setup
         // Exercise
         final IApiRequestController instance = _injector.getInstance( IApiRequestController.class );
         final IApiRequestController instance2 = _injector.getInstance( IApiRequestController.class );
         // Verify
         assertThat( instance, is( notNullValue( ) ) );
-        assertThat( instance, is( instanceOf( ApiRequestController.class ) ) );
+        assertThat( instance, is( instanceOf( CoalescingApiRequestController.class ) ) );
         assertThat( instance, is( sameInstance( instance2 ) ) );
     }
 
@@ -0,0 +1,80 @@
+/*******************************************************************************
+ * Copyright 2014 Cedric Longo.
+ *
+ * This file is part of Wall-T program.
+ *
+ * Wall-T is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Wall-T is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with Wall-T.
+ * If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package utils.teamcity.wallt.controller.api;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import utils.teamcity.wallt.controller.api.json.BuildList;
+import utils.teamcity.wallt.model.configuration.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares preparation of a request through {@link ApiRequestBuilder} for each request (former path: url formatting,
+ * uri parsing and validation) against a path append on a compiled {@link ApiRequestContext}, checked against configuration
+ * as {@link ApiRequestController} does. Allocation by operation is given by the gc profiler (gc.alloc.rate.norm).
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class ApiRequestPreparationBenchmark {
+
+    private static final String PATH = "builds/?locator=buildType:bt1,running:any,count:3,branch:default:yes";
+
+    private Configuration _configuration;
+    private ApiRequestContext _requestContext;
+
+    @Setup
+    public void setUp( ) {
+        _configuration = new Configuration( );
+        _configuration.setServerUrl( "http://teamcity.example.com:8111" );
+        _configuration.setCredentialsUser( "cedric" );
+        _configuration.setCredentialsPassword( "c3dr1c" );
+        _requestContext = ApiRequestContext.compile( _configuration );
+    }
+
+    @Benchmark
+    public ApiRequest prepareWithBuilder( ) {
+        return ApiRequestBuilder.newRequest( )
+                .to( _configuration.getServerUrl( ) )
+                .forUser( _configuration.getCredentialsUser( ) )
+                .withPassword( _configuration.getCredentialsPassword( ) )
+                .request( PATH )
+                .apiVersion( ApiVersion.API_8_1 )
+                .expecting( BuildList.class )
+                .build( );
+    }
+
+    @Benchmark
+    public ApiRequest prepareWithCompiledContext( ) {
+        _requestContext = ApiRequestContext.upToDate( _requestContext, _configuration );
+        return _requestContext.newRequest( ApiVersion.API_8_1, PATH, BuildList.class );
+    }
+
+    public static void main( final String[] args ) throws RunnerException {
+        new Runner( new OptionsBuilder( )
+                .include( ApiRequestPreparationBenchmark.class.getSimpleName( ) )
+                .addProfiler( GCProfiler.class )
+                .build( ) ).run( );
+    }
+
+}
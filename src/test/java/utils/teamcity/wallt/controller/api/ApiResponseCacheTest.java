@@ -0,0 +1,91 @@
+/*******************************************************************************
+ * Copyright 2014 Cedric Longo.
+ *
+ * This file is part of Wall-T program.
+ *
+ * Wall-T is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Wall-T is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with Wall-T.
+ * If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+
+package utils.teamcity.wallt.controller.api;
+
+import org.junit.Test;
+import utils.teamcity.wallt.controller.api.json.QueuedBuildList;
+
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class ApiResponseCacheTest {
+
+    @Test
+    public void lookup_returns_stored_response_with_its_validators( ) throws Exception {
+        // Setup
+        final ApiResponseCache cache = new ApiResponseCache( );
+        final QueuedBuildList response = new QueuedBuildList( );
+        cache.store( "uri", "\"etag\"", "Thu, 16 Oct 2026 10:00:00 GMT", response, 100 );
+        // Exercise
+        final Optional<ApiResponseCache.CachedResponse> cachedResponse = cache.lookup( "uri" );
+        // Verify
+        assertThat( cachedResponse.isPresent( ), is( true ) );
+        assertThat( cachedResponse.get( ).getResponse( ), is( sameInstance( response ) ) );
+        assertThat( cachedResponse.get( ).getETag( ), is( Optional.of( "\"etag\"" ) ) );
+        assertThat( cachedResponse.get( ).getLastModified( ), is( Optional.of( "Thu, 16 Oct 2026 10:00:00 GMT" ) ) );
+    }
+
+    @Test
+    public void response_without_validator_is_not_stored( ) throws Exception {
+        // Setup
+        final ApiResponseCache cache = new ApiResponseCache( );
+        cache.store( "uri", "\"etag\"", null, new QueuedBuildList( ), 100 );
+        // Exercise
+        cache.store( "uri", null, "", new QueuedBuildList( ), 100 );
+        // Verify
+        assertThat( cache.lookup( "uri" ).isPresent( ), is( false ) );
+        assertThat( cache.size( ), is( 0L ) );
+    }
+
+    @Test
+    public void hit_miss_and_not_modified_rates_are_computed_from_lookups( ) throws Exception {
+        // Setup
+        final ApiResponseCache cache = new ApiResponseCache( );
+        cache.store( "uri", "\"etag\"", null, new QueuedBuildList( ), 100 );
+        // Exercise
+        cache.lookup( "uri" );
+        cache.notModified( );
+        cache.lookup( "uri" );
+        cache.lookup( "other" );
+        cache.lookup( "another" );
+        // Verify
+        assertThat( cache.getHitCount( ), is( 2L ) );
+        assertThat( cache.getMissCount( ), is( 2L ) );
+        assertThat( cache.getNotModifiedCount( ), is( 1L ) );
+        assertThat( cache.getHitRate( ), is( closeTo( 0.5, 0.001 ) ) );
+        assertThat( cache.getNotModifiedRate( ), is( closeTo( 0.5, 0.001 ) ) );
+    }
+
+    @Test
+    public void least_recently_used_responses_are_evicted_when_content_length_exceeds_limit( ) throws Exception {
+        // Setup
+        final ApiResponseCache cache = new ApiResponseCache( 250 );
+        cache.store( "uri1", "\"etag\"", null, new QueuedBuildList( ), 100 );
+        cache.store( "uri2", "\"etag\"", null, new QueuedBuildList( ), 100 );
+        cache.lookup( "uri1" );
+        // Exercise
+        cache.store( "uri3", "\"etag\"", null, new QueuedBuildList( ), 100 );
+        // Verify
+        assertThat( cache.size( ), is( 2L ) );
+        assertThat( cache.lookup( "uri1" ).isPresent( ), is( true ) );
+        assertThat( cache.lookup( "uri2" ).isPresent( ), is( false ) );
+        assertThat( cache.lookup( "uri3" ).isPresent( ), is( true ) );
+    }
+
+}
@@ -0,0 +1,89 @@
+/*******************************************************************************
+ * Copyright 2014 Cedric Longo.
+ *
+ * This file is part of Wall-T program.
+ *
+ * Wall-T is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Wall-T is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with Wall-T.
+ * If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+
+package utils.teamcity.wallt.controller.api;
+
+import com.google.common.base.Charsets;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import utils.teamcity.wallt.controller.api.json.BuildList;
+import utils.teamcity.wallt.controller.api.json.BuildTypeList;
+import utils.teamcity.wallt.controller.api.json.ProjectList;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares decoding of large payloads from a String with a new reflective Gson for each response (former path)
+ * against streaming decoding of the body bytes. Allocation by operation is given by the gc profiler (gc.alloc.rate.norm).
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class ApiResponseDecoderBenchmark {
+
+    @Param( { "buildTypes", "projects", "builds" } )
+    private String _payloadType;
+
+    @Param( { "2000" } )
+    private int _size;
+
+    private byte[] _payload;
+    private Class<? extends ApiResponse> _expectedType;
+
+    @Setup
+    public void setUp( ) {
+        switch ( _payloadType ) {
+            case "buildTypes":
+                _payload = ApiResponsePayloads.buildTypes( _size );
+                _expectedType = BuildTypeList.class;
+                break;
+            case "projects":
+                _payload = ApiResponsePayloads.projects( _size );
+                _expectedType = ProjectList.class;
+                break;
+            default:
+                _payload = ApiResponsePayloads.builds( _size );
+                _expectedType = BuildList.class;
+        }
+    }
+
+    @Benchmark
+    public Object decodeFromString( ) {
+        final String content = new String( _payload, Charsets.UTF_8 );
+        return ApiTypeAdaptersBenchmark.newReflectiveGson( ).fromJson( content, _expectedType );
+    }
+
+    @Benchmark
+    public Object decodeFromStream( ) throws IOException {
+        return ApiResponseDecoder.decode( new ByteArrayInputStream( _payload ), _expectedType );
+    }
+
+    public static void main( final String[] args ) throws RunnerException {
+        new Runner( new OptionsBuilder( )
+                .include( ApiResponseDecoderBenchmark.class.getSimpleName( ) )
+                .addProfiler( GCProfiler.class )
+                .build( ) ).run( );
+    }
+
+}
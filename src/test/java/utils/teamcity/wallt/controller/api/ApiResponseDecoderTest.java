@@ -0,0 +1,92 @@
+/*******************************************************************************
+ * Copyright 2014 Cedric Longo.
+ *
+ * This file is part of Wall-T program.
+ *
+ * Wall-T is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Wall-T is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with Wall-T.
+ * If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+
+package utils.teamcity.wallt.controller.api;
+
+import com.google.common.base.Charsets;
+import org.junit.Test;
+import utils.teamcity.wallt.controller.api.json.*;
+import utils.teamcity.wallt.model.build.BuildState;
+import utils.teamcity.wallt.model.build.BuildStatus;
+
+import java.io.ByteArrayInputStream;
+import java.time.LocalDateTime;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class ApiResponseDecoderTest {
+
+    @Test
+    public void decode_build_type_list_and_skips_unknown_fields( ) throws Exception {
+        // Setup
+        final byte[] payload = ApiResponsePayloads.buildTypes( 25 );
+        // Exercise
+        final BuildTypeList buildTypeList = ApiResponseDecoder.decode( new ByteArrayInputStream( payload ), BuildTypeList.class );
+        // Verify
+        assertThat( buildTypeList.getBuildTypes( ), hasSize( 25 ) );
+        final BuildType buildType = buildTypeList.getBuildTypes( ).get( 12 );
+        assertThat( buildType.getId( ), is( "bt12" ) );
+        assertThat( buildType.getName( ), is( "Build type 12" ) );
+        assertThat( buildType.getProjectId( ), is( "project1" ) );
+        assertThat( buildType.getProjectName( ), is( "Project 1" ) );
+    }
+
+    @Test
+    public void decode_project_list( ) throws Exception {
+        // Setup
+        final byte[] payload = ApiResponsePayloads.projects( 15 );
+        // Exercise
+        final ProjectList projectList = ApiResponseDecoder.decode( new ByteArrayInputStream( payload ), ProjectList.class );
+        // Verify
+        assertThat( projectList.getProjects( ), hasSize( 15 ) );
+        final Project project = projectList.getProjects( ).get( 11 );
+        assertThat( project.getId( ), is( "project11" ) );
+        assertThat( project.getName( ), is( "Project 11" ) );
+        assertThat( project.getParentId( ), is( "project1" ) );
+    }
+
+    @Test
+    public void decode_build_list_with_running_information( ) throws Exception {
+        // Setup
+        final byte[] payload = ApiResponsePayloads.builds( 10 );
+        // Exercise
+        final BuildList buildList = ApiResponseDecoder.decode( new ByteArrayInputStream( payload ), BuildList.class );
+        // Verify
+        assertThat( buildList.getBuilds( ), hasSize( 10 ) );
+        final Build running = buildList.getBuilds( ).get( 5 );
+        assertThat( running.getId( ), is( 10005 ) );
+        assertThat( running.isRunning( ), is( true ) );
+        assertThat( running.getState( ), is( BuildState.running ) );
+        assertThat( running.getRunningInformation( ).getPercentageComplete( ), is( 42 ) );
+        assertThat( running.getRunningInformation( ).getElapsedTime( ), is( 120 ) );
+        assertThat( running.getRunningInformation( ).getEstimatedTotalTime( ), is( 300 ) );
+        final Build finished = buildList.getBuilds( ).get( 7 );
+        assertThat( finished.getStatus( ), is( BuildStatus.FAILURE ) );
+        assertThat( finished.getFinishDate( ), is( LocalDateTime.of( 2026, 10, 16, 11, 7 ) ) );
+    }
+
+    @Test
+    public void decode_non_ascii_content( ) throws Exception {
+        // Setup
+        final byte[] payload = "{\"project\":[{\"id\":\"p\",\"name\":\"Int\u00e9gration continue \u2713\"}]}".getBytes( Charsets.UTF_8 );
+        // Exercise
+        final ProjectList projectList = ApiResponseDecoder.decode( new ByteArrayInputStream( payload ), ProjectList.class );
+        // Verify
+        assertThat( projectList.getProjects( ).get( 0 ).getName( ), is( "Int\u00e9gration continue \u2713" ) );
+    }
+
+}
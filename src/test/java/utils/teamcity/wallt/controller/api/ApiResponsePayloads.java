@@ -0,0 +1,82 @@
+/*******************************************************************************
+ * Copyright 2014 Cedric Longo.
+ *
+ * This file is part of Wall-T program.
+ *
+ * Wall-T is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Wall-T is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with Wall-T.
+ * If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+
+package utils.teamcity.wallt.controller.api;
+
+import com.google.common.base.Charsets;
+
+/**
+ * Builds TeamCity-like json payloads, with the unused fields sent by the server, for decoding tests and benchmarks.
+ */
+final class ApiResponsePayloads {
+
+    private ApiResponsePayloads( ) {
+    }
+
+    static byte[] buildTypes( final int count ) {
+        final StringBuilder json = new StringBuilder( "{\"count\":" ).append( count ).append( ",\"href\":\"/guestAuth/app/rest/buildTypes\",\"buildType\":[" );
+        for ( int i = 0; i < count; i++ ) {
+            if ( i > 0 ) json.append( ',' );
+            json.append( "{\"id\":\"bt" ).append( i )
+                    .append( "\",\"name\":\"Build type " ).append( i )
+                    .append( "\",\"projectName\":\"Project " ).append( i / 10 )
+                    .append( "\",\"projectId\":\"project" ).append( i / 10 )
+                    .append( "\",\"href\":\"/guestAuth/app/rest/buildTypes/id:bt" ).append( i )
+                    .append( "\",\"webUrl\":\"http://teamcity/viewType.html?buildTypeId=bt" ).append( i )
+                    .append( "\",\"description\":\"Compiles, tests and packages the module " ).append( i ).append( "\"}" );
+        }
+        return json.append( "]}" ).toString( ).getBytes( Charsets.UTF_8 );
+    }
+
+    static byte[] projects( final int count ) {
+        final StringBuilder json = new StringBuilder( "{\"count\":" ).append( count ).append( ",\"href\":\"/guestAuth/app/rest/projects\",\"project\":[" );
+        for ( int i = 0; i < count; i++ ) {
+            if ( i > 0 ) json.append( ',' );
+            json.append( "{\"id\":\"project" ).append( i )
+                    .append( "\",\"name\":\"Project " ).append( i )
+                    .append( "\",\"parentProjectId\":\"" ).append( i == 0 ? "_Root" : "project" + ( i - 1 ) / 10 )
+                    .append( "\",\"description\":\"All modules of project " ).append( i )
+                    .append( "\",\"href\":\"/guestAuth/app/rest/projects/id:project" ).append( i )
+                    .append( "\",\"webUrl\":\"http://teamcity/project.html?projectId=project" ).append( i ).append( "\"}" );
+        }
+        return json.append( "]}" ).toString( ).getBytes( Charsets.UTF_8 );
+    }
+
+    static byte[] builds( final int count ) {
+        final StringBuilder json = new StringBuilder( "{\"count\":" ).append( count ).append( ",\"href\":\"/guestAuth/app/rest/builds\",\"build\":[" );
+        for ( int i = 0; i < count; i++ ) {
+            if ( i > 0 ) json.append( ',' );
+            final boolean running = i % 5 == 0;
+            json.append( "{\"id\":" ).append( 10000 + i )
+                    .append( ",\"buildTypeId\":\"bt" ).append( i % 50 )
+                    .append( "\",\"number\":\"" ).append( 1000 + i )
+                    .append( "\",\"status\":\"" ).append( i % 7 == 0 ? "FAILURE" : "SUCCESS" )
+                    .append( "\",\"state\":\"" ).append( running ? "running" : "finished" )
+                    .append( "\",\"running\":" ).append( running )
+                    .append( ",\"branchName\":\"master\",\"defaultBranch\":true" )
+                    .append( ",\"href\":\"/guestAuth/app/rest/builds/id:" ).append( 10000 + i )
+                    .append( "\",\"webUrl\":\"http://teamcity/viewLog.html?buildId=" ).append( 10000 + i )
+                    .append( "\",\"startDate\":\"20261016T10" ).append( String.format( "%02d", i % 60 ) ).append( "00+0200\"" );
+            if ( running )
+                json.append( ",\"running-info\":{\"percentageComplete\":42,\"elapsedSeconds\":120,\"estimatedTotalSeconds\":300,\"currentStageText\":\"Running tests\",\"outdated\":false,\"probablyHanging\":false}" );
+            else
+                json.append( ",\"finishDate\":\"20261016T11" ).append( String.format( "%02d", i % 60 ) ).append( "00+0200\"" );
+            json.append( ",\"statistics\":{\"href\":\"/guestAuth/app/rest/builds/id:" ).append( 10000 + i ).append( "/statistics\"},\"tags\":{\"tag\":[\"nightly\",\"release\"]}}" );
+        }
+        return json.append( "]}" ).toString( ).getBytes( Charsets.UTF_8 );
+    }
+
+}
@@ -0,0 +1,148 @@
+/*******************************************************************************
+ * Copyright 2014 Cedric Longo.
+ *
+ * This file is part of Wall-T program.
+ *
+ * Wall-T is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Wall-T is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with Wall-T.
+ * If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+
+package utils.teamcity.wallt.controller.api;
+
+import com.google.common.collect.Maps;
+import com.google.common.net.HttpHeaders;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import static com.google.common.base.Strings.nullToEmpty;
+
+/**
+ * Local http server answering api requests with fixed payloads, gzip compressed when accepted by client.
+ * Bandwidth by response can be limited to behave like a slow proxy.
+ */
+final class ApiStubServer implements AutoCloseable {
+
+    private static final int CHUNK_SIZE = 4096;
+
+    private final HttpServer _server;
+    private final ExecutorService _executor = Executors.newCachedThreadPool( );
+    private final Map<String, Payload> _payloads = Maps.newConcurrentMap( );
+    private final AtomicInteger _requestCount = new AtomicInteger( );
+    private volatile int _bytesPerSecond;
+
+    ApiStubServer( ) throws IOException {
+        _server = HttpServer.create( new InetSocketAddress( "localhost", 0 ), 0 );
+        _server.setExecutor( _executor );
+        _server.createContext( "/", this::handle );
+        _server.start( );
+    }
+
+    String getUrl( ) {
+        return "http://localhost:" + _server.getAddress( ).getPort( );
+    }
+
+    /**
+     * Serves payload to every request whose api path (after the version) starts with the prefix
+     */
+    void serve( final String pathPrefix, final byte[] content, final String eTag ) throws IOException {
+        _payloads.put( pathPrefix, new Payload( content, eTag ) );
+    }
+
+    void limitBandwidth( final int bytesPerSecond ) {
+        _bytesPerSecond = bytesPerSecond;
+    }
+
+    int getRequestCount( ) {
+        return _requestCount.get( );
+    }
+
+    @Override
+    public void close( ) {
+        _server.stop( 0 );
+        _executor.shutdownNow( );
+    }
+
+    private void handle( final HttpExchange exchange ) throws IOException {
+        _requestCount.incrementAndGet( );
+        try {
+            final String path = exchange.getRequestURI( ).getRawPath( ).replaceFirst( "^/[^/]+/app/rest/[^/]+/", "" );
+            final Payload payload = _payloads.entrySet( ).stream( )
+                    .filter( e -> path.startsWith( e.getKey( ) ) )
+                    .map( Map.Entry::getValue )
+                    .findFirst( ).orElse( null );
+            if ( payload == null ) {
+                exchange.sendResponseHeaders( 404, -1 );
+                return;
+            }
+
+            if ( payload._eTag != null ) {
+                exchange.getResponseHeaders( ).set( HttpHeaders.ETAG, payload._eTag );
+                if ( payload._eTag.equals( exchange.getRequestHeaders( ).getFirst( HttpHeaders.IF_NONE_MATCH ) ) ) {
+                    exchange.sendResponseHeaders( 304, -1 );
+                    return;
+                }
+            }
+
+            final boolean gzip = nullToEmpty( exchange.getRequestHeaders( ).getFirst( HttpHeaders.ACCEPT_ENCODING ) ).contains( "gzip" );
+            final byte[] body = gzip ? payload._gzipContent : payload._content;
+            exchange.getResponseHeaders( ).set( HttpHeaders.CONTENT_TYPE, "application/json" );
+            if ( gzip )
+                exchange.getResponseHeaders( ).set( HttpHeaders.CONTENT_ENCODING, "gzip" );
+            exchange.sendResponseHeaders( 200, body.length );
+            write( exchange.getResponseBody( ), body );
+        } finally {
+            exchange.close( );
+        }
+    }
+
+    private void write( final OutputStream out, final byte[] body ) throws IOException {
+        for ( int offset = 0; offset < body.length; offset += CHUNK_SIZE ) {
+            final int length = Math.min( CHUNK_SIZE, body.length - offset );
+            out.write( body, offset, length );
+            out.flush( );
+            final int bytesPerSecond = _bytesPerSecond;
+            if ( bytesPerSecond > 0 ) {
+                try {
+                    Thread.sleep( length * 1000L / bytesPerSecond );
+                } catch ( InterruptedException e ) {
+                    Thread.currentThread( ).interrupt( );
+                    return;
+                }
+            }
+        }
+    }
+
+    private static final class Payload {
+
+        private final byte[] _content;
+        private final byte[] _gzipContent;
+        private final String _eTag;
+
+        Payload( final byte[] content, final String eTag ) throws IOException {
+            _content = content;
+            _eTag = eTag;
+            final ByteArrayOutputStream compressed = new ByteArrayOutputStream( );
+            try ( final GZIPOutputStream gzip = new GZIPOutputStream( compressed ) ) {
+                gzip.write( content );
+            }
+            _gzipContent = compressed.toByteArray( );
+        }
+    }
+}
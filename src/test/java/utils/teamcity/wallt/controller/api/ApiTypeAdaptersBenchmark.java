@@ -0,0 +1,121 @@
+/*******************************************************************************
+ * Copyright 2014 Cedric Longo.
+ *
+ * This file is part of Wall-T program.
+ *
+ * Wall-T is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Wall-T is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with Wall-T.
+ * If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+
+package utils.teamcity.wallt.controller.api;
+
+import com.google.common.base.Charsets;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import utils.teamcity.wallt.controller.api.json.ApiTypeAdapters;
+import utils.teamcity.wallt.controller.api.json.BuildList;
+import utils.teamcity.wallt.controller.api.json.BuildTypeList;
+import utils.teamcity.wallt.controller.api.json.ProjectList;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.time.OffsetDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares reflective binding, paying dates parsing by formatter as former getters did, against {@link ApiTypeAdapters}
+ * by payload size, both decoding from the body stream. Allocation by operation is given by the gc profiler (gc.alloc.rate.norm).
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class ApiTypeAdaptersBenchmark {
+
+    @Param( { "buildTypes", "projects", "builds" } )
+    private String _payloadType;
+
+    @Param( { "10", "100", "1000", "10000" } )
+    private int _size;
+
+    private final Gson _reflectiveGson = newReflectiveGson( );
+    private final Gson _adaptersGson = ApiTypeAdapters.registerAll( new GsonBuilder( ) ).create( );
+
+    private byte[] _payload;
+    private Class<? extends ApiResponse> _expectedType;
+
+    /**
+     * Reflective binding can't decode dates with their offset by itself: only dates are read by an adapter, parsing with the formatter
+     */
+    static Gson newReflectiveGson( ) {
+        return new GsonBuilder( ).registerTypeAdapter( OffsetDateTime.class, new TypeAdapter<OffsetDateTime>( ) {
+            @Override
+            public void write( final JsonWriter out, final OffsetDateTime value ) throws IOException {
+                out.value( value == null ? null : value.toString( ) );
+            }
+
+            @Override
+            public OffsetDateTime read( final JsonReader in ) throws IOException {
+                if ( in.peek( ) == JsonToken.NULL ) {
+                    in.nextNull( );
+                    return null;
+                }
+                return OffsetDateTime.parse( in.nextString( ), ApiUtils.DATE_TIME_FORMATTER );
+            }
+        } ).create( );
+    }
+
+    @Setup
+    public void setUp( ) {
+        switch ( _payloadType ) {
+            case "buildTypes":
+                _payload = ApiResponsePayloads.buildTypes( _size );
+                _expectedType = BuildTypeList.class;
+                break;
+            case "projects":
+                _payload = ApiResponsePayloads.projects( _size );
+                _expectedType = ProjectList.class;
+                break;
+            default:
+                _payload = ApiResponsePayloads.builds( _size );
+                _expectedType = BuildList.class;
+        }
+    }
+
+    @Benchmark
+    public Object decodeWithReflection( ) {
+        return _reflectiveGson.fromJson( new JsonReader( new InputStreamReader( new ByteArrayInputStream( _payload ), Charsets.UTF_8 ) ), _expectedType );
+    }
+
+    @Benchmark
+    public Object decodeWithAdapters( ) {
+        return _adaptersGson.fromJson( new JsonReader( new InputStreamReader( new ByteArrayInputStream( _payload ), Charsets.UTF_8 ) ), _expectedType );
+    }
+
+    public static void main( final String[] args ) throws RunnerException {
+        new Runner( new OptionsBuilder( )
+                .include( ApiTypeAdaptersBenchmark.class.getSimpleName( ) )
+                .addProfiler( GCProfiler.class )
+                .build( ) ).run( );
+    }
+
+}
@@ -18,6 +18,10 @@ package utils.teamcity.wallt.controller.api;
 import org.junit.Test;
 
 import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
@@ -38,4 +42,42 @@ public class ApiUtilsTest {
         // Verify
         assertThat( date, is( expectedDate ) );
     }
+
+    @Test
+    public void date_is_parsed_with_server_offset( ) throws Exception {
+        // Setup
+        final OffsetDateTime expectedDate = OffsetDateTime.of( 1985, 8, 29, 7, 30, 2, 0, ZoneOffset.ofHours( 4 ) );
+        // Exercise
+        final OffsetDateTime date = ApiUtils.parseDateTime( "19850829T073002+0400" );
+        // Verify
+        assertThat( date, is( expectedDate ) );
+    }
+
+    @Test
+    public void date_with_negative_offset_is_parsed( ) throws Exception {
+        // Setup
+        final OffsetDateTime expectedDate = OffsetDateTime.of( 2026, 1, 1, 23, 59, 59, 0, ZoneOffset.ofHoursMinutes( -5, -30 ) );
+        // Exercise
+        final OffsetDateTime date = ApiUtils.parseDateTime( "20260101T235959-0530" );
+        // Verify
+        assertThat( date, is( expectedDate ) );
+    }
+
+    @Test( expected = DateTimeParseException.class )
+    public void invalid_date_is_rejected( ) throws Exception {
+        // Setup
+        // Exercise
+        ApiUtils.parseDateTime( "20261316T100000+0200" );
+        // Verify
+    }
+
+    @Test
+    public void date_without_offset_is_parsed_in_system_default_zone( ) throws Exception {
+        // Setup
+        final OffsetDateTime expectedDate = LocalDateTime.of( 1985, 8, 29, 7, 30, 2 ).atZone( ZoneId.systemDefault( ) ).toOffsetDateTime( );
+        // Exercise
+        final OffsetDateTime date = ApiUtils.parseDateTime( "19850829T073002" );
+        // Verify
+        assertThat( date, is( expectedDate ) );
+    }
 }
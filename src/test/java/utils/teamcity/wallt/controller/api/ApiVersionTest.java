@@ -57,6 +57,16 @@ public class ApiVersionTest {
         assertThat( ApiVersion.API_8_0.isSupported( ApiFeature.QUEUE_STATUS ), is( false ) );
         assertThat( ApiVersion.API_8_1.isSupported( ApiFeature.QUEUE_STATUS ), is( true ) );
         assertThat( ApiVersion.API_8_0.isSupported( ApiFeature.QUEUE_STATUS, ApiFeature.BUILD_TYPE_STATUS ), is( false ) );
+        assertThat( ApiVersion.API_8_0.isSupported( ApiFeature.BULK_BUILD_STATUS ), is( false ) );
+        assertThat( ApiVersion.API_8_1.isSupported( ApiFeature.BULK_BUILD_STATUS ), is( true ) );
+        assertThat( ApiVersion.API_8_0.isSupported( ApiFeature.FIELD_SELECTION ), is( false ) );
+        assertThat( ApiVersion.API_8_1.isSupported( ApiFeature.FIELD_SELECTION ), is( true ) );
+        assertThat( ApiVersion.API_8_0.isSupported( ApiFeature.BUILD_DELTA ), is( false ) );
+        assertThat( ApiVersion.API_8_1.isSupported( ApiFeature.BUILD_DELTA ), is( true ) );
+        assertThat( ApiVersion.API_8_0.isSupported( ApiFeature.SCOPED_DISCOVERY ), is( false ) );
+        assertThat( ApiVersion.API_8_1.isSupported( ApiFeature.SCOPED_DISCOVERY ), is( true ) );
+        assertThat( ApiVersion.API_8_0.isSupported( ApiFeature.PAGED_CATALOGUE ), is( false ) );
+        assertThat( ApiVersion.API_8_1.isSupported( ApiFeature.PAGED_CATALOGUE ), is( true ) );
     }
 
     @Test
@@ -0,0 +1,132 @@
+/*******************************************************************************
+ * Copyright 2014 Cedric Longo.
+ *
+ * This file is part of Wall-T program.
+ *
+ * Wall-T is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Wall-T is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with Wall-T.
+ * If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package utils.teamcity.wallt.controller.api;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class CircuitBreakerTest {
+
+    private static final Instant NOW = Instant.parse( "2026-10-16T10:00:00Z" );
+
+    private CircuitBreaker _circuit;
+
+    @Before
+    public void setUp( ) throws Exception {
+        _circuit = new CircuitBreaker( "server", 2, new Backoff( Duration.ofSeconds( 10 ), Duration.ofSeconds( 30 ), ( ) -> 1 ) );
+    }
+
+    @Test
+    public void circuit_opens_after_consecutive_failures( ) throws Exception {
+        // Setup
+        _circuit.onFailure( NOW );
+        assertThat( _circuit.getState( ), is( CircuitState.CLOSED ) );
+        // Exercise
+        _circuit.onFailure( NOW );
+        // Verify
+        assertThat( _circuit.getState( ), is( CircuitState.OPEN ) );
+        assertThat( _circuit.tryAcquire( NOW.plusSeconds( 9 ) ), is( false ) );
+    }
+
+    @Test
+    public void success_resets_failure_count( ) throws Exception {
+        // Setup
+        _circuit.onFailure( NOW );
+        // Exercise
+        _circuit.onSuccess( );
+        _circuit.onFailure( NOW );
+        // Verify
+        assertThat( _circuit.getState( ), is( CircuitState.CLOSED ) );
+    }
+
+    @Test
+    public void a_single_probe_is_allowed_at_retry_time( ) throws Exception {
+        // Setup
+        _circuit.onFailure( NOW );
+        _circuit.onFailure( NOW );
+        // Exercise
+        final boolean probe = _circuit.tryAcquire( NOW.plusSeconds( 10 ) );
+        final boolean other = _circuit.tryAcquire( NOW.plusSeconds( 10 ) );
+        // Verify
+        assertThat( probe, is( true ) );
+        assertThat( other, is( false ) );
+        assertThat( _circuit.getState( ), is( CircuitState.HALF_OPEN ) );
+    }
+
+    @Test
+    public void successful_probe_closes_circuit( ) throws Exception {
+        // Setup
+        _circuit.onFailure( NOW );
+        _circuit.onFailure( NOW );
+        _circuit.tryAcquire( NOW.plusSeconds( 10 ) );
+        // Exercise
+        _circuit.onSuccess( );
+        // Verify
+        assertThat( _circuit.getState( ), is( CircuitState.CLOSED ) );
+        assertThat( _circuit.tryAcquire( NOW.plusSeconds( 10 ) ), is( true ) );
+    }
+
+    @Test
+    public void failed_probe_reopens_circuit_with_doubled_delay_up_to_max( ) throws Exception {
+        // Setup
+        _circuit.onFailure( NOW );
+        _circuit.onFailure( NOW );
+        final Instant firstProbe = NOW.plusSeconds( 10 );
+        _circuit.tryAcquire( firstProbe );
+        // Exercise
+        _circuit.onFailure( firstProbe );
+        final Instant secondRetryTime = _circuit.getRetryTime( );
+        _circuit.tryAcquire( secondRetryTime );
+        _circuit.onFailure( secondRetryTime );
+        // Verify
+        assertThat( secondRetryTime, is( firstProbe.plusSeconds( 20 ) ) );
+        assertThat( _circuit.getRetryTime( ), is( secondRetryTime.plusSeconds( 30 ) ) );
+        assertThat( _circuit.getState( ), is( CircuitState.OPEN ) );
+    }
+
+    @Test
+    public void ignored_probe_outcome_lets_next_request_probe( ) throws Exception {
+        // Setup
+        _circuit.onFailure( NOW );
+        _circuit.onFailure( NOW );
+        _circuit.tryAcquire( NOW.plusSeconds( 10 ) );
+        // Exercise
+        _circuit.onIgnored( );
+        // Verify
+        assertThat( _circuit.getState( ), is( CircuitState.OPEN ) );
+        assertThat( _circuit.tryAcquire( NOW.plusSeconds( 10 ) ), is( true ) );
+    }
+
+    @Test
+    public void backoff_delay_is_jittered_between_half_and_full_delay( ) throws Exception {
+        // Setup
+        final Backoff lowest = new Backoff( Duration.ofSeconds( 10 ), Duration.ofMinutes( 1 ), ( ) -> 0 );
+        final Backoff highest = new Backoff( Duration.ofSeconds( 10 ), Duration.ofMinutes( 1 ), ( ) -> 1 );
+        // Exercise
+        // Verify
+        assertThat( lowest.delay( 1 ), is( Duration.ofSeconds( 5 ) ) );
+        assertThat( highest.delay( 1 ), is( Duration.ofSeconds( 10 ) ) );
+        assertThat( lowest.delay( 3 ), is( Duration.ofSeconds( 20 ) ) );
+        assertThat( highest.delay( 3 ), is( Duration.ofSeconds( 40 ) ) );
+        assertThat( highest.delay( 50 ), is( Duration.ofMinutes( 1 ) ) );
+    }
+}
@@ -0,0 +1,167 @@
+/*******************************************************************************
+ * Copyright 2014 Cedric Longo.
+ *
+ * This file is part of Wall-T program.
+ *
+ * Wall-T is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Wall-T is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with Wall-T.
+ * If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package utils.teamcity.wallt.controller.api;
+
+import com.google.common.eventbus.EventBus;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import junit.framework.TestCase;
+import org.hamcrest.Matchers;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import utils.teamcity.wallt.controller.api.json.Build;
+import utils.teamcity.wallt.controller.api.json.ProjectList;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.ExecutionException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+
+public class CircuitBreakingApiRequestControllerTest {
+
+    private IApiRequestController _delegate;
+    private EventBus _eventBus;
+    private SettableClock _clock;
+    private CircuitBreakingApiRequestController _requestController;
+
+    @Before
+    public void setUp( ) throws Exception {
+        _delegate = mock( IApiRequestController.class );
+        _eventBus = mock( EventBus.class );
+        _clock = new SettableClock( Instant.parse( "2026-10-16T10:00:00Z" ) );
+        _requestController = new CircuitBreakingApiRequestController( _delegate, _eventBus, _clock, new Backoff( Duration.ofSeconds( 10 ), Duration.ofMinutes( 5 ), ( ) -> 1 ) );
+    }
+
+    @Test
+    public void requests_fail_fast_while_server_circuit_is_open( ) throws Exception {
+        // Setup
+        when( _delegate.sendRequest( Mockito.any( ApiVersion.class ), anyString( ), Mockito.<Class<ApiResponse>>any( ), Mockito.any( ApiRequestPriority.class ) ) )
+                .thenReturn( Futures.immediateFailedFuture( new IOException( "Connection refused" ) ) );
+        for ( int i = 0; i < CircuitBreakingApiRequestController.FAILURE_THRESHOLD; i++ )
+            _requestController.sendRequest( ApiVersion.API_8_1, "builds/id:" + i, Build.class );
+        // Exercise
+        final ListenableFuture<ProjectList> rejected = _requestController.sendRequest( ApiVersion.API_8_1, "projects", ProjectList.class );
+        // Verify
+        verify( _delegate, times( CircuitBreakingApiRequestController.FAILURE_THRESHOLD ) ).sendRequest( Mockito.any( ApiVersion.class ), anyString( ), Mockito.<Class<ApiResponse>>any( ), Mockito.any( ApiRequestPriority.class ) );
+        assertThat( _requestController.getStatus( ).getState( CircuitBreakingApiRequestController.SERVER_CIRCUIT ), is( CircuitState.OPEN ) );
+        try {
+            rejected.get( );
+        } catch ( ExecutionException e ) {
+            assertThat( e.getCause( ), is( instanceOf( ApiException.class ) ) );
+            return;
+        }
+        TestCase.fail( );
+    }
+
+    @Test
+    public void server_errors_open_only_the_endpoint_circuit( ) throws Exception {
+        // Setup
+        when( _delegate.sendRequest( Mockito.any( ApiVersion.class ), anyString( ), Mockito.<Class<ApiResponse>>any( ), Mockito.any( ApiRequestPriority.class ) ) )
+                .thenReturn( Futures.immediateFailedFuture( new ApiException( "Internal error", 500 ) ) );
+        // Exercise
+        for ( int i = 0; i < CircuitBreakingApiRequestController.FAILURE_THRESHOLD; i++ )
+            _requestController.sendRequest( ApiVersion.API_8_1, "builds/id:" + i, Build.class );
+        _requestController.sendRequest( ApiVersion.API_8_1, "projects", ProjectList.class );
+        // Verify
+        final ApiCircuitStatus status = _requestController.getStatus( );
+        assertThat( status.getState( "builds" ), is( CircuitState.OPEN ) );
+        assertThat( status.getState( CircuitBreakingApiRequestController.SERVER_CIRCUIT ), is( CircuitState.CLOSED ) );
+        assertThat( status.getDegradedCircuits( ), Matchers.contains( "builds" ) );
+        verify( _delegate ).sendRequest( ApiVersion.API_8_1, "projects", ProjectList.class, ApiRequestPriority.HIGH );
+    }
+
+    @Test
+    public void decoding_errors_open_only_the_endpoint_circuit( ) throws Exception {
+        // Setup
+        when( _delegate.sendRequest( Mockito.any( ApiVersion.class ), anyString( ), Mockito.<Class<ApiResponse>>any( ), Mockito.any( ApiRequestPriority.class ) ) )
+                .thenReturn( Futures.immediateFailedFuture( ApiException.decodingError( "Malformed json", 200, new IllegalStateException( "Unexpected test exception" ) ) ) );
+        // Exercise
+        for ( int i = 0; i < CircuitBreakingApiRequestController.FAILURE_THRESHOLD; i++ )
+            _requestController.sendRequest( ApiVersion.API_8_1, "builds/id:" + i, Build.class );
+        // Verify
+        final ApiCircuitStatus status = _requestController.getStatus( );
+        assertThat( status.getState( "builds" ), is( CircuitState.OPEN ) );
+        assertThat( status.getState( CircuitBreakingApiRequestController.SERVER_CIRCUIT ), is( CircuitState.CLOSED ) );
+    }
+
+    @Test
+    public void client_errors_do_not_open_circuits( ) throws Exception {
+        // Setup
+        when( _delegate.sendRequest( Mockito.any( ApiVersion.class ), anyString( ), Mockito.<Class<ApiResponse>>any( ), Mockito.any( ApiRequestPriority.class ) ) )
+                .thenReturn( Futures.immediateFailedFuture( new ApiException( "Not found", 404 ) ) );
+        // Exercise
+        for ( int i = 0; i < CircuitBreakingApiRequestController.FAILURE_THRESHOLD; i++ )
+            _requestController.sendRequest( ApiVersion.API_8_1, "builds/id:" + i, Build.class );
+        // Verify
+        assertThat( _requestController.getStatus( ).isDegraded( ), is( false ) );
+    }
+
+    @Test
+    public void successful_probe_closes_server_circuit_and_posts_status( ) throws Exception {
+        // Setup
+        when( _delegate.sendRequest( Mockito.any( ApiVersion.class ), anyString( ), Mockito.<Class<ApiResponse>>any( ), Mockito.any( ApiRequestPriority.class ) ) )
+                .thenReturn( Futures.immediateFailedFuture( new IOException( "Connection refused" ) ) );
+        for ( int i = 0; i < CircuitBreakingApiRequestController.FAILURE_THRESHOLD; i++ )
+            _requestController.sendRequest( ApiVersion.API_8_1, "builds/id:" + i, Build.class );
+        when( _delegate.sendRequest( Mockito.any( ApiVersion.class ), anyString( ), Mockito.<Class<ApiResponse>>any( ), Mockito.any( ApiRequestPriority.class ) ) )
+                .thenReturn( Futures.immediateFuture( new Build( ) ) );
+        // Exercise
+        _clock.setInstant( _clock.instant( ).plusSeconds( 10 ) );
+        _requestController.sendRequest( ApiVersion.API_8_1, "builds/id:1", Build.class );
+        // Verify
+        final ArgumentCaptor<ApiCircuitStatus> posted = ArgumentCaptor.forClass( ApiCircuitStatus.class );
+        verify( _eventBus, atLeastOnce( ) ).post( posted.capture( ) );
+        assertThat( posted.getAllValues( ).get( 0 ).isDegraded( ), is( true ) );
+        assertThat( posted.getValue( ).isDegraded( ), is( false ) );
+    }
+
+    private static final class SettableClock extends Clock {
+
+        private Instant _instant;
+
+        SettableClock( final Instant instant ) {
+            _instant = instant;
+        }
+
+        void setInstant( final Instant instant ) {
+            _instant = instant;
+        }
+
+        @Override
+        public ZoneId getZone( ) {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone( final ZoneId zone ) {
+            return this;
+        }
+
+        @Override
+        public Instant instant( ) {
+            return _instant;
+        }
+    }
+}
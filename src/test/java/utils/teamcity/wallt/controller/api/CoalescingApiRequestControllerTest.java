@@ -0,0 +1,248 @@
+/*******************************************************************************
+ * Copyright 2014 Cedric Longo.
+ *
+ * This file is part of Wall-T program.
+ *
+ * Wall-T is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Wall-T is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with Wall-T.
+ * If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+
+package utils.teamcity.wallt.controller.api;
+
+import junit.framework.TestCase;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import utils.teamcity.wallt.controller.api.json.Build;
+import utils.teamcity.wallt.controller.api.json.BuildList;
+import utils.teamcity.wallt.model.configuration.Configuration;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+
+public class CoalescingApiRequestControllerTest {
+
+    private IApiRequestController _delegate;
+    private Configuration _configuration;
+    private SettableClock _clock;
+    private CoalescingApiRequestController _requestController;
+
+    @Before
+    public void setUp( ) throws Exception {
+        _delegate = mock( IApiRequestController.class );
+        _configuration = new Configuration( );
+        _clock = new SettableClock( Instant.parse( "2026-10-16T10:00:00Z" ) );
+        _requestController = new CoalescingApiRequestController( _delegate, _configuration, mock( ScheduledExecutorService.class ), _clock );
+    }
+
+    @Test
+    public void concurrent_identical_requests_share_one_request( ) throws Exception {
+        // Setup
+        final SettableFuture<Build> response = SettableFuture.create( );
+        when( _delegate.sendRequest( ApiVersion.API_8_1, "builds/id:1", Build.class, ApiRequestPriority.HIGH ) ).thenReturn( response );
+        // Exercise
+        final ListenableFuture<Build> first = _requestController.sendRequest( ApiVersion.API_8_1, "builds/id:1", Build.class );
+        final ListenableFuture<Build> second = _requestController.sendRequest( ApiVersion.API_8_1, "builds/id:1", Build.class );
+        final Build build = new Build( );
+        response.set( build );
+        // Verify
+        verify( _delegate, times( 1 ) ).sendRequest( ApiVersion.API_8_1, "builds/id:1", Build.class, ApiRequestPriority.HIGH );
+        assertThat( first.get( ), is( sameInstance( build ) ) );
+        assertThat( second.get( ), is( sameInstance( build ) ) );
+        assertThat( _requestController.getRequestCount( ), is( 2L ) );
+        assertThat( _requestController.getCoalescedCount( ), is( 1L ) );
+    }
+
+    @Test
+    public void different_requests_are_not_coalesced( ) throws Exception {
+        // Setup
+        when( _delegate.sendRequest( Mockito.any( ApiVersion.class ), anyString( ), Mockito.<Class<ApiResponse>>any( ), Mockito.any( ApiRequestPriority.class ) ) ).thenReturn( SettableFuture.create( ) );
+        // Exercise
+        _requestController.sendRequest( ApiVersion.API_8_1, "builds/id:1", Build.class );
+        _requestController.sendRequest( ApiVersion.API_8_1, "builds/id:2", Build.class );
+        _requestController.sendRequest( ApiVersion.API_8_0, "builds/id:1", Build.class );
+        _requestController.sendRequest( ApiVersion.API_8_1, "builds/id:1", BuildList.class );
+        // Verify
+        verify( _delegate, times( 4 ) ).sendRequest( Mockito.any( ApiVersion.class ), anyString( ), Mockito.<Class<ApiResponse>>any( ), Mockito.any( ApiRequestPriority.class ) );
+        assertThat( _requestController.getCoalescedCount( ), is( 0L ) );
+    }
+
+    @Test
+    public void identical_requests_to_another_server_or_with_other_credentials_are_not_coalesced( ) throws Exception {
+        // Setup
+        when( _delegate.sendRequest( ApiVersion.API_8_1, "builds/id:1", Build.class, ApiRequestPriority.HIGH ) ).thenReturn( SettableFuture.create( ) );
+        _configuration.setServerUrl( "http://server1:8080" );
+        _configuration.setCredentialsUser( "user1" );
+        _requestController.sendRequest( ApiVersion.API_8_1, "builds/id:1", Build.class );
+        // Exercise
+        _configuration.setCredentialsUser( "user2" );
+        _requestController.sendRequest( ApiVersion.API_8_1, "builds/id:1", Build.class );
+        _configuration.setServerUrl( "http://server2:8080" );
+        _requestController.sendRequest( ApiVersion.API_8_1, "builds/id:1", Build.class );
+        // Verify
+        verify( _delegate, times( 3 ) ).sendRequest( ApiVersion.API_8_1, "builds/id:1", Build.class, ApiRequestPriority.HIGH );
+        assertThat( _requestController.getCoalescedCount( ), is( 0L ) );
+    }
+
+    @Test
+    public void sweep_removes_shared_responses_whose_ttl_has_expired( ) throws Exception {
+        // Setup
+        _configuration.setSharedResponseTtlInMillis( 500 );
+        final SettableFuture<Build> response = SettableFuture.create( );
+        when( _delegate.sendRequest( ApiVersion.API_8_1, "builds/id:1", Build.class, ApiRequestPriority.HIGH ) ).thenReturn( response );
+        when( _delegate.sendRequest( ApiVersion.API_8_1, "builds/id:2", Build.class, ApiRequestPriority.HIGH ) ).thenReturn( SettableFuture.create( ) );
+        _requestController.sendRequest( ApiVersion.API_8_1, "builds/id:1", Build.class );
+        _requestController.sendRequest( ApiVersion.API_8_1, "builds/id:2", Build.class );
+        response.set( new Build( ) );
+        // Exercise
+        _clock.setInstant( Instant.parse( "2026-10-16T10:00:00.400Z" ) );
+        _requestController.sweep( );
+        final int countBeforeExpiry = _requestController.getSharedResponseCount( );
+        _clock.setInstant( Instant.parse( "2026-10-16T10:00:00.500Z" ) );
+        _requestController.sweep( );
+        // Verify
+        assertThat( countBeforeExpiry, is( 2 ) );
+        assertThat( _requestController.getSharedResponseCount( ), is( 1 ) );
+    }
+
+    @Test
+    public void completed_request_is_sent_again_when_no_ttl_is_configured( ) throws Exception {
+        // Setup
+        final SettableFuture<Build> response = SettableFuture.create( );
+        when( _delegate.sendRequest( ApiVersion.API_8_1, "builds/id:1", Build.class, ApiRequestPriority.HIGH ) ).thenReturn( response );
+        _requestController.sendRequest( ApiVersion.API_8_1, "builds/id:1", Build.class );
+        response.set( new Build( ) );
+        // Exercise
+        _requestController.sendRequest( ApiVersion.API_8_1, "builds/id:1", Build.class );
+        // Verify
+        verify( _delegate, times( 2 ) ).sendRequest( ApiVersion.API_8_1, "builds/id:1", Build.class, ApiRequestPriority.HIGH );
+    }
+
+    @Test
+    public void completed_response_is_shared_until_ttl_expires( ) throws Exception {
+        // Setup
+        _configuration.setSharedResponseTtlInMillis( 500 );
+        final SettableFuture<Build> response = SettableFuture.create( );
+        when( _delegate.sendRequest( ApiVersion.API_8_1, "builds/id:1", Build.class, ApiRequestPriority.HIGH ) ).thenReturn( response );
+        _requestController.sendRequest( ApiVersion.API_8_1, "builds/id:1", Build.class );
+        response.set( new Build( ) );
+        // Exercise
+        _clock.setInstant( Instant.parse( "2026-10-16T10:00:00.400Z" ) );
+        final ListenableFuture<Build> shared = _requestController.sendRequest( ApiVersion.API_8_1, "builds/id:1", Build.class );
+        _clock.setInstant( Instant.parse( "2026-10-16T10:00:00.500Z" ) );
+        _requestController.sendRequest( ApiVersion.API_8_1, "builds/id:1", Build.class );
+        // Verify
+        assertThat( shared.isDone( ), is( true ) );
+        verify( _delegate, times( 2 ) ).sendRequest( ApiVersion.API_8_1, "builds/id:1", Build.class, ApiRequestPriority.HIGH );
+        assertThat( _requestController.getCoalescedCount( ), is( 1L ) );
+    }
+
+    @Test
+    public void failed_response_is_never_shared_after_completion( ) throws Exception {
+        // Setup
+        _configuration.setSharedResponseTtlInMillis( 500 );
+        final SettableFuture<Build> response = SettableFuture.create( );
+        when( _delegate.sendRequest( ApiVersion.API_8_1, "builds/id:1", Build.class, ApiRequestPriority.HIGH ) ).thenReturn( response );
+        final ListenableFuture<Build> first = _requestController.sendRequest( ApiVersion.API_8_1, "builds/id:1", Build.class );
+        response.setException( new ApiException( "Unexpected test exception" ) );
+        // Exercise
+        _requestController.sendRequest( ApiVersion.API_8_1, "builds/id:1", Build.class );
+        // Verify
+        verify( _delegate, times( 2 ) ).sendRequest( ApiVersion.API_8_1, "builds/id:1", Build.class, ApiRequestPriority.HIGH );
+        try {
+            first.get( );
+        } catch ( ExecutionException e ) {
+            if ( e.getCause( ).getClass( ) == ApiException.class )
+                return;
+        }
+        TestCase.fail( );
+    }
+
+    @Test
+    public void cancelling_one_caller_does_not_cancel_shared_request_for_others( ) throws Exception {
+        // Setup
+        final SettableFuture<Build> response = SettableFuture.create( );
+        when( _delegate.sendRequest( ApiVersion.API_8_1, "builds/id:1", Build.class, ApiRequestPriority.HIGH ) ).thenReturn( response );
+        final ListenableFuture<Build> first = _requestController.sendRequest( ApiVersion.API_8_1, "builds/id:1", Build.class );
+        final ListenableFuture<Build> second = _requestController.sendRequest( ApiVersion.API_8_1, "builds/id:1", Build.class );
+        // Exercise
+        first.cancel( true );
+        final Build build = new Build( );
+        response.set( build );
+        // Verify
+        assertThat( response.isCancelled( ), is( false ) );
+        assertThat( second.get( ), is( sameInstance( build ) ) );
+    }
+
+    @Test
+    public void cancelling_all_callers_cancels_shared_request( ) throws Exception {
+        // Setup
+        final SettableFuture<Build> response = SettableFuture.create( );
+        when( _delegate.sendRequest( ApiVersion.API_8_1, "builds/id:1", Build.class, ApiRequestPriority.HIGH ) ).thenReturn( response );
+        final ListenableFuture<Build> first = _requestController.sendRequest( ApiVersion.API_8_1, "builds/id:1", Build.class );
+        final ListenableFuture<Build> second = _requestController.sendRequest( ApiVersion.API_8_1, "builds/id:1", Build.class );
+        // Exercise
+        first.cancel( true );
+        second.cancel( true );
+        _requestController.sendRequest( ApiVersion.API_8_1, "builds/id:1", Build.class );
+        // Verify
+        assertThat( response.isCancelled( ), is( true ) );
+        verify( _delegate, times( 2 ) ).sendRequest( ApiVersion.API_8_1, "builds/id:1", Build.class, ApiRequestPriority.HIGH );
+    }
+
+    @Test
+    public void request_priority_is_forwarded_to_delegate( ) throws Exception {
+        // Setup
+        when( _delegate.sendRequest( ApiVersion.API_8_1, "builds/id:1", Build.class, ApiRequestPriority.IDLE ) ).thenReturn( SettableFuture.create( ) );
+        // Exercise
+        _requestController.sendRequest( ApiVersion.API_8_1, "builds/id:1", Build.class, ApiRequestPriority.IDLE );
+        // Verify
+        verify( _delegate ).sendRequest( ApiVersion.API_8_1, "builds/id:1", Build.class, ApiRequestPriority.IDLE );
+    }
+
+    private static final class SettableClock extends Clock {
+
+        private Instant _instant;
+
+        SettableClock( final Instant instant ) {
+            _instant = instant;
+        }
+
+        void setInstant( final Instant instant ) {
+            _instant = instant;
+        }
+
+        @Override
+        public ZoneId getZone( ) {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone( final ZoneId zone ) {
+            return this;
+        }
+
+        @Override
+        public Instant instant( ) {
+            return _instant;
+        }
+    }
+
+}
@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * Copyright 2014 Cedric Longo.
+ *
+ * This file is part of Wall-T program.
+ *
+ * Wall-T is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Wall-T is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with Wall-T.
+ * If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+
+package utils.teamcity.wallt.controller.api;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.ByteStreams;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class ContentDecodingTest {
+
+    private static final byte[] CONTENT = "{\"buildType\":[{\"id\":\"bt1\"},{\"id\":\"bt2\"},{\"id\":\"bt3\"}]}".getBytes( Charsets.UTF_8 );
+
+    @Test
+    public void identity_content_is_returned_as_is( ) throws Exception {
+        // Setup
+        final InputStream body = new ByteArrayInputStream( CONTENT );
+        // Exercise
+        final InputStream decoded = ContentDecoding.decode( null, body );
+        // Verify
+        assertThat( ByteStreams.toByteArray( decoded ), is( CONTENT ) );
+    }
+
+    @Test
+    public void gzip_content_is_decompressed( ) throws Exception {
+        // Setup
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream( );
+        try ( final GZIPOutputStream out = new GZIPOutputStream( compressed ) ) {
+            out.write( CONTENT );
+        }
+        // Exercise
+        final InputStream decoded = ContentDecoding.decode( "gzip", new ByteArrayInputStream( compressed.toByteArray( ) ) );
+        // Verify
+        assertThat( ByteStreams.toByteArray( decoded ), is( CONTENT ) );
+    }
+
+    @Test
+    public void zlib_wrapped_deflate_content_is_decompressed( ) throws Exception {
+        // Setup
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream( );
+        try ( final DeflaterOutputStream out = new DeflaterOutputStream( compressed, new Deflater( Deflater.DEFAULT_COMPRESSION, false ) ) ) {
+            out.write( CONTENT );
+        }
+        // Exercise
+        final InputStream decoded = ContentDecoding.decode( "deflate", new ByteArrayInputStream( compressed.toByteArray( ) ) );
+        // Verify
+        assertThat( ByteStreams.toByteArray( decoded ), is( CONTENT ) );
+    }
+
+    @Test
+    public void raw_deflate_content_is_decompressed( ) throws Exception {
+        // Setup
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream( );
+        try ( final DeflaterOutputStream out = new DeflaterOutputStream( compressed, new Deflater( Deflater.DEFAULT_COMPRESSION, true ) ) ) {
+            out.write( CONTENT );
+        }
+        // Exercise
+        final InputStream decoded = ContentDecoding.decode( "Deflate", new ByteArrayInputStream( compressed.toByteArray( ) ) );
+        // Verify
+        assertThat( ByteStreams.toByteArray( decoded ), is( CONTENT ) );
+    }
+
+    @Test( expected = ApiException.class )
+    public void unsupported_encoding_is_rejected( ) throws Exception {
+        // Setup
+        // Exercise
+        ContentDecoding.decode( "br", new ByteArrayInputStream( CONTENT ) );
+        // Verify
+    }
+
+}
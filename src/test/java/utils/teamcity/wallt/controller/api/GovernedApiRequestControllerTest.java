@@ -0,0 +1,194 @@
+/*******************************************************************************
+ * Copyright 2014 Cedric Longo.
+ *
+ * This file is part of Wall-T program.
+ *
+ * Wall-T is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Wall-T is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with Wall-T.
+ * If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package utils.teamcity.wallt.controller.api;
+
+import com.google.common.base.Ticker;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import junit.framework.TestCase;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import utils.teamcity.wallt.controller.api.json.Build;
+import utils.teamcity.wallt.model.configuration.Configuration;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+
+public class GovernedApiRequestControllerTest {
+
+    private IApiRequestController _delegate;
+    private Configuration _configuration;
+    private ScheduledExecutorService _executorService;
+    private SettableTicker _ticker;
+    private Map<String, SettableFuture<Build>> _sentRequests;
+    private GovernedApiRequestController _requestController;
+
+    @Before
+    public void setUp( ) throws Exception {
+        _sentRequests = Maps.newLinkedHashMap( );
+        _delegate = mock( IApiRequestController.class );
+        when( _delegate.sendRequest( Mockito.any( ApiVersion.class ), anyString( ), Mockito.<Class<ApiResponse>>any( ), Mockito.any( ApiRequestPriority.class ) ) ).thenAnswer( invocation -> {
+            final SettableFuture<Build> response = SettableFuture.create( );
+            _sentRequests.put( (String) invocation.getArguments( )[1], response );
+            return response;
+        } );
+        _configuration = new Configuration( );
+        _configuration.setMaxRequestsPerSecond( 100 );
+        _configuration.setMaxRequestsInFlight( 1 );
+        _executorService = mock( ScheduledExecutorService.class );
+        _ticker = new SettableTicker( );
+        _requestController = new GovernedApiRequestController( _delegate, _configuration, _executorService, _ticker );
+    }
+
+    @Test
+    public void requests_beyond_max_in_flight_wait_for_a_completion( ) throws Exception {
+        // Setup
+        _configuration.setMaxRequestsInFlight( 2 );
+        _requestController.sendRequest( ApiVersion.API_8_1, "builds/id:1", Build.class );
+        _requestController.sendRequest( ApiVersion.API_8_1, "builds/id:2", Build.class );
+        final ListenableFuture<Build> third = _requestController.sendRequest( ApiVersion.API_8_1, "builds/id:3", Build.class );
+        assertThat( _sentRequests.keySet( ), contains( "builds/id:1", "builds/id:2" ) );
+        // Exercise
+        final Build build = new Build( );
+        _sentRequests.get( "builds/id:1" ).set( build );
+        _sentRequests.get( "builds/id:3" ).set( build );
+        // Verify
+        assertThat( _sentRequests.keySet( ), contains( "builds/id:1", "builds/id:2", "builds/id:3" ) );
+        assertThat( third.get( ), is( sameInstance( build ) ) );
+        assertThat( _requestController.getInFlightCount( ), is( 1 ) );
+        assertThat( _requestController.getMaxQueueDepth( ), is( 1 ) );
+    }
+
+    @Test
+    public void most_urgent_requests_are_sent_first( ) throws Exception {
+        // Setup
+        _requestController.sendRequest( ApiVersion.API_8_1, "builds/id:1", Build.class, ApiRequestPriority.IDLE );
+        _requestController.sendRequest( ApiVersion.API_8_1, "builds/id:2", Build.class, ApiRequestPriority.IDLE );
+        _requestController.sendRequest( ApiVersion.API_8_1, "builds/id:3", Build.class, ApiRequestPriority.ACTIVE );
+        _requestController.sendRequest( ApiVersion.API_8_1, "buildQueue", Build.class );
+        // Exercise
+        _sentRequests.get( "builds/id:1" ).set( new Build( ) );
+        _sentRequests.get( "buildQueue" ).set( new Build( ) );
+        _sentRequests.get( "builds/id:3" ).set( new Build( ) );
+        // Verify
+        assertThat( _sentRequests.keySet( ), contains( "builds/id:1", "buildQueue", "builds/id:3", "builds/id:2" ) );
+    }
+
+    @Test
+    public void request_is_rejected_when_queue_is_full( ) throws Exception {
+        // Setup
+        _configuration.setMaxQueuedRequests( 1 );
+        _requestController.sendRequest( ApiVersion.API_8_1, "builds/id:1", Build.class );
+        _requestController.sendRequest( ApiVersion.API_8_1, "builds/id:2", Build.class );
+        // Exercise
+        final ListenableFuture<Build> rejected = _requestController.sendRequest( ApiVersion.API_8_1, "builds/id:3", Build.class );
+        // Verify
+        assertThat( _requestController.getRejectedCount( ), is( 1L ) );
+        assertThat( _requestController.getQueueDepth( ), is( 1 ) );
+        try {
+            rejected.get( );
+        } catch ( ExecutionException e ) {
+            assertThat( e.getCause( ), is( instanceOf( ApiException.class ) ) );
+            return;
+        }
+        TestCase.fail( );
+    }
+
+    @Test
+    public void cancelled_queued_request_is_never_sent( ) throws Exception {
+        // Setup
+        _requestController.sendRequest( ApiVersion.API_8_1, "builds/id:1", Build.class );
+        final ListenableFuture<Build> cancelled = _requestController.sendRequest( ApiVersion.API_8_1, "builds/id:2", Build.class );
+        _requestController.sendRequest( ApiVersion.API_8_1, "builds/id:3", Build.class );
+        // Exercise
+        cancelled.cancel( false );
+        _sentRequests.get( "builds/id:1" ).set( new Build( ) );
+        // Verify
+        assertThat( _sentRequests.keySet( ), contains( "builds/id:1", "builds/id:3" ) );
+    }
+
+    @Test
+    public void cancelled_queued_request_leaves_the_queue( ) throws Exception {
+        // Setup
+        _requestController.sendRequest( ApiVersion.API_8_1, "builds/id:1", Build.class );
+        final ListenableFuture<Build> cancelled = _requestController.sendRequest( ApiVersion.API_8_1, "builds/id:2", Build.class );
+        // Exercise
+        cancelled.cancel( true );
+        // Verify
+        assertThat( _requestController.getQueueDepth( ), is( 0 ) );
+    }
+
+    @Test
+    public void cancelled_request_in_flight_cancels_its_response( ) throws Exception {
+        // Setup
+        final ListenableFuture<Build> cancelled = _requestController.sendRequest( ApiVersion.API_8_1, "builds/id:1", Build.class );
+        _requestController.sendRequest( ApiVersion.API_8_1, "builds/id:2", Build.class );
+        // Exercise
+        cancelled.cancel( true );
+        // Verify
+        assertThat( _sentRequests.get( "builds/id:1" ).isCancelled( ), is( true ) );
+        assertThat( _sentRequests.keySet( ), contains( "builds/id:1", "builds/id:2" ) );
+        assertThat( _requestController.getInFlightCount( ), is( 1 ) );
+    }
+
+    @Test
+    public void requests_beyond_rate_wait_for_next_token( ) throws Exception {
+        // Setup
+        _configuration.setMaxRequestsPerSecond( 2 );
+        _configuration.setMaxRequestsInFlight( 10 );
+        _requestController = new GovernedApiRequestController( _delegate, _configuration, _executorService, _ticker );
+        _requestController.sendRequest( ApiVersion.API_8_1, "builds/id:1", Build.class );
+        _requestController.sendRequest( ApiVersion.API_8_1, "builds/id:2", Build.class );
+        _requestController.sendRequest( ApiVersion.API_8_1, "builds/id:3", Build.class );
+        assertThat( _sentRequests.keySet( ), contains( "builds/id:1", "builds/id:2" ) );
+
+        final ArgumentCaptor<Runnable> scheduledDispatch = ArgumentCaptor.forClass( Runnable.class );
+        final ArgumentCaptor<Long> delay = ArgumentCaptor.forClass( Long.class );
+        verify( _executorService ).schedule( scheduledDispatch.capture( ), delay.capture( ), eq( TimeUnit.NANOSECONDS ) );
+        assertThat( delay.getValue( ), is( TimeUnit.MILLISECONDS.toNanos( 500 ) ) );
+        // Exercise
+        _ticker.advance( Duration.ofMillis( 500 ) );
+        scheduledDispatch.getValue( ).run( );
+        // Verify
+        assertThat( _sentRequests.keySet( ), contains( "builds/id:1", "builds/id:2", "builds/id:3" ) );
+        assertThat( _requestController.getMaxWaitTime( ), is( Duration.ofMillis( 500 ) ) );
+        assertThat( _requestController.getDispatchedCount( ), is( 3L ) );
+    }
+
+    private static final class SettableTicker extends Ticker {
+
+        private long _nanos;
+
+        void advance( final Duration duration ) {
+            _nanos += duration.toNanos( );
+        }
+
+        @Override
+        public long read( ) {
+            return _nanos;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/*******************************************************************************
+ * Copyright 2014 Cedric Longo.
+ *
+ * This file is part of Wall-T program.
+ *
+ * Wall-T is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Wall-T is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with Wall-T.
+ * If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package utils.teamcity.wallt.controller.api;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.ListenableFuture;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import utils.teamcity.wallt.controller.api.json.BuildTypeList;
+import utils.teamcity.wallt.model.configuration.Configuration;
+
+import java.time.Duration;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class InMemoryApiTransportTest {
+
+    private ScheduledExecutorService _executorService;
+    private InMemoryApiTransport _transport;
+
+    @Before
+    public void setUp( ) throws Exception {
+        _executorService = newSingleThreadScheduledExecutor( );
+        _transport = new InMemoryApiTransport( _executorService );
+    }
+
+    @After
+    public void tearDown( ) throws Exception {
+        _executorService.shutdownNow( );
+    }
+
+    @Test
+    public void payload_with_longest_matching_prefix_is_served( ) throws Exception {
+        // Setup
+        _transport.serve( "builds", "all".getBytes( Charsets.UTF_8 ) );
+        _transport.serve( "builds/?locator=buildType:bt1", "bt1".getBytes( Charsets.UTF_8 ) );
+        // Exercise
+        final ApiTransportResponse response = _transport.get( request( "builds/?locator=buildType:bt1,count:3" ), ImmutableMap.<String, String>of( ) ).get( );
+        // Verify
+        assertThat( response.getStatusCode( ), is( 200 ) );
+        assertThat( response.getHeader( "content-type" ), is( "application/json" ) );
+        assertThat( new String( ByteStreams.toByteArray( response.getBody( ) ), Charsets.UTF_8 ), is( "bt1" ) );
+        assertThat( _transport.getRequestCount( ), is( 1 ) );
+    }
+
+    @Test
+    public void request_without_payload_is_answered_not_found( ) throws Exception {
+        // Setup
+        _transport.serve( "builds", "all".getBytes( Charsets.UTF_8 ) );
+        // Exercise
+        final ApiTransportResponse response = _transport.get( request( "projects" ), ImmutableMap.<String, String>of( ) ).get( );
+        // Verify
+        assertThat( response.getStatusCode( ), is( 404 ) );
+    }
+
+    @Test
+    public void response_is_delayed_by_latency( ) throws Exception {
+        // Setup
+        _transport.serve( "builds", "all".getBytes( Charsets.UTF_8 ) );
+        _transport.setLatency( Duration.ofMillis( 200 ) );
+        // Exercise
+        final ListenableFuture<ApiTransportResponse> response = _transport.get( request( "builds" ), ImmutableMap.<String, String>of( ) );
+        // Verify
+        assertThat( response.isDone( ), is( false ) );
+        assertThat( response.get( 5, TimeUnit.SECONDS ).getStatusCode( ), is( 200 ) );
+    }
+
+    @Test
+    public void api_request_controller_decodes_responses_of_transport( ) throws Exception {
+        // Setup
+        _transport.serve( "buildTypes", ApiResponsePayloads.buildTypes( 20 ) );
+        final Configuration configuration = new Configuration( );
+        configuration.setServerUrl( "http://teamcity" );
+        final ApiRequestController requestController = new ApiRequestController( configuration, _transport, new ApiResponseCache( ), new ApiTransferStatistics( ) );
+        // Exercise
+        final BuildTypeList buildTypeList = requestController.sendRequest( ApiVersion.API_8_1, "buildTypes", BuildTypeList.class ).get( );
+        // Verify
+        assertThat( buildTypeList.getBuildTypes( ), hasSize( 20 ) );
+    }
+
+    private static ApiRequest request( final String path ) {
+        return ApiRequestBuilder.newRequest( )
+                .to( "http://teamcity" )
+                .request( path )
+                .apiVersion( ApiVersion.API_8_1 )
+                .build( );
+    }
+
+}
@@ -0,0 +1,101 @@
+/*******************************************************************************
+ * Copyright 2014 Cedric Longo.
+ *
+ * This file is part of Wall-T program.
+ *
+ * Wall-T is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Wall-T is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with Wall-T.
+ * If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package utils.teamcity.wallt.controller.api;
+
+import com.ning.http.client.ConnectionsPool;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.*;
+
+public class MeteredConnectionsPoolTest {
+
+    private ConnectionsPool<String, Object> _delegate;
+    private ApiConnectionStatistics _statistics;
+    private Runnable _onDestroy;
+    private MeteredConnectionsPool<String, Object> _connectionsPool;
+
+    @Before
+    @SuppressWarnings( "unchecked" )
+    public void setUp( ) throws Exception {
+        _delegate = mock( ConnectionsPool.class );
+        _statistics = new ApiConnectionStatistics( );
+        _onDestroy = mock( Runnable.class );
+        _connectionsPool = new MeteredConnectionsPool<>( _delegate, _statistics, _onDestroy );
+    }
+
+    @Test
+    public void connection_offered_to_pool_is_idle_until_it_is_polled( ) throws Exception {
+        // Setup
+        final Object connection = new Object( );
+        when( _delegate.offer( "http://teamcity", connection ) ).thenReturn( true );
+        when( _delegate.poll( "http://teamcity" ) ).thenReturn( connection );
+        _connectionsPool.offer( "http://teamcity", connection );
+        final int idleCountBeforePoll = _statistics.getIdleCount( );
+        // Exercise
+        _connectionsPool.poll( "http://teamcity" );
+        // Verify
+        assertThat( idleCountBeforePoll, is( 1 ) );
+        assertThat( _statistics.getIdleCount( ), is( 0 ) );
+        assertThat( _statistics.getHandshakeCount( ), is( 0L ) );
+    }
+
+    @Test
+    public void connection_refused_by_pool_is_not_idle( ) throws Exception {
+        // Setup
+        when( _delegate.offer( anyString( ), any( ) ) ).thenReturn( false );
+        // Exercise
+        _connectionsPool.offer( "http://teamcity", new Object( ) );
+        // Verify
+        assertThat( _statistics.getIdleCount( ), is( 0 ) );
+    }
+
+    @Test
+    public void poll_without_idle_connection_counts_a_handshake( ) throws Exception {
+        // Setup
+        // Exercise
+        _connectionsPool.poll( "http://teamcity" );
+        _connectionsPool.poll( "http://teamcity" );
+        // Verify
+        assertThat( _statistics.getHandshakeCount( ), is( 2L ) );
+    }
+
+    @Test
+    public void closed_connection_is_no_more_idle( ) throws Exception {
+        // Setup
+        final Object connection = new Object( );
+        when( _delegate.offer( "http://teamcity", connection ) ).thenReturn( true );
+        _connectionsPool.offer( "http://teamcity", connection );
+        // Exercise
+        _connectionsPool.removeAll( connection );
+        // Verify
+        verify( _delegate ).removeAll( connection );
+        assertThat( _statistics.getIdleCount( ), is( 0 ) );
+    }
+
+    @Test
+    public void destroy_destroys_delegate_then_runs_destroy_action( ) throws Exception {
+        // Setup
+        // Exercise
+        _connectionsPool.destroy( );
+        // Verify
+        verify( _delegate ).destroy( );
+        verify( _onDestroy ).run( );
+    }
+
+}
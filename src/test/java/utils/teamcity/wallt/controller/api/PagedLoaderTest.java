@@ -0,0 +1,141 @@
+/*******************************************************************************
+ * Copyright 2014 Cedric Longo.
+ *
+ * This file is part of Wall-T program.
+ *
+ * Wall-T is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Wall-T is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with Wall-T.
+ * If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package utils.teamcity.wallt.controller.api;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import junit.framework.TestCase;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntFunction;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+public class PagedLoaderTest {
+
+    private final List<Integer> _requestedStarts = Lists.newArrayList( );
+    private final List<List<Integer>> _consumedPages = Lists.newArrayList( );
+
+    @Test
+    public void load_requests_pages_until_a_page_is_not_full( ) throws Exception {
+        // Setup
+        final PagedLoader<List<Integer>, Integer> loader = newLoader( start -> Futures.immediateFuture( items( start, start < 4 ? 2 : 1 ) ), 1 );
+        // Exercise
+        final ListenableFuture<Integer> loadedItems = loader.load( );
+        // Verify
+        assertThat( loadedItems.get( ), is( 5 ) );
+        assertThat( _requestedStarts, contains( 0, 2, 4 ) );
+        assertThat( ImmutableList.copyOf( _consumedPages ), is( ImmutableList.<List<Integer>>of( ImmutableList.of( 0, 1 ), ImmutableList.of( 2, 3 ), ImmutableList.of( 4 ) ) ) );
+    }
+
+    @Test
+    public void load_never_exceeds_max_parallel_pages( ) throws Exception {
+        // Setup
+        final Map<Integer, SettableFuture<List<Integer>>> pages = new ConcurrentHashMap<>( );
+        final PagedLoader<List<Integer>, Integer> loader = newLoader( start -> {
+            final SettableFuture<List<Integer>> page = SettableFuture.create( );
+            pages.put( start, page );
+            return page;
+        }, 3 );
+        // Exercise
+        final ListenableFuture<Integer> loadedItems = loader.load( );
+        final List<Integer> initialStarts = ImmutableList.copyOf( _requestedStarts );
+        pages.get( 0 ).set( items( 0, 2 ) );
+        final List<Integer> startsAfterFirstPage = ImmutableList.copyOf( _requestedStarts );
+        pages.get( 2 ).set( items( 2, 1 ) );
+        pages.get( 4 ).set( Collections.<Integer>emptyList( ) );
+        pages.get( 6 ).set( Collections.<Integer>emptyList( ) );
+        // Verify
+        assertThat( initialStarts, contains( 0, 2, 4 ) );
+        assertThat( startsAfterFirstPage, contains( 0, 2, 4, 6 ) );
+        assertThat( loadedItems.get( ), is( 3 ) );
+        assertThat( _requestedStarts.size( ), is( 4 ) );
+    }
+
+    @Test
+    public void load_fails_when_a_page_fails( ) throws Exception {
+        // Setup
+        final PagedLoader<List<Integer>, Integer> loader = newLoader( start -> start == 0 ? Futures.immediateFuture( items( 0, 2 ) ) : Futures.<List<Integer>>immediateFailedFuture( new ApiException( "Unexpected test exception" ) ), 1 );
+        // Exercise
+        final ListenableFuture<Integer> loadedItems = loader.load( );
+        // Verify
+        try {
+            loadedItems.get( );
+        } catch ( ExecutionException e ) {
+            if ( e.getCause( ).getClass( ) == ApiException.class )
+                return;
+        }
+        TestCase.fail( );
+    }
+
+    @Test
+    public void first_failed_page_fails_loading_and_cancels_pages_in_flight( ) throws Exception {
+        // Setup
+        final Map<Integer, SettableFuture<List<Integer>>> pages = new ConcurrentHashMap<>( );
+        final PagedLoader<List<Integer>, Integer> loader = newLoader( start -> {
+            final SettableFuture<List<Integer>> page = SettableFuture.create( );
+            pages.put( start, page );
+            return page;
+        }, 3 );
+        final ListenableFuture<Integer> loadedItems = loader.load( );
+        // Exercise
+        pages.get( 2 ).setException( new ApiException( "Unexpected test exception" ) );
+        // Verify
+        assertThat( pages.get( 0 ).isCancelled( ), is( true ) );
+        assertThat( pages.get( 4 ).isCancelled( ), is( true ) );
+        assertThat( _requestedStarts, contains( 0, 2, 4 ) );
+        assertThat( _consumedPages.isEmpty( ), is( true ) );
+        assertThat( loadedItems.isDone( ), is( true ) );
+    }
+
+    @Test
+    public void consumer_is_called_out_of_the_lock_of_the_loader( ) throws Exception {
+        // Setup
+        final List<Boolean> lockHeld = Lists.newArrayList( );
+        final AtomicReference<PagedLoader<List<Integer>, Integer>> loader = new AtomicReference<>( );
+        loader.set( new PagedLoader<>( start -> Futures.immediateFuture( items( start, 1 ) ), page -> page, items -> lockHeld.add( Thread.holdsLock( loader.get( ) ) ), 2, 1 ) );
+        // Exercise
+        loader.get( ).load( ).get( );
+        // Verify
+        assertThat( lockHeld, contains( false ) );
+    }
+
+    private PagedLoader<List<Integer>, Integer> newLoader( final IntFunction<ListenableFuture<List<Integer>>> pageRequest, final int maxParallelPages ) {
+        return new PagedLoader<>( start -> {
+            _requestedStarts.add( start );
+            return pageRequest.apply( start );
+        }, page -> page, _consumedPages::add, 2, maxParallelPages );
+    }
+
+    private static List<Integer> items( final int start, final int count ) {
+        final List<Integer> items = Lists.newArrayList( );
+        for ( int i = start; i < start + count; i++ )
+            items.add( i );
+        return items;
+    }
+
+}
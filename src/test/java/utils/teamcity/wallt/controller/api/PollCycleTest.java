@@ -0,0 +1,110 @@
+/*******************************************************************************
+ * Copyright 2014 Cedric Longo.
+ *
+ * This file is part of Wall-T program.
+ *
+ * Wall-T is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Wall-T is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with Wall-T.
+ * If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+
+package utils.teamcity.wallt.controller.api;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import org.junit.After;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class PollCycleTest {
+
+    private final ListeningExecutorService _executor = MoreExecutors.listeningDecorator( Executors.newFixedThreadPool( 8 ) );
+    private final ScheduledExecutorService _timer = Executors.newSingleThreadScheduledExecutor( );
+
+    @After
+    public void tearDown( ) throws Exception {
+        _executor.shutdownNow( );
+        _timer.shutdownNow( );
+    }
+
+    @Test
+    public void execute_requests_all_items_and_counts_completed_and_failed_requests( ) throws Exception {
+        // Setup
+        final List<Integer> items = ImmutableList.of( 1, 2, 3, 4, 5 );
+        // Exercise
+        final PollCycleStats stats = PollCycle.start( items,
+                i -> i % 2 == 0 ? Futures.immediateFailedFuture( new RuntimeException( "Unexpected test exception" ) ) : Futures.immediateFuture( null ),
+                2, Duration.ofSeconds( 5 ), _timer ).get( );
+        // Verify
+        assertThat( stats.getCompleted( ), is( 3 ) );
+        assertThat( stats.getFailed( ), is( 2 ) );
+        assertThat( stats.getCancelled( ), is( 0 ) );
+        assertThat( stats.getSkipped( ), is( 0 ) );
+    }
+
+    @Test
+    public void execute_never_exceeds_max_parallel_requests( ) throws Exception {
+        // Setup
+        final AtomicInteger inFlight = new AtomicInteger( );
+        final AtomicInteger maxInFlight = new AtomicInteger( );
+        final List<Integer> items = ImmutableList.of( 1, 2, 3, 4, 5, 6, 7, 8, 9, 10 );
+        // Exercise
+        final PollCycleStats stats = PollCycle.start( items, i -> _executor.submit( ( ) -> {
+            maxInFlight.accumulateAndGet( inFlight.incrementAndGet( ), Math::max );
+            Thread.sleep( 20 );
+            inFlight.decrementAndGet( );
+            return null;
+        } ), 3, Duration.ofSeconds( 5 ), _timer ).get( );
+        // Verify
+        assertThat( stats.getCompleted( ), is( 10 ) );
+        assertThat( maxInFlight.get( ), is( lessThanOrEqualTo( 3 ) ) );
+    }
+
+    @Test
+    public void execute_cancels_overdue_requests_and_skips_pending_items_when_deadline_is_reached( ) throws Exception {
+        // Setup
+        final List<SettableFuture<Void>> futures = ImmutableList.of( SettableFuture.create( ), SettableFuture.create( ), SettableFuture.create( ), SettableFuture.create( ) );
+        // Exercise
+        final PollCycleStats stats = PollCycle.start( ImmutableList.of( 0, 1, 2, 3 ), futures::get, 2, Duration.ofMillis( 50 ), _timer ).get( );
+        // Verify
+        assertThat( stats.getCompleted( ), is( 0 ) );
+        assertThat( stats.getCancelled( ), is( 2 ) );
+        assertThat( stats.getSkipped( ), is( 2 ) );
+        assertThat( futures.get( 0 ).isCancelled( ), is( true ) );
+        assertThat( futures.get( 1 ).isCancelled( ), is( true ) );
+    }
+
+    @Test
+    public void start_returns_before_requests_are_completed( ) throws Exception {
+        // Setup
+        final SettableFuture<Void> response = SettableFuture.create( );
+        // Exercise
+        final ListenableFuture<PollCycleStats> cycle = PollCycle.start( ImmutableList.of( 0 ), i -> response, 1, Duration.ofSeconds( 5 ), _timer );
+        final boolean doneBeforeResponse = cycle.isDone( );
+        response.set( null );
+        // Verify
+        assertThat( doneBeforeResponse, is( false ) );
+        assertThat( cycle.isDone( ), is( true ) );
+        assertThat( cycle.get( ).getCompleted( ), is( 1 ) );
+    }
+
+}
@@ -0,0 +1,279 @@
+/*******************************************************************************
+ * Copyright 2014 Cedric Longo.
+ *
+ * This file is part of Wall-T program.
+ *
+ * Wall-T is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Wall-T is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with Wall-T.
+ * If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+
+package utils.teamcity.wallt.controller.api;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Before;
+import org.junit.Test;
+import utils.teamcity.wallt.model.build.BuildData;
+import utils.teamcity.wallt.model.build.BuildState;
+import utils.teamcity.wallt.model.build.BuildStatus;
+import utils.teamcity.wallt.model.build.BuildTypeData;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+
+public class PollingSchedulerTest {
+
+    private PollingScheduler _scheduler;
+    private Instant _now;
+
+    @Before
+    public void setUp( ) throws Exception {
+        _scheduler = new PollingScheduler( );
+        _now = Instant.now( );
+    }
+
+    @Test
+    public void tracked_build_types_are_due_immediately( ) throws Exception {
+        // Setup
+        final BuildTypeData bt1 = newBuildType( "bt1" );
+        final BuildTypeData bt2 = newBuildType( "bt2" );
+        // Exercise
+        _scheduler.track( ImmutableList.of( bt1, bt2 ), _now );
+        // Verify
+        assertThat( _scheduler.pollDue( _now ), contains( bt1, bt2 ) );
+        assertThat( _scheduler.pollDue( _now ), is( empty( ) ) );
+    }
+
+    @Test
+    public void build_types_no_more_monitored_are_forgotten( ) throws Exception {
+        // Setup
+        final BuildTypeData bt1 = newBuildType( "bt1" );
+        final BuildTypeData bt2 = newBuildType( "bt2" );
+        _scheduler.track( ImmutableList.of( bt1, bt2 ), _now );
+        // Exercise
+        _scheduler.track( ImmutableList.of( bt2 ), _now );
+        // Verify
+        assertThat( _scheduler.size( ), is( 1 ) );
+        assertThat( _scheduler.pollDue( _now ), contains( bt2 ) );
+    }
+
+    @Test
+    public void build_type_with_long_running_build_is_rescheduled_for_a_progress_refresh( ) throws Exception {
+        // Setup
+        final BuildTypeData bt1 = newBuildType( "bt1" );
+        bt1.registerBuild( newRunningBuild( 1, Duration.ofMinutes( 5 ) ) );
+        _scheduler.track( ImmutableList.of( bt1 ), _now );
+        _scheduler.pollDue( _now );
+        // Exercise
+        _scheduler.reschedule( bt1, _now );
+        // Verify
+        assertThat( _scheduler.getDeadline( bt1 ).get( ), is( _now.plus( PollingScheduler.PROGRESS_REFRESH_INTERVAL ) ) );
+    }
+
+    @Test
+    public void build_type_with_running_build_near_finish_is_rescheduled_just_after_estimated_finish( ) throws Exception {
+        // Setup
+        final BuildTypeData bt1 = newBuildType( "bt1" );
+        bt1.registerBuild( newRunningBuild( 1, Duration.ofMinutes( 5 ) ) );
+        bt1.registerBuild( newRunningBuild( 2, Duration.ofSeconds( 40 ) ) );
+        _scheduler.track( ImmutableList.of( bt1 ), _now );
+        _scheduler.pollDue( _now );
+        // Exercise
+        _scheduler.reschedule( bt1, _now );
+        // Verify
+        assertThat( _scheduler.getDeadline( bt1 ).get( ), is( _now.plusSeconds( 40 ).plus( PollingScheduler.FINISH_MARGIN ) ) );
+    }
+
+    @Test
+    public void build_type_with_running_build_finishing_now_is_rescheduled_after_min_interval( ) throws Exception {
+        // Setup
+        final BuildTypeData bt1 = newBuildType( "bt1" );
+        bt1.registerBuild( newRunningBuild( 1, Duration.ofSeconds( 1 ) ) );
+        _scheduler.track( ImmutableList.of( bt1 ), _now );
+        _scheduler.pollDue( _now );
+        // Exercise
+        _scheduler.reschedule( bt1, _now );
+        // Verify
+        assertThat( _scheduler.getDeadline( bt1 ).get( ), is( _now.plus( PollingScheduler.MIN_INTERVAL ) ) );
+    }
+
+    @Test
+    public void build_type_with_running_build_without_estimate_or_overrun_is_rescheduled_with_active_interval( ) throws Exception {
+        // Setup
+        final BuildTypeData bt1 = newBuildType( "bt1" );
+        final BuildTypeData bt2 = newBuildType( "bt2" );
+        bt1.registerBuild( newRunningBuild( 1, Duration.ZERO ) );
+        bt2.registerBuild( newRunningBuild( 2, Duration.ofSeconds( -30 ) ) );
+        _scheduler.track( ImmutableList.of( bt1, bt2 ), _now );
+        _scheduler.pollDue( _now );
+        // Exercise
+        _scheduler.reschedule( bt1, _now );
+        _scheduler.reschedule( bt2, _now );
+        // Verify
+        assertThat( _scheduler.getDeadline( bt1 ).get( ), is( _now.plus( PollingScheduler.ACTIVE_INTERVAL ) ) );
+        assertThat( _scheduler.getDeadline( bt2 ).get( ), is( _now.plus( PollingScheduler.ACTIVE_INTERVAL ) ) );
+    }
+
+    @Test
+    public void queued_build_type_is_rescheduled_with_active_interval( ) throws Exception {
+        // Setup
+        final BuildTypeData bt1 = newBuildType( "bt1" );
+        bt1.registerBuild( newRunningBuild( 1, Duration.ofMinutes( 5 ) ) );
+        bt1.setQueued( true );
+        _scheduler.track( ImmutableList.of( bt1 ), _now );
+        _scheduler.pollDue( _now );
+        // Exercise
+        _scheduler.reschedule( bt1, _now );
+        // Verify
+        assertThat( _scheduler.getDeadline( bt1 ).get( ), is( _now.plus( PollingScheduler.ACTIVE_INTERVAL ) ) );
+    }
+
+    @Test
+    public void build_type_idle_for_days_is_backed_off( ) throws Exception {
+        // Setup
+        final BuildTypeData bt1 = newBuildType( "bt1" );
+        bt1.registerBuild( newFinishedBuild( 1, BuildStatus.SUCCESS, _now.minus( Duration.ofDays( 3 ) ) ) );
+        _scheduler.track( ImmutableList.of( bt1 ), _now );
+        _scheduler.pollDue( _now );
+        // Exercise
+        _scheduler.reschedule( bt1, _now );
+        // Verify
+        assertThat( _scheduler.getDeadline( bt1 ).get( ), is( _now.plus( PollingScheduler.IDLE_INTERVAL ) ) );
+    }
+
+    @Test
+    public void build_type_which_has_just_failed_is_tightened( ) throws Exception {
+        // Setup
+        final BuildTypeData bt1 = newBuildType( "bt1" );
+        bt1.registerBuild( newFinishedBuild( 1, BuildStatus.SUCCESS, _now.minus( Duration.ofDays( 3 ) ) ) );
+        _scheduler.track( ImmutableList.of( bt1 ), _now );
+        _scheduler.pollDue( _now );
+        _scheduler.reschedule( bt1, _now );
+
+        final Instant later = _now.plus( PollingScheduler.IDLE_INTERVAL );
+        _scheduler.pollDue( later );
+        bt1.registerBuild( newFinishedBuild( 2, BuildStatus.FAILURE, later ) );
+        // Exercise
+        _scheduler.reschedule( bt1, later );
+        // Verify
+        assertThat( _scheduler.getDeadline( bt1 ).get( ), is( later.plus( PollingScheduler.JUST_FAILED_INTERVAL ) ) );
+    }
+
+    @Test
+    public void interval_grows_while_nothing_changes( ) throws Exception {
+        // Setup
+        final BuildTypeData bt1 = newBuildType( "bt1" );
+        bt1.registerBuild( newFinishedBuild( 1, BuildStatus.SUCCESS, _now ) );
+        _scheduler.track( ImmutableList.of( bt1 ), _now );
+        _scheduler.pollDue( _now );
+        _scheduler.reschedule( bt1, _now );
+        assertThat( _scheduler.getDeadline( bt1 ).get( ), is( _now.plus( PollingScheduler.RECENTLY_CHANGED_INTERVAL ) ) );
+        // Exercise
+        final Instant later = _now.plus( Duration.ofHours( 2 ) );
+        _scheduler.pollDue( later );
+        _scheduler.reschedule( bt1, later );
+        // Verify
+        assertThat( _scheduler.getDeadline( bt1 ).get( ), is( later.plus( PollingScheduler.QUIET_INTERVAL ) ) );
+    }
+
+    @Test
+    public void expedite_brings_deadline_forward_only( ) throws Exception {
+        // Setup
+        final BuildTypeData bt1 = newBuildType( "bt1" );
+        bt1.registerBuild( newFinishedBuild( 1, BuildStatus.SUCCESS, _now.minus( Duration.ofDays( 3 ) ) ) );
+        _scheduler.track( ImmutableList.of( bt1 ), _now );
+        _scheduler.pollDue( _now );
+        _scheduler.reschedule( bt1, _now );
+        // Exercise
+        _scheduler.expedite( bt1, _now.plusSeconds( 5 ) );
+        _scheduler.expedite( bt1, _now.plusSeconds( 30 ) );
+        // Verify
+        assertThat( _scheduler.getDeadline( bt1 ).get( ), is( _now.plusSeconds( 5 ) ) );
+        assertThat( _scheduler.pollDue( _now.plusSeconds( 5 ) ), contains( bt1 ) );
+    }
+
+    @Test
+    public void reschedule_of_build_type_still_in_queue_keeps_its_deadline( ) throws Exception {
+        // Setup
+        final BuildTypeData bt1 = newBuildType( "bt1" );
+        final BuildTypeData bt2 = newBuildType( "bt2" );
+        _scheduler.track( ImmutableList.of( bt1, bt2 ), _now );
+        // Exercise
+        _scheduler.reschedule( bt1, _now );
+        // Verify
+        assertThat( _scheduler.getDeadline( bt1 ).get( ), is( _now ) );
+        assertThat( _scheduler.pollDue( _now ), contains( bt1, bt2 ) );
+    }
+
+    @Test
+    public void due_build_types_are_returned_in_deadline_order( ) throws Exception {
+        // Setup
+        final BuildTypeData bt1 = newBuildType( "bt1" );
+        final BuildTypeData bt2 = newBuildType( "bt2" );
+        bt1.registerBuild( newFinishedBuild( 1, BuildStatus.SUCCESS, _now.minus( Duration.ofDays( 3 ) ) ) );
+        bt2.registerBuild( newRunningBuild( 2, Duration.ofMinutes( 5 ) ) );
+        _scheduler.track( ImmutableList.of( bt1, bt2 ), _now );
+        _scheduler.pollDue( _now );
+        _scheduler.reschedule( bt1, _now );
+        _scheduler.reschedule( bt2, _now );
+        // Exercise
+        // Verify
+        assertThat( _scheduler.pollDue( _now.plus( PollingScheduler.PROGRESS_REFRESH_INTERVAL ) ), contains( bt2 ) );
+        assertThat( _scheduler.pollDue( _now.plus( PollingScheduler.IDLE_INTERVAL ) ), contains( bt1 ) );
+    }
+
+    @Test
+    public void build_type_covered_by_push_is_rescheduled_for_reconciliation( ) throws Exception {
+        // Setup
+        final BuildTypeData bt1 = newBuildType( "bt1" );
+        bt1.setQueued( true );
+        _scheduler = new PollingScheduler( buildType -> true );
+        _scheduler.track( ImmutableList.of( bt1 ), _now );
+        _scheduler.pollDue( _now );
+        // Exercise
+        _scheduler.reschedule( bt1, _now );
+        // Verify
+        assertThat( _scheduler.getDeadline( bt1 ).get( ), is( _now.plus( PollingScheduler.RECONCILIATION_INTERVAL ) ) );
+    }
+
+    @Test
+    public void build_type_covered_by_push_with_running_build_is_rescheduled_just_after_estimated_finish( ) throws Exception {
+        // Setup
+        final BuildTypeData bt1 = newBuildType( "bt1" );
+        bt1.registerBuild( newRunningBuild( 1, Duration.ofSeconds( 10 ) ) );
+        _scheduler = new PollingScheduler( buildType -> true );
+        _scheduler.track( ImmutableList.of( bt1 ), _now );
+        _scheduler.pollDue( _now );
+        // Exercise
+        _scheduler.reschedule( bt1, _now );
+        // Verify
+        assertThat( _scheduler.getDeadline( bt1 ).get( ), is( _now.plus( Duration.ofSeconds( 10 ) ).plus( PollingScheduler.FINISH_MARGIN ) ) );
+    }
+
+    private static BuildTypeData newBuildType( final String id ) {
+        return new BuildTypeData( id, "btName", "btProjectId", "btProjectName", null );
+    }
+
+    private static BuildData newRunningBuild( final int id, final Duration timeLeft ) {
+        return new BuildData( id, BuildStatus.SUCCESS, BuildState.running, 10, Optional.empty( ), timeLeft );
+    }
+
+    private static BuildData newFinishedBuild( final int id, final BuildStatus status, final Instant finishedDate ) {
+        return new BuildData( id, status, BuildState.finished, 100, Optional.of( LocalDateTime.ofInstant( finishedDate, ZoneId.systemDefault( ) ) ), Duration.ZERO );
+    }
+
+}
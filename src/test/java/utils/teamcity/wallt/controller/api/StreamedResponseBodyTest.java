@@ -0,0 +1,111 @@
+/*******************************************************************************
+ * Copyright 2014 Cedric Longo.
+ *
+ * This file is part of Wall-T program.
+ *
+ * Wall-T is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Wall-T is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with Wall-T.
+ * If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package utils.teamcity.wallt.controller.api;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.ByteStreams;
+import junit.framework.TestCase;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class StreamedResponseBodyTest {
+
+    private final StreamedResponseBody _body = new StreamedResponseBody( );
+
+    @Test
+    public void parts_are_read_in_order_of_reception_until_completion( ) throws Exception {
+        // Setup
+        _body.partReceived( "{\"id\":".getBytes( Charsets.UTF_8 ) );
+        _body.partReceived( new byte[0] );
+        _body.partReceived( "\"bt1\"}".getBytes( Charsets.UTF_8 ) );
+        _body.completed( );
+        // Exercise
+        final byte[] content = ByteStreams.toByteArray( _body );
+        // Verify
+        assertThat( new String( content, Charsets.UTF_8 ), is( "{\"id\":\"bt1\"}" ) );
+        assertThat( _body.read( ), is( -1 ) );
+    }
+
+    @Test
+    public void reader_waits_for_next_part( ) throws Exception {
+        // Setup
+        _body.partReceived( new byte[]{ 1 } );
+        final CompletableFuture<byte[]> content = CompletableFuture.supplyAsync( ( ) -> {
+            try {
+                return ByteStreams.toByteArray( _body );
+            } catch ( IOException e ) {
+                throw new RuntimeException( e );
+            }
+        } );
+        // Exercise
+        Thread.sleep( 100 );
+        final boolean doneBeforeCompletion = content.isDone( );
+        _body.partReceived( new byte[]{ 2, 3 } );
+        _body.completed( );
+        // Verify
+        assertThat( doneBeforeCompletion, is( false ) );
+        assertThat( content.get( 10, TimeUnit.SECONDS ), is( new byte[]{ 1, 2, 3 } ) );
+    }
+
+    @Test
+    public void reading_fails_with_failure_of_transport_when_response_fails_before_its_end( ) throws Exception {
+        // Setup
+        final IOException failure = new IOException( "Connection reset" );
+        _body.partReceived( new byte[]{ 1 } );
+        _body.failed( failure );
+        // Exercise
+        assertThat( _body.read( ), is( 1 ) );
+        try {
+            _body.read( );
+        } catch ( StreamedResponseBody.IncompleteBodyException e ) {
+            // Verify
+            assertThat( e.getCause( ), is( sameInstance( (Throwable) failure ) ) );
+            return;
+        }
+        TestCase.fail( );
+    }
+
+    @Test
+    public void parts_received_after_close_are_dropped( ) throws Exception {
+        // Setup
+        _body.partReceived( new byte[]{ 1 } );
+        // Exercise
+        _body.close( );
+        _body.partReceived( new byte[]{ 2 } );
+        _body.completed( );
+        // Verify
+        assertThat( _body.read( ), is( -1 ) );
+    }
+
+    @Test
+    public void end_of_body_is_reached_when_body_is_closed_after_completion( ) throws Exception {
+        // Setup
+        _body.partReceived( new byte[]{ 1 } );
+        _body.completed( );
+        // Exercise
+        _body.close( );
+        // Verify
+        assertThat( _body.read( ), is( -1 ) );
+    }
+
+}
@@ -0,0 +1,129 @@
+/*******************************************************************************
+ * Copyright 2014 Cedric Longo.
+ *
+ * This file is part of Wall-T program.
+ *
+ * Wall-T is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Wall-T is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with Wall-T.
+ * If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+
+package utils.teamcity.wallt.controller.api.json;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.junit.Test;
+import utils.teamcity.wallt.model.build.BuildState;
+import utils.teamcity.wallt.model.build.BuildStatus;
+
+import java.time.LocalDateTime;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class ApiTypeAdaptersTest {
+
+    private final Gson _gson = ApiTypeAdapters.registerAll( new GsonBuilder( ) ).create( );
+
+    @Test
+    public void build_is_decoded_with_its_build_type_running_information_and_dates( ) throws Exception {
+        // Setup
+        final String json = "{\"id\":12, \"number\":\"1.2\", \"status\":\"FAILURE\", \"state\":\"running\", \"running\":true," +
+                "\"buildType\":{\"id\":\"bt1\",\"name\":\"Build\",\"projectName\":\"Project\",\"projectId\":\"p1\",\"href\":\"/bt1\"}," +
+                "\"startDate\":\"20261016T100000+0200\", \"finishDate\":\"20261016T101500+0200\"," +
+                "\"running-info\":{\"percentageComplete\":40,\"elapsedSeconds\":120,\"estimatedTotalSeconds\":300,\"currentStageText\":\"Tests\"}}";
+        // Exercise
+        final Build build = _gson.fromJson( json, Build.class );
+        // Verify
+        assertThat( build.getId( ), is( 12 ) );
+        assertThat( build.getStatus( ), is( BuildStatus.FAILURE ) );
+        assertThat( build.getState( ), is( BuildState.running ) );
+        assertThat( build.isRunning( ), is( true ) );
+        assertThat( build.getBuildType( ).getId( ), is( "bt1" ) );
+        assertThat( build.getBuildTypeId( ), is( "bt1" ) );
+        assertThat( build.getBuildType( ).getName( ), is( "Build" ) );
+        assertThat( build.getBuildType( ).getProjectName( ), is( "Project" ) );
+        assertThat( build.getBuildType( ).getProjectId( ), is( "p1" ) );
+        assertThat( build.getStartDate( ), is( LocalDateTime.of( 2026, 10, 16, 10, 0 ) ) );
+        assertThat( build.getFinishDate( ), is( LocalDateTime.of( 2026, 10, 16, 10, 15 ) ) );
+        assertThat( build.getRunningInformation( ).getPercentageComplete( ), is( 40 ) );
+        assertThat( build.getRunningInformation( ).getElapsedTime( ), is( 120 ) );
+        assertThat( build.getRunningInformation( ).getEstimatedTotalTime( ), is( 300 ) );
+    }
+
+    @Test
+    public void dates_of_build_keep_the_time_of_server_whatever_its_offset( ) throws Exception {
+        // Setup
+        final String json = "{\"id\":12, \"startDate\":\"20261016T230000-0930\", \"finishDate\":\"20261017T013000+1345\"}";
+        // Exercise
+        final Build build = _gson.fromJson( json, Build.class );
+        // Verify
+        assertThat( build.getStartDate( ), is( LocalDateTime.of( 2026, 10, 16, 23, 0 ) ) );
+        assertThat( build.getFinishDate( ), is( LocalDateTime.of( 2026, 10, 17, 1, 30 ) ) );
+    }
+
+    @Test
+    public void missing_and_null_fields_of_build_are_decoded_as_defaults( ) throws Exception {
+        // Setup
+        final String json = "{\"id\":\"12\", \"status\":null, \"state\":\"queued\", \"running\":\"false\", \"finishDate\":null, \"running-info\":null}";
+        // Exercise
+        final Build build = _gson.fromJson( json, Build.class );
+        // Verify
+        assertThat( build.getId( ), is( 12 ) );
+        assertThat( build.getStatus( ), is( nullValue( ) ) );
+        assertThat( build.getState( ), is( nullValue( ) ) );
+        assertThat( build.isRunning( ), is( false ) );
+        assertThat( build.getBuildType( ), is( nullValue( ) ) );
+        assertThat( build.getStartDate( ), is( nullValue( ) ) );
+        assertThat( build.getFinishDate( ), is( nullValue( ) ) );
+        assertThat( build.getRunningInformation( ), is( nullValue( ) ) );
+    }
+
+    @Test
+    public void lists_are_decoded_and_unknown_nested_values_are_skipped( ) throws Exception {
+        // Setup
+        final String builds = "{\"count\":2,\"nextHref\":{\"href\":\"/next\"},\"build\":[{\"id\":1,\"tags\":{\"tag\":[\"a\",\"b\"]}},{\"id\":2,\"buildTypeId\":\"bt2\"}]}";
+        final String buildTypes = "{\"count\":1,\"buildType\":[{\"id\":\"bt1\",\"parameters\":{\"property\":[{\"name\":\"n\",\"value\":\"v\"}]}}]}";
+        final String projects = "{\"project\":[{\"id\":\"p1\",\"name\":\"Project\",\"parentProjectId\":\"_Root\",\"archived\":false}]}";
+        final String queue = "{\"count\":2,\"build\":[{\"id\":5,\"buildTypeId\":\"bt1\",\"state\":\"queued\"},{\"buildTypeId\":\"bt2\"}]}";
+        // Exercise
+        final BuildList buildList = _gson.fromJson( builds, BuildList.class );
+        final BuildTypeList buildTypeList = _gson.fromJson( buildTypes, BuildTypeList.class );
+        final ProjectList projectList = _gson.fromJson( projects, ProjectList.class );
+        final QueuedBuildList queuedBuildList = _gson.fromJson( queue, QueuedBuildList.class );
+        // Verify
+        assertThat( buildList.getBuilds( ), hasSize( 2 ) );
+        assertThat( buildList.getBuilds( ).get( 1 ).getId( ), is( 2 ) );
+        assertThat( buildList.getBuilds( ).get( 1 ).getBuildTypeId( ), is( "bt2" ) );
+        assertThat( buildTypeList.getBuildTypes( ).get( 0 ).getId( ), is( "bt1" ) );
+        assertThat( projectList.getProjects( ).get( 0 ).getParentId( ), is( "_Root" ) );
+        assertThat( queuedBuildList.getQueueBuild( ), hasSize( 2 ) );
+        assertThat( queuedBuildList.getQueueBuild( ).get( 0 ).getId( ), is( 5 ) );
+        assertThat( queuedBuildList.getQueueBuild( ).get( 1 ).getBuildTypeId( ), is( "bt2" ) );
+    }
+
+    @Test
+    public void empty_list_response_is_decoded_as_empty_list( ) throws Exception {
+        // Setup
+        final String json = "{\"count\":0}";
+        // Exercise
+        final QueuedBuildList queuedBuildList = _gson.fromJson( json, QueuedBuildList.class );
+        // Verify
+        assertThat( queuedBuildList.getQueueBuild( ), is( empty( ) ) );
+    }
+
+    @Test( expected = UnsupportedOperationException.class )
+    public void api_responses_can_not_be_written( ) throws Exception {
+        // Setup
+        // Exercise
+        _gson.toJson( new BuildList( ) );
+        // Verify
+    }
+
+}
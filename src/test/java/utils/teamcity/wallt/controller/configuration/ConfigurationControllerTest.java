@@ -107,6 +107,6 @@ public class ConfigurationControllerTest {
     }
 
     private BuildTypeData newBuildType( final String id ) {
-        return new BuildTypeData( id, "btName", "btProjectId", "btProjectName" );
+        return new BuildTypeData( id, "btName", "btProjectId", "btProjectName", null );
     }
 }
@@ -66,4 +66,30 @@ public class ConfigurationModuleTest {
         assertThat( instance, instanceOf( ConfigurationController.class ) );
         assertThat( instance, sameInstance( instance2 ) );
     }
+
+    @Test
+    public void non_positive_api_limits_are_replaced_by_defaults( ) {
+        // Setup
+        final Configuration configuration = new Configuration( );
+        configuration.setMaxRequestsPerSecond( 0 );
+        configuration.setMaxRequestsInFlight( -1 );
+        // Exercise
+        ConfigurationModule.withValidApiLimits( configuration );
+        // Verify
+        assertThat( configuration.getMaxRequestsPerSecond( ), is( Configuration.DEFAULT_MAX_REQUESTS_PER_SECOND ) );
+        assertThat( configuration.getMaxRequestsInFlight( ), is( Configuration.DEFAULT_MAX_REQUESTS_IN_FLIGHT ) );
+    }
+
+    @Test
+    public void positive_api_limits_are_kept( ) {
+        // Setup
+        final Configuration configuration = new Configuration( );
+        configuration.setMaxRequestsPerSecond( 1 );
+        configuration.setMaxRequestsInFlight( 2 );
+        // Exercise
+        ConfigurationModule.withValidApiLimits( configuration );
+        // Verify
+        assertThat( configuration.getMaxRequestsPerSecond( ), is( 1 ) );
+        assertThat( configuration.getMaxRequestsInFlight( ), is( 2 ) );
+    }
 }
@@ -0,0 +1,332 @@
+/*******************************************************************************
+ * Copyright 2014 Cedric Longo.
+ *
+ * This file is part of Wall-T program.
+ *
+ * Wall-T is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Wall-T is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with Wall-T.
+ * If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package utils.teamcity.wallt.controller.webhook;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.eventbus.EventBus;
+import com.google.gson.Gson;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import utils.teamcity.wallt.model.build.BuildData;
+import utils.teamcity.wallt.model.build.BuildState;
+import utils.teamcity.wallt.model.build.BuildStatus;
+import utils.teamcity.wallt.model.build.BuildTypeData;
+import utils.teamcity.wallt.model.build.IBuildTypeManager;
+import utils.teamcity.wallt.model.build.IProjectManager;
+import utils.teamcity.wallt.model.configuration.Configuration;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+
+public class WebhookReceiverTest {
+
+    private static final String TOKEN = "s3cr3t";
+    private static final Gson GSON = new Gson( );
+
+    private Configuration _configuration;
+    private IBuildTypeManager _buildManager;
+    private IProjectManager _projectManager;
+    private BuildTypeData _buildType;
+    private EventBus _eventBus;
+    private ExecutorService _executorService;
+    private WebhookReceiver _receiver;
+
+    @Before
+    public void setUp( ) throws Exception {
+        _buildType = new BuildTypeData( "Wall_Build", "Build", "Wall", "Wall", null );
+
+        _buildManager = mock( IBuildTypeManager.class );
+        when( _buildManager.getBuildTypes( ) ).thenReturn( ImmutableList.of( _buildType ) );
+        when( _buildManager.getBuildType( anyString( ) ) ).thenReturn( Optional.empty( ) );
+        when( _buildManager.getBuildType( _buildType.getId( ) ) ).thenReturn( Optional.of( _buildType ) );
+        _projectManager = mock( IProjectManager.class );
+        when( _projectManager.getProject( anyString( ) ) ).thenReturn( Optional.empty( ) );
+
+        _configuration = new Configuration( );
+        _configuration.setWebhookEnabled( true );
+        _configuration.setWebhookPort( 0 );
+        _configuration.setWebhookToken( TOKEN );
+
+        _eventBus = mock( EventBus.class );
+        _executorService = Executors.newCachedThreadPool( );
+        _receiver = new WebhookReceiver( _configuration, _buildManager, _projectManager, _eventBus, _executorService );
+        _receiver.start( );
+    }
+
+    @After
+    public void tearDown( ) throws Exception {
+        _receiver.stop( );
+        _executorService.shutdownNow( );
+    }
+
+    @Test
+    public void build_started_notification_registers_running_build( ) throws Exception {
+        // Setup
+        _buildType.setQueued( true );
+        // Exercise
+        final int status = post( notification( "buildStarted", "1234", "Wall_Build", "success" ) );
+        // Verify
+        assertThat( status, is( HttpURLConnection.HTTP_OK ) );
+        final BuildData build = _buildType.getBuildById( 1234 ).get( );
+        assertThat( build.getState( ), is( BuildState.running ) );
+        assertThat( build.getTimeLeft( ).isPresent( ), is( false ) );
+        assertThat( _buildType.isQueued( ), is( false ) );
+        verify( _eventBus ).post( _buildType );
+    }
+
+    @Test
+    public void build_finished_notification_registers_finished_build_with_its_status( ) throws Exception {
+        // Setup
+        post( notification( "buildStarted", "1234", "Wall_Build", "success" ) );
+        // Exercise
+        post( notification( "buildFinished", "1234", "Wall_Build", "failure" ) );
+        // Verify
+        final BuildData build = _buildType.getBuildById( 1234 ).get( );
+        assertThat( build.getState( ), is( BuildState.finished ) );
+        assertThat( build.getStatus( ), is( BuildStatus.FAILURE ) );
+        assertThat( build.getFinishedDate( ).isPresent( ), is( true ) );
+        assertThat( _buildType.hasRunningBuild( ), is( false ) );
+    }
+
+    @Test
+    public void notification_of_other_branch_does_not_change_build_type( ) throws Exception {
+        // Setup
+        // Exercise
+        final int status = post( notification( "buildStarted", "1234", "Wall_Build", "success", false ) );
+        // Verify
+        assertThat( status, is( HttpURLConnection.HTTP_OK ) );
+        assertThat( _buildType.getBuildById( 1234 ).isPresent( ), is( false ) );
+        verifyZeroInteractions( _eventBus );
+    }
+
+    @Test
+    public void build_type_followed_on_specific_branch_is_not_covered_by_push( ) throws Exception {
+        // Setup
+        _buildType.setBranch( "name:feature" );
+        // Exercise
+        post( notification( "buildStarted", "1234", "Wall_Build", "success" ) );
+        // Verify
+        assertThat( _buildType.getBuildById( 1234 ).isPresent( ), is( false ) );
+        assertThat( _receiver.covers( _buildType ), is( false ) );
+    }
+
+    @Test
+    public void build_added_to_queue_notification_flags_build_type_in_queue( ) throws Exception {
+        // Setup
+        // Exercise
+        post( notification( "buildAddedToQueue", "1235", "Wall_Build", "success" ) );
+        // Verify
+        assertThat( _buildType.isQueued( ), is( true ) );
+    }
+
+    @Test
+    public void build_types_of_notifying_projects_are_covered_by_push( ) throws Exception {
+        // Setup
+        final BuildTypeData otherBuildType = new BuildTypeData( "Wall_Test", "Test", "Wall", "Wall", null );
+        final BuildTypeData otherProjectBuildType = new BuildTypeData( "Other_Build", "Build", "Other", "Other", null );
+        assertThat( _receiver.covers( _buildType ), is( false ) );
+        // Exercise
+        post( notification( "buildStarted", "1234", "Wall_Build", "success" ) );
+        // Verify
+        assertThat( _receiver.covers( _buildType ), is( true ) );
+        assertThat( _receiver.covers( otherBuildType ), is( true ) );
+        assertThat( _receiver.covers( otherProjectBuildType ), is( false ) );
+    }
+
+    @Test
+    public void coverage_by_push_expires_without_notification_during_coverage_period( ) throws Exception {
+        // Setup
+        final Instant notificationTime = Instant.parse( "2016-10-26T10:00:00Z" );
+        final SettableClock clock = new SettableClock( notificationTime );
+        final WebhookReceiver receiver = new WebhookReceiver( _configuration, _buildManager, _projectManager, _eventBus, _executorService, clock );
+        receiver.start( );
+        try {
+            receiver.register( buildNotification( "buildStarted" ) );
+            // Exercise
+            clock.setInstant( notificationTime.plus( WebhookReceiver.COVERAGE_PERIOD ).minusSeconds( 1 ) );
+            final boolean coveredWithinPeriod = receiver.covers( _buildType );
+            clock.setInstant( notificationTime.plus( WebhookReceiver.COVERAGE_PERIOD ).plusSeconds( 1 ) );
+            final boolean coveredAfterPeriod = receiver.covers( _buildType );
+            // Verify
+            assertThat( coveredWithinPeriod, is( true ) );
+            assertThat( coveredAfterPeriod, is( false ) );
+        } finally {
+            receiver.stop( );
+        }
+    }
+
+    @Test
+    public void notification_without_valid_token_is_rejected( ) throws Exception {
+        // Setup
+        // Exercise
+        final int withoutToken = post( notification( "buildStarted", "1234", "Wall_Build", "success" ), null );
+        final int withInvalidToken = post( notification( "buildStarted", "1234", "Wall_Build", "success" ), "wrong" );
+        // Verify
+        assertThat( withoutToken, is( HttpURLConnection.HTTP_UNAUTHORIZED ) );
+        assertThat( withInvalidToken, is( HttpURLConnection.HTTP_UNAUTHORIZED ) );
+        assertThat( _buildType.getBuildById( 1234 ).isPresent( ), is( false ) );
+        assertThat( _receiver.covers( _buildType ), is( false ) );
+        verifyZeroInteractions( _eventBus );
+    }
+
+    @Test
+    public void receiver_is_not_started_without_token( ) throws Exception {
+        // Setup
+        _configuration.setWebhookToken( null );
+        final WebhookReceiver receiver = new WebhookReceiver( _configuration, _buildManager, _projectManager, _eventBus, _executorService );
+        // Exercise
+        receiver.start( );
+        // Verify
+        assertThat( receiver.isStarted( ), is( false ) );
+    }
+
+    @Test
+    public void receiver_listens_on_loopback_by_default( ) throws Exception {
+        // Setup
+        // Exercise
+        final InetSocketAddress address = _receiver.getAddress( );
+        // Verify
+        assertThat( address.getAddress( ).isLoopbackAddress( ), is( true ) );
+    }
+
+    @Test
+    public void notification_of_unknown_build_type_is_accepted_and_ignored( ) throws Exception {
+        // Setup
+        // Exercise
+        final int status = post( notification( "buildStarted", "1234", "Unknown_Build", "success" ) );
+        // Verify
+        assertThat( status, is( HttpURLConnection.HTTP_OK ) );
+        assertThat( _receiver.covers( new BuildTypeData( "Unknown_Build", "Build", "Unknown", "Unknown", null ) ), is( false ) );
+        verifyZeroInteractions( _eventBus );
+    }
+
+    @Test
+    public void malformed_notification_is_rejected( ) throws Exception {
+        // Setup
+        // Exercise
+        final int invalidJson = post( "{\"build\": " );
+        final int invalidBuildId = post( notification( "buildStarted", "abc", "Wall_Build", "success" ) );
+        // Verify
+        assertThat( invalidJson, is( HttpURLConnection.HTTP_BAD_REQUEST ) );
+        assertThat( invalidBuildId, is( HttpURLConnection.HTTP_BAD_REQUEST ) );
+        assertThat( _buildType.getLastBuild( BuildState.running ).isPresent( ), is( false ) );
+        assertThat( _receiver.covers( _buildType ), is( false ) );
+    }
+
+    @Test
+    public void only_post_requests_are_accepted( ) throws Exception {
+        // Setup
+        final HttpURLConnection connection = (HttpURLConnection) webhookUrl( ).openConnection( );
+        // Exercise
+        final int status = connection.getResponseCode( );
+        // Verify
+        assertThat( status, is( HttpURLConnection.HTTP_BAD_METHOD ) );
+    }
+
+    /**
+     * Sample payload of tcWebHooks plugin with JSON format, with some unused fields
+     */
+    private static String notification( final String notifyType, final String buildId, final String buildTypeId, final String buildResult ) {
+        return notification( notifyType, buildId, buildTypeId, buildResult, true );
+    }
+
+    private static String notification( final String notifyType, final String buildId, final String buildTypeId, final String buildResult, final boolean branchIsDefault ) {
+        return "{\"build\":{"
+                + "\"buildStatus\":\"Running\","
+                + "\"buildResult\":\"" + buildResult + "\","
+                + "\"notifyType\":\"" + notifyType + "\","
+                + "\"buildFullName\":\"Wall :: " + buildTypeId + "\","
+                + "\"buildId\":\"" + buildId + "\","
+                + "\"buildTypeId\":\"bt12\","
+                + "\"buildExternalTypeId\":\"" + buildTypeId + "\","
+                + "\"projectId\":\"project3\","
+                + "\"projectExternalId\":\"" + buildTypeId.substring( 0, buildTypeId.indexOf( '_' ) ) + "\","
+                + "\"branchName\":\"" + ( branchIsDefault ? "master" : "feature" ) + "\","
+                + "\"branchIsDefault\":" + branchIsDefault + ","
+                + "\"buildNumber\":\"42\","
+                + "\"triggeredBy\":\"you\""
+                + "}}";
+    }
+
+    private static WebhookNotification.Build buildNotification( final String notifyType ) {
+        return GSON.fromJson( notification( notifyType, "1234", "Wall_Build", "success" ), WebhookNotification.class ).getBuild( );
+    }
+
+    private int post( final String payload ) throws IOException {
+        return post( payload, TOKEN );
+    }
+
+    private int post( final String payload, final String token ) throws IOException {
+        final HttpURLConnection connection = (HttpURLConnection) webhookUrl( ).openConnection( );
+        connection.setRequestMethod( "POST" );
+        connection.setRequestProperty( "Content-Type", "application/json" );
+        if ( token != null )
+            connection.setRequestProperty( WebhookReceiver.TOKEN_HEADER, token );
+        connection.setDoOutput( true );
+        try ( final OutputStream body = connection.getOutputStream( ) ) {
+            body.write( payload.getBytes( StandardCharsets.UTF_8 ) );
+        }
+        return connection.getResponseCode( );
+    }
+
+    private URL webhookUrl( ) throws IOException {
+        return new URL( "http://127.0.0.1:" + _receiver.getAddress( ).getPort( ) + WebhookReceiver.CONTEXT_PATH );
+    }
+
+    private static final class SettableClock extends Clock {
+
+        private Instant _instant;
+
+        SettableClock( final Instant instant ) {
+            _instant = instant;
+        }
+
+        void setInstant( final Instant instant ) {
+            _instant = instant;
+        }
+
+        @Override
+        public ZoneId getZone( ) {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone( final ZoneId zone ) {
+            return this;
+        }
+
+        @Override
+        public Instant instant( ) {
+            return _instant;
+        }
+    }
+}
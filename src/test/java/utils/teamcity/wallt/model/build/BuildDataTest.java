@@ -43,7 +43,7 @@ public class BuildDataTest {
         assertThat( data.getState( ), is( BuildState.finished ) );
         assertThat( data.getPercentageComplete( ), is( 58 ) );
         assertThat( data.getFinishedDate( ), is( Optional.of( now.minusMinutes( 30 ) ) ) );
-        assertThat( data.getTimeLeft( ), is( Duration.ofSeconds( 98 ) ) );
+        assertThat( data.getTimeLeft( ), is( Optional.of( Duration.ofSeconds( 98 ) ) ) );
     }
 
 }
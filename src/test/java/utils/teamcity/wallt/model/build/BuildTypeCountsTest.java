@@ -0,0 +1,77 @@
+/*******************************************************************************
+ * Copyright 2014 Cedric Longo.
+ *
+ * This file is part of Wall-T program.
+ *
+ * Wall-T is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Wall-T is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with Wall-T.
+ * If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+
+package utils.teamcity.wallt.model.build;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class BuildTypeCountsTest {
+
+    private BuildTypeData _buildType;
+
+    @Before
+    public void setUp( ) throws Exception {
+        _buildType = new BuildTypeData( "btId", "btName", "btProjectId", "btProjectName", null );
+    }
+
+    @Test
+    public void build_type_without_finished_build_is_not_counted( ) throws Exception {
+        // Setup
+        _buildType.registerBuild( newBuild( 1200, BuildState.running, BuildStatus.SUCCESS ) );
+        // Exercise
+        final BuildTypeCounts counts = BuildTypeCounts.of( _buildType.getSnapshot( ) );
+        // Verify
+        assertThat( counts, is( BuildTypeCounts.EMPTY ) );
+    }
+
+    @Test
+    public void error_is_counted_as_failure( ) throws Exception {
+        // Setup
+        _buildType.registerBuild( newBuild( 1200, BuildState.finished, BuildStatus.ERROR ) );
+        _buildType.registerBuild( newBuild( 1201, BuildState.running, BuildStatus.SUCCESS ) );
+        // Exercise
+        final BuildTypeCounts counts = BuildTypeCounts.of( _buildType.getSnapshot( ) );
+        // Verify
+        assertThat( counts.getFailureCount( ), is( 1 ) );
+        assertThat( counts.getSuccessCount( ), is( 0 ) );
+        assertThat( counts.hasFailureRunning( ), is( true ) );
+        assertThat( counts.hasSuccessRunning( ), is( false ) );
+    }
+
+    @Test
+    public void counts_are_added_and_subtracted( ) throws Exception {
+        // Setup
+        _buildType.registerBuild( newBuild( 1200, BuildState.finished, BuildStatus.SUCCESS ) );
+        final BuildTypeCounts counts = BuildTypeCounts.of( _buildType.getSnapshot( ) );
+        // Exercise
+        final BuildTypeCounts sum = counts.plus( counts );
+        // Verify
+        assertThat( sum.getSuccessCount( ), is( 2 ) );
+        assertThat( sum.minus( counts ), is( counts ) );
+        assertThat( sum.minus( sum ).isEmpty( ), is( true ) );
+    }
+
+    private BuildData newBuild( final int id, final BuildState state, final BuildStatus status ) {
+        return new BuildData( id, status, state, 58, Optional.empty( ), Duration.ofSeconds( 98 ) );
+    }
+}
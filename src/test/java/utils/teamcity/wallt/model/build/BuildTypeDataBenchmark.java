@@ -0,0 +1,151 @@
+/*******************************************************************************
+ * Copyright 2014 Cedric Longo.
+ *
+ * This file is part of Wall-T program.
+ *
+ * Wall-T is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Wall-T is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with Wall-T.
+ * If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package utils.teamcity.wallt.model.build;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.Duration;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static com.google.common.collect.Lists.reverse;
+
+/**
+ * Compares the reads made by a tile update (running state, oldest running build, last finished build twice, last 3 finished builds)
+ * and the registration of a new build, on the former linked list history copied and filtered on each read, against the ring buffer
+ * with derived state of {@link BuildTypeData}. Allocation by operation is given by the gc profiler (gc.alloc.rate.norm).
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class BuildTypeDataBenchmark {
+
+    private FormerBuildTypeData _formerData;
+    private BuildTypeData _data;
+    private int _nextBuildId;
+
+    @Setup
+    public void setUp( ) {
+        _formerData = new FormerBuildTypeData( );
+        _data = new BuildTypeData( "bt1", "Build type", "project1", "Project", null );
+        for ( _nextBuildId = 0; _nextBuildId < BuildTypeData.MAX_BUILD_SIZE_TO_CACHE; _nextBuildId++ ) {
+            final BuildData build = newBuild( _nextBuildId );
+            _formerData.registerBuild( build );
+            _data.registerBuild( build );
+        }
+    }
+
+    @Benchmark
+    public void tileUpdateWithFormerHistory( final Blackhole blackhole ) {
+        blackhole.consume( _formerData.hasRunningBuild( ) );
+        blackhole.consume( _formerData.getOldestBuild( BuildState.running ) );
+        blackhole.consume( _formerData.getLastBuild( BuildState.finished ) );
+        blackhole.consume( _formerData.getLastBuild( BuildState.finished ) );
+        blackhole.consume( _formerData.getLastBuilds( BuildState.finished, 3 ) );
+    }
+
+    @Benchmark
+    public void tileUpdateWithRingBuffer( final Blackhole blackhole ) {
+        blackhole.consume( _data.hasRunningBuild( ) );
+        blackhole.consume( _data.getOldestBuild( BuildState.running ) );
+        blackhole.consume( _data.getLastBuild( BuildState.finished ) );
+        blackhole.consume( _data.getLastBuild( BuildState.finished ) );
+        blackhole.consume( _data.getLastBuilds( BuildState.finished, 3 ) );
+    }
+
+    @Benchmark
+    public void registerWithFormerHistory( ) {
+        _formerData.registerBuild( newBuild( _nextBuildId++ ) );
+    }
+
+    @Benchmark
+    public void registerWithRingBuffer( ) {
+        _data.registerBuild( newBuild( _nextBuildId++ ) );
+    }
+
+    private static BuildData newBuild( final int id ) {
+        final BuildState state = id % 4 == 0 ? BuildState.running : BuildState.finished;
+        return new BuildData( id, id % 3 == 0 ? BuildStatus.FAILURE : BuildStatus.SUCCESS, state, 50, Optional.empty( ), Duration.ofMinutes( 1 ) );
+    }
+
+    public static void main( final String[] args ) throws RunnerException {
+        new Runner( new OptionsBuilder( )
+                .include( BuildTypeDataBenchmark.class.getSimpleName( ) )
+                .addProfiler( GCProfiler.class )
+                .build( ) ).run( );
+    }
+
+    /**
+     * Build history as it was kept before the ring buffer
+     */
+    private static final class FormerBuildTypeData {
+
+        private final LinkedList<BuildData> _lastBuilds = Lists.newLinkedList( );
+
+        boolean hasRunningBuild( ) {
+            return getLastBuild( BuildState.running ).isPresent( );
+        }
+
+        Optional<BuildData> getLastBuild( final BuildState state ) {
+            return getBuilds( ).stream( )
+                    .filter( build -> build.getState( ) == state )
+                    .filter( build -> build.getStatus( ) != BuildStatus.UNKNOWN )
+                    .findFirst( );
+        }
+
+        Optional<BuildData> getOldestBuild( final BuildState state ) {
+            return reverse( getBuilds( ) ).stream( )
+                    .filter( build -> build.getState( ) == state )
+                    .filter( build -> build.getStatus( ) != BuildStatus.UNKNOWN )
+                    .findFirst( );
+        }
+
+        List<BuildData> getLastBuilds( final BuildState state, final int count ) {
+            return getBuilds( ).stream( )
+                    .filter( build -> build.getState( ) == state )
+                    .filter( build -> build.getStatus( ) != BuildStatus.UNKNOWN )
+                    .limit( count )
+                    .collect( Collectors.toList( ) );
+        }
+
+        synchronized void registerBuild( final BuildData build ) {
+            _lastBuilds.removeIf( ( b -> b.getId( ) == build.getId( ) ) );
+
+            _lastBuilds.addFirst( build );
+            _lastBuilds.sort( ( o1, o2 ) -> -Integer.compare( o1.getId( ), o2.getId( ) ) );
+            if ( _lastBuilds.size( ) > BuildTypeData.MAX_BUILD_SIZE_TO_CACHE )
+                _lastBuilds.removeLast( );
+        }
+
+        synchronized List<BuildData> getBuilds( ) {
+            return ImmutableList.copyOf( _lastBuilds );
+        }
+    }
+
+}
@@ -24,6 +24,7 @@ import java.util.Optional;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
 
 /**
  * Date: 02/03/14
@@ -36,7 +37,7 @@ public class BuildTypeDataTest {
 
     @Before
     public void setUp( ) throws Exception {
-        _data = new BuildTypeData( "btId", "btName", "btProjectId", "btProjectName" );
+        _data = new BuildTypeData( "btId", "btName", "btProjectId", "btProjectName", null );
     }
 
     @Test
@@ -252,6 +253,125 @@ public class BuildTypeDataTest {
         assertThat( lastBuild.isPresent( ), is( false ) );
     }
 
+    @Test
+    public void registering_a_known_build_replaces_it_and_updates_derived_state( ) throws Exception {
+        // Setup
+        _data.registerBuild( newBuild( 12247, BuildState.finished, BuildStatus.SUCCESS ) );
+        _data.registerBuild( newBuild( 12248, BuildState.running, BuildStatus.SUCCESS ) );
+        final boolean runningBeforeFinish = _data.hasRunningBuild( );
+        // Exercise
+        _data.registerBuild( newBuild( 12248, BuildState.finished, BuildStatus.FAILURE ) );
+        // Verify
+        assertThat( runningBeforeFinish, is( true ) );
+        assertThat( _data.hasRunningBuild( ), is( false ) );
+        assertThat( _data.getBuilds( ).size( ), is( 2 ) );
+        assertThat( _data.getLastBuild( BuildState.finished ).get( ).getId( ), is( 12248 ) );
+        assertThat( _data.getLastBuild( BuildState.finished ).get( ).getStatus( ), is( BuildStatus.FAILURE ) );
+    }
+
+    @Test
+    public void build_older_than_all_kept_builds_is_dropped_when_history_is_full( ) throws Exception {
+        // Setup
+        for ( int i = 0; i < BuildTypeData.MAX_BUILD_SIZE_TO_CACHE; i++ )
+            _data.registerBuild( newBuild( 1200 + i, BuildState.finished, BuildStatus.SUCCESS ) );
+        // Exercise
+        _data.registerBuild( newBuild( 1100, BuildState.running, BuildStatus.SUCCESS ) );
+        // Verify
+        assertThat( _data.getBuildById( 1100 ).isPresent( ), is( false ) );
+        assertThat( _data.hasRunningBuild( ), is( false ) );
+        assertThat( _data.getOldestBuild( BuildState.finished ).get( ).getId( ), is( 1200 ) );
+    }
+
+    @Test
+    public void build_registered_out_of_order_in_full_history_drops_the_oldest_build( ) throws Exception {
+        // Setup
+        for ( int i = 0; i < BuildTypeData.MAX_BUILD_SIZE_TO_CACHE; i++ )
+            _data.registerBuild( newBuild( 1200 + 2 * i, BuildState.finished, BuildStatus.SUCCESS ) );
+        // Exercise
+        _data.registerBuild( newBuild( 1205, BuildState.running, BuildStatus.SUCCESS ) );
+        // Verify
+        final List<BuildData> builds = _data.getBuilds( );
+        assertThat( builds.size( ), is( BuildTypeData.MAX_BUILD_SIZE_TO_CACHE ) );
+        assertThat( builds.get( 0 ).getId( ), is( 1218 ) );
+        assertThat( builds.get( BuildTypeData.MAX_BUILD_SIZE_TO_CACHE - 1 ).getId( ), is( 1202 ) );
+        assertThat( builds.get( BuildTypeData.MAX_BUILD_SIZE_TO_CACHE - 3 ).getId( ), is( 1205 ) );
+        assertThat( _data.getOldestBuild( BuildState.running ).get( ).getId( ), is( 1205 ) );
+    }
+
+    @Test
+    public void builds_with_unknown_status_are_ignored_by_derived_state( ) throws Exception {
+        // Setup
+        _data.registerBuild( newBuild( 12246, BuildState.finished, BuildStatus.SUCCESS ) );
+        _data.registerBuild( newBuild( 12247, BuildState.finished, BuildStatus.UNKNOWN ) );
+        _data.registerBuild( newBuild( 12248, BuildState.running, BuildStatus.UNKNOWN ) );
+        // Exercise
+        // Verify
+        assertThat( _data.hasRunningBuild( ), is( false ) );
+        assertThat( _data.getLastBuild( BuildState.finished ).get( ).getId( ), is( 12246 ) );
+        assertThat( _data.getLastBuilds( BuildState.finished, 3 ).size( ), is( 1 ) );
+        assertThat( _data.getBuildById( 12247 ).isPresent( ), is( true ) );
+    }
+
+    @Test
+    public void getLastBuilds_returns_more_builds_than_kept_last_finished_builds( ) throws Exception {
+        // Setup
+        for ( int i = 0; i < BuildTypeData.MAX_BUILD_SIZE_TO_CACHE; i++ )
+            _data.registerBuild( newBuild( 1200 + i, BuildState.finished, BuildStatus.SUCCESS ) );
+        // Exercise
+        final List<BuildData> lastBuilds = _data.getLastBuilds( BuildState.finished, 5 );
+        final List<BuildData> lastTwoBuilds = _data.getLastBuilds( BuildState.finished, 2 );
+        // Verify
+        assertThat( lastBuilds.size( ), is( 5 ) );
+        assertThat( lastBuilds.get( 4 ).getId( ), is( 1205 ) );
+        assertThat( lastTwoBuilds.size( ), is( 2 ) );
+        assertThat( lastTwoBuilds.get( 1 ).getId( ), is( 1208 ) );
+    }
+
+    @Test
+    public void each_change_publishes_a_new_snapshot_version( ) throws Exception {
+        // Setup
+        final long initialVersion = _data.getVersion( );
+        // Exercise
+        _data.registerBuild( newBuild( 12246, BuildState.finished, BuildStatus.SUCCESS ) );
+        _data.setAliasName( "btAliasName" );
+        _data.setQueued( true );
+        _data.setQueued( true );
+        // Verify
+        assertThat( _data.getVersion( ), is( initialVersion + 3 ) );
+    }
+
+    @Test
+    public void registering_an_identical_build_keeps_the_snapshot( ) throws Exception {
+        // Setup
+        _data.registerBuild( newBuild( 12246, BuildState.finished, BuildStatus.SUCCESS ) );
+        final BuildTypeData.Snapshot snapshot = _data.getSnapshot( );
+        // Exercise
+        _data.registerBuild( newBuild( 12246, BuildState.finished, BuildStatus.SUCCESS ) );
+        // Verify
+        assertThat( _data.getSnapshot( ), is( sameInstance( snapshot ) ) );
+        assertThat( _data.getVersion( ), is( snapshot.getVersion( ) ) );
+    }
+
+    @Test
+    public void snapshot_is_not_modified_by_later_changes( ) throws Exception {
+        // Setup
+        _data.registerBuild( newBuild( 12246, BuildState.finished, BuildStatus.SUCCESS ) );
+        _data.setAliasName( "btAliasName" );
+        final BuildTypeData.Snapshot snapshot = _data.getSnapshot( );
+        // Exercise
+        _data.registerBuild( newBuild( 12247, BuildState.running, BuildStatus.SUCCESS ) );
+        _data.setAliasName( "btOtherAliasName" );
+        _data.setQueued( true );
+        // Verify
+        assertThat( snapshot.getAliasName( ), is( "btAliasName" ) );
+        assertThat( snapshot.isQueued( ), is( false ) );
+        assertThat( snapshot.hasRunningBuild( ), is( false ) );
+        assertThat( snapshot.getBuildById( 12247 ).isPresent( ), is( false ) );
+        assertThat( snapshot.getLastBuild( BuildState.finished ).get( ).getId( ), is( 12246 ) );
+        assertThat( _data.getSnapshot( ).getVersion( ), is( snapshot.getVersion( ) + 3 ) );
+        assertThat( _data.getSnapshot( ).hasRunningBuild( ), is( true ) );
+    }
+
     private BuildData newBuild( final int id, final BuildState state, final BuildStatus status ) {
         return new BuildData( id, status, state, 58, Optional.empty( ), Duration.ofSeconds( 98 ) );
     }
@@ -27,6 +27,7 @@ import java.util.List;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
 
 /**
  * Date: 02/03/14
@@ -175,6 +176,17 @@ public class BuildTypeManagerTest {
         assertThat( _buildManager.getPosition( bt2 ), is( 1 ) );
     }
 
+    @Test
+    public void getBuildType_returns_the_requested_build_type_or_empty( ) throws Exception {
+        // Setup
+        final BuildTypeData bt2 = newBuildType( "bt2" );
+        _buildManager.registerBuildTypes( ImmutableList.of( newBuildType( "bt1" ), bt2 ) );
+        // Exercise
+        // Verify
+        assertThat( _buildManager.getBuildType( "bt2" ).get( ), is( sameInstance( bt2 ) ) );
+        assertThat( _buildManager.getBuildType( "bt3" ).isPresent( ), is( false ) );
+    }
+
     @Test
     public void registerBuildTypesInQueue_changes_queued_status_and_returns_modified_build_types( ) throws Exception {
         // Setup
@@ -197,8 +209,45 @@ public class BuildTypeManagerTest {
         assertThat( bt3.isQueued( ), is( true ) );
     }
 
+    @Test
+    public void mergeBuildTypes_replaces_build_types_with_same_id_and_keeps_others( ) throws Exception {
+        // Setup
+        final BuildTypeData bt1 = newBuildType( "bt1" );
+        final BuildTypeData bt2 = newBuildType( "bt2" );
+        bt2.setAliasName( "myAlias" );
+        _buildManager.registerBuildTypes( ImmutableList.of( bt1, bt2 ) );
+        _buildManager.activateMonitoring( bt2 );
+        final BuildTypeData newBt2 = newBuildType( "bt2" );
+        // Exercise
+        _buildManager.mergeBuildTypes( ImmutableList.of( newBt2, newBuildType( "bt3" ) ) );
+        // Verify
+        final List<BuildTypeData> buildTypesInManager = _buildManager.getBuildTypes( );
+        assertThat( buildTypesInManager.size( ), is( 3 ) );
+        assertThat( buildTypesInManager.get( 0 ), is( bt1 ) );
+        assertThat( buildTypesInManager.get( 1 ), is( newBt2 ) );
+        assertThat( buildTypesInManager.get( 2 ).getId( ), is( "bt3" ) );
+        assertThat( _buildManager.getMonitoredBuildTypes( ).size( ), is( 1 ) );
+        assertThat( _buildManager.getMonitoredBuildTypes( ).get( 0 ), is( newBt2 ) );
+        assertThat( newBt2.getAliasName( ), is( "myAlias" ) );
+    }
+
+    @Test
+    public void retainBuildTypes_forgets_other_build_types( ) throws Exception {
+        // Setup
+        final BuildTypeData bt1 = newBuildType( "bt1" );
+        final BuildTypeData bt2 = newBuildType( "bt2" );
+        _buildManager.registerBuildTypes( ImmutableList.of( bt1, bt2 ) );
+        _buildManager.activateMonitoring( bt1 );
+        // Exercise
+        _buildManager.retainBuildTypes( ImmutableSet.of( "bt2" ) );
+        // Verify
+        assertThat( _buildManager.getBuildTypes( ).size( ), is( 1 ) );
+        assertThat( _buildManager.getBuildTypes( ).get( 0 ), is( bt2 ) );
+        assertThat( _buildManager.getMonitoredBuildTypes( ).size( ), is( 0 ) );
+    }
+
     private BuildTypeData newBuildType( final String id ) {
-        return new BuildTypeData( id, "btName", "btProjectId", "btProjectName" );
+        return new BuildTypeData( id, "btName", "btProjectId", "btProjectName", null );
     }
 
 }
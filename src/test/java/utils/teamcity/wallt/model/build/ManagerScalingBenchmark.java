@@ -0,0 +1,137 @@
+/*******************************************************************************
+ * Copyright 2014 Cedric Longo.
+ *
+ * This file is part of Wall-T program.
+ *
+ * Wall-T is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Wall-T is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with Wall-T.
+ * If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+
+package utils.teamcity.wallt.model.build;
+
+import com.google.common.collect.ImmutableList;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import utils.teamcity.wallt.model.configuration.Configuration;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how registering, looking up and positioning build types and projects scale with the number of entries
+ * known by {@link BuildTypeManager} and {@link ProjectManager}. One tenth of the entries is monitored, and each project has
+ * four children.
+ * Children are queried for a project three levels below the root, whose subtree holds about one sixty-fourth of all projects.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class ManagerScalingBenchmark {
+
+    @Param( { "100", "1000", "10000", "50000" } )
+    private int _size;
+
+    private BuildTypeManager _buildManager;
+    private ProjectManager _projectManager;
+    private List<BuildTypeData> _buildTypes;
+    private BuildTypeData _lastMonitoredBuildType;
+    private ProjectData _lastMonitoredProject;
+    private String _lastProjectId;
+    private ProjectData _subtreeRoot;
+
+    @Setup
+    public void setUp( ) {
+        final ImmutableList.Builder<BuildTypeData> buildTypes = ImmutableList.builder( );
+        final ImmutableList.Builder<ProjectData> projects = ImmutableList.builder( );
+        for ( int i = 0; i < _size; i++ ) {
+            buildTypes.add( new BuildTypeData( "bt" + i, "Build type " + i, "project" + i, "Project " + i, null ) );
+            projects.add( new ProjectData( "project" + i, "Project " + i, i == 0 ? Optional.empty( ) : Optional.of( "project" + ( i - 1 ) / 4 ) ) );
+        }
+        _buildTypes = buildTypes.build( );
+
+        _buildManager = new BuildTypeManager( new Configuration( ) );
+        _buildManager.registerBuildTypes( _buildTypes );
+        _projectManager = new ProjectManager( new Configuration( ) );
+        _projectManager.registerProjects( projects.build( ) );
+        for ( int i = 0; i < _size; i += 10 ) {
+            _buildManager.activateMonitoring( _buildTypes.get( i ) );
+            _projectManager.activateMonitoring( _projectManager.getProjects( ).get( i ) );
+        }
+
+        final List<BuildTypeData> monitoredBuildTypes = _buildManager.getMonitoredBuildTypes( );
+        _lastMonitoredBuildType = monitoredBuildTypes.get( monitoredBuildTypes.size( ) - 1 );
+        final List<ProjectData> monitoredProjects = _projectManager.getMonitoredProjects( );
+        _lastMonitoredProject = monitoredProjects.get( monitoredProjects.size( ) - 1 );
+        _lastProjectId = "project" + ( _size - 1 );
+        _subtreeRoot = _projectManager.getProject( "project21" ).get( );
+    }
+
+    @Benchmark
+    public void registerBuildTypes( ) {
+        _buildManager.registerBuildTypes( _buildTypes );
+    }
+
+    @Benchmark
+    public void mergeBuildTypes( ) {
+        _buildManager.mergeBuildTypes( _buildTypes );
+    }
+
+    @Benchmark
+    public List<BuildTypeData> getBuildTypes( ) {
+        return _buildManager.getBuildTypes( );
+    }
+
+    @Benchmark
+    public int getBuildTypePosition( ) {
+        return _buildManager.getPosition( _lastMonitoredBuildType );
+    }
+
+    @Benchmark
+    public void requestBuildTypePosition( ) {
+        // Moves the last monitored build type first, then back to the end
+        _buildManager.requestPosition( _lastMonitoredBuildType, 1 );
+        _buildManager.requestPosition( _lastMonitoredBuildType, Integer.MAX_VALUE );
+    }
+
+    @Benchmark
+    public Optional<ProjectData> getProject( ) {
+        return _projectManager.getProject( _lastProjectId );
+    }
+
+    @Benchmark
+    public int getProjectPosition( ) {
+        return _projectManager.getPosition( _lastMonitoredProject );
+    }
+
+    @Benchmark
+    public List<ProjectData> getAllChildrenOf( ) {
+        return _projectManager.getAllChildrenOf( _subtreeRoot );
+    }
+
+    @Benchmark
+    public List<ProjectData> getAllChildrenOfAfterChange( ) {
+        _projectManager.mergeProjects( ImmutableList.of( _subtreeRoot ) );
+        return _projectManager.getAllChildrenOf( _subtreeRoot );
+    }
+
+    public static void main( final String[] args ) throws RunnerException {
+        new Runner( new OptionsBuilder( )
+                .include( ManagerScalingBenchmark.class.getSimpleName( ) )
+                .addProfiler( GCProfiler.class )
+                .build( ) ).run( );
+    }
+}
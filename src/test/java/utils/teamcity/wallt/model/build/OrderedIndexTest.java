@@ -0,0 +1,154 @@
+/*******************************************************************************
+ * Copyright 2014 Cedric Longo.
+ *
+ * This file is part of Wall-T program.
+ *
+ * Wall-T is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Wall-T is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with Wall-T.
+ * If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+
+package utils.teamcity.wallt.model.build;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class OrderedIndexTest {
+
+    private OrderedIndex<ProjectData> _index;
+
+    @Before
+    public void setUp( ) throws Exception {
+        _index = new OrderedIndex<>( ProjectData::getId );
+    }
+
+    @Test
+    public void elements_are_found_by_id_and_kept_in_order( ) throws Exception {
+        // Setup
+        final ProjectData p1 = newProject( "p1" );
+        final ProjectData p2 = newProject( "p2" );
+        // Exercise
+        _index.addIfAbsent( p1 );
+        _index.addIfAbsent( p2 );
+        // Verify
+        assertThat( _index.asList( ), contains( p1, p2 ) );
+        assertThat( _index.get( "p2" ).get( ), is( sameInstance( p2 ) ) );
+        assertThat( _index.get( "p3" ).isPresent( ), is( false ) );
+        assertThat( _index.indexOf( p2 ), is( 1 ) );
+    }
+
+    @Test
+    public void element_with_known_id_is_not_added_twice( ) throws Exception {
+        // Setup
+        final ProjectData p1 = newProject( "p1" );
+        final ProjectData otherP1 = newProject( "p1" );
+        _index.addIfAbsent( p1 );
+        // Exercise
+        final boolean added = _index.addIfAbsent( otherP1 );
+        // Verify
+        assertThat( added, is( false ) );
+        assertThat( _index.asList( ), contains( p1 ) );
+        assertThat( _index.indexOf( otherP1 ), is( -1 ) );
+    }
+
+    @Test
+    public void put_replaces_element_with_same_id_at_its_position( ) throws Exception {
+        // Setup
+        final ProjectData p1 = newProject( "p1" );
+        final ProjectData otherP1 = newProject( "p1" );
+        final ProjectData p2 = newProject( "p2" );
+        _index.addIfAbsent( p1 );
+        _index.addIfAbsent( p2 );
+        // Exercise
+        final Optional<ProjectData> replaced = _index.put( otherP1 );
+        // Verify
+        assertThat( replaced.get( ), is( sameInstance( p1 ) ) );
+        assertThat( _index.asList( ), contains( otherP1, p2 ) );
+        assertThat( _index.indexOf( otherP1 ), is( 0 ) );
+    }
+
+    @Test
+    public void positions_are_updated_when_removing_or_moving_elements( ) throws Exception {
+        // Setup
+        final ProjectData p1 = newProject( "p1" );
+        final ProjectData p2 = newProject( "p2" );
+        final ProjectData p3 = newProject( "p3" );
+        final ProjectData p4 = newProject( "p4" );
+        _index.addIfAbsent( p1 );
+        _index.addIfAbsent( p2 );
+        _index.addIfAbsent( p3 );
+        _index.addIfAbsent( p4 );
+        // Exercise
+        _index.remove( p1 );
+        _index.move( p4, 0 );
+        _index.move( p2, 10 );
+        // Verify
+        assertThat( _index.asList( ), contains( p4, p3, p2 ) );
+        assertThat( _index.indexOf( p4 ), is( 0 ) );
+        assertThat( _index.indexOf( p3 ), is( 1 ) );
+        assertThat( _index.indexOf( p2 ), is( 2 ) );
+        assertThat( _index.indexOf( p1 ), is( -1 ) );
+    }
+
+    @Test
+    public void contains_only_this_very_element_after_moving_elements( ) throws Exception {
+        // Setup
+        final ProjectData p1 = newProject( "p1" );
+        final ProjectData p2 = newProject( "p2" );
+        final ProjectData p3 = newProject( "p3" );
+        _index.addIfAbsent( p1 );
+        _index.addIfAbsent( p2 );
+        _index.addIfAbsent( p3 );
+        // Exercise
+        _index.move( p3, 0 );
+        _index.remove( p1 );
+        // Verify
+        assertThat( _index.contains( p3 ), is( true ) );
+        assertThat( _index.contains( p2 ), is( true ) );
+        assertThat( _index.contains( p1 ), is( false ) );
+        assertThat( _index.contains( newProject( "p2" ) ), is( false ) );
+    }
+
+    @Test
+    public void retain_forgets_other_elements_and_updates_positions( ) throws Exception {
+        // Setup
+        final ProjectData p1 = newProject( "p1" );
+        final ProjectData p2 = newProject( "p2" );
+        _index.addIfAbsent( p1 );
+        _index.addIfAbsent( p2 );
+        // Exercise
+        _index.retain( p -> p.getId( ).equals( "p2" ) );
+        // Verify
+        assertThat( _index.asList( ), contains( p2 ) );
+        assertThat( _index.indexOf( p2 ), is( 0 ) );
+        assertThat( _index.get( "p1" ).isPresent( ), is( false ) );
+    }
+
+    @Test
+    public void list_is_only_built_again_after_a_change( ) throws Exception {
+        // Setup
+        _index.addIfAbsent( newProject( "p1" ) );
+        // Exercise
+        final Object list = _index.asList( );
+        final Object sameList = _index.asList( );
+        _index.addIfAbsent( newProject( "p2" ) );
+        // Verify
+        assertThat( sameList, is( sameInstance( list ) ) );
+        assertThat( _index.asList( ), is( not( sameInstance( list ) ) ) );
+    }
+
+    private static ProjectData newProject( final String id ) {
+        return new ProjectData( id, "pName", Optional.empty( ) );
+    }
+}
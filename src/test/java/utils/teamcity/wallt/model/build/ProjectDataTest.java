@@ -24,6 +24,8 @@ import java.util.Optional;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
 
 /**
  * Date: 02/03/14
@@ -191,9 +193,72 @@ public class ProjectDataTest {
         assertThat( buildTypeCount, is( 1 ) );
     }
 
+    @Test
+    public void subtree_counts_follow_builds_of_registered_build_types( ) throws Exception {
+        // Setup
+        final BuildTypeData bt1 = newBuildType( "bt1" );
+        bt1.registerBuild( newBuild( 1200, BuildState.finished, BuildStatus.SUCCESS ) );
+        final BuildTypeData bt2 = newBuildType( "bt2" );
+        _data.registerBuildType( bt1 );
+        _data.registerBuildType( bt2 );
+        // Exercise
+        bt2.registerBuild( newBuild( 1201, BuildState.finished, BuildStatus.ERROR ) );
+        bt1.registerBuild( newBuild( 1202, BuildState.running, BuildStatus.SUCCESS ) );
+        bt1.registerBuild( newBuild( 1203, BuildState.finished, BuildStatus.FAILURE ) );
+        // Verify
+        final BuildTypeCounts counts = _data.getSubtreeCounts( );
+        assertThat( counts.getSuccessCount( ), is( _data.getBuildTypeCount( BuildStatus.SUCCESS ) ) );
+        assertThat( counts.getFailureCount( ), is( _data.getBuildTypeCount( BuildStatus.FAILURE, BuildStatus.ERROR ) ) );
+        assertThat( counts.getFailureCount( ), is( 2 ) );
+        assertThat( counts.hasFailureRunning( ), is( true ) );
+        assertThat( counts.hasSuccessRunning( ), is( false ) );
+    }
+
+    @Test
+    public void replaced_build_type_is_not_counted_anymore( ) throws Exception {
+        // Setup
+        final BuildTypeData bt1 = newBuildType( "bt1" );
+        bt1.registerBuild( newBuild( 1200, BuildState.finished, BuildStatus.FAILURE ) );
+        _data.registerBuildType( bt1 );
+        final BuildTypeData newBt1 = newBuildType( "bt1" );
+        newBt1.registerBuild( newBuild( 1201, BuildState.finished, BuildStatus.SUCCESS ) );
+        // Exercise
+        _data.registerBuildType( newBt1 );
+        bt1.registerBuild( newBuild( 1202, BuildState.finished, BuildStatus.FAILURE ) );
+        // Verify
+        assertThat( _data.getSubtreeCounts( ).getSuccessCount( ), is( 1 ) );
+        assertThat( _data.getSubtreeCounts( ).getFailureCount( ), is( 0 ) );
+    }
+
+    @Test
+    public void registering_a_build_type_publishes_a_new_snapshot( ) throws Exception {
+        // Setup
+        _data.registerBuildType( newBuildType( "bt1" ) );
+        final ProjectData.Snapshot snapshot = _data.getSnapshot( );
+        // Exercise
+        _data.registerBuildType( newBuildType( "bt2" ) );
+        _data.setAliasName( "pAliasName" );
+        // Verify
+        assertThat( snapshot.getBuildTypes( ).size( ), is( 1 ) );
+        assertThat( snapshot.getAliasName( ), is( nullValue( ) ) );
+        assertThat( _data.getBuildTypes( ).size( ), is( 2 ) );
+        assertThat( _data.getVersion( ), is( snapshot.getVersion( ) + 2 ) );
+    }
+
+    @Test
+    public void setting_same_alias_name_keeps_the_snapshot( ) throws Exception {
+        // Setup
+        _data.setAliasName( "pAliasName" );
+        final ProjectData.Snapshot snapshot = _data.getSnapshot( );
+        // Exercise
+        _data.setAliasName( "pAliasName" );
+        // Verify
+        assertThat( _data.getSnapshot( ), is( sameInstance( snapshot ) ) );
+    }
+
 
     private BuildTypeData newBuildType( final String id ) {
-        return new BuildTypeData( id, "btName", "btProjectId", "btProjectName" );
+        return new BuildTypeData( id, "btName", "btProjectId", "btProjectName", null );
     }
 
     private BuildData newBuild( final int id, final BuildState state, final BuildStatus status ) {
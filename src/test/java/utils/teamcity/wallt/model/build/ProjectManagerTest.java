@@ -16,18 +16,23 @@
 package utils.teamcity.wallt.model.build;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.inject.Guice;
 import org.junit.Before;
 import org.junit.Test;
 import utils.teamcity.wallt.TestModules;
 
 import javax.inject.Inject;
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
 
 /**
  * Date: 02/03/14
@@ -222,6 +227,136 @@ public class ProjectManagerTest {
         assertThat( allChildren, containsInAnyOrder( p11, p12, p111 ) );
     }
 
+    @Test
+    public void getAllChildrenOf_is_computed_again_when_projects_change( ) throws Exception {
+        // Setup
+        final ProjectData p01 = newProject( "p01" );
+        final ProjectData p11 = newProject( "p11", "p01" );
+        _projectManager.registerProjects( ImmutableList.of( p01, p11 ) );
+        final List<ProjectData> allChildren = _projectManager.getAllChildrenOf( p01 );
+        final ProjectData p12 = newProject( "p12", "p01" );
+        final ProjectData p121 = newProject( "p121", "p12" );
+        // Exercise
+        _projectManager.mergeProjects( ImmutableList.of( p12, p121 ) );
+        // Verify
+        assertThat( _projectManager.getAllChildrenOf( p01 ), is( sameInstance( _projectManager.getAllChildrenOf( p01 ) ) ) );
+        assertThat( allChildren, contains( p11 ) );
+        assertThat( _projectManager.getAllChildrenOf( p01 ), contains( p11, p12, p121 ) );
+    }
+
+    @Test
+    public void getSubtreeOf_returns_project_with_all_its_children( ) throws Exception {
+        // Setup
+        final ProjectData p00 = newProject( "p00" );
+        final ProjectData p01 = newProject( "p01", "p00" );
+        final ProjectData p11 = newProject( "p11", "p01" );
+        final ProjectData p02 = newProject( "p02", "p00" );
+        _projectManager.registerProjects( ImmutableList.of( p00, p01, p11, p02 ) );
+        // Exercise
+        final Set<ProjectData> subtree = _projectManager.getSubtreeOf( p01 );
+        // Verify
+        assertThat( subtree, contains( p01, p11 ) );
+        assertThat( _projectManager.getSubtreeOf( p01 ), is( sameInstance( subtree ) ) );
+        _projectManager.retainProjects( ImmutableSet.of( "p00", "p01" ) );
+        assertThat( _projectManager.getSubtreeOf( p01 ), contains( p01 ) );
+    }
+
+    @Test
+    public void subtree_counts_are_propagated_to_parents( ) throws Exception {
+        // Setup
+        final ProjectData p00 = newProject( "p00" );
+        final ProjectData p01 = newProject( "p01", "p00" );
+        final ProjectData p11 = newProject( "p11", "p01" );
+        final ProjectData p02 = newProject( "p02", "p00" );
+        _projectManager.registerProjects( ImmutableList.of( p00, p01, p11, p02 ) );
+        final BuildTypeData bt1 = new BuildTypeData( "bt1", "btName", "p11", "pName", null );
+        final BuildTypeData bt2 = new BuildTypeData( "bt2", "btName", "p02", "pName", null );
+        p11.registerBuildType( bt1 );
+        p02.registerBuildType( bt2 );
+        // Exercise
+        bt1.registerBuild( new BuildData( 1200, BuildStatus.FAILURE, BuildState.finished, 100, Optional.empty( ), Duration.ZERO ) );
+        bt2.registerBuild( new BuildData( 1201, BuildStatus.SUCCESS, BuildState.finished, 100, Optional.empty( ), Duration.ZERO ) );
+        bt2.registerBuild( new BuildData( 1202, BuildStatus.SUCCESS, BuildState.running, 10, Optional.empty( ), Duration.ZERO ) );
+        // Verify
+        assertThat( p11.getSubtreeCounts( ).getFailureCount( ), is( 1 ) );
+        assertThat( p01.getSubtreeCounts( ).getFailureCount( ), is( 1 ) );
+        assertThat( p01.getSubtreeCounts( ).getSuccessCount( ), is( 0 ) );
+        assertThat( p00.getSubtreeCounts( ).getFailureCount( ), is( 1 ) );
+        assertThat( p00.getSubtreeCounts( ).getSuccessCount( ), is( 1 ) );
+        assertThat( p00.getSubtreeCounts( ).hasSuccessRunning( ), is( true ) );
+    }
+
+    @Test
+    public void subtree_counts_are_propagated_once_when_parents_form_a_cycle( ) throws Exception {
+        // Setup
+        final ProjectData p01 = newProject( "p01", "p02" );
+        final ProjectData p02 = newProject( "p02", "p01" );
+        _projectManager.registerProjects( ImmutableList.of( p01, p02 ) );
+        final BuildTypeData bt1 = new BuildTypeData( "bt1", "btName", "p01", "pName", null );
+        p01.registerBuildType( bt1 );
+        // Exercise
+        bt1.registerBuild( new BuildData( 1200, BuildStatus.FAILURE, BuildState.finished, 100, Optional.empty( ), Duration.ZERO ) );
+        // Verify
+        assertThat( p01.getSubtreeCounts( ).getFailureCount( ), is( 1 ) );
+        assertThat( p02.getSubtreeCounts( ).getFailureCount( ), is( 1 ) );
+    }
+
+    @Test
+    public void subtree_counts_are_computed_again_when_hierarchy_changes( ) throws Exception {
+        // Setup
+        final ProjectData p00 = newProject( "p00" );
+        final ProjectData p01 = newProject( "p01", "p00" );
+        _projectManager.registerProjects( ImmutableList.of( p00, p01 ) );
+        final BuildTypeData bt1 = new BuildTypeData( "bt1", "btName", "p01", "pName", null );
+        bt1.registerBuild( new BuildData( 1200, BuildStatus.SUCCESS, BuildState.finished, 100, Optional.empty( ), Duration.ZERO ) );
+        p01.registerBuildType( bt1 );
+        final ProjectData newP00 = newProject( "p00" );
+        // Exercise
+        _projectManager.mergeProjects( ImmutableList.of( newP00 ) );
+        bt1.registerBuild( new BuildData( 1201, BuildStatus.FAILURE, BuildState.finished, 100, Optional.empty( ), Duration.ZERO ) );
+        // Verify
+        assertThat( newP00.getSubtreeCounts( ).getFailureCount( ), is( 1 ) );
+        assertThat( newP00.getSubtreeCounts( ).getSuccessCount( ), is( 0 ) );
+        assertThat( p00.getSubtreeCounts( ).getFailureCount( ), is( 0 ) );
+    }
+
+    @Test
+    public void mergeProjects_replaces_projects_with_same_id_and_keeps_others( ) throws Exception {
+        // Setup
+        final ProjectData p1 = newProject( "p1" );
+        final ProjectData p2 = newProject( "p2" );
+        p2.setAliasName( "myAlias" );
+        _projectManager.registerProjects( ImmutableList.of( p1, p2 ) );
+        _projectManager.activateMonitoring( p2 );
+        final ProjectData newP2 = newProject( "p2" );
+        // Exercise
+        _projectManager.mergeProjects( ImmutableList.of( newP2, newProject( "p3" ) ) );
+        // Verify
+        final List<ProjectData> projectsInManager = _projectManager.getProjects( );
+        assertThat( projectsInManager.size( ), is( 3 ) );
+        assertThat( projectsInManager.get( 0 ), is( p1 ) );
+        assertThat( projectsInManager.get( 1 ), is( newP2 ) );
+        assertThat( projectsInManager.get( 2 ).getId( ), is( "p3" ) );
+        assertThat( _projectManager.getMonitoredProjects( ).size( ), is( 1 ) );
+        assertThat( _projectManager.getMonitoredProjects( ).get( 0 ), is( newP2 ) );
+        assertThat( newP2.getAliasName( ), is( "myAlias" ) );
+    }
+
+    @Test
+    public void retainProjects_forgets_other_projects( ) throws Exception {
+        // Setup
+        final ProjectData p1 = newProject( "p1" );
+        final ProjectData p2 = newProject( "p2" );
+        _projectManager.registerProjects( ImmutableList.of( p1, p2 ) );
+        _projectManager.activateMonitoring( p1 );
+        // Exercise
+        _projectManager.retainProjects( ImmutableSet.of( "p2" ) );
+        // Verify
+        assertThat( _projectManager.getProjects( ).size( ), is( 1 ) );
+        assertThat( _projectManager.getProjects( ).get( 0 ), is( p2 ) );
+        assertThat( _projectManager.getMonitoredProjects( ).size( ), is( 0 ) );
+    }
+
     private ProjectData newProject( final String id ) {
         return new ProjectData( id, "pName", Optional.<String>empty( ) );
     }
@@ -46,6 +46,17 @@ public class ConfigurationTest {
         configuration.setServerUrl( "http://mylocalhost" );
         configuration.setMaxTilesByColumn( 44 );
         configuration.setMaxTilesByRow( 45 );
+        configuration.setMaxParallelRequests( 12 );
+        configuration.setSharedResponseTtlInMillis( 500 );
+        configuration.setCompressionEnabled( false );
+        configuration.setMaxRequestsPerSecond( 4 );
+        configuration.setMaxRequestsInFlight( 3 );
+        configuration.setMaxQueuedRequests( 50 );
+        configuration.setDeltaPollingEnabled( false );
+        configuration.setWebhookEnabled( true );
+        configuration.setWebhookPort( 9090 );
+        configuration.setWebhookAddress( "0.0.0.0" );
+        configuration.setWebhookToken( "s3cr3t" );
         configuration.setProxyHost( "http://myproxy" );
         configuration.setProxyPort( 88 );
         configuration.setProxyCredentialsUser( "Titi" );
@@ -61,6 +72,17 @@ public class ConfigurationTest {
         assertThat( configuration.getServerUrl( ), is( "http://mylocalhost" ) );
         assertThat( configuration.getMaxTilesByColumn( ), is( 44 ) );
         assertThat( configuration.getMaxTilesByRow( ), is( 45 ) );
+        assertThat( configuration.getMaxParallelRequests( ), is( 12 ) );
+        assertThat( configuration.getSharedResponseTtlInMillis( ), is( 500 ) );
+        assertThat( configuration.isCompressionEnabled( ), is( false ) );
+        assertThat( configuration.getMaxRequestsPerSecond( ), is( 4 ) );
+        assertThat( configuration.getMaxRequestsInFlight( ), is( 3 ) );
+        assertThat( configuration.getMaxQueuedRequests( ), is( 50 ) );
+        assertThat( configuration.isDeltaPollingEnabled( ), is( false ) );
+        assertThat( configuration.isWebhookEnabled( ), is( true ) );
+        assertThat( configuration.getWebhookPort( ), is( 9090 ) );
+        assertThat( configuration.getWebhookAddress( ), is( "0.0.0.0" ) );
+        assertThat( configuration.getWebhookToken( ), is( "s3cr3t" ) );
         assertThat( configuration.getProxyHost( ), is( "http://myproxy" ) );
         assertThat( configuration.getProxyPort( ), is( 88 ) );
         assertThat( configuration.getProxyCredentialsUser( ), is( "Titi" ) );
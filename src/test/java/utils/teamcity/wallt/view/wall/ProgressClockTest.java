@@ -0,0 +1,127 @@
+/*******************************************************************************
+ * Copyright 2014 Cedric Longo.
+ *
+ * This file is part of Wall-T program.
+ *
+ * Wall-T is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Wall-T is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with Wall-T.
+ * If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package utils.teamcity.wallt.view.wall;
+
+import com.google.common.collect.Lists;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class ProgressClockTest {
+
+    private SettableClock _clock;
+    private FakeTicker _ticker;
+    private ProgressClock _progressClock;
+
+    @Before
+    public void setUp( ) throws Exception {
+        _clock = new SettableClock( Instant.parse( "2026-10-16T10:00:00Z" ) );
+        _ticker = new FakeTicker( );
+        _progressClock = new ProgressClock( _clock, tick -> _ticker );
+    }
+
+    @Test
+    public void clock_ticks_only_while_a_listener_is_registered( ) throws Exception {
+        // Setup
+        final ProgressClock.Listener listener1 = now -> {
+        };
+        final ProgressClock.Listener listener2 = now -> {
+        };
+        // Exercise
+        _progressClock.register( listener1 );
+        _progressClock.register( listener2 );
+        _progressClock.unregister( listener1 );
+        final boolean startedWithOneListener = _ticker.isStarted( );
+        _progressClock.unregister( listener2 );
+        // Verify
+        assertThat( startedWithOneListener, is( true ) );
+        assertThat( _ticker.isStarted( ), is( false ) );
+        assertThat( _ticker.getStartCount( ), is( 1 ) );
+    }
+
+    @Test
+    public void tick_gives_current_time_of_clock_to_registered_listeners( ) throws Exception {
+        // Setup
+        final List<Instant> ticks = Lists.newArrayList( );
+        _progressClock.register( ticks::add );
+        _clock.setInstant( Instant.parse( "2026-10-16T10:00:01Z" ) );
+        // Exercise
+        _progressClock.tick( );
+        // Verify
+        assertThat( ticks, contains( Instant.parse( "2026-10-16T10:00:01Z" ) ) );
+    }
+
+    static final class FakeTicker implements ProgressClock.Ticker {
+
+        private boolean _started;
+        private int _startCount;
+
+        @Override
+        public void start( ) {
+            _started = true;
+            _startCount++;
+        }
+
+        @Override
+        public void stop( ) {
+            _started = false;
+        }
+
+        boolean isStarted( ) {
+            return _started;
+        }
+
+        int getStartCount( ) {
+            return _startCount;
+        }
+    }
+
+    static final class SettableClock extends Clock {
+
+        private Instant _instant;
+
+        SettableClock( final Instant instant ) {
+            _instant = instant;
+        }
+
+        void setInstant( final Instant instant ) {
+            _instant = instant;
+        }
+
+        @Override
+        public ZoneId getZone( ) {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone( final ZoneId zone ) {
+            return this;
+        }
+
+        @Override
+        public Instant instant( ) {
+            return _instant;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+/*******************************************************************************
+ * Copyright 2014 Cedric Longo.
+ *
+ * This file is part of Wall-T program.
+ *
+ * Wall-T is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Wall-T is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with Wall-T.
+ * If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package utils.teamcity.wallt.view.wall;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import org.junit.Before;
+import org.junit.Test;
+import utils.teamcity.wallt.model.build.BuildData;
+import utils.teamcity.wallt.model.build.BuildState;
+import utils.teamcity.wallt.model.build.BuildStatus;
+import utils.teamcity.wallt.model.build.BuildTypeData;
+import utils.teamcity.wallt.model.configuration.Configuration;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class TileViewModelTest {
+
+    private static final Instant NOW = Instant.parse( "2026-10-16T10:00:00Z" );
+
+    private ProgressClockTest.SettableClock _clock;
+    private ProgressClockTest.FakeTicker _ticker;
+    private ProgressClock _progressClock;
+    private BuildTypeData _buildType;
+
+    @Before
+    public void setUp( ) throws Exception {
+        _clock = new ProgressClockTest.SettableClock( NOW );
+        _ticker = new ProgressClockTest.FakeTicker( );
+        _progressClock = new ProgressClock( _clock, tick -> _ticker );
+        _buildType = new BuildTypeData( "bt1", "btName", "pId", "pName", null );
+    }
+
+    @Test
+    public void percentage_complete_advances_at_the_rate_of_the_time_left( ) throws Exception {
+        // Setup
+        final BuildData build = newRunningBuild( 1200, 50, Duration.ofMinutes( 10 ) );
+        // Exercise
+        final int percentage = TileViewModel.interpolatePercentageComplete( build, Duration.ofMinutes( 5 ) );
+        // Verify
+        assertThat( percentage, is( 75 ) );
+    }
+
+    @Test
+    public void percentage_complete_is_capped_to_99_until_build_is_finished( ) throws Exception {
+        // Setup
+        final BuildData build = newRunningBuild( 1200, 50, Duration.ofMinutes( 10 ) );
+        // Exercise
+        final int percentage = TileViewModel.interpolatePercentageComplete( build, Duration.ofMinutes( 30 ) );
+        // Verify
+        assertThat( percentage, is( 99 ) );
+    }
+
+    @Test
+    public void percentage_complete_is_not_interpolated_without_time_left( ) throws Exception {
+        // Setup
+        final BuildData build = newRunningBuild( 1200, 50, Duration.ZERO );
+        // Exercise
+        final int percentage = TileViewModel.interpolatePercentageComplete( build, Duration.ofMinutes( 5 ) );
+        // Verify
+        assertThat( percentage, is( 50 ) );
+    }
+
+    @Test
+    public void time_left_is_clamped_at_zero( ) throws Exception {
+        // Setup
+        final BuildData build = newRunningBuild( 1200, 50, Duration.ofMinutes( 1 ) );
+        // Exercise
+        final Duration timeLeft = TileViewModel.interpolateTimeLeft( build, Duration.ofMinutes( 3 ) );
+        // Verify
+        assertThat( timeLeft, is( Duration.ZERO ) );
+    }
+
+    @Test
+    public void overrun_time_left_given_by_server_is_kept( ) throws Exception {
+        // Setup
+        final BuildData build = newRunningBuild( 1200, 50, Duration.ofMinutes( -2 ) );
+        // Exercise
+        final Duration timeLeft = TileViewModel.interpolateTimeLeft( build, Duration.ofMinutes( 3 ) );
+        // Verify
+        assertThat( timeLeft, is( Duration.ofMinutes( -2 ) ) );
+    }
+
+    @Test
+    public void clock_ticks_advance_progress_of_running_build( ) throws Exception {
+        // Setup
+        _buildType.registerBuild( newRunningBuild( 1200, 50, Duration.ofMinutes( 10 ) ) );
+        final TileViewModel tileViewModel = newTileViewModel( );
+        _clock.setInstant( NOW.plus( Duration.ofMinutes( 2 ) ) );
+        // Exercise
+        _progressClock.tick( );
+        // Verify
+        assertThat( tileViewModel.getTimeLeft( ), is( Duration.ofMinutes( 8 ) ) );
+        assertThat( tileViewModel.getPercentageComplete( ), is( 60 ) );
+    }
+
+    @Test
+    public void new_build_data_resets_interpolation( ) throws Exception {
+        // Setup
+        _buildType.registerBuild( newRunningBuild( 1200, 50, Duration.ofMinutes( 10 ) ) );
+        final TileViewModel tileViewModel = newTileViewModel( );
+        _clock.setInstant( NOW.plus( Duration.ofMinutes( 2 ) ) );
+        _progressClock.tick( );
+        // Exercise
+        _buildType.registerBuild( newRunningBuild( 1200, 55, Duration.ofMinutes( 9 ) ) );
+        tileViewModel.updateTileViewModel( _buildType );
+        // Verify
+        assertThat( tileViewModel.getTimeLeft( ), is( Duration.ofMinutes( 9 ) ) );
+        assertThat( tileViewModel.getPercentageComplete( ), is( 55 ) );
+        _clock.setInstant( NOW.plus( Duration.ofMinutes( 5 ) ) );
+        _progressClock.tick( );
+        assertThat( tileViewModel.getTimeLeft( ), is( Duration.ofMinutes( 6 ) ) );
+    }
+
+    @Test
+    public void release_unregisters_tile_from_clock( ) throws Exception {
+        // Setup
+        _buildType.registerBuild( newRunningBuild( 1200, 50, Duration.ofMinutes( 10 ) ) );
+        final TileViewModel tileViewModel = newTileViewModel( );
+        final boolean tickingWhileRunning = _ticker.isStarted( );
+        // Exercise
+        tileViewModel.release( );
+        // Verify
+        assertThat( tickingWhileRunning, is( true ) );
+        assertThat( _ticker.isStarted( ), is( false ) );
+    }
+
+    private TileViewModel newTileViewModel( ) {
+        return new TileViewModel( new Configuration( ), _progressClock, _buildType, MoreExecutors.sameThreadExecutor( ) );
+    }
+
+    private static BuildData newRunningBuild( final int id, final int percentageComplete, final Duration timeLeft ) {
+        return new BuildData( id, BuildStatus.SUCCESS, BuildState.running, percentageComplete, Optional.empty( ), timeLeft );
+    }
+}